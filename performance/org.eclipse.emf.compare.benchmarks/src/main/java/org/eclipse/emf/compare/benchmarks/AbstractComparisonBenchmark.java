@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.diff.DefaultDiffEngine;
+import org.eclipse.emf.compare.diff.DiffBuilder;
+import org.eclipse.emf.compare.equi.DefaultEquiEngine;
+import org.eclipse.emf.compare.match.DefaultMatchEngine;
+import org.eclipse.emf.compare.req.DefaultReqEngine;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.compare.utils.UseIdentifiers;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Common parameters of the benchmarks, along with the steps of the comparison that precede the one being
+ * measured.
+ * <p>
+ * Every step of a comparison modifies it, so a benchmark of a given step has to recompute the previous ones
+ * before each of its invocations, in a setup method of {@link org.openjdk.jmh.annotations.Level#Invocation
+ * invocation} level. These steps are run with the same engines as the default {@link
+ * org.eclipse.emf.compare.EMFCompare} and in the same order, without post-processors.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", })
+public abstract class AbstractComparisonBenchmark {
+	/** The seed from which the compared models are derived. */
+	private static final long SEED = 20190101L;
+
+	/** The value of {@link #metamodel} for UML models. */
+	private static final String UML = "uml"; //$NON-NLS-1$
+
+	/** The metamodel of the compared models, either Ecore or UML. */
+	@Param({"ecore", UML, })
+	public String metamodel;
+
+	/** The number of classes of the compared models. */
+	@Param({"200", "2000", })
+	public int size;
+
+	/** The fraction of the classes of each side which are changed. */
+	@Param({"0.1", })
+	public double changeRatio;
+
+	/** Whether the comparison is three-way. */
+	@Param({"true", "false", })
+	public boolean threeWay;
+
+	/** Whether the compared objects have identifiers, or have to be matched through their similarity. */
+	@Param({"true", "false", })
+	public boolean identifiers;
+
+	/** The monitor passed to the engines. */
+	protected final Monitor monitor = new BasicMonitor();
+
+	/**
+	 * Generates new models to compare, according to the parameters of the benchmark.
+	 *
+	 * @return The scope of the comparison of these models.
+	 */
+	protected IComparisonScope createScope() {
+		if (UML.equals(metamodel)) {
+			return SyntheticUMLModels.createScope(size, changeRatio, threeWay, identifiers, SEED);
+		}
+		return SyntheticModels.createScope(size, changeRatio, threeWay, identifiers, SEED);
+	}
+
+	/**
+	 * Matches the content of the given scope.
+	 *
+	 * @param scope
+	 *            The scope to compare.
+	 * @return The comparison holding the matches.
+	 */
+	protected Comparison match(IComparisonScope scope) {
+		return DefaultMatchEngine.create(UseIdentifiers.WHEN_AVAILABLE).match(scope, monitor);
+	}
+
+	/**
+	 * Matches the content of the given scope, then computes the differences.
+	 *
+	 * @param scope
+	 *            The scope to compare.
+	 * @return The comparison holding the matches and differences.
+	 */
+	protected Comparison diff(IComparisonScope scope) {
+		final Comparison comparison = match(scope);
+		new DefaultDiffEngine(new DiffBuilder()).diff(comparison, monitor);
+		return comparison;
+	}
+
+	/**
+	 * Matches the content of the given scope, then computes the differences along with their requirements
+	 * and equivalences.
+	 *
+	 * @param scope
+	 *            The scope to compare.
+	 * @return The comparison, ready for the conflict detection.
+	 */
+	protected Comparison equivalences(IComparisonScope scope) {
+		final Comparison comparison = diff(scope);
+		new DefaultReqEngine().computeRequirements(comparison, monitor);
+		new DefaultEquiEngine().computeEquivalences(comparison, monitor);
+		return comparison;
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.compare.internal.utils.BigramProfile;
+import org.eclipse.emf.compare.internal.utils.DiffUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the dice coefficient of a string against many candidates, as computed by the
+ * {@link org.eclipse.emf.compare.match.eobject.EditionDistance} when looking for the closest match of an
+ * object, with and without reusing the bigram profiles of the strings.
+ * <p>
+ * The profiles of the candidates are computed once in the setup, as they would be found in the cache of the
+ * distance after the first comparisons. The effect of this cache on a whole matching can be measured with
+ * {@link MatchBenchmark} and <code>-p identifiers=false</code>.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigramProfileBenchmark {
+	/** The seed from which the strings are derived. */
+	private static final long SEED = 20190101L;
+
+	/** The letters of the generated strings. */
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz" //$NON-NLS-1$
+			+ "ABCDEFGHIJKLMNOPQRSTUVWXYZ"; //$NON-NLS-1$
+
+	/** The length of the compared strings. */
+	@Param({"12", "80", })
+	public int length;
+
+	/** The number of candidates each string is compared with. */
+	@Param({"100", })
+	public int candidates;
+
+	/** The string compared with the candidates. */
+	private String value;
+
+	/** The candidates. */
+	private String[] candidateValues;
+
+	/** The profiles of the candidates. */
+	private BigramProfile[] candidateProfiles;
+
+	/**
+	 * Generates the compared strings, each candidate being derived from the compared string by a few random
+	 * edits so that they share part of their bigrams.
+	 */
+	@Setup
+	public void setUp() {
+		final Random random = new Random(SEED);
+		value = randomString(random, length);
+		candidateValues = new String[candidates];
+		candidateProfiles = new BigramProfile[candidates];
+		for (int i = 0; i < candidates; i++) {
+			final char[] chars = value.toCharArray();
+			for (int j = 0; j < 1 + length / 4; j++) {
+				chars[random.nextInt(chars.length)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+			}
+			candidateValues[i] = new String(chars);
+			candidateProfiles[i] = new BigramProfile(candidateValues[i]);
+		}
+	}
+
+	/**
+	 * Computes the coefficients from the strings, tokenizing both of them for each candidate.
+	 *
+	 * @return The sum of the coefficients, so that they are not optimized away.
+	 */
+	@Benchmark
+	public double strings() {
+		double sum = 0;
+		for (String candidate : candidateValues) {
+			sum += DiffUtil.diceCoefficient(value, candidate);
+		}
+		return sum;
+	}
+
+	/**
+	 * Computes the coefficients from the profiles, the compared string being profiled once and those of the
+	 * candidates being already known.
+	 *
+	 * @return The sum of the coefficients, so that they are not optimized away.
+	 */
+	@Benchmark
+	public double profiles() {
+		final BigramProfile profile = new BigramProfile(value);
+		double sum = 0;
+		for (BigramProfile candidate : candidateProfiles) {
+			sum += DiffUtil.diceCoefficientOfProfiles(profile, candidate);
+		}
+		return sum;
+	}
+
+	/**
+	 * Generates a random string.
+	 *
+	 * @param random
+	 *            The source of randomness.
+	 * @param stringLength
+	 *            The length of the string.
+	 * @return The string.
+	 */
+	private static String randomString(Random random, int stringLength) {
+		final StringBuilder builder = new StringBuilder(stringLength);
+		for (int i = 0; i < stringLength; i++) {
+			builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures a whole comparison through the default {@link EMFCompare}, as a reference for the benchmarks of
+ * each of its steps.
+ */
+public class CompareBenchmark extends AbstractComparisonBenchmark {
+	/** The compared models. */
+	private IComparisonScope scope;
+
+	/** The comparator. */
+	private EMFCompare compare;
+
+	/**
+	 * Generates the models to compare.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+		compare = EMFCompare.builder().build();
+	}
+
+	/**
+	 * Compares the generated models.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison compare() {
+		return compare.compare(scope, monitor);
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.conflict.DefaultConflictDetector;
+import org.eclipse.emf.compare.conflict.IConflictDetector;
+import org.eclipse.emf.compare.conflict.MatchBasedConflictDetector;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the conflict detectors. Conflicts only exist in three-way comparisons, the runs of two-way
+ * comparisons only measure the fixed cost of the detectors.
+ */
+public class ConflictBenchmark extends AbstractComparisonBenchmark {
+	/** The detector to measure, either the default one or the match based one used by EMFCompare. */
+	@Param({"matchBased", "default", })
+	public String detector;
+
+	/** The compared models. */
+	private IComparisonScope scope;
+
+	/** The comparison, ready for the conflict detection, computed anew before each invocation. */
+	private Comparison comparison;
+
+	/**
+	 * Generates the models to compare.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+	}
+
+	/**
+	 * Computes the differences of the generated models, their requirements and equivalences.
+	 */
+	@Setup(Level.Invocation)
+	public void prepare() {
+		comparison = equivalences(scope);
+	}
+
+	/**
+	 * Detects the conflicts between the differences.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison conflicts() {
+		final IConflictDetector conflictDetector;
+		if ("default".equals(detector)) { //$NON-NLS-1$
+			conflictDetector = new DefaultConflictDetector();
+		} else {
+			conflictDetector = new MatchBasedConflictDetector();
+		}
+		conflictDetector.detect(comparison, monitor);
+		return comparison;
+	}
+}
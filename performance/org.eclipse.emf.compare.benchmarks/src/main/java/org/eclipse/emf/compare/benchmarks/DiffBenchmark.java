@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.diff.DefaultDiffEngine;
+import org.eclipse.emf.compare.diff.DiffBuilder;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the {@link DefaultDiffEngine}.
+ */
+public class DiffBenchmark extends AbstractComparisonBenchmark {
+	/** The compared models. */
+	private IComparisonScope scope;
+
+	/** The matched comparison, computed anew before each invocation. */
+	private Comparison comparison;
+
+	/**
+	 * Generates the models to compare.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+	}
+
+	/**
+	 * Matches the generated models.
+	 */
+	@Setup(Level.Invocation)
+	public void prepare() {
+		comparison = match(scope);
+	}
+
+	/**
+	 * Computes the differences of the matched comparison.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison diff() {
+		new DefaultDiffEngine(new DiffBuilder()).diff(comparison, monitor);
+		return comparison;
+	}
+}
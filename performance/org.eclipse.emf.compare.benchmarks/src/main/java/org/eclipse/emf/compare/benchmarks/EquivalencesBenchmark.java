@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.equi.DefaultEquiEngine;
+import org.eclipse.emf.compare.req.DefaultReqEngine;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the {@link DefaultEquiEngine}.
+ */
+public class EquivalencesBenchmark extends AbstractComparisonBenchmark {
+	/** The compared models. */
+	private IComparisonScope scope;
+
+	/** The comparison holding the differences and requirements, computed anew before each invocation. */
+	private Comparison comparison;
+
+	/**
+	 * Generates the models to compare.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+	}
+
+	/**
+	 * Computes the differences of the generated models and their requirements.
+	 */
+	@Setup(Level.Invocation)
+	public void prepare() {
+		comparison = diff(scope);
+		new DefaultReqEngine().computeRequirements(comparison, monitor);
+	}
+
+	/**
+	 * Computes the equivalences of the differences.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison equivalences() {
+		new DefaultEquiEngine().computeEquivalences(comparison, monitor);
+		return comparison;
+	}
+}
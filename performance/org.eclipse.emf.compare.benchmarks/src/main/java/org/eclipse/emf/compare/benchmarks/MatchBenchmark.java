@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the {@link org.eclipse.emf.compare.match.DefaultMatchEngine}. Matching does not modify the
+ * compared models, the same models are matched by every invocation.
+ */
+public class MatchBenchmark extends AbstractComparisonBenchmark {
+	/** The scope to match. */
+	private IComparisonScope scope;
+
+	/**
+	 * Generates the models to match.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+	}
+
+	/**
+	 * Matches the generated models.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison match() {
+		return match(scope);
+	}
+}
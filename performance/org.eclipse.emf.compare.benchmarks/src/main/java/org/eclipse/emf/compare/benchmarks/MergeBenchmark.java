@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import static com.google.common.base.Predicates.and;
+import static org.eclipse.emf.compare.utils.EMFComparePredicates.fromSide;
+import static org.eclipse.emf.compare.utils.EMFComparePredicates.hasNoDirectOrIndirectConflict;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ConflictKind;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.merge.BatchMerger;
+import org.eclipse.emf.compare.merge.IMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the {@link BatchMerger} accepting all of the changes of the right side which are not in conflict.
+ * Merging modifies the compared models, they are generated and compared anew before each invocation.
+ */
+public class MergeBenchmark extends AbstractComparisonBenchmark {
+	/** The registry of the mergers, shared by all invocations. */
+	private IMerger.Registry registry;
+
+	/** The comparison of the models to merge. */
+	private Comparison comparison;
+
+	/** The differences to merge. */
+	private List<Diff> differences;
+
+	/**
+	 * Creates the registry of the mergers.
+	 */
+	@Setup
+	public void setUp() {
+		registry = IMerger.RegistryImpl.createStandaloneInstance();
+	}
+
+	/**
+	 * Generates new models and compares them.
+	 */
+	@Setup(Level.Invocation)
+	public void prepare() {
+		comparison = EMFCompare.builder().build().compare(createScope());
+		differences = Lists.newArrayList(Iterables.filter(comparison.getDifferences(), and(
+				fromSide(DifferenceSource.RIGHT), hasNoDirectOrIndirectConflict(ConflictKind.REAL))));
+	}
+
+	/**
+	 * Merges the changes of the right side into the left side.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison merge() {
+		new BatchMerger(registry).copyAllRightToLeft(differences, monitor);
+		return comparison;
+	}
+}
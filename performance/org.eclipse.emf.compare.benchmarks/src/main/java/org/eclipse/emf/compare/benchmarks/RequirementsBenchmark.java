@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.req.DefaultReqEngine;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Measures the {@link DefaultReqEngine}.
+ */
+public class RequirementsBenchmark extends AbstractComparisonBenchmark {
+	/** The compared models. */
+	private IComparisonScope scope;
+
+	/** The comparison holding the differences, computed anew before each invocation. */
+	private Comparison comparison;
+
+	/**
+	 * Generates the models to compare.
+	 */
+	@Setup
+	public void setUp() {
+		scope = createScope();
+	}
+
+	/**
+	 * Computes the differences of the generated models.
+	 */
+	@Setup(Level.Invocation)
+	public void prepare() {
+		comparison = diff(scope);
+	}
+
+	/**
+	 * Computes the requirements of the differences.
+	 *
+	 * @return The comparison, so that it is not optimized away.
+	 */
+	@Benchmark
+	public Comparison requirements() {
+		new DefaultReqEngine().computeRequirements(comparison, monitor);
+		return comparison;
+	}
+}
@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import com.google.common.collect.Lists;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * Generates the Ecore models compared by the benchmarks.
+ * <p>
+ * A base model of the requested size is generated, then each side is derived from it by applying random
+ * changes to a fraction of its classes: renaming them, toggling their abstract flag, adding or removing
+ * features, changing their super types, retyping their references or moving them to another package. For
+ * three-way comparisons, the base model is the origin and both sides are changed independently, some of these
+ * changes ending up in conflict. Everything is derived from a seed: the same parameters always produce the
+ * same models.
+ * </p>
+ */
+public final class SyntheticModels {
+	/** Number of classes of each generated package. */
+	private static final int CLASSES_PER_PACKAGE = 50;
+
+	/** The maximum number of attributes of each generated class. */
+	private static final int MAX_ATTRIBUTES = 4;
+
+	/** The maximum number of references of each generated class. */
+	private static final int MAX_REFERENCES = 3;
+
+	/** The types of the generated attributes. */
+	private static final EDataType[] ATTRIBUTE_TYPES = {EcorePackage.Literals.ESTRING,
+			EcorePackage.Literals.EINT, EcorePackage.Literals.EBOOLEAN, EcorePackage.Literals.EDOUBLE, };
+
+	/** The number of different changes {@link #change(EClass, List, Random)} can apply. */
+	private static final int CHANGE_KINDS = 7;
+
+	/** Constructor for this utility class. */
+	private SyntheticModels() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Generates the scope of a comparison.
+	 *
+	 * @param classes
+	 *            The number of classes of the base model.
+	 * @param changeRatio
+	 *            The fraction of the classes of each side which will be changed.
+	 * @param threeWay
+	 *            <code>true</code> for a three-way comparison which origin is the base model,
+	 *            <code>false</code> to compare the base model with a changed version of it.
+	 * @param identifiers
+	 *            <code>true</code> if the generated objects should have XMI identifiers, in which case they
+	 *            will be matched through these identifiers, <code>false</code> to have them matched through
+	 *            their similarity.
+	 * @param seed
+	 *            The seed from which the models are derived.
+	 * @return The scope of the comparison of the generated models.
+	 */
+	public static IComparisonScope createScope(int classes, double changeRatio, boolean threeWay,
+			boolean identifiers, long seed) {
+		final Random random = new Random(seed);
+		final Resource base = createResource("origin.ecore"); //$NON-NLS-1$
+		base.getContents().add(createPackage(classes, random));
+		if (identifiers) {
+			assignIdentifiers(base, "_"); //$NON-NLS-1$
+		}
+
+		final Resource left = derive(base, "left", changeRatio, identifiers, random); //$NON-NLS-1$
+		if (threeWay) {
+			final Resource right = derive(base, "right", changeRatio, identifiers, random); //$NON-NLS-1$
+			return new DefaultComparisonScope(left, right, base);
+		}
+		return new DefaultComparisonScope(left, base, null);
+	}
+
+	/**
+	 * Generates a package and its subpackages holding the given number of classes.
+	 *
+	 * @param classes
+	 *            The number of classes to generate.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The root package.
+	 */
+	public static EPackage createPackage(int classes, Random random) {
+		final EPackage root = EcoreFactory.eINSTANCE.createEPackage();
+		root.setName("root"); //$NON-NLS-1$
+		root.setNsPrefix("root"); //$NON-NLS-1$
+		root.setNsURI("http://www.eclipse.org/emf/compare/benchmarks/root"); //$NON-NLS-1$
+
+		final List<EClass> allClasses = Lists.newArrayList();
+		EPackage current = null;
+		for (int i = 0; i < classes; i++) {
+			if (i % CLASSES_PER_PACKAGE == 0) {
+				current = EcoreFactory.eINSTANCE.createEPackage();
+				current.setName("package" + root.getESubpackages().size()); //$NON-NLS-1$
+				current.setNsPrefix(current.getName());
+				current.setNsURI(root.getNsURI() + '/' + current.getName());
+				root.getESubpackages().add(current);
+			}
+			final EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+			eClass.setName("Class" + i); //$NON-NLS-1$
+			eClass.setAbstract(random.nextInt(10) == 0);
+			final int attributes = random.nextInt(MAX_ATTRIBUTES + 1);
+			for (int j = 0; j < attributes; j++) {
+				eClass.getEStructuralFeatures().add(createAttribute("attribute" + j, random)); //$NON-NLS-1$
+			}
+			current.getEClassifiers().add(eClass);
+			allClasses.add(eClass);
+		}
+
+		// References and super types can only be created once all classes exist
+		for (EClass eClass : allClasses) {
+			final int references = random.nextInt(MAX_REFERENCES + 1);
+			for (int j = 0; j < references; j++) {
+				eClass.getEStructuralFeatures().add(
+						createReference("reference" + j, pick(allClasses, random), random)); //$NON-NLS-1$
+			}
+			if (random.nextInt(4) == 0) {
+				final EClass superType = pick(allClasses, random);
+				if (superType != eClass && !superType.getEAllSuperTypes().contains(eClass)) {
+					eClass.getESuperTypes().add(superType);
+				}
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Copies the given resource and changes a fraction of the classes of the copy.
+	 *
+	 * @param base
+	 *            The resource to copy.
+	 * @param name
+	 *            Name of the new resource.
+	 * @param changeRatio
+	 *            The fraction of the classes which will be changed.
+	 * @param identifiers
+	 *            <code>true</code> if the copied objects should keep the identifiers of their original and
+	 *            the new ones be given new identifiers.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The changed copy.
+	 */
+	private static Resource derive(Resource base, String name, double changeRatio, boolean identifiers,
+			Random random) {
+		final Resource resource = createResource(name + ".ecore"); //$NON-NLS-1$
+		final EPackage root = (EPackage)copy(base, resource, identifiers);
+
+		final List<EClass> allClasses = Lists.newArrayList();
+		for (EPackage subPackage : root.getESubpackages()) {
+			for (EClassifier classifier : subPackage.getEClassifiers()) {
+				allClasses.add((EClass)classifier);
+			}
+		}
+		for (EClass eClass : Lists.newArrayList(allClasses)) {
+			if (random.nextDouble() < changeRatio) {
+				change(eClass, allClasses, random);
+			}
+		}
+
+		if (identifiers) {
+			assignIdentifiers(resource, '_' + name);
+		}
+		return resource;
+	}
+
+	/**
+	 * Copies the root of the base resource in the given empty resource.
+	 *
+	 * @param base
+	 *            The resource to copy.
+	 * @param resource
+	 *            The resource which will hold the copy.
+	 * @param identifiers
+	 *            <code>true</code> if the copied objects should keep the identifiers of their original.
+	 * @return The copy of the root.
+	 */
+	static EObject copy(Resource base, Resource resource, boolean identifiers) {
+		final EcoreUtil.Copier copier = new EcoreUtil.Copier();
+		final EObject root = copier.copy(base.getContents().get(0));
+		copier.copyReferences();
+		resource.getContents().add(root);
+		if (identifiers) {
+			for (Map.Entry<EObject, EObject> entry : copier.entrySet()) {
+				((XMIResource)resource).setID(entry.getValue(), ((XMIResource)base).getID(entry.getKey()));
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Gives an identifier to all objects of the given resource that do not have one yet.
+	 *
+	 * @param resource
+	 *            The resource.
+	 * @param prefix
+	 *            Prefix of the new identifiers.
+	 */
+	static void assignIdentifiers(Resource resource, String prefix) {
+		final XMIResource xmiResource = (XMIResource)resource;
+		int id = 0;
+		final Iterator<EObject> contents = resource.getAllContents();
+		while (contents.hasNext()) {
+			final EObject eObject = contents.next();
+			if (xmiResource.getID(eObject) == null) {
+				xmiResource.setID(eObject, prefix + id++);
+			}
+		}
+	}
+
+	/**
+	 * Applies a random change to the given class.
+	 *
+	 * @param eClass
+	 *            The class to change.
+	 * @param allClasses
+	 *            All classes of the model.
+	 * @param random
+	 *            The source of randomness.
+	 */
+	private static void change(EClass eClass, List<EClass> allClasses, Random random) {
+		final List<EStructuralFeature> features = eClass.getEStructuralFeatures();
+		switch (random.nextInt(CHANGE_KINDS)) {
+			case 0:
+				eClass.setName(eClass.getName() + "Renamed"); //$NON-NLS-1$
+				break;
+			case 1:
+				eClass.setAbstract(!eClass.isAbstract());
+				break;
+			case 2:
+				features.add(createAttribute("added" + features.size(), random)); //$NON-NLS-1$
+				break;
+			case 3:
+				if (!features.isEmpty()) {
+					EcoreUtil.delete(features.get(random.nextInt(features.size())));
+				}
+				break;
+			case 4:
+				final EClass superType = pick(allClasses, random);
+				if (superType != eClass && !superType.getEAllSuperTypes().contains(eClass)) {
+					eClass.getESuperTypes().clear();
+					eClass.getESuperTypes().add(superType);
+				}
+				break;
+			case 5:
+				for (EReference reference : eClass.getEReferences()) {
+					reference.setEType(pick(allClasses, random));
+				}
+				break;
+			default:
+				final EPackage target = pick(allClasses, random).getEPackage();
+				target.getEClassifiers().add(eClass);
+				break;
+		}
+	}
+
+	/**
+	 * Creates an attribute of a random type.
+	 *
+	 * @param name
+	 *            Name of the attribute.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The new attribute.
+	 */
+	private static EAttribute createAttribute(String name, Random random) {
+		final EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(ATTRIBUTE_TYPES[random.nextInt(ATTRIBUTE_TYPES.length)]);
+		if (random.nextInt(5) == 0) {
+			attribute.setUpperBound(-1);
+		}
+		return attribute;
+	}
+
+	/**
+	 * Creates a reference to the given class.
+	 *
+	 * @param name
+	 *            Name of the reference.
+	 * @param type
+	 *            Type of the reference.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The new reference.
+	 */
+	private static EReference createReference(String name, EClass type, Random random) {
+		final EReference reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName(name);
+		reference.setEType(type);
+		if (random.nextBoolean()) {
+			reference.setUpperBound(-1);
+		}
+		return reference;
+	}
+
+	/**
+	 * Creates an empty XMI resource.
+	 *
+	 * @param fileName
+	 *            Name of the resource's file.
+	 * @return The new resource.
+	 */
+	static Resource createResource(String fileName) {
+		return new XMIResourceImpl(URI.createURI("synthetic/" + fileName)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Picks a random element of the given list.
+	 *
+	 * @param list
+	 *            The list to pick from.
+	 * @param random
+	 *            The source of randomness.
+	 * @param <T>
+	 *            Type of the list's elements.
+	 * @return A random element of the list.
+	 */
+	static <T> T pick(List<T> list, Random random) {
+		return list.get(random.nextInt(list.size()));
+	}
+}
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.benchmarks;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.uml.AggregationKind;
+import org.eclipse.uml2.uml.Class;
+import org.eclipse.uml2.uml.Model;
+import org.eclipse.uml2.uml.Package;
+import org.eclipse.uml2.uml.PackageableElement;
+import org.eclipse.uml2.uml.PrimitiveType;
+import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.Type;
+import org.eclipse.uml2.uml.UMLFactory;
+
+/**
+ * Generates the UML models compared by the benchmarks.
+ * <p>
+ * These models are built like the Ecore models of {@link SyntheticModels}, with the UML counterparts of their
+ * elements: classes owning properties and operations, generalizations and associations between these
+ * classes. A fraction of the classes of each side is then changed at random. The UML metamodel has many more
+ * features than Ecore, most of them derived, and references through associations go both ways: this stresses
+ * the feature filtering and the handling of opposite references of the comparison. Only the generic engines
+ * are run on these models, not the UML specific extensions.
+ * </p>
+ */
+public final class SyntheticUMLModels {
+	/** Number of classes of each generated package. */
+	private static final int CLASSES_PER_PACKAGE = 50;
+
+	/** The maximum number of attributes of each generated class. */
+	private static final int MAX_ATTRIBUTES = 4;
+
+	/** The maximum number of operations of each generated class. */
+	private static final int MAX_OPERATIONS = 2;
+
+	/** The maximum number of associations starting from each generated class. */
+	private static final int MAX_ASSOCIATIONS = 2;
+
+	/** The names of the primitive types of the generated models. */
+	@SuppressWarnings("nls")
+	private static final String[] PRIMITIVE_TYPES = {"String", "Integer", "Boolean", "Real", };
+
+	/** The number of different changes {@link #change(Class, List, List, Random)} can apply. */
+	private static final int CHANGE_KINDS = 7;
+
+	/** Constructor for this utility class. */
+	private SyntheticUMLModels() {
+		// prevents instantiation
+	}
+
+	/**
+	 * Generates the scope of a comparison.
+	 *
+	 * @param classes
+	 *            The number of classes of the base model.
+	 * @param changeRatio
+	 *            The fraction of the classes of each side which will be changed.
+	 * @param threeWay
+	 *            <code>true</code> for a three-way comparison which origin is the base model,
+	 *            <code>false</code> to compare the base model with a changed version of it.
+	 * @param identifiers
+	 *            <code>true</code> if the generated objects should have XMI identifiers, in which case they
+	 *            will be matched through these identifiers, <code>false</code> to have them matched through
+	 *            their similarity.
+	 * @param seed
+	 *            The seed from which the models are derived.
+	 * @return The scope of the comparison of the generated models.
+	 */
+	public static IComparisonScope createScope(int classes, double changeRatio, boolean threeWay,
+			boolean identifiers, long seed) {
+		final Random random = new Random(seed);
+		final Resource base = SyntheticModels.createResource("origin.uml"); //$NON-NLS-1$
+		base.getContents().add(createModel(classes, random));
+		if (identifiers) {
+			SyntheticModels.assignIdentifiers(base, "_"); //$NON-NLS-1$
+		}
+
+		final Resource left = derive(base, "left", changeRatio, identifiers, random); //$NON-NLS-1$
+		if (threeWay) {
+			final Resource right = derive(base, "right", changeRatio, identifiers, random); //$NON-NLS-1$
+			return new DefaultComparisonScope(left, right, base);
+		}
+		return new DefaultComparisonScope(left, base, null);
+	}
+
+	/**
+	 * Generates a model and its packages holding the given number of classes.
+	 *
+	 * @param classes
+	 *            The number of classes to generate.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The model.
+	 */
+	public static Model createModel(int classes, Random random) {
+		final Model model = UMLFactory.eINSTANCE.createModel();
+		model.setName("root"); //$NON-NLS-1$
+		final List<Type> primitiveTypes = Lists.newArrayList();
+		for (String name : PRIMITIVE_TYPES) {
+			primitiveTypes.add(model.createOwnedPrimitiveType(name));
+		}
+
+		final List<Class> allClasses = Lists.newArrayList();
+		Package current = null;
+		for (int i = 0; i < classes; i++) {
+			if (i % CLASSES_PER_PACKAGE == 0) {
+				current = model.createNestedPackage("package" + i / CLASSES_PER_PACKAGE); //$NON-NLS-1$
+			}
+			final boolean isAbstract = random.nextInt(10) == 0;
+			final Class umlClass = current.createOwnedClass("Class" + i, isAbstract); //$NON-NLS-1$
+			final int attributes = random.nextInt(MAX_ATTRIBUTES + 1);
+			for (int j = 0; j < attributes; j++) {
+				createAttribute(umlClass, "attribute" + j, primitiveTypes, random); //$NON-NLS-1$
+			}
+			final int operations = random.nextInt(MAX_OPERATIONS + 1);
+			for (int j = 0; j < operations; j++) {
+				umlClass.createOwnedOperation("operation" + j, //$NON-NLS-1$
+						ECollections.singletonEList("parameter"), //$NON-NLS-1$
+						ECollections.singletonEList(SyntheticModels.pick(primitiveTypes, random)), null);
+			}
+			allClasses.add(umlClass);
+		}
+
+		// Associations and generalizations can only be created once all classes exist
+		for (Class umlClass : allClasses) {
+			final int associations = random.nextInt(MAX_ASSOCIATIONS + 1);
+			for (int j = 0; j < associations; j++) {
+				final Class target = SyntheticModels.pick(allClasses, random);
+				createAssociation(umlClass, "end" + j, target, random); //$NON-NLS-1$
+			}
+			if (random.nextInt(4) == 0) {
+				final Class general = SyntheticModels.pick(allClasses, random);
+				if (general != umlClass && !general.allParents().contains(umlClass)) {
+					umlClass.createGeneralization(general);
+				}
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * Copies the given resource and changes a fraction of the classes of the copy.
+	 *
+	 * @param base
+	 *            The resource to copy.
+	 * @param name
+	 *            Name of the new resource.
+	 * @param changeRatio
+	 *            The fraction of the classes which will be changed.
+	 * @param identifiers
+	 *            <code>true</code> if the copied objects should keep the identifiers of their original and
+	 *            the new ones be given new identifiers.
+	 * @param random
+	 *            The source of randomness.
+	 * @return The changed copy.
+	 */
+	private static Resource derive(Resource base, String name, double changeRatio, boolean identifiers,
+			Random random) {
+		final Resource resource = SyntheticModels.createResource(name + ".uml"); //$NON-NLS-1$
+		final Model model = (Model)SyntheticModels.copy(base, resource, identifiers);
+
+		final List<Type> primitiveTypes = Lists.newArrayList();
+		final List<Class> allClasses = Lists.newArrayList();
+		for (PackageableElement element : model.getPackagedElements()) {
+			if (element instanceof PrimitiveType) {
+				primitiveTypes.add((PrimitiveType)element);
+			} else if (element instanceof Package) {
+				for (PackageableElement type : ((Package)element).getPackagedElements()) {
+					if (type instanceof Class) {
+						allClasses.add((Class)type);
+					}
+				}
+			}
+		}
+		for (Class umlClass : Lists.newArrayList(allClasses)) {
+			if (random.nextDouble() < changeRatio) {
+				change(umlClass, allClasses, primitiveTypes, random);
+			}
+		}
+
+		if (identifiers) {
+			SyntheticModels.assignIdentifiers(resource, '_' + name);
+		}
+		return resource;
+	}
+
+	/**
+	 * Applies a random change to the given class.
+	 *
+	 * @param umlClass
+	 *            The class to change.
+	 * @param allClasses
+	 *            All classes of the model.
+	 * @param primitiveTypes
+	 *            The primitive types of the model.
+	 * @param random
+	 *            The source of randomness.
+	 */
+	private static void change(Class umlClass, List<Class> allClasses, List<Type> primitiveTypes,
+			Random random) {
+		final List<Property> attributes = umlClass.getOwnedAttributes();
+		switch (random.nextInt(CHANGE_KINDS)) {
+			case 0:
+				umlClass.setName(umlClass.getName() + "Renamed"); //$NON-NLS-1$
+				break;
+			case 1:
+				umlClass.setIsAbstract(!umlClass.isAbstract());
+				break;
+			case 2:
+				createAttribute(umlClass, "added" + attributes.size(), primitiveTypes, random); //$NON-NLS-1$
+				break;
+			case 3:
+				if (!attributes.isEmpty()) {
+					EcoreUtil.delete(attributes.get(random.nextInt(attributes.size())));
+				}
+				break;
+			case 4:
+				final Class general = SyntheticModels.pick(allClasses, random);
+				if (general != umlClass && !general.allParents().contains(umlClass)) {
+					umlClass.getGeneralizations().clear();
+					umlClass.createGeneralization(general);
+				}
+				break;
+			case 5:
+				for (Property attribute : attributes) {
+					if (attribute.getAssociation() == null) {
+						attribute.setType(SyntheticModels.pick(primitiveTypes, random));
+					}
+				}
+				break;
+			default:
+				final Package target = SyntheticModels.pick(allClasses, random).getPackage();
+				target.getPackagedElements().add(umlClass);
+				break;
+		}
+	}
+
+	/**
+	 * Creates an attribute of a random primitive type in the given class.
+	 *
+	 * @param umlClass
+	 *            The class owning the new attribute.
+	 * @param name
+	 *            Name of the attribute.
+	 * @param primitiveTypes
+	 *            The primitive types of the model.
+	 * @param random
+	 *            The source of randomness.
+	 */
+	private static void createAttribute(Class umlClass, String name, List<Type> primitiveTypes,
+			Random random) {
+		final Property attribute = umlClass.createOwnedAttribute(name,
+				SyntheticModels.pick(primitiveTypes, random));
+		if (random.nextInt(5) == 0) {
+			attribute.setUpper(-1);
+		}
+	}
+
+	/**
+	 * Creates an association from the given class to the given type, navigable from the class only.
+	 *
+	 * @param umlClass
+	 *            The class from which the association starts.
+	 * @param name
+	 *            Name of the end of the association typed by the target.
+	 * @param target
+	 *            The type at the other end of the association.
+	 * @param random
+	 *            The source of randomness.
+	 */
+	private static void createAssociation(Class umlClass, String name, Class target, Random random) {
+		final int upper;
+		if (random.nextBoolean()) {
+			upper = -1;
+		} else {
+			upper = 1;
+		}
+		umlClass.createAssociation(true, AggregationKind.NONE_LITERAL, name, 0, upper, target, false,
+				AggregationKind.NONE_LITERAL, "source", 0, 1); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class BigramProfileBenchmark_jmhType extends BigramProfileBenchmark_jmhType_B3 {
+}
+
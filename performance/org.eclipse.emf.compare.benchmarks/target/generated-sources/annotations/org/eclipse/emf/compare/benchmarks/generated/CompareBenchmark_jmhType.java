@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class CompareBenchmark_jmhType extends CompareBenchmark_jmhType_B3 {
+}
+
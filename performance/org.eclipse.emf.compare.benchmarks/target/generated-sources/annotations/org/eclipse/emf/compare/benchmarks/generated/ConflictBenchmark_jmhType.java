@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class ConflictBenchmark_jmhType extends ConflictBenchmark_jmhType_B3 {
+}
+
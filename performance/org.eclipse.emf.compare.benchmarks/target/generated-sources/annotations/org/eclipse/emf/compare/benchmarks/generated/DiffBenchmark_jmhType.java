@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class DiffBenchmark_jmhType extends DiffBenchmark_jmhType_B3 {
+}
+
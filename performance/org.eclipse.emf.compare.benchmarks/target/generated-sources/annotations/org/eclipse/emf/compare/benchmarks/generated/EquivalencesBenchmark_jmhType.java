@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class EquivalencesBenchmark_jmhType extends EquivalencesBenchmark_jmhType_B3 {
+}
+
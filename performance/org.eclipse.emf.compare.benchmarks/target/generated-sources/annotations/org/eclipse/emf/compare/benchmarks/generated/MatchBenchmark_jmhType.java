@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class MatchBenchmark_jmhType extends MatchBenchmark_jmhType_B3 {
+}
+
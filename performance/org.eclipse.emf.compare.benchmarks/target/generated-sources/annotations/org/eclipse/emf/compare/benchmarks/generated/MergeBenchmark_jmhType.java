@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class MergeBenchmark_jmhType extends MergeBenchmark_jmhType_B3 {
+}
+
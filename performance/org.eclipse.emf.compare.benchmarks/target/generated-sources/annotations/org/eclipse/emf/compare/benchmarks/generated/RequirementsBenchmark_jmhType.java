@@ -0,0 +1,4 @@
+package org.eclipse.emf.compare.benchmarks.generated;
+public class RequirementsBenchmark_jmhType extends RequirementsBenchmark_jmhType_B3 {
+}
+
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2017 Obeo and others.
+ * Copyright (c) 2013, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,7 +14,6 @@ package org.eclipse.emf.compare.diagram.internal;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.eclipse.emf.common.util.Monitor;
 import org.eclipse.emf.compare.Comparison;
@@ -23,6 +22,7 @@ import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.diagram.internal.extensions.DiagramDiff;
 import org.eclipse.emf.compare.diagram.internal.factories.DiagramExtensionFactoryRegistry;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactoryDispatcher;
 import org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory;
 import org.eclipse.emf.compare.postprocessor.IPostProcessor;
 
@@ -34,7 +34,7 @@ import org.eclipse.emf.compare.postprocessor.IPostProcessor;
 public class CompareDiagramPostProcessor implements IPostProcessor {
 
 	/** Registry of diagram difference extension factories. */
-	private Set<IChangeFactory> diagramExtensionFactories;
+	private ChangeFactoryDispatcher diagramExtensionFactories;
 
 	/** Diagram comparison configuration. */
 	private CompareDiagramConfiguration configuration;
@@ -103,7 +103,8 @@ public class CompareDiagramPostProcessor implements IPostProcessor {
 	public void postComparison(Comparison comparison, Monitor monitor) {
 		final Map<Class<? extends Diff>, IChangeFactory> mapDiagramExtensionFactories = DiagramExtensionFactoryRegistry
 				.createExtensionFactories(configuration);
-		diagramExtensionFactories = new LinkedHashSet<IChangeFactory>(mapDiagramExtensionFactories.values());
+		diagramExtensionFactories = new ChangeFactoryDispatcher(
+				new LinkedHashSet<IChangeFactory>(mapDiagramExtensionFactories.values()));
 
 		// Creation of the diagram difference extensions
 		List<Diff> differences = comparison.getDifferences();
@@ -163,7 +164,7 @@ public class CompareDiagramPostProcessor implements IPostProcessor {
 	 *            The current candidate difference for the build of the diagram extension.
 	 */
 	private void applyManagedTypes(Diff element) {
-		for (IChangeFactory factory : diagramExtensionFactories) {
+		for (IChangeFactory factory : diagramExtensionFactories.getCandidates(element)) {
 			if (factory.handles(element)) {
 				final Diff extension = factory.create(element);
 				final Match match = factory.getParentMatch(element);
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.ide.utils.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.graph.IGraph;
+import org.eclipse.emf.compare.ide.internal.utils.PartitionedStorageComparisonScope;
+import org.eclipse.emf.compare.internal.utils.Graph;
+import org.eclipse.emf.compare.internal.utils.ReadOnlyGraph;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings({"nls", "restriction" })
+public class PartitionedStorageComparisonScopeTest {
+
+	private final URIConverter converter = new ExtensibleURIConverterImpl();
+
+	private URI a;
+
+	private URI b;
+
+	private URI c;
+
+	private URI d;
+
+	private URI e;
+
+	private IGraph<URI> graph;
+
+	@Before
+	public void setUp() {
+		a = uri("a");
+		b = uri("b");
+		c = uri("c");
+		d = uri("d");
+		e = uri("e");
+		graph = new Graph<URI>();
+		for (URI uri : Arrays.asList(a, b, c, d, e)) {
+			graph.add(uri);
+		}
+	}
+
+	@Test
+	public void testWithoutDependencies() {
+		List<List<URI>> partitions = PartitionedStorageComparisonScope
+				.computePartitions(Arrays.asList(a, b, c, d, e), null, 2, converter);
+
+		assertEquals(Arrays.asList(Arrays.asList(a, b), Arrays.asList(c, d), Arrays.asList(e)),
+				partitions);
+	}
+
+	@Test
+	public void testReferencingResourcesShareTheirPartition() {
+		// a references d, which would be in another partition by traversal order
+		graph.addChildren(a, Collections.singleton(d));
+
+		List<List<URI>> partitions = PartitionedStorageComparisonScope.computePartitions(
+				Arrays.asList(a, b, c, d, e), ReadOnlyGraph.toReadOnlyGraph(graph), 2, converter);
+
+		assertEquals(Arrays.asList(Arrays.asList(a, d), Arrays.asList(b, c), Arrays.asList(e)),
+				partitions);
+	}
+
+	@Test
+	public void testResourcesConnectedThroughOutOfScopeResource() {
+		// a and e are fragments of a root which is not part of the scope
+		URI root = uri("root");
+		graph.add(root);
+		graph.addChildren(root, Collections.singleton(a));
+		graph.addChildren(root, Collections.singleton(e));
+
+		List<List<URI>> partitions = PartitionedStorageComparisonScope.computePartitions(
+				Arrays.asList(a, b, c, d, e), ReadOnlyGraph.toReadOnlyGraph(graph), 3, converter);
+
+		assertEquals(Arrays.asList(Arrays.asList(a, e, b), Arrays.asList(c, d)), partitions);
+	}
+
+	@Test
+	public void testComponentLargerThanPartitionSize() {
+		graph.addChildren(b, Collections.singleton(c));
+		graph.addChildren(c, Collections.singleton(d));
+
+		List<List<URI>> partitions = PartitionedStorageComparisonScope.computePartitions(
+				Arrays.asList(a, b, c, d, e), ReadOnlyGraph.toReadOnlyGraph(graph), 2, converter);
+
+		assertEquals(Arrays.asList(Arrays.asList(a), Arrays.asList(b, c, d), Arrays.asList(e)),
+				partitions);
+	}
+
+	private static URI uri(String name) {
+		return URI.createPlatformResourceURI("/project/" + name + ".xmi", true);
+	}
+}
@@ -12,6 +12,7 @@
 package org.eclipse.emf.compare.ide.ui.tests.command;
 
 import static com.google.common.base.Predicates.and;
+import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.size;
 import static org.eclipse.emf.compare.DifferenceState.DISCARDED;
@@ -21,11 +22,15 @@ import static org.eclipse.emf.compare.utils.EMFComparePredicates.fromSide;
 import static org.eclipse.emf.compare.utils.EMFComparePredicates.hasState;
 import static org.eclipse.emf.compare.utils.EMFComparePredicates.ofKind;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.EList;
@@ -33,6 +38,7 @@ import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.DifferenceState;
 import org.eclipse.emf.compare.EMFCompare;
 import org.eclipse.emf.compare.command.impl.MergeAllNonConflictingCommand;
 import org.eclipse.emf.compare.domain.impl.EMFCompareEditingDomain;
@@ -43,12 +49,17 @@ import org.eclipse.emf.compare.merge.DiffRelationshipComputer;
 import org.eclipse.emf.compare.merge.IMerger;
 import org.eclipse.emf.compare.scope.DefaultComparisonScope;
 import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.change.util.ChangeRecorder;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.junit.Before;
 import org.junit.Test;
 
-@SuppressWarnings({"restriction", "unchecked" })
+@SuppressWarnings({"restriction", "unchecked", "nls" })
 public class MergeAllCommandTests {
 
 	private Resource leftResource;
@@ -404,4 +415,56 @@ public class MergeAllCommandTests {
 		command.dispose();
 		editingDomain.dispose();
 	}
+
+	@Test
+	public void testMergeAllNonConflictingWithConflictsLikeTheListOfAllDifferences() {
+		// Merging all the differences of a comparison walks the dependency graph of its diffs, merging a list
+		// of differences asks the mergers for the relationships of each diff
+		for (MergeMode mergeMode : new MergeMode[] {MergeMode.LEFT_TO_RIGHT, MergeMode.RIGHT_TO_LEFT, }) {
+			boolean leftToRight = mergeMode == MergeMode.LEFT_TO_RIGHT;
+			Comparison comparison = createConflictingComparison();
+			Comparison sameComparison = createConflictingComparison();
+			assertFalse(comparison.getConflicts().isEmpty());
+
+			new MergeNonConflictingRunnable(true, true, mergeMode,
+					new DiffRelationshipComputer(mergerRegistry)).merge(comparison, leftToRight,
+							mergerRegistry);
+			new MergeNonConflictingRunnable(true, true, mergeMode,
+					new DiffRelationshipComputer(mergerRegistry)).merge(sameComparison.getDifferences(),
+							leftToRight, mergerRegistry);
+
+			assertTrue(any(comparison.getDifferences(), hasState(MERGED)));
+			assertTrue(any(comparison.getDifferences(), hasState(UNRESOLVED)));
+			assertEquals(getStates(sameComparison), getStates(comparison));
+		}
+	}
+
+	private static Comparison createConflictingComparison() {
+		EPackage origin = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage left = EcoreUtil.copy(origin);
+		EPackage right = EcoreUtil.copy(origin);
+		for (int i = 0; i < origin.getEClassifiers().size(); i++) {
+			EClassifier leftClassifier = left.getEClassifiers().get(i);
+			EClassifier rightClassifier = right.getEClassifiers().get(i);
+			if (i % 3 == 0) {
+				// Renamed on both sides: conflicts
+				leftClassifier.setName(leftClassifier.getName() + "Left");
+				rightClassifier.setName(rightClassifier.getName() + "Right");
+			} else if (i % 3 == 1 && leftClassifier instanceof EClass) {
+				((EClass)leftClassifier).setAbstract(!((EClass)leftClassifier).isAbstract());
+			} else if (rightClassifier instanceof EClass
+					&& !((EClass)rightClassifier).getEStructuralFeatures().isEmpty()) {
+				((EClass)rightClassifier).getEStructuralFeatures().remove(0);
+			}
+		}
+		return EMFCompare.builder().build().compare(new DefaultComparisonScope(left, right, origin));
+	}
+
+	private static List<DifferenceState> getStates(Comparison comparison) {
+		List<DifferenceState> states = Lists.newArrayList();
+		for (Diff diff : comparison.getDifferences()) {
+			states.add(diff.getState());
+		}
+		return states;
+	}
 }
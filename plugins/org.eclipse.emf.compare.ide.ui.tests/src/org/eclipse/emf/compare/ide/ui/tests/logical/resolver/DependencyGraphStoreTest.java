@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.ide.ui.tests.logical.resolver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.graph.IGraph;
+import org.eclipse.emf.compare.ide.ui.internal.logical.resolver.DependencyGraphStore;
+import org.eclipse.emf.compare.ide.ui.internal.logical.resolver.ModelResourceListener;
+import org.eclipse.emf.compare.ide.ui.internal.logical.resolver.ThreadedModelResolver;
+import org.eclipse.emf.compare.ide.ui.tests.CompareTestCase;
+import org.eclipse.emf.compare.ide.utils.ResourceUtil;
+import org.eclipse.emf.compare.internal.utils.Graph;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SuppressWarnings("nls")
+public class DependencyGraphStoreTest extends CompareTestCase {
+
+	private static final String FILE1_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<ecore:EPackage xmi:version=\"2.0\" xmlns:xmi=\"http://www.omg.org/XMI\""
+			+ " xmlns:ecore=\"http://www.eclipse.org/emf/2002/Ecore\" xmi:id=\"_A\" name=\"File1_A\">\n"
+			+ "  <eSubpackages href=\"file2.ecore#_B\"/>\n" + "</ecore:EPackage>\n";
+
+	private static final String FILE2_CONTENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<ecore:EPackage xmi:version=\"2.0\" xmlns:xmi=\"http://www.omg.org/XMI\""
+			+ " xmlns:ecore=\"http://www.eclipse.org/emf/2002/Ecore\" xmi:id=\"_B\" name=\"File2_B\"/>\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File storeLocation;
+
+	private IFile file1;
+
+	private IFile file2;
+
+	private URI uri1;
+
+	private URI uri2;
+
+	private ModelResourceListener lastListener;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		storeLocation = temporaryFolder.newFolder("dependencies");
+		file1 = project.createFile("file1.ecore", FILE1_CONTENT.getBytes("UTF-8"));
+		file2 = project.createFile("file2.ecore", FILE2_CONTENT.getBytes("UTF-8"));
+		uri1 = ResourceUtil.createURIFor(file1);
+		uri2 = ResourceUtil.createURIFor(file2);
+	}
+
+	@Test
+	public void testGraphIsRestoredFromStore() throws Exception {
+		resolveAndSave();
+
+		IGraph<URI> graph = new Graph<URI>();
+		ThreadedModelResolver resolver = createResolver(graph);
+		try {
+			assertTrue(graph.contains(uri1));
+			assertTrue(graph.contains(uri2));
+			assertTrue(graph.hasChild(uri1, uri2));
+			assertFalse(lastListener.isPending(uri1));
+			assertFalse(lastListener.isPending(uri2));
+		} finally {
+			resolver.dispose();
+		}
+	}
+
+	@Test
+	public void testTouchedFilesAreTrusted() throws Exception {
+		resolveAndSave();
+		file2.touch(new NullProgressMonitor());
+
+		ThreadedModelResolver resolver = createResolver(new Graph<URI>());
+		try {
+			assertFalse(lastListener.isPending(uri2));
+		} finally {
+			resolver.dispose();
+		}
+	}
+
+	@Test
+	public void testModifiedFilesAreResolvedAgain() throws Exception {
+		resolveAndSave();
+		String newContent = FILE2_CONTENT.replace("File2_B", "Renamed");
+		file2.setContents(new ByteArrayInputStream(newContent.getBytes("UTF-8")), true, false,
+				new NullProgressMonitor());
+
+		ThreadedModelResolver resolver = createResolver(new Graph<URI>());
+		try {
+			assertFalse(lastListener.isPending(uri1));
+			assertTrue(lastListener.isPending(uri2));
+		} finally {
+			resolver.dispose();
+		}
+	}
+
+	@Test
+	public void testRemovedFilesAreRemovedFromGraph() throws Exception {
+		resolveAndSave();
+		file2.delete(true, new NullProgressMonitor());
+
+		ThreadedModelResolver resolver = createResolver(new Graph<URI>());
+		try {
+			assertTrue(lastListener.isPending(uri2));
+			assertFalse(lastListener.isPending(uri1));
+		} finally {
+			resolver.dispose();
+		}
+	}
+
+	@Test
+	public void testStoreOfDeletedProjectIsDeleted() throws Exception {
+		resolveAndSave();
+		File storeFile = new File(storeLocation,
+				project.getProject().getName() + '.' + DependencyGraphStore.STORE_EXTENSION);
+		assertTrue(storeFile.exists());
+		project.dispose();
+
+		ThreadedModelResolver resolver = createResolver(new Graph<URI>());
+		resolver.dispose();
+		assertFalse(storeFile.exists());
+	}
+
+	private void resolveAndSave() throws Exception {
+		ThreadedModelResolver resolver = createResolver(new Graph<URI>());
+		resolver.resolveLocalModel(file1, new NullProgressMonitor());
+		resolver.dispose();
+	}
+
+	private ThreadedModelResolver createResolver(IGraph<URI> graph) {
+		ThreadedModelResolver resolver = new ThreadedModelResolver() {
+			@Override
+			protected DependencyGraphStore createGraphStore(IGraph<URI> aGraph,
+					ModelResourceListener resourceListener) {
+				lastListener = resourceListener;
+				return new DependencyGraphStore(storeLocation, aGraph, resourceListener);
+			}
+		};
+		resolver.setGraph(graph);
+		resolver.initialize();
+		return resolver;
+	}
+}
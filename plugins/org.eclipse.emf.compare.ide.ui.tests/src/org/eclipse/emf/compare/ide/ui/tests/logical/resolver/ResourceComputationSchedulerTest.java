@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 Obeo and others.
+ * Copyright (c) 2015, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,11 +32,14 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.emf.common.util.WrappedException;
@@ -465,6 +468,78 @@ public class ResourceComputationSchedulerTest {
 		});
 	}
 
+	/**
+	 * Verify that the computations scheduled by running computations, as the dependencies of a resource are,
+	 * are run before {@code computeAll(...)} returns.
+	 */
+	@Test
+	public void testNestedComputationsAreRun() {
+		scheduler.initialize();
+		final CompStatus[][] statuses = new CompStatus[5][5];
+		final List<IComputation<String>> toBeComputed = Lists.newArrayList();
+		for (int i = 0; i < 5; i++) {
+			final String key = Character.toString((char)('A' + i));
+			final CompStatus[] nestedStatuses = statuses[i];
+			toBeComputed.add(new TestComputation<String>(new CompStatus(), key, new Callable<String>() {
+				public String call() throws Exception {
+					for (int j = 0; j < 5; j++) {
+						nestedStatuses[j] = new CompStatus();
+						scheduler.scheduleComputation(
+								new TestSuccessfulComputation(nestedStatuses[j], key + j));
+					}
+					return key;
+				}
+			}));
+		}
+		scheduler.call(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				scheduler.computeAll(toBeComputed);
+				assertEquals(30, scheduler.getComputedElements().size());
+				return Integer.valueOf(42);
+			}
+		}, null);
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 5; j++) {
+				checkSuccess(statuses[i][j]);
+			}
+		}
+	}
+
+	/**
+	 * Verify that the computations wait for the pending unloads when the memory budget is exceeded.
+	 */
+	@Test
+	public void testComputationsWaitForUnloadsOverMemoryBudget() {
+		scheduler.initialize();
+		scheduler.setMemoryBudget(0L);
+		final AtomicBoolean unloaded = new AtomicBoolean();
+		final CompStatus status = new CompStatus();
+		final TestComputation<Boolean> computation = new TestComputation<Boolean>(status, "comp",
+				new Callable<Boolean>() {
+					public Boolean call() throws Exception {
+						return Boolean.valueOf(unloaded.get());
+					}
+				});
+		scheduler.call(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				scheduler.scheduleUnload(new Runnable() {
+					public void run() {
+						try {
+							Thread.sleep(200L);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						unloaded.set(true);
+					}
+				}, null);
+				scheduler.computeAll(Arrays.asList(computation));
+				return Integer.valueOf(42);
+			}
+		}, null);
+		checkSuccess(status);
+		assertTrue(computation.get().booleanValue());
+	}
+
 	/**
 	 * Verify that an exception in a {@code runAll(...)} runnable doesn't cause a subsequent use of the
 	 * scheduler to hang.
@@ -561,6 +636,81 @@ public class ResourceComputationSchedulerTest {
 		assertThat(scheduler.getComputedElements(), empty());
 	}
 
+	/**
+	 * Verify that a computation which outlives the cancellation of its call doesn't cause a subsequent use of
+	 * the scheduler to hang when it finally ends.
+	 */
+	@Test
+	public void testComputationEndingAfterCancellation() throws Exception {
+		scheduler.initialize();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CompStatus blockedStatus = new CompStatus();
+		final TestComputation<String> blocked = new TestComputation<String>(blockedStatus, "blocked",
+				new Callable<String>() {
+					public String call() throws Exception {
+						started.countDown();
+						// Ignores the interruptions of the shutdown, as a resource being loaded would
+						boolean interrupted = false;
+						while (release.getCount() != 0) {
+							try {
+								release.await();
+							} catch (InterruptedException e) {
+								interrupted = true;
+							}
+						}
+						if (interrupted) {
+							Thread.currentThread().interrupt();
+						}
+						return "blocked";
+					}
+				});
+
+		FutureTask<Integer> task = new FutureTask<>(new Callable<Integer>() {
+			public Integer call() {
+				return scheduler.call(new Callable<Integer>() {
+					public Integer call() throws Exception {
+						scheduler.computeAll(Arrays.asList(blocked));
+						return Integer.valueOf(42);
+					}
+				}, null);
+			}
+		});
+		Thread thread = new Thread(task);
+		thread.start();
+		started.await();
+		thread.interrupt();
+		try {
+			task.get();
+			fail("scheduler.call(...) should have been canceled");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OperationCanceledException);
+		}
+
+		// The blocked computation ends once its call is over
+		release.countDown();
+		while (!blockedStatus.isSuccess()) {
+			Thread.sleep(10L);
+		}
+		// Leaves it the time to be finalized after its post-treatment
+		Thread.sleep(100L);
+
+		final CompStatus status = new CompStatus();
+		final CompStatus runStatus = new CompStatus();
+		Integer result = scheduler.call(new Callable<Integer>() {
+			public Integer call() throws Exception {
+				scheduler.computeAll(Arrays.asList(new TestSuccessfulComputation(status, "comp")));
+				// computeAll(...) must not return before its computation is over
+				checkSuccess(status);
+				// nor must runAll(...) wait for the blocked computation, which belongs to the former call
+				scheduler.runAll(Arrays.asList(new UninterruptibleRunnable(runStatus)));
+				return Integer.valueOf(42);
+			}
+		}, null);
+		checkSuccess(runStatus);
+		assertEquals(Integer.valueOf(42), result);
+	}
+
 	protected void checkSuccess(CompStatus state) {
 		assertEquals(1, state.getCallCount());
 		assertFalse(state.isInterrupted());
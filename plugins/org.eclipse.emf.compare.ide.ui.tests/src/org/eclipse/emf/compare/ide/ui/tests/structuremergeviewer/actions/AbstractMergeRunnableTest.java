@@ -69,6 +69,9 @@ public class AbstractMergeRunnableTest {
 	@Before
 	public void setupMocks() {
 		comparison = mock(Comparison.class);
+		// The merge numbers the diffs through an adapter of the comparison
+		when(comparison.eAdapters()).thenReturn(new BasicEList<Adapter>());
+		when(comparison.getMatches()).thenReturn(new BasicEList<Match>());
 		mergerRegistry = mock(Registry2.class);
 		merger = mock(IMerger2.class);
 		when(mergerRegistry.getHighestRankingMerger(any(Diff.class))).thenReturn(merger);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.emf.compare.ide.ui.tests.contentmergeviewer.notloadedfragment
 import org.eclipse.emf.compare.ide.ui.tests.logical.modelprovider.EMFModelProviderRegistrationTest;
 import org.eclipse.emf.compare.ide.ui.tests.logical.modelprovider.EMFModelProviderTest;
 import org.eclipse.emf.compare.ide.ui.tests.logical.resolver.CachingImplicitDependenciesTest;
+import org.eclipse.emf.compare.ide.ui.tests.logical.resolver.DependencyGraphStoreTest;
 import org.eclipse.emf.compare.ide.ui.tests.logical.resolver.DependencyGraphUpdaterTest;
 import org.eclipse.emf.compare.ide.ui.tests.logical.resolver.GraphResolutionTest;
 import org.eclipse.emf.compare.ide.ui.tests.logical.resolver.LocalMonitoredProxyCreationListenerTest;
@@ -68,7 +69,7 @@ import org.junit.runners.Suite.SuiteClasses;
 		SynchronizationModelDiagnosticTest.class, CascadingFilterRefinementTest.class,
 		MergeNonConflictingRunnableRefinementTest.class, CachingImplicitDependenciesTest.class,
 		MirroredMergeActionTest.class, EMFModelProviderRegistrationTest.class,
-		MergeConflictingRunnableTest.class })
+		MergeConflictingRunnableTest.class, DependencyGraphStoreTest.class })
 public class AllTests {
 
 	@BeforeClass
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2018 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,11 +13,10 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.ide.ui.internal.contentmergeviewer.tree;
 
-import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.instanceOf;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Lists.newArrayList;
-import static org.eclipse.emf.compare.utils.EMFComparePredicates.ofKind;
+import static org.eclipse.emf.compare.internal.utils.ComparisonUtil.queryDiffs;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -280,8 +279,9 @@ public class TreeContentMergeViewer extends AbstractTreeContentMergeViewer {
 					// This is relatively expensive, so cache the result once for sharing across all the
 					// listeners.
 					if (moveDifferences == null) {
-						moveDifferences = Lists.newArrayList(filter(comparison.getDifferences(),
-								and(instanceOf(ReferenceChange.class), ofKind(DifferenceKind.MOVE))));
+						moveDifferences = Lists.newArrayList(filter(
+								queryDiffs(comparison).ofKind(DifferenceKind.MOVE).list(),
+								instanceOf(ReferenceChange.class)));
 					}
 
 					for (Diff referenceChange : moveDifferences) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 Obeo and others.
+ * Copyright (c) 2014, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,7 +16,7 @@
 package org.eclipse.emf.compare.ide.ui.internal.logical;
 
 import static com.google.common.base.Predicates.alwaysFalse;
-import static com.google.common.collect.Iterables.filter;
+import static org.eclipse.emf.compare.internal.utils.ComparisonUtil.queryDiffs;
 import static org.eclipse.emf.compare.utils.EMFComparePredicates.fromSide;
 
 import com.google.common.collect.ImmutableMap;
@@ -339,7 +339,7 @@ public class EMFResourceMappingMerger implements IResourceMappingMerger {
 		final CachingDiffRelationshipComputer relationshipComputer = new CachingDiffRelationshipComputer(
 				MERGER_REGISTRY);
 		final Set<URI> conflictingURIs = new LinkedHashSet<URI>();
-		for (Diff next : filter(comparison.getDifferences(), fromSide(DifferenceSource.RIGHT))) {
+		for (Diff next : queryDiffs(comparison).fromSource(DifferenceSource.RIGHT).list()) {
 			doMergeForDiff(emfMonitor, conflictingURIs, next, relationshipComputer);
 		}
 		relationshipComputer.invalidate();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Obeo.
+ * Copyright (c) 2015, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,8 @@ public class DefaultResolutionContext implements IResolutionContext {
 
 	private final ModelResourceListener modelResourceListener;
 
+	private final DependencyGraphStore graphStore;
+
 	private IResourceDependencyProvider dependencyProvider;
 
 	private IResourceDependencyLocalResolver localResolver;
@@ -47,11 +49,35 @@ public class DefaultResolutionContext implements IResolutionContext {
 	public DefaultResolutionContext(EventBus eventBus, IGraph<URI> graph,
 			DependencyGraphUpdater<URI> graphUpdater, ResourceComputationScheduler<URI> scheduler,
 			ModelResourceListener modelResourceListener) {
+		this(eventBus, graph, graphUpdater, scheduler, modelResourceListener, null);
+	}
+
+	/**
+	 * Creates a context which dependency graph is persisted by the given store.
+	 * 
+	 * @param eventBus
+	 *            The event bus
+	 * @param graph
+	 *            The dependency graph
+	 * @param graphUpdater
+	 *            The updater of the graph
+	 * @param scheduler
+	 *            The scheduler
+	 * @param modelResourceListener
+	 *            The listener of the workspace changes
+	 * @param graphStore
+	 *            The store from which to load the graph, and to which to save it, can be {@code null} if the
+	 *            graph is not to be persisted
+	 */
+	public DefaultResolutionContext(EventBus eventBus, IGraph<URI> graph,
+			DependencyGraphUpdater<URI> graphUpdater, ResourceComputationScheduler<URI> scheduler,
+			ModelResourceListener modelResourceListener, DependencyGraphStore graphStore) {
 		this.eventBus = checkNotNull(eventBus);
 		this.graph = checkNotNull(graph);
 		this.graphUpdater = checkNotNull(graphUpdater);
 		this.scheduler = checkNotNull(scheduler);
 		this.modelResourceListener = checkNotNull(modelResourceListener);
+		this.graphStore = graphStore;
 	}
 
 	public EventBus getEventBus() {
@@ -108,19 +134,28 @@ public class DefaultResolutionContext implements IResolutionContext {
 	 * <li>install a listener on the workspace to keep track of modified resources</li>
 	 * <li>Register its {@link #graphUpdater} to its {@link #eventBus}</li>
 	 * <li>initialize its {@link #scheduler}</li>
+	 * <li>load the persisted dependency graph from its {@link #graphStore}, if any</li>
 	 * </ol>
 	 */
 	public void initialize() {
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(modelResourceListener);
 		eventBus.register(graphUpdater);
 		scheduler.initialize();
+		if (graphStore != null) {
+			eventBus.register(graphStore);
+			graphStore.load();
+		}
 	}
 
 	/**
-	 * Disposes resources allocated during initialization.
+	 * Disposes resources allocated during initialization, saving the dependency graph if it is persisted.
 	 */
 	public void dispose() {
 		scheduler.dispose();
+		if (graphStore != null) {
+			eventBus.unregister(graphStore);
+			graphStore.save();
+		}
 		eventBus.unregister(graphUpdater);
 		ResourcesPlugin.getWorkspace().removeResourceChangeListener(modelResourceListener);
 	}
@@ -0,0 +1,462 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.ide.ui.internal.logical.resolver;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.eventbus.Subscribe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.graph.IGraph;
+import org.eclipse.emf.compare.ide.ui.internal.EMFCompareIDEUIPlugin;
+
+/**
+ * Persists the dependency graph of the workspace models across sessions, so that opening a comparison does
+ * not require to parse all of the models of a project again to rediscover their dependencies.
+ * <p>
+ * The graph is saved in one file per project, which records for each resolved model file its outgoing
+ * dependencies, its parent data, its modification stamp and the hash of its content as they were when it was
+ * resolved. When loaded, an entry whose modification stamp has changed is only trusted if the hash of the
+ * file's content has not; others are given to the {@link ModelResourceListener} as changed (or removed)
+ * resources so that they are resolved again, incrementally, the next time the dependencies are needed. Once
+ * loaded, this store follows the changes of the graph by listening to the resolution events.
+ * </p>
+ *
+ * @see DefaultResolutionContext#initialize()
+ */
+public class DependencyGraphStore {
+	/** The extension of the files in which the graph of each project is saved. */
+	public static final String STORE_EXTENSION = "graph"; //$NON-NLS-1$
+
+	/** Identifies the files written by this store. */
+	private static final int MAGIC = 0x454d4347;
+
+	/** Version of the format of the saved files, files of other versions are ignored. */
+	private static final int FORMAT_VERSION = 1;
+
+	/** The algorithm used to hash the content of the model files. */
+	private static final String HASH_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+
+	/** The logger. */
+	private static final Logger LOGGER = Logger.getLogger(DependencyGraphStore.class);
+
+	/** The folder in which the graph files are saved. */
+	private final File storeLocation;
+
+	/** The dependency graph. */
+	private final IGraph<URI> graph;
+
+	/** The listener to which we report the resources that changed while the graph was not followed. */
+	private final ModelResourceListener resourceListener;
+
+	/** The state of the resolved resources, by URI. */
+	private final Map<URI, FileState> states;
+
+	/** The direct dependencies of the resolved resources. */
+	private final SetMultimap<URI, URI> dependencies;
+
+	/** The names of the projects which graph has changed since it was last saved. */
+	private final Set<String> dirtyProjects;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param storeLocation
+	 *            The folder in which the graph files are to be saved.
+	 * @param graph
+	 *            The dependency graph to load and save.
+	 * @param resourceListener
+	 *            The listener that will be told about the resources to resolve again.
+	 */
+	public DependencyGraphStore(File storeLocation, IGraph<URI> graph,
+			ModelResourceListener resourceListener) {
+		this.storeLocation = checkNotNull(storeLocation);
+		this.graph = checkNotNull(graph);
+		this.resourceListener = checkNotNull(resourceListener);
+		this.states = new LinkedHashMap<URI, FileState>();
+		this.dependencies = LinkedHashMultimap.create();
+		this.dirtyProjects = new LinkedHashSet<String>();
+	}
+
+	/**
+	 * Records the state of a newly resolved resource.
+	 *
+	 * @param event
+	 *            The resolution event.
+	 */
+	@Subscribe
+	public synchronized void recordNode(ResolvedEvent<URI> event) {
+		final URI uri = event.getNode();
+		final IFile file = getWorkspaceFile(uri);
+		if (file != null) {
+			states.put(uri, new FileState(file.getModificationStamp(), null));
+			dirtyProjects.add(file.getProject().getName());
+		}
+	}
+
+	/**
+	 * Records a dependency of a resolved resource.
+	 *
+	 * @param event
+	 *            The dependency event.
+	 */
+	@Subscribe
+	public synchronized void recordEdge(DependencyFoundEvent<URI> event) {
+		final IFile file = getWorkspaceFile(event.getFrom());
+		if (file != null) {
+			dependencies.put(event.getFrom(), event.getTo());
+			dirtyProjects.add(file.getProject().getName());
+		}
+	}
+
+	/**
+	 * Forgets about the removed resources, along with the dependencies towards them.
+	 *
+	 * @param event
+	 *            The removal event.
+	 */
+	@Subscribe
+	public synchronized void recordRemoval(ResourceRemovedEvent<URI> event) {
+		final Set<URI> removed = event.getElements();
+		for (URI uri : removed) {
+			states.remove(uri);
+			dependencies.removeAll(uri);
+			final IFile file = getWorkspaceFile(uri);
+			if (file != null) {
+				dirtyProjects.add(file.getProject().getName());
+			}
+		}
+		final Iterator<Map.Entry<URI, URI>> entries = dependencies.entries().iterator();
+		while (entries.hasNext()) {
+			final Map.Entry<URI, URI> entry = entries.next();
+			if (removed.contains(entry.getValue())) {
+				entries.remove();
+				dirtyProjects.add(getWorkspaceFile(entry.getKey()).getProject().getName());
+			}
+		}
+	}
+
+	/**
+	 * Loads the saved graph of all accessible projects of the workspace into the dependency graph. The saved
+	 * files of the projects that no longer exist are deleted.
+	 */
+	public synchronized void load() {
+		final File[] storeFiles = storeLocation.listFiles();
+		if (storeFiles == null) {
+			return;
+		}
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		final String suffix = '.' + STORE_EXTENSION;
+		for (File storeFile : storeFiles) {
+			final String fileName = storeFile.getName();
+			if (!fileName.endsWith(suffix)) {
+				continue;
+			}
+			final String projectName = fileName.substring(0, fileName.length() - suffix.length());
+			final IProject project = root.getProject(projectName);
+			if (!project.exists()) {
+				if (!storeFile.delete()) {
+					LOGGER.warn("Could not delete " + storeFile); //$NON-NLS-1$
+				}
+			} else if (project.isAccessible()) {
+				try {
+					load(project, storeFile);
+				} catch (IOException e) {
+					// The graph of this project will simply be computed again
+					EMFCompareIDEUIPlugin.getDefault().log(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Saves the graph of all projects which changed since they were last loaded or saved.
+	 */
+	public synchronized void save() {
+		if (dirtyProjects.isEmpty()) {
+			return;
+		}
+		if (!storeLocation.isDirectory() && !storeLocation.mkdirs()) {
+			LOGGER.warn("Could not create " + storeLocation); //$NON-NLS-1$
+			return;
+		}
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (String projectName : dirtyProjects) {
+			final IProject project = root.getProject(projectName);
+			final File storeFile = new File(storeLocation, projectName + '.' + STORE_EXTENSION);
+			try {
+				if (project.isAccessible()) {
+					save(project, storeFile);
+				} else if (storeFile.exists() && !storeFile.delete()) {
+					LOGGER.warn("Could not delete " + storeFile); //$NON-NLS-1$
+				}
+			} catch (IOException e) {
+				EMFCompareIDEUIPlugin.getDefault().log(e);
+			}
+		}
+		dirtyProjects.clear();
+	}
+
+	/**
+	 * Loads the saved graph of the given project.
+	 *
+	 * @param project
+	 *            The project.
+	 * @param storeFile
+	 *            The file in which its graph was saved.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	private void load(IProject project, File storeFile) throws IOException {
+		final Set<URI> changed = new LinkedHashSet<URI>();
+		final Set<URI> removed = new LinkedHashSet<URI>();
+		final DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(storeFile)));
+		try {
+			if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+				dirtyProjects.add(project.getName());
+				return;
+			}
+			final int entryCount = input.readInt();
+			for (int i = 0; i < entryCount; i++) {
+				final URI uri = URI.createURI(input.readUTF());
+				final long stamp = input.readLong();
+				final byte[] hash = new byte[input.readUnsignedShort()];
+				input.readFully(hash);
+				final URI parentData;
+				if (input.readBoolean()) {
+					parentData = URI.createURI(input.readUTF());
+				} else {
+					parentData = null;
+				}
+				final Set<URI> children = new LinkedHashSet<URI>();
+				final int childCount = input.readInt();
+				for (int j = 0; j < childCount; j++) {
+					children.add(URI.createURI(input.readUTF()));
+				}
+
+				final IFile file = getWorkspaceFile(uri);
+				if (file == null || !file.exists()) {
+					removed.add(uri);
+				} else {
+					final long currentStamp = file.getModificationStamp();
+					if (currentStamp == stamp) {
+						states.put(uri, new FileState(stamp, hash));
+					} else if (Arrays.equals(hash, hash(file))) {
+						states.put(uri, new FileState(currentStamp, hash));
+						dirtyProjects.add(project.getName());
+					} else {
+						// Keep the previous dependencies so that the dependent resources are resolved too
+						changed.add(uri);
+						states.put(uri, new FileState(stamp, hash));
+					}
+				}
+				graph.add(uri);
+				if (!children.isEmpty()) {
+					graph.addChildren(uri, children);
+					dependencies.putAll(uri, children);
+				}
+				if (parentData != null) {
+					graph.addParentData(uri, parentData);
+				}
+			}
+		} finally {
+			input.close();
+		}
+		resourceListener.addChangedURIs(changed);
+		resourceListener.addRemovedURIs(removed);
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Loaded dependencies of " + project.getName() //$NON-NLS-1$
+					+ ", " + changed.size() + " changed and " //$NON-NLS-1$ //$NON-NLS-2$
+					+ removed.size() + " removed resources"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Saves the graph of the given project. The resources that changed since they were resolved are not
+	 * saved, they will be resolved again when needed.
+	 *
+	 * @param project
+	 *            The project.
+	 * @param storeFile
+	 *            The file in which to save its graph.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private void save(IProject project, File storeFile) throws IOException {
+		final Map<URI, FileState> entries = new LinkedHashMap<URI, FileState>();
+		for (Map.Entry<URI, FileState> entry : states.entrySet()) {
+			final URI uri = entry.getKey();
+			final IFile file = getWorkspaceFile(uri);
+			if (file != null && project.equals(file.getProject()) && file.exists()
+					&& file.getModificationStamp() == entry.getValue().getStamp()
+					&& !resourceListener.isPending(uri)) {
+				FileState state = entry.getValue();
+				if (state.getHash() == null) {
+					state = new FileState(state.getStamp(), hash(file));
+					entry.setValue(state);
+				}
+				if (state.getHash() != null) {
+					entries.put(uri, state);
+				}
+			}
+		}
+
+		final File tempFile = new File(storeFile.getPath() + ".tmp"); //$NON-NLS-1$
+		final DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(FORMAT_VERSION);
+			output.writeInt(entries.size());
+			for (Map.Entry<URI, FileState> entry : entries.entrySet()) {
+				final URI uri = entry.getKey();
+				output.writeUTF(uri.toString());
+				output.writeLong(entry.getValue().getStamp());
+				output.writeShort(entry.getValue().getHash().length);
+				output.write(entry.getValue().getHash());
+				final URI parentData = graph.getParentData(uri);
+				output.writeBoolean(parentData != null);
+				if (parentData != null) {
+					output.writeUTF(parentData.toString());
+				}
+				final Set<URI> children = dependencies.get(uri);
+				output.writeInt(children.size());
+				for (URI child : children) {
+					output.writeUTF(child.toString());
+				}
+			}
+		} finally {
+			output.close();
+		}
+		if (storeFile.exists() && !storeFile.delete() || !tempFile.renameTo(storeFile)) {
+			throw new IOException("Could not replace " + storeFile); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Returns the workspace file the given URI points to.
+	 *
+	 * @param uri
+	 *            The URI.
+	 * @return The file, or {@code null} if the URI is not a platform resource URI.
+	 */
+	private static IFile getWorkspaceFile(URI uri) {
+		if (uri.isPlatformResource() && uri.segmentCount() > 1) {
+			return ResolutionUtil.getFileAt(uri);
+		}
+		return null;
+	}
+
+	/**
+	 * Computes the hash of the content of the given file.
+	 *
+	 * @param file
+	 *            The file.
+	 * @return The hash of its content, {@code null} if it cannot be read.
+	 */
+	private static byte[] hash(IFile file) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		try {
+			final InputStream input = file.getContents(true);
+			try {
+				final byte[] buffer = new byte[8192];
+				int read = input.read(buffer);
+				while (read != -1) {
+					digest.update(buffer, 0, read);
+					read = input.read(buffer);
+				}
+			} finally {
+				input.close();
+			}
+		} catch (CoreException e) {
+			LOGGER.warn("Could not read " + file, e); //$NON-NLS-1$
+			return null;
+		} catch (IOException e) {
+			LOGGER.warn("Could not read " + file, e); //$NON-NLS-1$
+			return null;
+		}
+		return digest.digest();
+	}
+
+	/**
+	 * The state of a file when it was resolved.
+	 */
+	private static final class FileState {
+		/** The modification stamp of the file. */
+		private final long stamp;
+
+		/** The hash of the file's content, {@code null} until it is needed. */
+		private final byte[] hash;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param stamp
+		 *            The modification stamp of the file.
+		 * @param hash
+		 *            The hash of its content, if known.
+		 */
+		FileState(long stamp, byte[] hash) {
+			this.stamp = stamp;
+			this.hash = hash;
+		}
+
+		/**
+		 * Returns the modification stamp of the file.
+		 *
+		 * @return The modification stamp.
+		 */
+		public long getStamp() {
+			return stamp;
+		}
+
+		/**
+		 * Returns the hash of the file's content.
+		 *
+		 * @return The hash, {@code null} if not computed yet.
+		 */
+		public byte[] getHash() {
+			return hash;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Obeo.
+ * Copyright (c) 2015, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import static org.eclipse.emf.compare.ide.utils.ResourceUtil.hasModelType;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
@@ -111,6 +112,56 @@ public class ModelResourceListener implements IResourceChangeListener, IResource
 		return removed;
 	}
 
+	/**
+	 * Records resources that changed while this listener was not installed, for example during a previous
+	 * session, so that they are part of the next {@link #popChangedURIs()}.
+	 * 
+	 * @param uris
+	 *            The URIs of the changed resources.
+	 */
+	public void addChangedURIs(Collection<URI> uris) {
+		internalLock.lock();
+		try {
+			changedURIs.addAll(uris);
+			removedURIs.removeAll(uris);
+		} finally {
+			internalLock.unlock();
+		}
+	}
+
+	/**
+	 * Records resources that were removed while this listener was not installed, for example during a
+	 * previous session, so that they are part of the next {@link #popRemovedURIs()}.
+	 * 
+	 * @param uris
+	 *            The URIs of the removed resources.
+	 */
+	public void addRemovedURIs(Collection<URI> uris) {
+		internalLock.lock();
+		try {
+			removedURIs.addAll(uris);
+			changedURIs.removeAll(uris);
+		} finally {
+			internalLock.unlock();
+		}
+	}
+
+	/**
+	 * Checks whether the given URI has been changed or removed since we last updated the dependencies graph.
+	 * 
+	 * @param uri
+	 *            The URI to check.
+	 * @return <code>true</code> if the resource at this URI has not been resolved again since it changed.
+	 */
+	public boolean isPending(URI uri) {
+		internalLock.lock();
+		try {
+			return changedURIs.contains(uri) || removedURIs.contains(uri);
+		} finally {
+			internalLock.unlock();
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015, 2017 Obeo and others.
+ * Copyright (c) 2015, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,7 +15,7 @@ package org.eclipse.emf.compare.ide.ui.internal.logical.resolver;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
@@ -24,18 +24,26 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.emf.compare.ide.ui.internal.EMFCompareIDEUIPlugin;
@@ -44,6 +52,19 @@ import org.eclipse.emf.compare.ide.ui.internal.EMFCompareIDEUIPlugin;
  * Class providing facilities to schedule computations and hide as much as possible the multi-threaded
  * complexity. Each computation is identified by a key. Each computation is supposed to possibly load
  * resources, and the scheduler also provides a facility to unload resources that are no longer needed.
+ * <p>
+ * The computations are run by a work-stealing pool. A computation scheduled by another one, which is how the
+ * dependencies of a resource are discovered, is pushed on the queue of the thread that scheduled it and run
+ * next by this thread, the other threads stealing the oldest computations of its queue when they are idle.
+ * The dependency paths are thus followed depth-first, which makes the longest of them, on which the end of
+ * the resolution depends, progress as soon as possible. The bookkeeping of the scheduled computations does
+ * not lock: the resolving threads never wait for each other to schedule or complete their computations.
+ * </p>
+ * <p>
+ * The unloading of the resources runs concurrently with the computations. When the memory used exceeds the
+ * {@link #setMemoryBudget(long) memory budget} of this scheduler, the computations wait for the pending
+ * unloads to be done before they start loading more resources.
+ * </p>
  * 
  * @author <a href="mailto:laurent.delaigue@obeo.fr">Laurent Delaigue</a>
  * @param <T>
@@ -51,6 +72,12 @@ import org.eclipse.emf.compare.ide.ui.internal.EMFCompareIDEUIPlugin;
  */
 public class ResourceComputationScheduler<T> {
 
+	/** Default memory budget, as a ratio of the maximum memory of the JVM. */
+	private static final double DEFAULT_MEMORY_BUDGET_RATIO = 0.75d;
+
+	/** How long, in milliseconds, computations over the memory budget wait before checking it again. */
+	private static final long MEMORY_BUDGET_POLL_MILLIS = 50L;
+
 	/**
 	 * Keeps track of the keys which we are currently computing (or which are queued for computation).
 	 * <p>
@@ -62,12 +89,35 @@ public class ResourceComputationScheduler<T> {
 	private final Set<T> currentlyComputing;
 
 	/**
-	 * We'll keep track of what's already been computed to avoid duplicate jobs.
+	 * We'll keep track of what's already been computed to avoid duplicate jobs. Each key is mapped to its
+	 * order of scheduling, so that {@link #getComputedElements()} can list them in this order.
+	 */
+	private volatile ConcurrentMap<T, Long> computedKeys;
+
+	/** Gives the order of scheduling of the {@link #computedKeys}. */
+	private final AtomicLong computedKeyCount;
+
+	/**
+	 * Number of computations scheduled and not yet finalized during the current call. Each call has its own
+	 * counter, which the computations it schedules decrement when they are finalized: a computation dropped
+	 * by the shutdown of a call and finishing after it does not change the count of the next one.
 	 */
-	private volatile Set<T> computedKeys;
+	private volatile AtomicInteger pendingTasks;
+
+	/** Monitor notified when {@link #pendingTasks} drops to zero. */
+	private final Object endOfTasks;
+
+	/** Number of unloads scheduled and not yet done. */
+	private final AtomicInteger pendingUnloads;
 
-	/** Thread pool for our resolving threads. */
-	private ListeningExecutorService computingPool;
+	/** Monitor notified when an unload is done. */
+	private final Object endOfUnload;
+
+	/** The memory, in bytes, above which the computations wait for the pending unloads. */
+	private volatile long memoryBudget;
+
+	/** Work-stealing pool for our resolving threads. */
+	private ForkJoinPool computingPool;
 
 	/** Thread pool for our unloading threads. */
 	private ListeningExecutorService unloadingPool;
@@ -81,16 +131,6 @@ public class ResourceComputationScheduler<T> {
 	/** Tracks if shutdown of {@link #unloadingPool} and {@link #computingPool} is currently in progress. */
 	private final AtomicBoolean shutdownInProgress;
 
-	/**
-	 * This will lock will prevent concurrent modifications of this class's fields. Most notably,
-	 * {@link #currentlyComputing} and {@link #computedKeys} must not be accessed concurrently by two threads
-	 * at once.
-	 */
-	private final ReadWriteLock lock;
-
-	/** Condition to await for all current task threads to terminate. */
-	private final Condition endOfTasks;
-
 	/** How long to wait for task completion when shutting down the pools. */
 	private final int shutdownWaitDuration;
 
@@ -133,9 +173,13 @@ public class ResourceComputationScheduler<T> {
 	 */
 	public ResourceComputationScheduler(int shutdownWaitDuration, TimeUnit shutdownWaitUnit,
 			EventBus eventBus) {
-		this.lock = new ReentrantReadWriteLock(true);
-		this.endOfTasks = lock.writeLock().newCondition();
-		this.currentlyComputing = new HashSet<T>();
+		this.currentlyComputing = Collections.newSetFromMap(new ConcurrentHashMap<T, Boolean>());
+		this.computedKeyCount = new AtomicLong();
+		this.pendingTasks = new AtomicInteger();
+		this.endOfTasks = new Object();
+		this.pendingUnloads = new AtomicInteger();
+		this.endOfUnload = new Object();
+		this.memoryBudget = (long)(Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_BUDGET_RATIO);
 		this.shutdownInProgress = new AtomicBoolean(false);
 		this.shutdownWaitDuration = shutdownWaitDuration;
 		this.shutdownWaitUnit = shutdownWaitUnit;
@@ -150,7 +194,6 @@ public class ResourceComputationScheduler<T> {
 	 * <b>Pre-conditions:</b>
 	 * <ul>
 	 * <li>{@link #initialize()} has been called</li>
-	 * <li>A lock has been acquired before on this instance's {@link #lock}</li>
 	 * <li>{@link #dispose()} has not been called</li>
 	 * </ul>
 	 * <b>Post-conditions:</b>
@@ -158,21 +201,21 @@ public class ResourceComputationScheduler<T> {
 	 * <li>{@link #computingPool} is not null and is ready to be used</li>
 	 * <li>{@link #unloadingPool} is not null and is ready to be used</li>
 	 * <li>{@link #computedKeys} is not null</li>
+	 * <li>{@link #pendingTasks} is a new counter</li>
 	 * </p>
 	 */
 	private void setUpComputation() {
 		final int availableProcessors = Runtime.getRuntime().availableProcessors();
-		ThreadFactory computingThreadFactory = new ThreadFactoryBuilder()
-				.setNameFormat("EMFCompare-ResolvingThread-%d") //$NON-NLS-1$
-				.build();
-		this.computingPool = MoreExecutors.listeningDecorator(
-				Executors.newFixedThreadPool(availableProcessors, computingThreadFactory));
+		// LIFO mode, so that the computations scheduled by a computation are run first by its thread
+		this.computingPool = new ForkJoinPool(availableProcessors, new ResolvingThreadFactory(), null,
+				false);
 		ThreadFactory unloadingThreadFactory = new ThreadFactoryBuilder()
 				.setNameFormat("EMFCompare-UnloadingThread-%d") //$NON-NLS-1$
 				.build();
 		this.unloadingPool = MoreExecutors.listeningDecorator(
 				Executors.newFixedThreadPool(availableProcessors, unloadingThreadFactory));
-		computedKeys = new LinkedHashSet<T>();
+		computedKeys = new ConcurrentHashMap<T, Long>();
+		pendingTasks = new AtomicInteger();
 	}
 
 	/**
@@ -237,7 +280,10 @@ public class ResourceComputationScheduler<T> {
 	}
 
 	/**
-	 * Shutdown {@link #computingPool} and {@link #unloadingPool} and set these two fields to null.
+	 * Shutdown {@link #computingPool} and {@link #unloadingPool} and set these two fields to null. The
+	 * computations and unloads which were dropped by the shutdown will never complete, the threads waiting
+	 * for them are released. The {@link #pendingTasks} counter is replaced rather than reset, since the
+	 * computations which did not respond to the shutdown may still finalize, and decrement it, afterwards.
 	 */
 	private synchronized void shutdownPools() {
 		try {
@@ -251,6 +297,15 @@ public class ResourceComputationScheduler<T> {
 		} finally {
 			computingPool = null;
 			unloadingPool = null;
+			currentlyComputing.clear();
+			pendingTasks = new AtomicInteger();
+			synchronized(endOfTasks) {
+				endOfTasks.notifyAll();
+			}
+			pendingUnloads.set(0);
+			synchronized(endOfUnload) {
+				endOfUnload.notifyAll();
+			}
 		}
 	}
 
@@ -398,23 +453,28 @@ public class ResourceComputationScheduler<T> {
 	 */
 	public boolean scheduleComputation(final IComputation<T> computation) {
 		checkNotNull(computation);
-		lock.writeLock().lock();
-		try {
-			if (computedKeys.add(computation.getKey()) && currentlyComputing.add(computation.getKey())) {
-				ListenableFuture<?> future = computingPool.submit(new Runnable() {
-					public void run() {
-						computation.run();
-					}
-				});
-				// even if post-treatment is null, we need this callback for proper finalization
-				Futures.addCallback(future, new ComputingFutureCallback<T>(this, computation.getKey(),
-						computation.getPostTreatment()));
-				return true;
+		final T key = computation.getKey();
+		final AtomicInteger tasks = pendingTasks;
+		// Counted first so that no thread sees the end of tasks while this one is being scheduled
+		tasks.incrementAndGet();
+		if (computedKeys.putIfAbsent(key, Long.valueOf(computedKeyCount.getAndIncrement())) == null
+				&& currentlyComputing.add(key)) {
+			final ForkJoinTask<?> task = new ComputationTask(computation, tasks);
+			try {
+				if (ForkJoinTask.getPool() == computingPool) {
+					// Scheduled by a computation, likely a dependency of its resource
+					task.fork();
+				} else {
+					computingPool.execute(task);
+				}
+			} catch (RejectedExecutionException e) {
+				finalizeTask(key, tasks);
+				throw e;
 			}
-			return false;
-		} finally {
-			lock.writeLock().unlock();
+			return true;
 		}
+		finalizePendingTask(tasks);
+		return false;
 	}
 
 	/**
@@ -449,13 +509,77 @@ public class ResourceComputationScheduler<T> {
 	 * @param callback
 	 *            Callback to call upon completion, can be {@code null}
 	 */
-	public void scheduleUnload(Runnable runnable, FutureCallback<Object> callback) {
-		ListenableFuture<?> future = unloadingPool.submit(runnable);
+	public void scheduleUnload(final Runnable runnable, FutureCallback<Object> callback) {
+		checkNotNull(runnable);
+		pendingUnloads.incrementAndGet();
+		final ListenableFuture<?> future;
+		try {
+			future = unloadingPool.submit(new Runnable() {
+				public void run() {
+					try {
+						runnable.run();
+					} finally {
+						unloadDone();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			unloadDone();
+			throw e;
+		}
 		if (callback != null) {
 			Futures.addCallback(future, callback);
 		}
 	}
 
+	/**
+	 * Sets the memory budget of this scheduler. When the memory used by the JVM exceeds this budget, the
+	 * computations wait for the pending unloads to be done before they start, so that the resources they load
+	 * do not pile up over those being unloaded. Defaults to three quarters of the maximum memory of the JVM.
+	 * 
+	 * @param budget
+	 *            The memory budget, in bytes.
+	 */
+	public void setMemoryBudget(long budget) {
+		this.memoryBudget = budget;
+	}
+
+	/**
+	 * Records that an unload is done, and wakes up the computations waiting for it.
+	 */
+	private void unloadDone() {
+		pendingUnloads.decrementAndGet();
+		synchronized(endOfUnload) {
+			endOfUnload.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks whether the memory used by the JVM exceeds the {@link #memoryBudget}.
+	 * 
+	 * @return {@code true} if it is over the budget.
+	 */
+	private boolean isOverMemoryBudget() {
+		final Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory() > memoryBudget;
+	}
+
+	/**
+	 * Waits, if the memory used exceeds the {@link #memoryBudget}, until it does not anymore or until all of
+	 * the pending unloads are done. The pool is told about this wait so that it can run other threads in the
+	 * meantime if needed.
+	 */
+	private void awaitMemoryBudget() {
+		final UnloadWaiter waiter = new UnloadWaiter();
+		if (!waiter.isReleasable()) {
+			try {
+				ForkJoinPool.managedBlock(waiter);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	/**
 	 * Provides the set of keys of all the computations that have been run or are still running since its set
 	 * of keys {@link #computedKeys} was last set.
@@ -464,15 +588,21 @@ public class ResourceComputationScheduler<T> {
 	 *         of keys {@link #computedKeys} was last set.
 	 */
 	public ImmutableSet<T> getComputedElements() {
-		lock.readLock().lock();
-		try {
-			if (computedKeys == null) {
-				return ImmutableSet.of();
+		final Map<T, Long> keys = computedKeys;
+		if (keys == null) {
+			return ImmutableSet.of();
+		}
+		final List<Map.Entry<T, Long>> entries = Lists.newArrayList(keys.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<T, Long>>() {
+			public int compare(Map.Entry<T, Long> entry1, Map.Entry<T, Long> entry2) {
+				return entry1.getValue().compareTo(entry2.getValue());
 			}
-			return ImmutableSet.copyOf(computedKeys);
-		} finally {
-			lock.readLock().unlock();
+		});
+		final ImmutableSet.Builder<T> builder = ImmutableSet.builder();
+		for (Map.Entry<T, Long> entry : entries) {
+			builder.add(entry.getKey());
 		}
+		return builder.build();
 	}
 
 	/**
@@ -484,24 +614,15 @@ public class ResourceComputationScheduler<T> {
 	 * @return true, if a computation of the given key has been run or is still running.
 	 */
 	public boolean isScheduled(T key) {
-		lock.readLock().lock();
-		try {
-			return computedKeys != null && computedKeys.contains(key);
-		} finally {
-			lock.readLock().unlock();
-		}
+		final Map<T, Long> keys = computedKeys;
+		return keys != null && keys.containsKey(key);
 	}
 
 	/**
 	 * Clears the set of computed keys.
 	 */
 	public void clearComputedElements() {
-		lock.writeLock().lock();
-		try {
-			computedKeys.clear();
-		} finally {
-			lock.writeLock().unlock();
-		}
+		computedKeys.clear();
 	}
 
 	/**
@@ -511,12 +632,11 @@ public class ResourceComputationScheduler<T> {
 	 *            An iterable over the elements to set as computed, must not be {@code null} but can be empty.
 	 */
 	public void setComputedElements(Iterable<T> elements) {
-		lock.writeLock().lock();
-		try {
-			computedKeys = Sets.newLinkedHashSet(elements);
-		} finally {
-			lock.writeLock().unlock();
+		final ConcurrentMap<T, Long> keys = new ConcurrentHashMap<T, Long>();
+		for (T element : elements) {
+			keys.putIfAbsent(element, Long.valueOf(computedKeyCount.getAndIncrement()));
 		}
+		computedKeys = keys;
 	}
 
 	/**
@@ -558,52 +678,145 @@ public class ResourceComputationScheduler<T> {
 	 * OperationCanceledException is thrown.
 	 */
 	private void waitForEndOfTasks() {
-		lock.readLock().lock();
-
-		try {
-			if (currentlyComputing.isEmpty()) {
-				return;
-			}
-		} finally {
-			lock.readLock().unlock();
+		final AtomicInteger tasks = pendingTasks;
+		if (tasks.get() == 0) {
+			return;
 		}
-
-		// Acquire the write lock because we are waiting for writers.
-		// Read locks cannot be upgraded.
-		lock.writeLock().lock();
-
-		try {
-			// TODO Is this test really necessary?
-			// TODO Is this test dangerous (infinite wait)
-			while (!currentlyComputing.isEmpty()) {
-				endOfTasks.await();
+		synchronized(endOfTasks) {
+			try {
+				// The counter is replaced when the pools are shut down, the tasks it counts being dropped
+				while (tasks.get() != 0 && tasks == pendingTasks) {
+					endOfTasks.wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
 			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			// FIXME?
-			throw new OperationCanceledException();
-		} finally {
-			lock.writeLock().unlock();
 		}
 	}
 
 	/**
-	 * This will remove the given uri from the {@link #currentlyComputing} set and signal to
-	 * {@link #endOfTasks} if the set is empty afterward. This method must be call by every callback of
+	 * This will remove the given key from the {@link #currentlyComputing} set and signal to
+	 * {@link #endOfTasks} if no task remains afterward. This method must be call by every callback of
 	 * resolving tasks.
 	 * 
 	 * @param key
 	 *            the key to remove.
+	 * @param tasks
+	 *            the counter of the {@link #pendingTasks} of the call which scheduled the task. The key is
+	 *            left as is if this call is over, as it may be computed by the current one.
 	 */
-	private void finalizeTask(T key) {
-		lock.writeLock().lock();
-		try {
+	private void finalizeTask(T key, AtomicInteger tasks) {
+		if (tasks == pendingTasks) {
 			currentlyComputing.remove(key);
-			if (currentlyComputing.isEmpty()) {
-				endOfTasks.signalAll();
+		}
+		finalizePendingTask(tasks);
+	}
+
+	/**
+	 * Decrements the given counter of {@link #pendingTasks}, and signals to {@link #endOfTasks} if it drops
+	 * to zero.
+	 * 
+	 * @param tasks
+	 *            the counter of the {@link #pendingTasks} of the call which scheduled the task.
+	 */
+	private void finalizePendingTask(AtomicInteger tasks) {
+		if (tasks.decrementAndGet() == 0) {
+			synchronized(endOfTasks) {
+				endOfTasks.notifyAll();
 			}
-		} finally {
-			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * The task running a computation in the {@link #computingPool}. It waits for the memory budget before
+	 * running it, then calls its post-treatment and finalizes it, possibly signaling the end of the
+	 * resolution.
+	 */
+	private final class ComputationTask extends RecursiveAction {
+		/** Serial version UID, this is never serialized. */
+		private static final long serialVersionUID = 1L;
+
+		/** The computation. */
+		private final transient IComputation<T> computation;
+
+		/** The counter of the {@link #pendingTasks} of the call which scheduled the computation. */
+		private final AtomicInteger tasks;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param computation
+		 *            The computation to run.
+		 * @param tasks
+		 *            The counter of the {@link #pendingTasks} of the call which scheduled the computation.
+		 */
+		ComputationTask(IComputation<T> computation, AtomicInteger tasks) {
+			this.computation = computation;
+			this.tasks = tasks;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			final FutureCallback<Object> callback = new ComputingFutureCallback<T>(
+					ResourceComputationScheduler.this, computation.getKey(), tasks,
+					computation.getPostTreatment());
+			try {
+				awaitMemoryBudget();
+				computation.run();
+			} catch (RuntimeException e) {
+				callback.onFailure(e);
+				return;
+			} catch (Error e) {
+				callback.onFailure(e);
+				throw e;
+			}
+			callback.onSuccess(null);
+		}
+	}
+
+	/**
+	 * Waits for the pending unloads while the memory used exceeds the {@link #memoryBudget}.
+	 */
+	private final class UnloadWaiter implements ForkJoinPool.ManagedBlocker {
+		/**
+		 * {@inheritDoc}
+		 */
+		public boolean isReleasable() {
+			return pendingUnloads.get() == 0 || !isOverMemoryBudget();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * The memory used is checked again periodically, as it may decrease without any unload ending.
+		 * </p>
+		 */
+		public boolean block() throws InterruptedException {
+			synchronized(endOfUnload) {
+				if (!isReleasable()) {
+					endOfUnload.wait(MEMORY_BUDGET_POLL_MILLIS);
+				}
+			}
+			return isReleasable();
+		}
+	}
+
+	/**
+	 * Creates the named threads of the {@link #computingPool}.
+	 */
+	private static final class ResolvingThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		/**
+		 * {@inheritDoc}
+		 */
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+					.newThread(pool);
+			thread.setName("EMFCompare-ResolvingThread-" + thread.getPoolIndex()); //$NON-NLS-1$
+			return thread;
 		}
 	}
 
@@ -621,6 +834,9 @@ public class ResourceComputationScheduler<T> {
 		/** The key. */
 		private final T key;
 
+		/** The counter of the pending tasks of the call which scheduled the computation. */
+		private final AtomicInteger tasks;
+
 		/** The wrapped callback. */
 		private final FutureCallback<Object> wrappedCallback;
 
@@ -631,13 +847,16 @@ public class ResourceComputationScheduler<T> {
 		 *            The scheduler
 		 * @param key
 		 *            The key
+		 * @param tasks
+		 *            The counter of the pending tasks of the call which scheduled the computation
 		 * @param callback
 		 *            The callback, can be {@code null}
 		 */
 		private ComputingFutureCallback(ResourceComputationScheduler<T> scheduler, T key,
-				FutureCallback<Object> callback) {
+				AtomicInteger tasks, FutureCallback<Object> callback) {
 			this.scheduler = checkNotNull(scheduler);
 			this.key = checkNotNull(key);
+			this.tasks = checkNotNull(tasks);
 			this.wrappedCallback = callback;
 		}
 
@@ -650,7 +869,7 @@ public class ResourceComputationScheduler<T> {
 					wrappedCallback.onSuccess(result);
 				}
 			} finally {
-				scheduler.finalizeTask(key);
+				scheduler.finalizeTask(key, tasks);
 			}
 		}
 
@@ -663,7 +882,7 @@ public class ResourceComputationScheduler<T> {
 					wrappedCallback.onFailure(t);
 				}
 			} finally {
-				scheduler.finalizeTask(key);
+				scheduler.finalizeTask(key, tasks);
 			}
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Obeo and others.
+ * Copyright (c) 2014, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,12 +13,16 @@ package org.eclipse.emf.compare.ide.ui.internal.logical.resolver;
 
 import com.google.common.eventbus.EventBus;
 
+import java.io.File;
+
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.compare.graph.IGraph;
 import org.eclipse.emf.compare.graph.IGraphView;
+import org.eclipse.emf.compare.ide.ui.internal.EMFCompareIDEUIPlugin;
+import org.eclipse.emf.compare.ide.ui.internal.preferences.EMFCompareUIPreferences;
 import org.eclipse.emf.compare.ide.ui.logical.AbstractModelResolver;
 import org.eclipse.emf.compare.ide.ui.logical.IModelResolver;
 import org.eclipse.emf.compare.ide.ui.logical.IStorageProviderAccessor;
@@ -55,6 +59,8 @@ import org.eclipse.emf.compare.rcp.ui.internal.util.ResourceUIUtil;
  * @author <a href="mailto:laurent.goubet@obeo.fr">Laurent Goubet</a>
  */
 public class ThreadedModelResolver extends AbstractModelResolver implements IGraphConsumer {
+	/** Name of the folder of the state location in which the dependency graph is persisted. */
+	private static final String GRAPH_STORE_FOLDER = "dependencies"; //$NON-NLS-1$
 
 	private IResolutionContext context;
 
@@ -78,6 +84,8 @@ public class ThreadedModelResolver extends AbstractModelResolver implements IGra
 	 * <li>install a listener on the workspace to keep track of modified resources</li>
 	 * <li>Register its {@link #graphUpdater} to its {@link #eventBus}</li>
 	 * <li>initialize its {@link #scheduler}</li>
+	 * <li>load the dependency graph persisted by a previous session, if
+	 * {@link EMFCompareUIPreferences#PERSIST_DEPENDENCY_GRAPH persisting the graph} is enabled</li>
 	 * </ol>
 	 */
 	@Override
@@ -106,9 +114,39 @@ public class ThreadedModelResolver extends AbstractModelResolver implements IGra
 	 * @return The resolution context to use.
 	 */
 	protected DefaultResolutionContext createContext(EventBus eventBus, IGraph<URI> aGraph) {
+		final ModelResourceListener resourceListener = new ModelResourceListener();
 		return new DefaultResolutionContext(eventBus, aGraph,
 				new DependencyGraphUpdater<URI>(aGraph, eventBus), new ResourceComputationScheduler<URI>(),
-				new ModelResourceListener());
+				resourceListener, createGraphStore(aGraph, resourceListener));
+	}
+
+	/**
+	 * Creates the store that will persist the dependency graph across sessions, in the state location of
+	 * this plug-in. The graph is only persisted if the
+	 * {@link EMFCompareUIPreferences#PERSIST_DEPENDENCY_GRAPH} preference is enabled, which it is not by
+	 * default.
+	 * 
+	 * @param aGraph
+	 *            The dependency graph.
+	 * @param resourceListener
+	 *            The listener of the workspace changes.
+	 * @return The store, {@code null} if the graph is not to be persisted.
+	 */
+	protected DependencyGraphStore createGraphStore(IGraph<URI> aGraph,
+			ModelResourceListener resourceListener) {
+		final EMFCompareIDEUIPlugin plugin = EMFCompareIDEUIPlugin.getDefault();
+		if (plugin == null || !plugin.getPreferenceStore()
+				.getBoolean(EMFCompareUIPreferences.PERSIST_DEPENDENCY_GRAPH)) {
+			return null;
+		}
+		final File storeLocation;
+		try {
+			storeLocation = plugin.getStateLocation().append(GRAPH_STORE_FOLDER).toFile();
+		} catch (IllegalStateException e) {
+			// No instance location, the graph will not be persisted
+			return null;
+		}
+		return new DependencyGraphStore(storeLocation, aGraph, resourceListener);
 	}
 
 	/** {@inheritDoc} */
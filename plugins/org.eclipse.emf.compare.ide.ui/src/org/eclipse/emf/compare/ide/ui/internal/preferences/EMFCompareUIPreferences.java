@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 Obeo and others.
+ * Copyright (c) 2014, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -56,6 +56,15 @@ public interface EMFCompareUIPreferences {
 	String ENABLE_MODEL_RESOLUTION_FROM_CONTAINERS = EMFCompareIDEUIPlugin.PLUGIN_ID
 			+ ".preference.enableModelResolutionFromContainers"; //$NON-NLS-1$
 
+	/**
+	 * Preference indicating whether the dependency graph built by the model resolver should be saved when the
+	 * workbench is closed and loaded back on the next session, so that the files already resolved are not
+	 * scanned again. The expected values are <code>true</code> or <code>false</code>. This is only read when
+	 * the model resolver is initialized.
+	 */
+	String PERSIST_DEPENDENCY_GRAPH = EMFCompareIDEUIPlugin.PLUGIN_ID
+			+ ".preference.persistDependencyGraph"; //$NON-NLS-1$
+
 	/**
 	 * Preference key holding the value for the comparison editor to automatically expand the tree viewer of
 	 * the top panel to a specific level.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2017 Obeo and others.
+ * Copyright (c) 2014, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -55,6 +55,8 @@ public class ModelResolutionPreferencePage extends FieldEditorPreferencePage imp
 
 	private BooleanFieldEditor enableModelResolutionFromContainers;
 
+	private BooleanFieldEditor persistDependencyGraph;
+
 	private ComboFieldEditor resolutionScope;
 
 	private Label resolutionScopeMainDescription;
@@ -89,6 +91,11 @@ public class ModelResolutionPreferencePage extends FieldEditorPreferencePage imp
 						.getString("ModelResolutionPreferencesPage.enableModelResolutionFromContainers"), //$NON-NLS-1$
 				getFieldEditorParent());
 		addField(enableModelResolutionFromContainers);
+		persistDependencyGraph = new BooleanFieldEditor(EMFCompareUIPreferences.PERSIST_DEPENDENCY_GRAPH,
+				EMFCompareIDEUIMessages
+						.getString("ModelResolutionPreferencesPage.persistDependencyGraph"), //$NON-NLS-1$
+				getFieldEditorParent());
+		addField(persistDependencyGraph);
 
 		final Composite resolutionScopeComposite = new Composite(getFieldEditorParent(), SWT.BORDER);
 		resolutionScopeComposite.setLayoutData(new GridData(SWT.FILL, SWT.TOP, true, false));
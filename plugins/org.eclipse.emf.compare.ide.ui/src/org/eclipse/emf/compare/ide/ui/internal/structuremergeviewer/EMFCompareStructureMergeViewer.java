@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2018 Obeo and others.
+ * Copyright (c) 2013, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1141,6 +1141,9 @@ public class EMFCompareStructureMergeViewer extends AbstractStructuredViewerWrap
 		undoAction.update();
 		redoAction.update();
 
+		// The executed, undone or redone command may have changed the state of the differences
+		getCompareConfiguration().getStructureMergeViewerFilter().invalidate();
+
 		Command mostRecentCommand = ((CommandStack)event.getSource()).getMostRecentCommand();
 		if (mostRecentCommand instanceof ICompareCopyCommand && shouldSelectAffectedObject(event)) {
 			// MUST NOT call a setSelection with a list, o.e.compare does not handle it (cf
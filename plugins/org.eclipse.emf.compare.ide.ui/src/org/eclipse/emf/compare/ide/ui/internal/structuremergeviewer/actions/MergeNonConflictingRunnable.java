@@ -51,6 +51,7 @@ import org.eclipse.emf.compare.internal.merge.MergeOperation;
 import org.eclipse.emf.compare.internal.utils.ComparisonUtil;
 import org.eclipse.emf.compare.merge.BatchMerger;
 import org.eclipse.emf.compare.merge.ComputeDiffsToMerge;
+import org.eclipse.emf.compare.merge.DiffDependencyGraph;
 import org.eclipse.emf.compare.merge.IBatchMerger;
 import org.eclipse.emf.compare.merge.IDiffRelationshipComputer;
 import org.eclipse.emf.compare.merge.IMerger;
@@ -88,7 +89,8 @@ public class MergeNonConflictingRunnable extends AbstractMergeRunnable implement
 	 */
 	public Iterable<Diff> merge(Comparison comparison, boolean leftToRight, Registry mergerRegistry) {
 		checkState(getMergeMode().isLeftToRight(isLeftEditable(), isRightEditable()) == leftToRight);
-		return doMergeNonConflicting(comparison.getDifferences(), comparison, leftToRight, mergerRegistry);
+		return doMergeNonConflicting(comparison.getDifferences(), comparison, leftToRight, mergerRegistry,
+				true);
 	}
 
 	/**
@@ -104,7 +106,8 @@ public class MergeNonConflictingRunnable extends AbstractMergeRunnable implement
 		checkState(getMergeMode().isLeftToRight(isLeftEditable(), isRightEditable()) == leftToRight);
 		checkState(!differences.isEmpty() && ComparisonUtil.getComparison(differences.get(0)) != null);
 		final Comparison comparison = ComparisonUtil.getComparison(differences.get(0));
-		doMergeNonConflicting((Collection<Diff>)differences, comparison, leftToRight, mergerRegistry);
+		doMergeNonConflicting((Collection<Diff>)differences, comparison, leftToRight, mergerRegistry,
+				false);
 	}
 
 	/**
@@ -119,14 +122,25 @@ public class MergeNonConflictingRunnable extends AbstractMergeRunnable implement
 	 *            The direction in which {@code differences} should be merged.
 	 * @param mergerRegistry
 	 *            The registry of mergers.
+	 * @param allDifferences
+	 *            Whether {@code differences} are all of the differences of the comparison.
 	 * @return an iterable over the differences that have actually been merged by this operation.
 	 */
 	private Iterable<Diff> doMergeNonConflicting(Collection<Diff> differences, Comparison comparison,
-			boolean leftToRight, Registry mergerRegistry) {
+			boolean leftToRight, Registry mergerRegistry, boolean allDifferences) {
 		final Iterable<Diff> affectedChanges;
 		if (hasRealConflict(comparison)) {
 			// This is a 3-way comparison, pre-merge what can be.
-			affectedChanges = mergeWithConflicts(differences, leftToRight, mergerRegistry);
+			final ComputeDiffsToMerge computer;
+			if (allDifferences) {
+				// The relationships of all diffs will be walked, ask for them once. The graph is built again
+				// for each merge since the previous merges may have changed these relationships.
+				computer = new ComputeDiffsToMerge(new DiffDependencyGraph(comparison, !leftToRight,
+						getDiffRelationshipComputer(mergerRegistry)));
+			} else {
+				computer = new ComputeDiffsToMerge(!leftToRight, getDiffRelationshipComputer(mergerRegistry));
+			}
+			affectedChanges = mergeWithConflicts(differences, leftToRight, mergerRegistry, computer);
 		} else if (comparison.isThreeWay()) {
 			// This is a 3-way comparison without conflicts
 			affectedChanges = mergeThreeWayWithoutConflicts(differences, leftToRight, mergerRegistry);
@@ -229,14 +243,15 @@ public class MergeNonConflictingRunnable extends AbstractMergeRunnable implement
 	 *            The direction in which {@code differences} should be merged.
 	 * @param mergerRegistry
 	 *            The registry of mergers, must be an instance of Registry2.
+	 * @param computer
+	 *            The computer of the diffs to merge along with each difference.
 	 * @return an iterable over the differences that have actually been merged by this operation.
 	 */
 	private Iterable<Diff> mergeWithConflicts(Collection<Diff> differences, boolean leftToRight,
-			Registry mergerRegistry) {
+			Registry mergerRegistry, ComputeDiffsToMerge computer) {
 		final List<Diff> affectedDiffs = new ArrayList<Diff>();
 		final Monitor emfMonitor = new BasicMonitor();
-		ComputeDiffsToMerge computer = new ComputeDiffsToMerge(!leftToRight,
-				getDiffRelationshipComputer(mergerRegistry)).failOnRealConflictUnless(alwaysFalse());
+		computer.failOnRealConflictUnless(alwaysFalse());
 
 		final Predicate<? super Diff> filter;
 		MergeMode mode = getMergeMode();
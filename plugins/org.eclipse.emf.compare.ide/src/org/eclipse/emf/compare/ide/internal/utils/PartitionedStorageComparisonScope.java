@@ -0,0 +1,375 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.ide.internal.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.eclipse.emf.compare.ide.utils.ResourceUtil.createURIFor;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.graph.IGraphView;
+import org.eclipse.emf.compare.ide.internal.hook.ResourceSetHookRegistry;
+import org.eclipse.emf.compare.ide.utils.StorageTraversal;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope2;
+import org.eclipse.emf.compare.scope.IPartitionedComparisonScope;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.resource.impl.ExtensibleURIConverterImpl;
+
+/**
+ * A partitioned comparison scope over the storages of three traversals, comparing a bounded number of
+ * resources at a time.
+ * <p>
+ * The storages of the three sides are paired through their URIs, so that each partition holds the
+ * counterparts of its resources on all sides. Each partition is loaded in its own
+ * {@link NotLoadingResourceSet}s, which do not load the resources of the other partitions: the
+ * cross-references to these resources stay proxies and are compared through their URIs. The resource sets
+ * are disposed as soon as their partition has been released, only the resources of a single partition are
+ * thus held in memory at any time.
+ * </p>
+ * <p>
+ * The partitions are built from the dependency graph of the resources, as computed by the model resolvers:
+ * the resources of a connected component of this graph, which reference each other directly or through
+ * other resources, or are fragments of the same model, are always loaded in the same partition, so that
+ * their cross-references are resolved. The components are then grouped, in the order of the traversals,
+ * into partitions of at most <code>partitionSize</code> resources. A component larger than that gets a
+ * partition of its own, which exceeds the size bound.
+ * </p>
+ */
+public class PartitionedStorageComparisonScope implements IPartitionedComparisonScope {
+	/** The storages of each partition. */
+	private final List<Partition> partitions;
+
+	/** The registry of the hooks to apply on the resource sets of partitions, may be <code>null</code>. */
+	private final ResourceSetHookRegistry hookRegistry;
+
+	/** Whether the partitions have an origin side. */
+	private final boolean threeWay;
+
+	/** The URIs of all the storages of this scope. */
+	private final Set<URI> allInvolvedResourceURIs;
+
+	/**
+	 * Creates a scope comparing the storages of the given traversals by partitions of at most
+	 * <code>partitionSize</code> resources per side, keeping the resources which depend on each other in the
+	 * same partition.
+	 *
+	 * @param left
+	 *            The traversal of the left side.
+	 * @param right
+	 *            The traversal of the right side.
+	 * @param origin
+	 *            The traversal of the common ancestor of both sides, <code>null</code> or empty for a two-way
+	 *            comparison.
+	 * @param dependencies
+	 *            The dependency graph of the resources of the traversals, such as the one of the model
+	 *            resolver which computed them. <code>null</code> if unknown, in which case each resource is
+	 *            considered on its own.
+	 * @param partitionSize
+	 *            The maximum number of resources of each side loaded at the same time, unless they depend on
+	 *            each other. Must be positive.
+	 * @param hookRegistry
+	 *            The registry of the {@link org.eclipse.emf.compare.ide.hook.IResourceSetHook}s to apply on
+	 *            the resource sets of the partitions, may be <code>null</code>.
+	 */
+	public PartitionedStorageComparisonScope(StorageTraversal left, StorageTraversal right,
+			StorageTraversal origin, IGraphView<URI> dependencies, int partitionSize,
+			ResourceSetHookRegistry hookRegistry) {
+		checkNotNull(left);
+		checkNotNull(right);
+		checkArgument(partitionSize > 0);
+		this.hookRegistry = hookRegistry;
+		this.threeWay = origin != null && !origin.getStorages().isEmpty();
+
+		final URIConverter converter = new ExtensibleURIConverterImpl();
+		final Map<URI, IStorage[]> storagesByURI = Maps.newLinkedHashMap();
+		addStorages(storagesByURI, left, 0, converter);
+		addStorages(storagesByURI, right, 1, converter);
+		if (threeWay) {
+			addStorages(storagesByURI, origin, 2, converter);
+		}
+		this.allInvolvedResourceURIs = Sets.newLinkedHashSet(storagesByURI.keySet());
+
+		this.partitions = Lists.newArrayList();
+		for (List<URI> uris : computePartitions(storagesByURI.keySet(), dependencies, partitionSize,
+				converter)) {
+			final Partition partition = new Partition(uris);
+			for (URI uri : uris) {
+				partition.add(storagesByURI.get(uri));
+			}
+			partitions.add(partition);
+		}
+	}
+
+	/**
+	 * Groups the given resources into partitions of at most <code>partitionSize</code> resources, keeping
+	 * each connected component of their dependency graph in a single partition.
+	 * <p>
+	 * The components are ordered by their first resource in the given order, and the resources of each
+	 * partition keep this order. The components are added to the current partition as long as they fit, a
+	 * component larger than <code>partitionSize</code> gets its own partition.
+	 * </p>
+	 *
+	 * @param uris
+	 *            The normalized URIs of the resources, in traversal order.
+	 * @param dependencies
+	 *            The dependency graph of the resources, may be <code>null</code> to consider each resource on
+	 *            its own. It may hold other resources, through which the given ones may be connected.
+	 * @param partitionSize
+	 *            The maximum number of resources of a partition, unless they are in the same component. Must
+	 *            be positive.
+	 * @param converter
+	 *            The converter used to normalize the URIs of the dependency graph.
+	 * @return The URIs of the resources of each partition.
+	 */
+	public static List<List<URI>> computePartitions(Collection<URI> uris, IGraphView<URI> dependencies,
+			int partitionSize, URIConverter converter) {
+		checkArgument(partitionSize > 0);
+		// Number the connected components, in the order of their first resource
+		final Map<URI, Integer> componentOf = Maps.newHashMap();
+		final List<List<URI>> components = Lists.newArrayList();
+		for (URI uri : uris) {
+			Integer component = componentOf.get(uri);
+			if (component == null) {
+				component = Integer.valueOf(components.size());
+				components.add(Lists.<URI> newArrayList());
+				componentOf.put(uri, component);
+				if (dependencies != null) {
+					for (URI connected : dependencies.getSubgraphContaining(uri)) {
+						final URI normalized = converter.normalize(connected);
+						if (uris.contains(normalized) && !componentOf.containsKey(normalized)) {
+							componentOf.put(normalized, component);
+						}
+					}
+				}
+			}
+			components.get(component.intValue()).add(uri);
+		}
+
+		final List<List<URI>> result = Lists.newArrayList();
+		List<URI> current = Lists.newArrayList();
+		for (List<URI> component : components) {
+			if (!current.isEmpty() && current.size() + component.size() > partitionSize) {
+				result.add(current);
+				current = Lists.newArrayList();
+			}
+			current.addAll(component);
+		}
+		if (!current.isEmpty()) {
+			result.add(current);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the storages of the given traversal to the given map, each in the slot of its side.
+	 *
+	 * @param storagesByURI
+	 *            The storages of the three sides, by URI.
+	 * @param traversal
+	 *            The traversal of a side.
+	 * @param side
+	 *            The slot of the side of the traversal in the arrays of the map.
+	 * @param converter
+	 *            The converter used to normalize the URIs of the storages.
+	 */
+	private static void addStorages(Map<URI, IStorage[]> storagesByURI, StorageTraversal traversal, int side,
+			URIConverter converter) {
+		for (IStorage storage : traversal.getStorages()) {
+			final URI uri = converter.normalize(createURIFor(storage));
+			IStorage[] storages = storagesByURI.get(uri);
+			if (storages == null) {
+				storages = new IStorage[3];
+				storagesByURI.put(uri, storages);
+			}
+			storages[side] = storage;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Set<URI> getAllInvolvedResourceURIs() {
+		return allInvolvedResourceURIs;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The resources of each partition are loaded by the call to {@link Iterator#next()}.
+	 * </p>
+	 */
+	public Iterator<? extends IComparisonScope2> partitions() {
+		final Iterator<Partition> partitionIterator = ImmutableList.copyOf(partitions).iterator();
+		return new Iterator<IComparisonScope2>() {
+			public boolean hasNext() {
+				return partitionIterator.hasNext();
+			}
+
+			public IComparisonScope2 next() {
+				return load(partitionIterator.next());
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Loads the resources of the given partition in new resource sets.
+	 *
+	 * @param partition
+	 *            The partition to load.
+	 * @return The scope of the partition.
+	 */
+	protected IComparisonScope2 load(Partition partition) {
+		final NotLoadingResourceSet leftResourceSet = loadSide(partition, 0);
+		final NotLoadingResourceSet rightResourceSet = loadSide(partition, 1);
+		NotLoadingResourceSet originResourceSet = null;
+		if (threeWay) {
+			originResourceSet = loadSide(partition, 2);
+		}
+		final DefaultComparisonScope scope = new DefaultComparisonScope(leftResourceSet, rightResourceSet,
+				originResourceSet);
+		scope.setResourceSetContentFilter(isInPartition(partition.getURIs()));
+		scope.getAllInvolvedResourceURIs().addAll(partition.getURIs());
+		return scope;
+	}
+
+	/**
+	 * Loads the storages of a side of the given partition in a new resource set.
+	 *
+	 * @param partition
+	 *            The partition to load.
+	 * @param side
+	 *            0 for the left side, 1 for the right side and 2 for the origin.
+	 * @return The resource set of the side.
+	 */
+	private NotLoadingResourceSet loadSide(Partition partition, int side) {
+		return NotLoadingResourceSet.create(new StorageTraversal(partition.getStorages(side)),
+				new NullProgressMonitor(), hookRegistry);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This disposes the resource sets of the partition.
+	 * </p>
+	 */
+	public void release(IComparisonScope2 partition) {
+		for (Notifier notifier : new Notifier[] {partition.getLeft(), partition.getRight(),
+				partition.getOrigin(), }) {
+			if (notifier instanceof DisposableResourceSet) {
+				((DisposableResourceSet)notifier).dispose();
+			}
+		}
+	}
+
+	/**
+	 * Creates a predicate accepting the resources of a partition, the other resources being the ones loaded
+	 * through load on demand policies.
+	 *
+	 * @param uris
+	 *            The normalized URIs of the resources of the partition.
+	 * @return The predicate.
+	 */
+	private static Predicate<Resource> isInPartition(final Set<URI> uris) {
+		return new Predicate<Resource>() {
+			public boolean apply(Resource input) {
+				if (input == null) {
+					return false;
+				}
+				final ResourceSet resourceSet = input.getResourceSet();
+				if (uris.contains(input.getURI())) {
+					return true;
+				} else if (resourceSet != null && resourceSet.getURIConverter() != null) {
+					return uris.contains(resourceSet.getURIConverter().normalize(input.getURI()));
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * The storages of the three sides of a partition.
+	 */
+	protected static final class Partition {
+		/** The normalized URIs of the storages. */
+		private final Set<URI> uris;
+
+		/** The storages of each side, indexed by side. */
+		private final List<Set<IStorage>> storages;
+
+		/**
+		 * Creates an empty partition.
+		 *
+		 * @param uris
+		 *            The normalized URIs of the storages of the partition.
+		 */
+		Partition(List<URI> uris) {
+			this.uris = Sets.newLinkedHashSet(uris);
+			this.storages = ImmutableList.<Set<IStorage>> of(Sets.<IStorage> newLinkedHashSet(),
+					Sets.<IStorage> newLinkedHashSet(), Sets.<IStorage> newLinkedHashSet());
+		}
+
+		/**
+		 * Adds the storages of a resource on all sides.
+		 *
+		 * @param sideStorages
+		 *            The storages of the left, right and origin sides, each of them may be <code>null</code>.
+		 */
+		void add(IStorage[] sideStorages) {
+			for (int side = 0; side < sideStorages.length; side++) {
+				if (sideStorages[side] != null) {
+					storages.get(side).add(sideStorages[side]);
+				}
+			}
+		}
+
+		/**
+		 * Returns the normalized URIs of the storages of this partition.
+		 *
+		 * @return The URIs.
+		 */
+		public Set<URI> getURIs() {
+			return uris;
+		}
+
+		/**
+		 * Returns the storages of a side of this partition.
+		 *
+		 * @param side
+		 *            0 for the left side, 1 for the right side and 2 for the origin.
+		 * @return The storages of the side.
+		 */
+		public Set<IStorage> getStorages(int side) {
+			return storages.get(side);
+		}
+	}
+}
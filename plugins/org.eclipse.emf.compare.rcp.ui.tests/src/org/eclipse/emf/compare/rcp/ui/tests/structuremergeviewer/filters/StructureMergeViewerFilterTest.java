@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceState;
+import org.eclipse.emf.compare.rcp.ui.internal.structuremergeviewer.filters.StructureMergeViewerFilter;
+import org.eclipse.emf.compare.rcp.ui.structuremergeviewer.filters.AbstractDifferenceFilter;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.edit.tree.TreeFactory;
+import org.eclipse.emf.edit.tree.TreeNode;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.eventbus.EventBus;
+
+@SuppressWarnings({"nls", "restriction" })
+public class StructureMergeViewerFilterTest {
+
+	private StructureMergeViewerFilter viewerFilter;
+
+	private TreeNode matchNode;
+
+	private TreeNode firstDiffNode;
+
+	private TreeNode secondDiffNode;
+
+	private Diff secondDiff;
+
+	private CountingFilter firstFilter;
+
+	private CountingFilter secondFilter;
+
+	@Before
+	public void setUp() {
+		matchNode = createNode(CompareFactory.eINSTANCE.createMatch());
+		Diff firstDiff = CompareFactory.eINSTANCE.createReferenceChange();
+		secondDiff = CompareFactory.eINSTANCE.createAttributeChange();
+		firstDiffNode = createNode(firstDiff);
+		secondDiffNode = createNode(secondDiff);
+		matchNode.getChildren().add(firstDiffNode);
+		matchNode.getChildren().add(secondDiffNode);
+
+		firstFilter = new CountingFilter(firstDiff);
+		secondFilter = new CountingFilter(secondDiff);
+		viewerFilter = new StructureMergeViewerFilter(new EventBus());
+	}
+
+	@Test
+	public void testFilterToggles() {
+		viewerFilter.addFilter(firstFilter);
+		assertTrue(select(matchNode));
+		assertFalse(select(firstDiffNode));
+		assertTrue(select(secondDiffNode));
+
+		viewerFilter.addFilter(secondFilter);
+		assertFalse(select(matchNode));
+		assertFalse(select(firstDiffNode));
+		assertFalse(select(secondDiffNode));
+
+		viewerFilter.removeFilter(firstFilter);
+		assertTrue(select(matchNode));
+		assertTrue(select(firstDiffNode));
+		assertFalse(select(secondDiffNode));
+
+		viewerFilter.removeFilter(secondFilter);
+		assertTrue(select(matchNode));
+		assertTrue(select(firstDiffNode));
+		assertTrue(select(secondDiffNode));
+	}
+
+	@Test
+	public void testOnlyChangedFilterIsEvaluated() {
+		viewerFilter.addFilter(firstFilter);
+		select(matchNode);
+		select(firstDiffNode);
+		select(secondDiffNode);
+		assertEquals(3, firstFilter.evaluations);
+
+		viewerFilter.addFilter(secondFilter);
+		select(matchNode);
+		select(firstDiffNode);
+		select(secondDiffNode);
+		assertEquals(3, firstFilter.evaluations);
+		// The match node and the second diff node, the first one being already filtered out
+		assertEquals(2, secondFilter.evaluations);
+
+		viewerFilter.removeFilter(firstFilter);
+		select(matchNode);
+		select(firstDiffNode);
+		select(secondDiffNode);
+		assertEquals(3, firstFilter.evaluations);
+		assertEquals(3, secondFilter.evaluations);
+
+		// Selecting the filter again evaluates it on the current state of the nodes which are not already
+		// filtered out by the second filter
+		viewerFilter.addFilter(firstFilter);
+		assertEquals(5, firstFilter.evaluations);
+		assertFalse(select(matchNode));
+		assertFalse(select(firstDiffNode));
+		assertEquals(5, firstFilter.evaluations);
+		assertEquals(3, secondFilter.evaluations);
+	}
+
+	@Test
+	public void testInvalidate() {
+		CountingFilter mergedFilter = new CountingFilter(new Predicate<EObject>() {
+			public boolean apply(EObject input) {
+				EObject data = ((TreeNode)input).getData();
+				return data instanceof Diff && ((Diff)data).getState() == DifferenceState.MERGED;
+			}
+		});
+		viewerFilter.addFilter(firstFilter);
+		viewerFilter.addFilter(mergedFilter);
+		assertTrue(select(matchNode));
+		assertTrue(select(secondDiffNode));
+		assertEquals(2, mergedFilter.evaluations);
+
+		secondDiff.setState(DifferenceState.MERGED);
+		viewerFilter.invalidate();
+		assertFalse(select(matchNode));
+		assertFalse(select(secondDiffNode));
+		assertEquals(4, mergedFilter.evaluations);
+	}
+
+	private boolean select(EObject node) {
+		return viewerFilter.select(null, null, node);
+	}
+
+	private static TreeNode createNode(EObject data) {
+		TreeNode node = TreeFactory.eINSTANCE.createTreeNode();
+		node.setData(data);
+		return node;
+	}
+
+	private static class CountingFilter extends AbstractDifferenceFilter {
+
+		private final Predicate<EObject> predicate;
+
+		private int evaluations;
+
+		CountingFilter(final Diff hiddenDiff) {
+			this(new Predicate<EObject>() {
+				public boolean apply(EObject input) {
+					return input instanceof TreeNode && ((TreeNode)input).getData() == hiddenDiff;
+				}
+			});
+		}
+
+		CountingFilter(final Predicate<EObject> hidden) {
+			this.predicate = new Predicate<EObject>() {
+				public boolean apply(EObject input) {
+					evaluations++;
+					return hidden.apply(input);
+				}
+			};
+		}
+
+		@Override
+		public Predicate<? super EObject> getPredicateWhenSelected() {
+			return predicate;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.groups;
+
+import static com.google.common.base.Predicates.alwaysTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.rcp.ui.internal.structuremergeviewer.groups.impl.BasicDifferenceGroupImpl;
+import org.eclipse.emf.compare.rcp.ui.internal.structuremergeviewer.nodes.DiffNode;
+import org.eclipse.emf.compare.rcp.ui.internal.structuremergeviewer.nodes.MatchNode;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.emf.edit.tree.TreeNode;
+import org.eclipse.emf.edit.tree.TreePackage;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that building the tree of a {@link BasicDifferenceGroupImpl} again reuses the nodes of the
+ * differences and matches still displayed, and evicts the others.
+ */
+@SuppressWarnings({"nls", "restriction" })
+public class BasicDifferenceGroupNodeCacheTest {
+
+	private static final CompareFactory FACTORY = CompareFactory.eINSTANCE;
+
+	private Comparison comparison;
+
+	private Match rootMatch;
+
+	private Match subMatch;
+
+	private Diff rootDiff;
+
+	private Diff refiningDiff;
+
+	private Diff subDiff;
+
+	private BasicDifferenceGroupImpl group;
+
+	@Before
+	public void setUp() {
+		comparison = FACTORY.createComparison();
+		rootMatch = FACTORY.createMatch();
+		subMatch = FACTORY.createMatch();
+		rootMatch.getSubmatches().add(subMatch);
+		comparison.getMatches().add(rootMatch);
+
+		rootDiff = FACTORY.createDiff();
+		refiningDiff = FACTORY.createDiff();
+		subDiff = FACTORY.createDiff();
+		rootDiff.getRefinedBy().add(refiningDiff);
+		rootMatch.getDifferences().add(rootDiff);
+		rootMatch.getDifferences().add(refiningDiff);
+		subMatch.getDifferences().add(subDiff);
+
+		group = new BasicDifferenceGroupImpl(comparison, alwaysTrue(), "", null,
+				new ECrossReferenceAdapter() {
+					@Override
+					protected boolean isIncluded(EReference eReference) {
+						return eReference == TreePackage.Literals.TREE_NODE__DATA;
+					}
+				});
+	}
+
+	@Test
+	public void testNodesAreReused() {
+		group.buildSubTree();
+		MatchNode rootNode = getRootNode();
+		DiffNode rootDiffNode = getDiffNode(rootNode, rootDiff);
+		DiffNode refiningDiffNode = getDiffNode(rootDiffNode, refiningDiff);
+		MatchNode subNode = getMatchNode(rootNode, subMatch);
+		DiffNode subDiffNode = getDiffNode(subNode, subDiff);
+
+		group.buildSubTree();
+		assertEquals(1, group.getChildren().size());
+		assertSame(rootNode, group.getChildren().get(0));
+		assertEquals(2, rootNode.getChildren().size());
+		assertSame(rootDiffNode, getDiffNode(rootNode, rootDiff));
+		assertEquals(1, rootDiffNode.getChildren().size());
+		assertSame(refiningDiffNode, getDiffNode(rootDiffNode, refiningDiff));
+		assertSame(subNode, getMatchNode(rootNode, subMatch));
+		assertEquals(1, subNode.getChildren().size());
+		assertSame(subDiffNode, getDiffNode(subNode, subDiff));
+	}
+
+	@Test
+	public void testNodesOfRemovedDiffsAreEvicted() {
+		group.buildSubTree();
+		MatchNode rootNode = getRootNode();
+		DiffNode rootDiffNode = getDiffNode(rootNode, rootDiff);
+		DiffNode refiningDiffNode = getDiffNode(rootDiffNode, refiningDiff);
+
+		rootDiff.getRefinedBy().remove(refiningDiff);
+		rootMatch.getDifferences().remove(refiningDiff);
+		group.buildSubTree();
+		assertSame(rootDiffNode, getDiffNode(rootNode, rootDiff));
+		assertEquals(0, rootDiffNode.getChildren().size());
+		assertNull(refiningDiffNode.getParent());
+
+		// The node of the removed diff is not reused once it is back
+		rootDiff.getRefinedBy().add(refiningDiff);
+		rootMatch.getDifferences().add(refiningDiff);
+		group.buildSubTree();
+		assertSame(rootDiffNode, getDiffNode(rootNode, rootDiff));
+		assertNotSame(refiningDiffNode, getDiffNode(rootDiffNode, refiningDiff));
+	}
+
+	@Test
+	public void testNodesOfRemovedMatchesAreEvicted() {
+		group.buildSubTree();
+		MatchNode rootNode = getRootNode();
+		MatchNode subNode = getMatchNode(rootNode, subMatch);
+		DiffNode subDiffNode = getDiffNode(subNode, subDiff);
+
+		rootMatch.getSubmatches().remove(subMatch);
+		group.buildSubTree();
+		assertSame(rootNode, group.getChildren().get(0));
+		assertEquals(1, rootNode.getChildren().size());
+		assertNull(subNode.getParent());
+
+		// The nodes of the removed match and of its diff are not reused once it is back
+		rootMatch.getSubmatches().add(subMatch);
+		group.buildSubTree();
+		MatchNode newSubNode = getMatchNode(rootNode, subMatch);
+		assertNotSame(subNode, newSubNode);
+		assertNotSame(subDiffNode, getDiffNode(newSubNode, subDiff));
+	}
+
+	@Test
+	public void testDisposeEvictsAllNodes() {
+		group.buildSubTree();
+		TreeNode rootNode = group.getChildren().get(0);
+
+		group.dispose();
+		group.buildSubTree();
+		assertNotSame(rootNode, group.getChildren().get(0));
+	}
+
+	private MatchNode getRootNode() {
+		assertEquals(1, group.getChildren().size());
+		MatchNode rootNode = (MatchNode)group.getChildren().get(0);
+		assertSame(rootMatch, rootNode.getMatch());
+		return rootNode;
+	}
+
+	private static MatchNode getMatchNode(TreeNode parent, Match match) {
+		for (TreeNode child : parent.getChildren()) {
+			if (child.getData() == match) {
+				return (MatchNode)child;
+			}
+		}
+		throw new AssertionError("No node for " + match);
+	}
+
+	private static DiffNode getDiffNode(TreeNode parent, Diff diff) {
+		for (TreeNode child : parent.getChildren()) {
+			if (child.getData() == diff) {
+				return (DiffNode)child;
+			}
+		}
+		throw new AssertionError("No node for " + diff);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2017 Obeo and others.
+ * Copyright (c) 2013, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,8 +20,10 @@ import org.eclipse.emf.compare.rcp.ui.tests.mergeviewer.TableOrTreeMergeViewerEl
 import org.eclipse.emf.compare.rcp.ui.tests.mergeviewer.item.MergeViewerItemFeatureMapsTest;
 import org.eclipse.emf.compare.rcp.ui.tests.mergeviewer.item.MergeViewerItemPseudoConflictTest;
 import org.eclipse.emf.compare.rcp.ui.tests.mergeviewer.item.MergeViewerItemTest;
+import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.filters.StructureMergeViewerFilterTest;
 import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.filters.TechnicalitiesFilterTests;
 import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.filters.TestFeatureMapDifferencesFilter;
+import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.groups.BasicDifferenceGroupNodeCacheTest;
 import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.groups.ConflictsGroupTest;
 import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.groups.ResourceAttachmentChangeInGroupsTest;
 import org.eclipse.emf.compare.rcp.ui.tests.structuremergeviewer.groups.TestBasicDifferenceGroupImpl;
@@ -47,7 +49,8 @@ import org.junit.runners.Suite.SuiteClasses;
 		RCPMatchEngineFactoryRegistryTest.class, ThreeWayComparisonGroupProviderTest.class,
 		ConflictsGroupTest.class, MatchAccessorTest.class, TechnicalitiesFilterTests.class,
 		MatchOfContainmentReferenceChangeAdapterTest.class, ResourceAttachmentChangeInGroupsTest.class,
-		TableOrTreeMergeViewerElementComparerTest.class })
+		TableOrTreeMergeViewerElementComparerTest.class, StructureMergeViewerFilterTest.class,
+		BasicDifferenceGroupNodeCacheTest.class })
 public class AllTests {
 
 	@BeforeClass
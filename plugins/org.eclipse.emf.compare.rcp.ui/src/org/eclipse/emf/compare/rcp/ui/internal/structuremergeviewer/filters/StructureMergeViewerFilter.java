@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import static com.google.common.base.Predicates.alwaysFalse;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Predicates.or;
 import static com.google.common.collect.Iterables.any;
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newLinkedHashSet;
 
@@ -24,8 +25,10 @@ import com.google.common.collect.Iterables;
 import com.google.common.eventbus.EventBus;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.notify.Notifier;
@@ -51,6 +54,14 @@ import org.eclipse.ui.progress.PendingUpdateAdapter;
  * that act as "AND" predicates for "include" filters, forcing any displayed element to meet the criterion of
  * all provided filters.
  * </p>
+ * <p>
+ * The verdicts of the predicates on each tree node are cached in bitmasks, one bit per predicate, and kept
+ * when the filters change. Selecting or unselecting a filter thus only evaluates the predicates which were
+ * not active before, and only forgets the visibility of the nodes for which the verdict of the active
+ * predicates changed, along with their ancestors. The verdicts depend on the state of the differences, they
+ * are thus all forgotten when the comparison changes or is modified, e.g. by a merge (see
+ * {@link #invalidate()}).
+ * </p>
  * 
  * @author <a href="mailto:laurent.goubet@obeo.fr">Laurent Goubet</a>
  * @since 4.0
@@ -78,13 +89,35 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 	/** The cached values for {@link #select(Viewer, Object, Object)}. */
 	private final Map<Object, Boolean> selectedObjects;
 
+	/** The bit of each predicate in the {@link Verdicts verdicts} of the nodes. */
+	private final Map<Predicate<? super EObject>, Integer> predicateBits;
+
+	/** The predicates which have a bit, by bit. */
+	private final List<Predicate<? super EObject>> bitPredicates;
+
+	/** The cached verdicts of the predicates on each node, forgotten with the nodes. */
+	private final Map<EObject, Verdicts> verdicts;
+
+	/** The cached results of the {@link #viewerPredicate} on each node, forgotten with the nodes. */
+	private final Map<EObject, Boolean> visibleNodes;
+
+	/** The bits of the predicates known by this filter. */
+	private long activeBits;
+
+	/** The predicates known by this filter which do not have a bit, and are thus evaluated each time. */
+	private List<Predicate<? super EObject>> uncachedPredicates;
+
 	/**
 	 * The predicate used by this StructureMergeViewerFilter.
 	 */
 	private final Predicate<? super EObject> viewerPredicate = new Predicate<EObject>() {
 		public boolean apply(EObject eObject) {
+			Boolean cachedResult = visibleNodes.get(eObject);
+			if (cachedResult != null) {
+				return cachedResult.booleanValue();
+			}
 			final boolean ret;
-			if (aggregatedPredicate.apply(eObject)) {
+			if (!isExcluded(eObject)) {
 				Collection<EObject> eContents = eObject.eContents();
 				if (!eContents.isEmpty() && eObject instanceof TreeNode) {
 					EObject data = ((TreeNode)eObject).getData();
@@ -99,6 +132,7 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 			} else {
 				ret = false;
 			}
+			visibleNodes.put(eObject, Boolean.valueOf(ret));
 			return ret;
 		}
 	};
@@ -123,6 +157,11 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 		this.activeDifferenceFilters = newLinkedHashSet();
 		this.aggregatedPredicate = DEFAULT_PREDICATE;
 		this.selectedObjects = newHashMap();
+		this.predicateBits = newHashMap();
+		this.bitPredicates = newArrayList();
+		this.verdicts = new WeakHashMap<EObject, Verdicts>();
+		this.visibleNodes = new WeakHashMap<EObject, Boolean>();
+		this.uncachedPredicates = newArrayList();
 	}
 
 	/**
@@ -196,9 +235,117 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 	 */
 	private Predicate<? super EObject> computeAggregatedPredicate() {
 		clearCache();
+		updateActivePredicates();
 		return not(or(predicates));
 	}
 
+	/**
+	 * Computes the bits of the predicates known by this filter, and forgets the visibility of the nodes
+	 * which are affected by the change of these predicates.
+	 * <p>
+	 * The predicates which were not active before are evaluated again on all the nodes which have cached
+	 * verdicts, so that their verdicts reflect the current state of the comparison. Only the nodes for which
+	 * the verdict of the active predicates changed, and their ancestors, have to be filtered again.
+	 * </p>
+	 */
+	private void updateActivePredicates() {
+		final long previousBits = activeBits;
+		final List<Predicate<? super EObject>> previousUncachedPredicates = uncachedPredicates;
+		long bits = 0L;
+		final List<Predicate<? super EObject>> uncached = newArrayList();
+		for (Predicate<? super EObject> predicate : predicates) {
+			final int bit = getBit(predicate);
+			if (bit < 0) {
+				uncached.add(predicate);
+			} else {
+				bits |= 1L << bit;
+			}
+		}
+		activeBits = bits;
+		uncachedPredicates = uncached;
+
+		if (!uncached.equals(previousUncachedPredicates)) {
+			visibleNodes.clear();
+		} else if (bits != previousBits) {
+			final long addedBits = bits & ~previousBits;
+			for (Map.Entry<EObject, Verdicts> entry : newArrayList(verdicts.entrySet())) {
+				final Verdicts nodeVerdicts = entry.getValue();
+				final boolean wasExcluded = (nodeVerdicts.matching & previousBits) != 0;
+				nodeVerdicts.forget(addedBits);
+				if (wasExcluded != isExcluded(entry.getKey())) {
+					forgetVisibility(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the bit of the given predicate, allocating it on first use.
+	 * 
+	 * @param predicate
+	 *            The predicate.
+	 * @return The bit of this predicate, <code>-1</code> if all bits are already allocated.
+	 */
+	private int getBit(Predicate<? super EObject> predicate) {
+		final Integer bit = predicateBits.get(predicate);
+		if (bit != null) {
+			return bit.intValue();
+		}
+		if (bitPredicates.size() == Long.SIZE) {
+			return -1;
+		}
+		final int newBit = bitPredicates.size();
+		bitPredicates.add(predicate);
+		predicateBits.put(predicate, Integer.valueOf(newBit));
+		return newBit;
+	}
+
+	/**
+	 * Checks whether one of the predicates known by this filter applies to the given node, evaluating those
+	 * which have no cached verdict on it.
+	 * 
+	 * @param eObject
+	 *            The node.
+	 * @return <code>true</code> if the node is excluded by one of the predicates.
+	 */
+	private boolean isExcluded(final EObject eObject) {
+		Verdicts nodeVerdicts = verdicts.get(eObject);
+		if (nodeVerdicts == null) {
+			nodeVerdicts = new Verdicts();
+			verdicts.put(eObject, nodeVerdicts);
+		}
+		if ((nodeVerdicts.matching & activeBits) != 0) {
+			return true;
+		}
+		long missingBits = activeBits & ~nodeVerdicts.evaluated;
+		while (missingBits != 0) {
+			final int bit = Long.numberOfTrailingZeros(missingBits);
+			missingBits &= missingBits - 1;
+			if (nodeVerdicts.evaluate(bit, bitPredicates.get(bit), eObject)) {
+				return true;
+			}
+		}
+		return any(uncachedPredicates, new Predicate<Predicate<? super EObject>>() {
+			public boolean apply(Predicate<? super EObject> predicate) {
+				return predicate.apply(eObject);
+			}
+		});
+	}
+
+	/**
+	 * Forgets the cached visibility of the given node and of all its ancestors, which depends on it.
+	 * 
+	 * @param eObject
+	 *            The node.
+	 */
+	private void forgetVisibility(EObject eObject) {
+		EObject node = eObject;
+		while (node != null) {
+			visibleNodes.remove(node);
+			node = node.eContainer();
+		}
+	}
+
 	/**
 	 * Clears the cached results.
 	 */
@@ -206,6 +353,17 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 		selectedObjects.clear();
 	}
 
+	/**
+	 * Forgets all the cached results of this filter, including the verdicts of the predicates. This must be
+	 * called when the state of the differences changes, for instance after a merge or its undo, as the
+	 * predicates may then no longer apply to the same nodes.
+	 */
+	public void invalidate() {
+		clearCache();
+		verdicts.clear();
+		visibleNodes.clear();
+	}
+
 	/**
 	 * Remove the predicate of the given {@link IDifferenceFilter}.
 	 * 
@@ -241,6 +399,9 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 			Collection<IDifferenceFilter> unselectedFilters, Collection<IDifferenceFilter> activeFilters) {
 		boolean changed = false;
 
+		// The filter is initialized for a new comparison
+		invalidate();
+
 		if (!predicates.isEmpty()) {
 			predicates.clear();
 			changed = true;
@@ -301,4 +462,48 @@ public class StructureMergeViewerFilter extends ViewerFilter {
 	public Predicate<? super EObject> getAggregatedPredicate() {
 		return aggregatedPredicate;
 	}
+
+	/**
+	 * The verdicts of the predicates on a node, as bitmasks indexed by the bits of the predicates.
+	 */
+	private static final class Verdicts {
+		/** The bits of the predicates which have been evaluated on the node. */
+		private long evaluated;
+
+		/** The bits of the evaluated predicates which apply to the node. */
+		private long matching;
+
+		/**
+		 * Evaluates a predicate on the node and caches its verdict.
+		 * 
+		 * @param bit
+		 *            The bit of the predicate.
+		 * @param predicate
+		 *            The predicate.
+		 * @param eObject
+		 *            The node.
+		 * @return <code>true</code> if the predicate applies to the node.
+		 */
+		boolean evaluate(int bit, Predicate<? super EObject> predicate, EObject eObject) {
+			final long mask = 1L << bit;
+			evaluated |= mask;
+			if (predicate.apply(eObject)) {
+				matching |= mask;
+				return true;
+			}
+			matching &= ~mask;
+			return false;
+		}
+
+		/**
+		 * Forgets the verdicts of the given predicates, so that they are evaluated again when needed.
+		 * 
+		 * @param bits
+		 *            The bits of the predicates.
+		 */
+		void forget(long bits) {
+			evaluated &= ~bits;
+			matching &= ~bits;
+		}
+	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,9 +19,11 @@ import static org.eclipse.emf.compare.utils.EMFComparePredicates.hasState;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 
@@ -101,6 +103,21 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 	/** The cross reference adapter that will be added to this group's children. */
 	private final ECrossReferenceAdapter crossReferenceAdapter;
 
+	/**
+	 * The differences to display as direct children of a match node, by match owning them. Computed once per
+	 * build, see {@link #getDisplayedDiffsByMatch()}.
+	 */
+	private ListMultimap<Match, Diff> displayedDiffsByMatch;
+
+	/**
+	 * The matches owning differences to display, along with all their ancestors. The sub trees of the other
+	 * matches are empty and are not built.
+	 */
+	private Set<Match> matchesWithDisplayedDiffs;
+
+	/** The nodes of the differences, matches and resource matches, reused when the tree is built again. */
+	private final TreeNodeCache nodeCache = new TreeNodeCache();
+
 	/**
 	 * Instantiates this group given the comparison and filter that should be used in order to determine its
 	 * list of differences.
@@ -268,17 +285,82 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 			unregisterCrossReferenceAdapter(children);
 			children = null;
 		}
+		clearDisplayedDiffs();
+		nodeCache.clear();
 	}
 
 	/**
 	 * Builds the sub tree for this group.
+	 * <p>
+	 * If the tree has already been built, the nodes of the differences, matches and resource matches which
+	 * are still displayed are reused and given their new children. The nodes of the others are evicted.
+	 * </p>
 	 */
 	public void buildSubTree() {
+		if (children != null) {
+			unregisterCrossReferenceAdapter(children);
+		}
+		clearDisplayedDiffs();
+		nodeCache.startBuild();
 		children = createChildren();
 		doBuildSubTrees();
 		customize(children);
+		nodeCache.endBuild();
 		registerCrossReferenceAdapter(children);
 		setTarget(comparison);
+		clearDisplayedDiffs();
+	}
+
+	/**
+	 * Returns the differences to display as direct children of a match node, by match owning them.
+	 * <p>
+	 * These are the differences of the comparison which are accepted by the {@link #filter} and
+	 * {@link #mustDisplayAsDirectChildOfMatch(Diff) must be displayed as direct children of a match}, in the
+	 * order of their match. They are computed in a single pass over the differences of the comparison the
+	 * first time they are needed, and forgotten at the end of {@link #buildSubTree()}, so that building the
+	 * tree does not evaluate the filter on each match and does not walk the sub trees without any difference
+	 * to display.
+	 * </p>
+	 * 
+	 * @return The differences to display, by match.
+	 */
+	private ListMultimap<Match, Diff> getDisplayedDiffsByMatch() {
+		if (displayedDiffsByMatch == null) {
+			displayedDiffsByMatch = ArrayListMultimap.create();
+			matchesWithDisplayedDiffs = Sets.newHashSet();
+			for (Diff diff : getComparison().getDifferences()) {
+				final Match match = diff.getMatch();
+				if (match != null && filter.apply(diff) && mustDisplayAsDirectChildOfMatch(diff)) {
+					displayedDiffsByMatch.put(match, diff);
+					EObject ancestor = match;
+					while (ancestor instanceof Match && matchesWithDisplayedDiffs.add((Match)ancestor)) {
+						ancestor = ancestor.eContainer();
+					}
+				}
+			}
+		}
+		return displayedDiffsByMatch;
+	}
+
+	/**
+	 * Checks whether the given match, or one of its sub matches, owns differences to display.
+	 * 
+	 * @param match
+	 *            The match.
+	 * @return <code>false</code> if the sub tree of this match has no difference of its own to display.
+	 */
+	private boolean hasDisplayedDiffs(Match match) {
+		getDisplayedDiffsByMatch();
+		return matchesWithDisplayedDiffs.contains(match);
+	}
+
+	/**
+	 * Forgets the differences to display, so that they are computed again from the current state of the
+	 * comparison the next time they are needed.
+	 */
+	private void clearDisplayedDiffs() {
+		displayedDiffsByMatch = null;
+		matchesWithDisplayedDiffs = null;
 	}
 
 	/**
@@ -306,9 +388,12 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 	protected List<TreeNode> buildMatchTrees() {
 		final List<TreeNode> matchTrees = new ArrayList<TreeNode>();
 		for (Match match : getComparison().getMatches()) {
-			MatchNode matchNode = buildTree(match);
-			if (matchNode != null) {
-				matchTrees.add(matchNode);
+			// The tree of a match without any difference to display would be empty
+			if (hasDisplayedDiffs(match)) {
+				MatchNode matchNode = buildTree(match);
+				if (matchNode != null) {
+					matchTrees.add(matchNode);
+				}
 			}
 		}
 		return matchTrees;
@@ -341,32 +426,33 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 	protected void populateMatchNode(MatchNode matchNode) {
 		Match match = matchNode.getMatch();
 		Multimap<Match, Diff> diffsBySubMatch = LinkedHashMultimap.create();
-		for (Diff diff : filter(match.getDifferences(), filter)) {
-			// If a diff is part of a larger diff (is refined by), we don't want to add it to the tree. It
-			// will be added by the algorithm in a second step. This way we avoid duplication and all diffs
-			// that are part of a 'master' diff are grouped as children of this 'master' diff
-			if (mustDisplayAsDirectChildOfMatch(diff)) {
-				Match targetMatch = getTargetMatch(diff);
-				if (match == targetMatch) {
-					addDiffNode(matchNode, diff);
-				} else if (match.getSubmatches().contains(targetMatch)) {
-					diffsBySubMatch.put(targetMatch, diff);
-				} else if (targetMatch != null) {
-					MatchNode targetMatchNode = createMatchNode(targetMatch);
-					matchNode.addSubMatchNode(targetMatchNode);
-					addDiffNode(targetMatchNode, diff);
-				}
+		// If a diff is part of a larger diff (is refined by), we don't want to add it to the tree. It will be
+		// added by the algorithm in a second step. This way we avoid duplication and all diffs that are part
+		// of a 'master' diff are grouped as children of this 'master' diff
+		for (Diff diff : getDisplayedDiffsByMatch().get(match)) {
+			Match targetMatch = getTargetMatch(diff);
+			if (match == targetMatch) {
+				addDiffNode(matchNode, diff);
+			} else if (targetMatch != null && targetMatch.eContainer() == match) {
+				diffsBySubMatch.put(targetMatch, diff);
+			} else if (targetMatch != null) {
+				MatchNode targetMatchNode = createMatchNode(targetMatch);
+				matchNode.addSubMatchNode(targetMatchNode);
+				addDiffNode(targetMatchNode, diff);
 			}
 		}
 		for (Match subMatch : match.getSubmatches()) {
-			MatchNode subMatchNode = createMatchNode(subMatch);
-			for (Diff subMatchDiff : diffsBySubMatch.get(subMatch)) {
-				addDiffNode(subMatchNode, subMatchDiff);
-			}
-			diffsBySubMatch.removeAll(subMatch);
-			populateMatchNode(subMatchNode);
-			if (!subMatchNode.getChildren().isEmpty()) {
-				matchNode.addSubMatchNode(subMatchNode);
+			// The sub tree of a sub match without any difference to display would be empty
+			if (hasDisplayedDiffs(subMatch) || diffsBySubMatch.containsKey(subMatch)) {
+				MatchNode subMatchNode = createMatchNode(subMatch);
+				for (Diff subMatchDiff : diffsBySubMatch.get(subMatch)) {
+					addDiffNode(subMatchNode, subMatchDiff);
+				}
+				diffsBySubMatch.removeAll(subMatch);
+				populateMatchNode(subMatchNode);
+				if (!subMatchNode.getChildren().isEmpty()) {
+					matchNode.addSubMatchNode(subMatchNode);
+				}
 			}
 		}
 	}
@@ -486,28 +572,36 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 	}
 
 	/**
-	 * Create a diff node.
+	 * Create a diff node, or reuse the node of the diff built by the previous build of the tree.
 	 * 
 	 * @param diff
 	 *            The given diff
 	 * @return the DiffNode
 	 */
 	protected DiffNode createDiffNode(Diff diff) {
-		DiffNode diffNode = new DiffNode(diff);
-		diffNode.eAdapters().add(this);
+		DiffNode diffNode = (DiffNode)nodeCache.reuse(diff);
+		if (diffNode == null) {
+			diffNode = new DiffNode(diff);
+			diffNode.eAdapters().add(this);
+			nodeCache.add(diff, diffNode);
+		}
 		return diffNode;
 	}
 
 	/**
-	 * Create a match node.
+	 * Create a match node, or reuse the node of the match built by the previous build of the tree.
 	 * 
 	 * @param match
 	 *            The given match
 	 * @return the MatchNode
 	 */
 	protected MatchNode createMatchNode(Match match) {
-		MatchNode matchNode = new MatchNode(match);
-		matchNode.eAdapters().add(this);
+		MatchNode matchNode = (MatchNode)nodeCache.reuse(match);
+		if (matchNode == null) {
+			matchNode = new MatchNode(match);
+			matchNode.eAdapters().add(this);
+			nodeCache.add(match, matchNode);
+		}
 		return matchNode;
 	}
 
@@ -525,15 +619,20 @@ public class BasicDifferenceGroupImpl extends AdapterImpl implements IDifference
 	}
 
 	/**
-	 * Create a matchResource node.
+	 * Create a matchResource node, or reuse the node of the matchResource built by the previous build of the
+	 * tree.
 	 * 
 	 * @param matchResource
 	 *            The given matchResource
 	 * @return the MatchResourceNode
 	 */
 	protected MatchResourceNode createMatchResourceNode(MatchResource matchResource) {
-		MatchResourceNode matchResourceNode = new MatchResourceNode(matchResource);
-		matchResourceNode.eAdapters().add(this);
+		MatchResourceNode matchResourceNode = (MatchResourceNode)nodeCache.reuse(matchResource);
+		if (matchResourceNode == null) {
+			matchResourceNode = new MatchResourceNode(matchResource);
+			matchResourceNode.eAdapters().add(this);
+			nodeCache.add(matchResource, matchResourceNode);
+		}
 		return matchResourceNode;
 	}
 
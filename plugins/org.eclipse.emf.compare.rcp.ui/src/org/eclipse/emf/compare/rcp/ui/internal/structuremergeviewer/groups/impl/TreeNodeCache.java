@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.rcp.ui.internal.structuremergeviewer.groups.impl;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Multiset;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.edit.tree.TreeNode;
+
+/**
+ * The tree nodes created by a {@link BasicDifferenceGroupImpl}, by the object they represent, so that
+ * building the tree of the group again reuses the nodes of the objects that are still displayed.
+ * <p>
+ * An object displayed at several places of the tree is represented by several nodes, which are reused in the
+ * order in which they were created. When a build starts, the children of all the cached nodes are cleared,
+ * the reused nodes are then only given the children of the new tree. When it ends, the nodes which were not
+ * reused are evicted: those of the differences and matches removed from the comparison, or no longer
+ * displayed.
+ * </p>
+ */
+final class TreeNodeCache {
+	/** The cached nodes, by represented object, in the order in which they were created. */
+	private final ListMultimap<EObject, TreeNode> nodes = ArrayListMultimap.create();
+
+	/** The number of nodes of each object which have been used by the current build. */
+	private final Multiset<EObject> used = HashMultiset.create();
+
+	/** Whether a build is in progress. Nodes are neither reused nor cached outside of a build. */
+	private boolean building;
+
+	/**
+	 * Starts a build of the tree, clearing the children of all cached nodes.
+	 */
+	void startBuild() {
+		for (TreeNode node : nodes.values()) {
+			node.getChildren().clear();
+		}
+		used.clear();
+		building = true;
+	}
+
+	/**
+	 * Returns a node of the given object which has not been used yet by the current build.
+	 *
+	 * @param data
+	 *            The object represented by the node.
+	 * @return The reused node, <code>null</code> if a new one has to be created.
+	 */
+	TreeNode reuse(EObject data) {
+		TreeNode result = null;
+		if (building) {
+			final List<TreeNode> cached = nodes.get(data);
+			final int count = used.count(data);
+			if (count < cached.size()) {
+				result = cached.get(count);
+				used.add(data);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Caches a node created by the current build.
+	 *
+	 * @param data
+	 *            The object represented by the node.
+	 * @param node
+	 *            The new node.
+	 */
+	void add(EObject data, TreeNode node) {
+		if (building) {
+			nodes.put(data, node);
+			used.add(data);
+		}
+	}
+
+	/**
+	 * Ends the current build, evicting the nodes it did not use.
+	 */
+	void endBuild() {
+		building = false;
+		final Iterator<Map.Entry<EObject, List<TreeNode>>> entries = Multimaps.asMap(nodes).entrySet()
+				.iterator();
+		while (entries.hasNext()) {
+			final Map.Entry<EObject, List<TreeNode>> entry = entries.next();
+			final int count = used.count(entry.getKey());
+			final List<TreeNode> cached = entry.getValue();
+			if (count == 0) {
+				entries.remove();
+			} else if (count < cached.size()) {
+				cached.subList(count, cached.size()).clear();
+			}
+		}
+		used.clear();
+	}
+
+	/**
+	 * Evicts all nodes.
+	 */
+	void clear() {
+		nodes.clear();
+		used.clear();
+		building = false;
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.conflict;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.conflict.ComparisonIndex;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.conflict.data.ConflictInputData;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ComparisonIndexTest {
+
+	@Test
+	public void sameReferenceChangesAsMultimap() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		assertIndexed(input.getComplexLeft(), input.getComplexRight(), input.getComplexOrigin());
+		assertIndexed(input.getC1ReferenceLeft(), input.getC1ReferenceRight(), input.getC1ReferenceOrigin());
+	}
+
+	@Test
+	public void unknownValues() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		Comparison comparison = compare(input.getComplexLeft(), input.getComplexRight(),
+				input.getComplexOrigin());
+		ComparisonIndex index = ComparisonIndex.index(comparison, new BasicMonitor());
+
+		assertTrue(index.getReferenceChangesByValueURI(URI.createURI("unknown#//")).isEmpty());
+		assertTrue(index.getReferenceChangesByValueURI(null).isEmpty());
+		assertTrue(index.getReferenceChangesByValueMatch(null).isEmpty());
+		assertTrue(index.getReferenceChangesByValue(EcorePackage.Literals.ECLASS).isEmpty());
+	}
+
+	@Test
+	public void emptyComparison() {
+		Comparison comparison = EMFCompare.builder().build().compare(new DefaultComparisonScope(
+				EcoreUtil.copy(EcorePackage.eINSTANCE), EcoreUtil.copy(EcorePackage.eINSTANCE), null));
+		ComparisonIndex index = ComparisonIndex.index(comparison, new BasicMonitor());
+
+		assertTrue(index.getReferenceChangesByValueMatch(comparison.getMatches().get(0)).isEmpty());
+	}
+
+	private static void assertIndexed(Resource left, Resource right, Resource origin) {
+		Comparison comparison = compare(left, right, origin);
+		Multimap<Object, ReferenceChange> expected = LinkedHashMultimap.create();
+		for (Diff diff : comparison.getDifferences()) {
+			if (diff instanceof ReferenceChange) {
+				EObject value = ((ReferenceChange)diff).getValue();
+				Match match = comparison.getMatch(value);
+				if (match != null) {
+					expected.put(match, (ReferenceChange)diff);
+				} else {
+					expected.put(EcoreUtil.getURI(value), (ReferenceChange)diff);
+				}
+			}
+		}
+		assertFalse(expected.isEmpty());
+
+		ComparisonIndex index = ComparisonIndex.index(comparison, new BasicMonitor());
+		for (Object key : expected.keySet()) {
+			if (key instanceof Match) {
+				assertEquals(ImmutableList.copyOf(expected.get(key)),
+						ImmutableList.copyOf(index.getReferenceChangesByValueMatch((Match)key)));
+			} else {
+				assertEquals(ImmutableList.copyOf(expected.get(key)),
+						ImmutableList.copyOf(index.getReferenceChangesByValueURI((URI)key)));
+			}
+		}
+		for (ReferenceChange diff : expected.values()) {
+			assertTrue(index.getReferenceChangesByValue(diff.getValue()).contains(diff));
+		}
+	}
+
+	private static Comparison compare(Resource left, Resource right, Resource origin) {
+		return EMFCompare.builder().build().compare(new DefaultComparisonScope(left, right, origin));
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.conflict;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Conflict;
+import org.eclipse.emf.compare.ConflictKind;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.conflict.IConflictDetector;
+import org.eclipse.emf.compare.conflict.MatchBasedConflictDetector;
+import org.eclipse.emf.compare.internal.conflict.ConflictUnion;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.conflict.data.ConflictInputData;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ParallelConflictDetectionTest {
+	/** How many times the parallel detection is run with each pool size. */
+	private static final int RUNS = 5;
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void sameConflictsOnInputData() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		assertSameConflicts(input.getComplexLeft(), input.getComplexRight(), input.getComplexOrigin());
+	}
+
+	@Test
+	public void sameConflictsOnDanglingRootDeletion() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		assertSameConflicts(input.getRACDanglingConflictLeftModel(), input.getRACDanglingConflictRightModel(),
+				input.getRACDanglingConflictAncestorModel());
+	}
+
+	@Test
+	public void sameConflictsOnModifiedEcore() {
+		EPackage origin = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage left = EcoreUtil.copy(origin);
+		EPackage right = EcoreUtil.copy(origin);
+		modify(left, 2);
+		modify(right, 3);
+
+		assertSameConflicts(left, right, origin);
+	}
+
+	@Test
+	public void conflictsOfUnion() {
+		EPackage left = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage right = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		modify(right, 2);
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, null));
+		List<Diff> differences = Lists.newArrayList(comparison.getDifferences());
+		assertTrue(differences.size() > 5);
+		assertTrue(comparison.getConflicts().isEmpty());
+
+		ConflictUnion union = new ConflictUnion(comparison);
+		union.union(differences.get(4), differences.get(5), ConflictKind.PSEUDO);
+		union.union(differences.get(0), differences.get(1), ConflictKind.PSEUDO);
+		assertEquals(ConflictKind.PSEUDO, union.getKind(differences.get(0)));
+		union.union(differences.get(2), differences.get(3), ConflictKind.REAL);
+		assertEquals(ConflictKind.REAL, union.getKind(differences.get(3)));
+		union.union(differences.get(1), differences.get(2), ConflictKind.PSEUDO);
+		// The whole set is real once it contains a real pair
+		assertEquals(ConflictKind.REAL, union.getKind(differences.get(0)));
+		assertEquals(ConflictKind.PSEUDO, union.getKind(differences.get(5)));
+		assertNull(union.getKind(differences.get(6)));
+		union.createConflicts();
+
+		assertEquals(2, comparison.getConflicts().size());
+		Conflict first = comparison.getConflicts().get(0);
+		assertEquals(ConflictKind.REAL, first.getKind());
+		assertEquals(differences.subList(0, 4), first.getDifferences());
+		Conflict second = comparison.getConflicts().get(1);
+		assertEquals(ConflictKind.PSEUDO, second.getKind());
+		assertEquals(differences.subList(4, 6), second.getDifferences());
+	}
+
+	private void assertSameConflicts(Notifier left, Notifier right, Notifier origin) {
+		// The sequential detection creates the conflicts in detection order, compare them regardless of it
+		List<String> expected = Ordering.natural()
+				.sortedCopy(detect(new MatchBasedConflictDetector(), left, right, origin));
+		assertFalse(expected.isEmpty());
+		List<String> concurrent = detect(new MatchBasedConflictDetector(executor, 1), left, right, origin);
+		assertEquals(expected, Ordering.natural().sortedCopy(concurrent));
+		for (int chunkSize : new int[] {7, 1000, }) {
+			assertEquals(concurrent,
+					detect(new MatchBasedConflictDetector(executor, chunkSize), left, right, origin));
+		}
+		// The tasks interleave differently from one run and one pool size to the next
+		for (int threads : new int[] {1, 2, 8, }) {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				for (int run = 0; run < RUNS; run++) {
+					assertEquals(concurrent,
+							detect(new MatchBasedConflictDetector(pool, 1), left, right, origin));
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	private static List<String> detect(IConflictDetector detector, Notifier left, Notifier right,
+			Notifier origin) {
+		Comparison comparison = EMFCompare.builder().setConflictDetector(detector).build()
+				.compare(new DefaultComparisonScope(left, right, origin), new BasicMonitor());
+		List<Diff> differences = comparison.getDifferences();
+		List<String> result = Lists.newArrayList();
+		for (Conflict conflict : comparison.getConflicts()) {
+			List<Integer> indices = Lists.newArrayList();
+			for (Diff diff : conflict.getDifferences()) {
+				indices.add(Integer.valueOf(differences.indexOf(diff)));
+			}
+			StringBuilder description = new StringBuilder(conflict.getKind().toString());
+			for (Integer index : Ordering.natural().sortedCopy(indices)) {
+				description.append(' ').append(index);
+			}
+			result.add(description.toString());
+		}
+		return result;
+	}
+
+	private static void modify(EPackage ePackage, int step) {
+		int i = 0;
+		for (EClassifier classifier : Lists.newArrayList(ePackage.getEClassifiers())) {
+			if (i++ % step == 0) {
+				classifier.setName(classifier.getName() + step);
+				if (classifier instanceof EClass) {
+					((EClass)classifier).setAbstract(!((EClass)classifier).isAbstract());
+					if (!((EClass)classifier).getEStructuralFeatures().isEmpty()) {
+						((EClass)classifier).getEStructuralFeatures().remove(0);
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.diff.DefaultDiffEngine;
+import org.eclipse.emf.compare.diff.DeferredDiffBuilder;
+import org.eclipse.emf.compare.diff.IDiffEngine;
+import org.eclipse.emf.compare.diff.ParallelDiffEngine;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.conflict.data.ConflictInputData;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ParallelDiffEngineTest {
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void sameDifferencesInSameOrderTwoWay() {
+		EPackage left = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage right = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		modify(right, 3);
+
+		assertSameDifferences(left, right, null);
+	}
+
+	@Test
+	public void sameDifferencesInSameOrderThreeWay() {
+		EPackage origin = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage left = EcoreUtil.copy(origin);
+		EPackage right = EcoreUtil.copy(origin);
+		modify(left, 3);
+		modify(right, 4);
+
+		assertSameDifferences(left, right, origin);
+	}
+
+	@Test
+	public void sameDifferencesOnInputData() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		assertSameDifferences(input.getComplexLeft(), input.getComplexRight(), input.getComplexOrigin());
+	}
+
+	@Test
+	public void chunkSizeDoesNotMatter() {
+		EPackage left = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage right = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		modify(right, 2);
+
+		List<String> expected = diff(new DefaultDiffEngine(), left, right, null);
+		for (int chunkSize : new int[] {1, 7, 1000, }) {
+			assertEquals(expected,
+					diff(new ParallelDiffEngine(new DeferredDiffBuilder(), executor, chunkSize), left, right,
+							null));
+		}
+	}
+
+	@Test
+	public void localDifferencesAreCustomizable() {
+		EPackage left = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage right = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		modify(right, 2);
+
+		List<String> all = diff(new DefaultDiffEngine(), left, right, null);
+		List<String> expected = diff(new DefaultDiffEngine() {
+			@Override
+			protected void checkForLocalDifferences(Match match, Monitor monitor) {
+				if (!(match.getLeft() instanceof EClass)) {
+					super.checkForLocalDifferences(match, monitor);
+				}
+			}
+		}, left, right, null);
+		assertTrue(expected.size() < all.size());
+		assertEquals(expected, diff(new ParallelDiffEngine(executor) {
+			@Override
+			protected void checkForLocalDifferences(Match match, Monitor monitor) {
+				if (!(match.getLeft() instanceof EClass)) {
+					super.checkForLocalDifferences(match, monitor);
+				}
+			}
+		}, left, right, null));
+	}
+
+	@Test
+	public void deferredDifferencesAreNotAttached() {
+		DeferredDiffBuilder builder = new DeferredDiffBuilder();
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(EcoreUtil.copy(EcorePackage.eINSTANCE),
+						EcoreUtil.copy(EcorePackage.eINSTANCE), null));
+		Match match = comparison.getMatches().get(0);
+		builder.attributeChange(match, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name", null, null);
+		assertTrue(match.getDifferences().isEmpty());
+
+		List<Map.Entry<Match, Diff>> drained = builder.drain();
+		assertEquals(1, drained.size());
+		assertTrue(builder.drain().isEmpty());
+		DeferredDiffBuilder.attach(drained);
+		assertEquals(1, match.getDifferences().size());
+		assertFalse(comparison.getDifferences().isEmpty());
+	}
+
+	private void assertSameDifferences(Notifier left, Notifier right, Notifier origin) {
+		List<String> expected = diff(new DefaultDiffEngine(), left, right, origin);
+		assertFalse(expected.isEmpty());
+		assertEquals(expected, diff(new ParallelDiffEngine(executor), left, right, origin));
+	}
+
+	private static List<String> diff(IDiffEngine engine, Notifier left, Notifier right, Notifier origin) {
+		Comparison comparison = EMFCompare.builder().setDiffEngine(engine).build()
+				.compare(new DefaultComparisonScope(left, right, origin), new BasicMonitor());
+		List<String> result = Lists.newArrayList();
+		Iterator<EObject> contents = comparison.eAllContents();
+		while (contents.hasNext()) {
+			EObject next = contents.next();
+			if (next instanceof Diff) {
+				result.add(describe((Diff)next));
+			}
+		}
+		return result;
+	}
+
+	private static String describe(Diff diff) {
+		StringBuilder result = new StringBuilder();
+		result.append(diff.getSource()).append(' ').append(diff.getKind()).append(' ');
+		result.append(diff.eClass().getName()).append(' ');
+		if (diff instanceof AttributeChange) {
+			result.append(((AttributeChange)diff).getAttribute().getName()).append('=')
+					.append(((AttributeChange)diff).getValue());
+		} else if (diff instanceof ReferenceChange) {
+			result.append(((ReferenceChange)diff).getReference().getName()).append('=')
+					.append(EcoreUtil.getURI(((ReferenceChange)diff).getValue()));
+		}
+		result.append(" requires ").append(diff.getRequires().size());
+		result.append(" conflict ").append(diff.getConflict() != null);
+		return result.toString();
+	}
+
+	private static void modify(EPackage ePackage, int step) {
+		int i = 0;
+		for (EClassifier classifier : Lists.newArrayList(ePackage.getEClassifiers())) {
+			if (i++ % step == 0) {
+				classifier.setName(classifier.getName() + step);
+				if (classifier instanceof EClass) {
+					((EClass)classifier).setAbstract(!((EClass)classifier).isAbstract());
+					if (!((EClass)classifier).getEStructuralFeatures().isEmpty()) {
+						((EClass)classifier).getEStructuralFeatures().remove(0);
+					}
+				}
+			}
+		}
+	}
+}
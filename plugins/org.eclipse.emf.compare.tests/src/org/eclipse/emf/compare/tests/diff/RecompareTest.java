@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Conflict;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Equivalence;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class RecompareTest {
+
+	private EPackage origin;
+
+	private EPackage left;
+
+	private EPackage right;
+
+	private List<Notification> changes;
+
+	private EMFCompare compare;
+
+	@Before
+	public void setUp() {
+		origin = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		left = EcoreUtil.copy(origin);
+		right = EcoreUtil.copy(origin);
+		getClass(right, "EAttribute").setName("EAttributeRight");
+		getClass(right, "EReference").getESuperTypes().clear();
+		getClass(left, "EOperation").setName("EOperationLeft");
+
+		changes = Lists.newArrayList();
+		final EContentAdapter recorder = new EContentAdapter() {
+			@Override
+			public void notifyChanged(Notification notification) {
+				super.notifyChanged(notification);
+				changes.add(notification);
+			}
+		};
+		left.eAdapters().add(recorder);
+		right.eAdapters().add(recorder);
+		compare = EMFCompare.builder().build();
+	}
+
+	@Test
+	public void attributeChanges() {
+		Comparison previous = compare.compare(new DefaultComparisonScope(left, right, origin));
+		changes.clear();
+
+		// conflicting, pseudo-conflicting and reverted changes
+		getClass(left, "EAttribute").setName("EAttributeLeft");
+		getClass(left, "EOperation").setName("EOperation");
+		getClass(left, "EParameter").setAbstract(true);
+		getClass(right, "EParameter").setAbstract(true);
+
+		assertRecomputed(previous);
+	}
+
+	@Test
+	public void referenceChanges() {
+		Comparison previous = compare.compare(new DefaultComparisonScope(left, right, origin));
+		changes.clear();
+
+		getReference(left, "EClass", "eStructuralFeatures").setEOpposite(null);
+		getReference(right, "EClass", "eStructuralFeatures")
+				.setEOpposite(getReference(right, "EClass", "eOperations"));
+		getReference(left, "EReference", "eOpposite").setEOpposite(getReference(left, "EReference", "eKeys"));
+
+		assertRecomputed(previous);
+	}
+
+	@Test
+	public void successiveChanges() {
+		Comparison previous = compare.compare(new DefaultComparisonScope(left, right, origin));
+		for (String name : new String[] {"EAttributeRight", "EAttribute", "EAttributeLeft", }) {
+			changes.clear();
+			getClass(left, "EAttribute").setName(name);
+			previous = compare.recompare(previous, changes);
+		}
+		assertRecomputed(previous);
+	}
+
+	@Test
+	public void renamesUpdateTheReferencesThroughURIs() {
+		// the attributes are out of the scope, the references to them are compared through their URIs
+		getReference(left, "EReference", "eOpposite").getEKeys()
+				.add(getAttribute(left, "ENamedElement", "name"));
+		getReference(right, "EReference", "eOpposite").getEKeys()
+				.add(getAttribute(right, "ENamedElement", "name"));
+		DefaultComparisonScope scope = new DefaultComparisonScope(left, right, null);
+		scope.setEObjectContentFilter(new Predicate<EObject>() {
+			public boolean apply(EObject input) {
+				return !(input instanceof EAttribute);
+			}
+		});
+		Comparison previous = compare.compare(scope);
+		changes.clear();
+
+		getClass(left, "ENamedElement").setName("ENamedElementLeft");
+
+		Comparison recomputed = compare.recompare(previous, changes);
+		assertSame(previous, recomputed);
+		assertTrue(dump(recomputed).contains("eKeys="));
+		assertEquals(dump(compare.compare(scope)), dump(recomputed));
+	}
+
+	@Test
+	public void containmentChangesComputeNewComparison() {
+		Comparison previous = compare.compare(new DefaultComparisonScope(left, right, origin));
+		changes.clear();
+
+		EClass added = EcoreFactory.eINSTANCE.createEClass();
+		added.setName("Added");
+		left.getEClassifiers().add(added);
+
+		Comparison recomputed = compare.recompare(previous, changes);
+		assertNotSame(previous, recomputed);
+		assertEquals(dump(compare.compare(new DefaultComparisonScope(left, right, origin))),
+				dump(recomputed));
+	}
+
+	@Test
+	public void noChanges() {
+		Comparison previous = compare.compare(new DefaultComparisonScope(left, right, origin));
+		String expected = dump(previous);
+		Comparison recomputed = compare.recompare(previous, Collections.<Notification> emptyList());
+		assertSame(previous, recomputed);
+		assertEquals(expected, dump(recomputed));
+	}
+
+	private void assertRecomputed(Comparison previous) {
+		IComparisonScope scope = (IComparisonScope)EcoreUtil.getAdapter(previous.eAdapters(),
+				IComparisonScope.class);
+		Comparison recomputed = compare.recompare(previous, changes);
+		assertSame(previous, recomputed);
+		assertTrue(!recomputed.getConflicts().isEmpty());
+		assertEquals(dump(compare.compare(scope)), dump(recomputed));
+	}
+
+	private static EClass getClass(EPackage ePackage, String name) {
+		// Classes might have been renamed, find them through their position in the original package
+		int index = EcorePackage.eINSTANCE.getEClassifiers()
+				.indexOf(EcorePackage.eINSTANCE.getEClassifier(name));
+		return (EClass)ePackage.getEClassifiers().get(index);
+	}
+
+	private static EReference getReference(EPackage ePackage, String className, String name) {
+		return (EReference)getClass(ePackage, className).getEStructuralFeature(name);
+	}
+
+	private static EAttribute getAttribute(EPackage ePackage, String className, String name) {
+		return (EAttribute)getClass(ePackage, className).getEStructuralFeature(name);
+	}
+
+	private static String dump(Comparison comparison) {
+		List<String> lines = Lists.newArrayList();
+		for (Diff diff : comparison.getDifferences()) {
+			lines.add(describe(diff) + " requires " + describeAll(diff.getRequires()) + " equivalent "
+					+ describeAll(equivalents(diff.getEquivalence())) + " conflict "
+					+ describeConflict(diff.getConflict()));
+		}
+		Collections.sort(lines);
+		StringBuilder result = new StringBuilder();
+		for (String line : lines) {
+			result.append(line).append('\n');
+		}
+		return result.toString();
+	}
+
+	private static List<Diff> equivalents(Equivalence equivalence) {
+		if (equivalence == null) {
+			return Collections.emptyList();
+		}
+		return equivalence.getDifferences();
+	}
+
+	private static String describeConflict(Conflict conflict) {
+		if (conflict == null) {
+			return "none";
+		}
+		return conflict.getKind() + describeAll(conflict.getDifferences());
+	}
+
+	private static String describeAll(List<Diff> diffs) {
+		List<String> descriptions = Lists.newArrayList();
+		for (Diff diff : diffs) {
+			descriptions.add(describe(diff));
+		}
+		Collections.sort(descriptions);
+		return descriptions.toString();
+	}
+
+	private static String describe(Diff diff) {
+		EObject target = diff.getMatch().getLeft();
+		if (target == null) {
+			target = diff.getMatch().getRight();
+		}
+		if (target == null) {
+			target = diff.getMatch().getOrigin();
+		}
+		String change;
+		if (diff instanceof AttributeChange) {
+			change = ((AttributeChange)diff).getAttribute().getName() + "="
+					+ ((AttributeChange)diff).getValue();
+		} else if (diff instanceof ReferenceChange) {
+			change = ((ReferenceChange)diff).getReference().getName() + "="
+					+ locate(((ReferenceChange)diff).getValue());
+		} else {
+			change = diff.eClass().getName();
+		}
+		return diff.getSource() + " " + diff.getKind() + " " + locate(target) + " " + change;
+	}
+
+	private static String locate(EObject eObject) {
+		if (eObject.eContainer() == null) {
+			return "";
+		}
+		EStructuralFeature feature = eObject.eContainingFeature();
+		String location = locate(eObject.eContainer()) + "/" + feature.getName();
+		if (feature.isMany()) {
+			location += "." + ((List<?>)eObject.eContainer().eGet(feature)).indexOf(eObject);
+		}
+		return location;
+	}
+}
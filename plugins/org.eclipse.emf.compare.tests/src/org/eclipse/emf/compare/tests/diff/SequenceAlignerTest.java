@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.diff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.internal.utils.DiffUtil;
+import org.eclipse.emf.compare.internal.utils.ISequenceAligner;
+import org.eclipse.emf.compare.internal.utils.MatrixSequenceAligner;
+import org.eclipse.emf.compare.internal.utils.MyersSequenceAligner;
+import org.eclipse.emf.compare.internal.utils.PatienceSequenceAligner;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class SequenceAlignerTest {
+	private final Comparison comparison = CompareFactory.eINSTANCE.createComparison();
+
+	@Test
+	public void myersFindsLongestSubsequence() {
+		Random random = new Random(42L);
+		for (int i = 0; i < 500; i++) {
+			List<Character> sequence1 = randomSequence(random, random.nextInt(40), "abcd");
+			List<Character> sequence2 = randomSequence(random, random.nextInt(40), "abcd");
+
+			List<Character> expected = new MatrixSequenceAligner().longestCommonSubsequence(comparison,
+					sequence1, sequence2);
+			List<Character> lcs = new MyersSequenceAligner().longestCommonSubsequence(comparison, sequence1,
+					sequence2);
+
+			assertEquals(sequence1 + " / " + sequence2, expected.size(), lcs.size());
+			assertCommonSubsequence(lcs, sequence1, sequence2);
+		}
+	}
+
+	@Test
+	public void patienceFindsCommonSubsequence() {
+		Random random = new Random(42L);
+		for (int i = 0; i < 500; i++) {
+			List<Character> sequence1 = randomSequence(random, random.nextInt(40), "abcdefghij");
+			List<Character> sequence2 = randomSequence(random, random.nextInt(40), "abcdefghij");
+
+			List<Character> lcs = new PatienceSequenceAligner().longestCommonSubsequence(comparison,
+					sequence1, sequence2);
+
+			assertCommonSubsequence(lcs, sequence1, sequence2);
+		}
+	}
+
+	@Test
+	public void patienceKeepsUniqueAnchors() {
+		List<Character> sequence1 = Lists.charactersOf("abcdefgh");
+		List<Character> sequence2 = Lists.charactersOf("hbcdeafg");
+
+		List<Character> lcs = new PatienceSequenceAligner().longestCommonSubsequence(comparison, sequence1,
+				sequence2);
+
+		assertEquals(Lists.charactersOf("bcdefg"), lcs);
+	}
+
+	@Test
+	public void ignoredElementsWithAligners() {
+		List<Character> sequence1 = Lists.charactersOf("abcdefgh");
+		List<Character> sequence2 = Lists.charactersOf("axcydezh");
+		List<Character> ignored = Lists.charactersOf("cz");
+
+		List<Character> expected = DiffUtil.longestCommonSubsequence(comparison, ignored, sequence1,
+				sequence2);
+		assertEquals(Lists.charactersOf("adeh"), expected);
+
+		List<ISequenceAligner> aligners = ImmutableList.of(new MatrixSequenceAligner(),
+				new MyersSequenceAligner(), new PatienceSequenceAligner());
+		for (ISequenceAligner aligner : aligners) {
+			assertEquals(expected, DiffUtil.longestCommonSubsequence(comparison, ignored, sequence1,
+					sequence2, aligner));
+		}
+	}
+
+	@Test
+	public void longSequences() {
+		List<Integer> sequence1 = Lists.newArrayList();
+		List<Integer> sequence2 = Lists.newArrayList();
+		for (int i = 0; i < 20000; i++) {
+			sequence1.add(Integer.valueOf(i));
+			if (i % 10 == 0) {
+				sequence2.add(Integer.valueOf(-i - 1));
+			} else {
+				sequence2.add(Integer.valueOf(i));
+			}
+		}
+
+		List<Integer> lcs = DiffUtil.longestCommonSubsequence(comparison,
+				Collections.<Integer> emptyList(), sequence1, sequence2);
+
+		assertEquals(18000, lcs.size());
+		assertFalse(lcs.contains(Integer.valueOf(10)));
+		assertCommonSubsequence(lcs, sequence1, sequence2);
+	}
+
+	private static List<Character> randomSequence(Random random, int length, String alphabet) {
+		List<Character> sequence = Lists.newArrayList();
+		for (int i = 0; i < length; i++) {
+			sequence.add(Character.valueOf(alphabet.charAt(random.nextInt(alphabet.length()))));
+		}
+		return sequence;
+	}
+
+	private static <E> void assertCommonSubsequence(List<E> lcs, List<E> sequence1, List<E> sequence2) {
+		assertTrue(lcs + " / " + sequence1, isSubsequence(lcs, sequence1));
+		assertTrue(lcs + " / " + sequence2, isSubsequence(lcs, sequence2));
+	}
+
+	private static <E> boolean isSubsequence(List<E> subsequence, List<E> sequence) {
+		int index = 0;
+		for (E element : sequence) {
+			if (index < subsequence.size() && subsequence.get(index).equals(element)) {
+				index++;
+			}
+		}
+		return index == subsequence.size();
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.internal.utils.BigramProfile;
+import org.eclipse.emf.compare.internal.utils.DiffUtil;
+import org.eclipse.emf.compare.match.eobject.EditionDistance;
+import org.eclipse.emf.compare.match.eobject.internal.BigramProfileCache;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class BigramProfileCacheTest {
+
+	@Test
+	public void profilesAreFoundByIdentity() {
+		BigramProfileCache cache = new BigramProfileCache();
+		String value = new String("aName");
+		BigramProfile profile = cache.getProfile(value);
+		assertSame(value, profile.getValue());
+		assertSame(profile, cache.getProfile(value));
+		assertNotSame(profile, cache.getProfile(new String("aName")));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		BigramProfileCache cache = new BigramProfileCache(16);
+		List<String> values = Lists.newArrayList();
+		for (int i = 0; i < 100; i++) {
+			values.add("value" + i);
+			cache.getProfile(values.get(i));
+		}
+		for (String value : values) {
+			cache.getProfile(value);
+		}
+		assertTrue(cache.getHitCount() <= 16);
+		assertEquals(200 - cache.getHitCount(), cache.getMissCount());
+	}
+
+	@Test
+	public void longStringsAreNotCached() {
+		BigramProfileCache cache = new BigramProfileCache();
+		String value = Strings.repeat("a", BigramProfileCache.MAX_CACHED_LENGTH + 1);
+		assertNotSame(cache.getProfile(value), cache.getProfile(value));
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void clearedCacheComputesProfilesAgain() {
+		BigramProfileCache cache = new BigramProfileCache();
+		String value = "aName";
+		BigramProfile profile = cache.getProfile(value);
+		cache.clear();
+		assertNotSame(profile, cache.getProfile(value));
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void profilesGiveTheSameDiceCoefficient() {
+		String[] data = new String[] {"ceString", "classe", "Classe", "UneClasse", "package", "packagedeux",
+				"", "MaClasse", "attribut", "reference", "aa", "aaaa", "aaa", "v1", "v2", "v", "v11", "a",
+				"A", "GGG", "GGGGGG", "night", "nacht", "pierre pascale", "pascale pierre", };
+		for (String first : data) {
+			BigramProfile firstProfile = new BigramProfile(first);
+			for (String second : data) {
+				assertEquals(first + " / " + second, DiffUtil.diceCoefficient(first, second),
+						DiffUtil.diceCoefficientOfProfiles(firstProfile, new BigramProfile(second)), 0d);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sizeMustBeAPowerOfTwo() {
+		new BigramProfileCache(12);
+	}
+
+	@Test
+	public void editionDistanceReusesTheProfiles() {
+		EPackage leftPackage = EcoreFactory.eINSTANCE.createEPackage();
+		EPackage rightPackage = EcoreFactory.eINSTANCE.createEPackage();
+		EClass left = createClass(leftPackage, "SomeClass");
+		List<EClass> candidates = Lists.newArrayList();
+		for (int i = 0; i < 5; i++) {
+			candidates.add(createClass(rightPackage, "SomeClass" + i));
+		}
+		Comparison comparison = CompareFactory.eINSTANCE.createComparison();
+		EditionDistance distance = new EditionDistance();
+		for (EClass candidate : candidates) {
+			distance.distance(comparison, left, candidate);
+		}
+
+		Map<String, Long> counters = Maps.newHashMap();
+		distance.collectCounters(counters);
+		// The name of the left class is only profiled once
+		assertEquals(6, counters.get(ICompareMetrics.BIGRAM_PROFILE_MISSES).longValue());
+		assertEquals(4, counters.get(ICompareMetrics.BIGRAM_PROFILE_HITS).longValue());
+	}
+
+	private static EClass createClass(EPackage ePackage, String name) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		ePackage.getEClassifiers().add(eClass);
+		return eClass;
+	}
+}
@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.match.CachingMatchEngine;
+import org.eclipse.emf.compare.match.DefaultComparisonFactory;
+import org.eclipse.emf.compare.match.DefaultEqualityHelperFactory;
+import org.eclipse.emf.compare.match.DefaultMatchEngine;
+import org.eclipse.emf.compare.match.IMatchEngine;
+import org.eclipse.emf.compare.match.impl.MatchEngineFactoryImpl;
+import org.eclipse.emf.compare.match.impl.MatchEngineFactoryRegistryImpl;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.compare.utils.UseIdentifiers;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class CachingMatchEngineTest {
+	private File cacheDirectory;
+
+	private CountingMatchEngine delegate;
+
+	@Before
+	public void setUp() throws IOException {
+		cacheDirectory = File.createTempFile("matchcache", "");
+		cacheDirectory.delete();
+		delegate = new CountingMatchEngine(DefaultMatchEngine.create(UseIdentifiers.NEVER));
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = cacheDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		cacheDirectory.delete();
+	}
+
+	@Test
+	public void hitRebuildsTheSameMatches() {
+		CachingMatchEngine engine = createEngine(Long.MAX_VALUE);
+
+		Comparison computed = compare(engine, createScope(true));
+		Comparison cached = compare(engine, createScope(true));
+
+		assertEquals(1, delegate.calls);
+		assertEquals(1L, engine.getHitCount());
+		assertEquals(1L, engine.getMissCount());
+		assertEquals(describe(computed), describe(cached));
+		assertEquals(computed.getMatchedResources().size(), cached.getMatchedResources().size());
+		assertEquals(computed.getDifferences().size(), cached.getDifferences().size());
+		assertTrue(cached.isThreeWay());
+	}
+
+	@Test
+	public void changedModelMisses() {
+		CachingMatchEngine engine = createEngine(Long.MAX_VALUE);
+		compare(engine, createScope(false));
+
+		IComparisonScope scope = createScope(false);
+		rename((Resource)scope.getLeft(), "EReference", "EReferenceLeft");
+		compare(engine, scope);
+		compare(engine, createScope(true));
+
+		assertEquals(3, delegate.calls);
+		assertEquals(0L, engine.getHitCount());
+		compare(engine, scope);
+		assertEquals(3, delegate.calls);
+	}
+
+	@Test
+	public void unserializableResourcesAreNotCached() {
+		CachingMatchEngine engine = createEngine(Long.MAX_VALUE);
+		Resource left = new ResourceImpl(URI.createURI("left.ecore"));
+		left.getContents().add(EcoreUtil.copy(EcorePackage.eINSTANCE));
+		Resource right = new ResourceImpl(URI.createURI("right.ecore"));
+		right.getContents().add(EcoreUtil.copy(EcorePackage.eINSTANCE));
+
+		compare(engine, new DefaultComparisonScope(left, right, null));
+		compare(engine, new DefaultComparisonScope(left, right, null));
+
+		assertEquals(2, delegate.calls);
+		assertTrue(cacheDirectory.listFiles() == null || cacheDirectory.listFiles().length == 0);
+	}
+
+	@Test
+	public void unreadableEntriesAreIgnored() throws IOException {
+		CachingMatchEngine engine = createEngine(Long.MAX_VALUE);
+		Comparison computed = compare(engine, createScope(true));
+		File[] entries = cacheDirectory.listFiles();
+		assertEquals(1, entries.length);
+		OutputStream output = new FileOutputStream(entries[0]);
+		try {
+			output.write(new byte[] {1, 2, 3 });
+		} finally {
+			output.close();
+		}
+
+		Comparison recomputed = compare(engine, createScope(true));
+
+		assertEquals(2, delegate.calls);
+		assertEquals(describe(computed), describe(recomputed));
+		assertEquals(1, cacheDirectory.listFiles().length);
+	}
+
+	@Test
+	public void cacheSizeIsBounded() {
+		CachingMatchEngine engine = createEngine(1L);
+		compare(engine, createScope(false));
+		compare(engine, createScope(true));
+
+		assertEquals(2, delegate.calls);
+		File[] entries = cacheDirectory.listFiles();
+		assertTrue(entries == null || entries.length == 0);
+	}
+
+	private CachingMatchEngine createEngine(long maxCacheSize) {
+		return new CachingMatchEngine(delegate,
+				new DefaultComparisonFactory(new DefaultEqualityHelperFactory()), cacheDirectory,
+				maxCacheSize, UseIdentifiers.NEVER.name());
+	}
+
+	private static Comparison compare(final CachingMatchEngine engine, IComparisonScope scope) {
+		MatchEngineFactoryRegistryImpl registry = new MatchEngineFactoryRegistryImpl();
+		registry.add(new MatchEngineFactoryImpl() {
+			@Override
+			public IMatchEngine getMatchEngine() {
+				return engine;
+			}
+		});
+		return EMFCompare.builder().setMatchEngineFactoryRegistry(registry).build().compare(scope);
+	}
+
+	/**
+	 * Describes the matches of a comparison by the URI fragments of their sides.
+	 */
+	private static List<String> describe(Comparison comparison) {
+		List<String> description = Lists.newArrayList();
+		for (Match match : comparison.getMatches()) {
+			describe(match, description);
+		}
+		return description;
+	}
+
+	private static void describe(Match match, List<String> description) {
+		description.add(fragment(match.getLeft()) + "|" + fragment(match.getRight()) + "|"
+				+ fragment(match.getOrigin()));
+		for (Match submatch : match.getSubmatches()) {
+			describe(submatch, description);
+		}
+	}
+
+	private static String fragment(EObject eObject) {
+		if (eObject == null) {
+			return "-";
+		}
+		return eObject.eResource().getURIFragment(eObject);
+	}
+
+	/**
+	 * Creates a scope comparing copies of the Ecore package in which some classifiers have been renamed, so
+	 * that they can only be matched by similarity.
+	 */
+	private static IComparisonScope createScope(boolean threeWay) {
+		Resource left = createCopy("left");
+		Resource right = createCopy("right");
+		rename(left, "EAnnotation", "EAnnotationLeft");
+		rename(right, "EAnnotation", "EAnnotationRight");
+		rename(right, "EAttribute", "EAttributeRight");
+		if (threeWay) {
+			return new DefaultComparisonScope(left, right, createCopy("origin"));
+		}
+		return new DefaultComparisonScope(left, right, null);
+	}
+
+	private static Resource createCopy(String name) {
+		Resource resource = new XMIResourceImpl(URI.createURI(name + ".ecore"));
+		resource.getContents().add(EcoreUtil.copy(EcorePackage.eINSTANCE));
+		return resource;
+	}
+
+	private static void rename(Resource resource, String classifierName, String newName) {
+		EPackage ePackage = (EPackage)resource.getContents().get(0);
+		ePackage.getEClassifier(classifierName).setName(newName);
+	}
+
+	private static final class CountingMatchEngine implements IMatchEngine {
+		private final IMatchEngine delegate;
+
+		private int calls;
+
+		CountingMatchEngine(IMatchEngine delegate) {
+			this.delegate = delegate;
+		}
+
+		public Comparison match(IComparisonScope scope, Monitor monitor) {
+			calls++;
+			return delegate.match(scope, monitor);
+		}
+	}
+}
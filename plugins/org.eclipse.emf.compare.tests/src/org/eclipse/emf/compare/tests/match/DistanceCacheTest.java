@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.match.eobject.CachingDistance;
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
+import org.eclipse.emf.compare.match.eobject.internal.DistanceCache;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class DistanceCacheTest {
+
+	private final List<EClassifier> objects = EcorePackage.eINSTANCE.getEClassifiers();
+
+	@Test
+	public void pairsAreUnordered() {
+		DistanceCache cache = new DistanceCache(100);
+		EObject a = objects.get(0);
+		EObject b = objects.get(1);
+		assertTrue(Double.isNaN(cache.get(a, b)));
+		cache.put(a, b, 4d);
+		assertEquals(4d, cache.get(a, b), 0d);
+		assertEquals(4d, cache.get(b, a), 0d);
+		cache.put(b, a, 2d);
+		assertEquals(2d, cache.get(a, b), 0d);
+		assertTrue(Double.isNaN(cache.get(a, a)));
+		assertEquals(3, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		DistanceCache cache = new DistanceCache(16);
+		assertEquals(16, cache.capacity());
+		for (EObject a : objects) {
+			for (EObject b : objects) {
+				cache.put(a, b, 1d);
+			}
+		}
+		assertTrue(cache.getEvictionCount() > 0);
+		int found = 0;
+		for (int i = 0; i < objects.size(); i++) {
+			for (int j = i; j < objects.size(); j++) {
+				if (!Double.isNaN(cache.get(objects.get(i), objects.get(j)))) {
+					found++;
+				}
+			}
+		}
+		assertTrue(found > 0);
+		assertTrue(found <= 16);
+	}
+
+	@Test
+	public void recentlyAccessedPairsAreKept() {
+		DistanceCache cache = new DistanceCache(8);
+		EObject kept = objects.get(0);
+		cache.put(kept, kept, 1d);
+		for (EObject other : objects) {
+			cache.put(other, objects.get(1), 2d);
+			assertEquals(1d, cache.get(kept, kept), 0d);
+		}
+	}
+
+	@Test
+	public void cachingDistanceOnlyComputesOnce() {
+		final int[] calls = new int[1];
+		CachingDistance distance = new CachingDistance(new DistanceFunction() {
+			public double distance(Comparison inProgress, EObject a, EObject b) {
+				calls[0]++;
+				return ((EClassifier)a).getName().length() + ((EClassifier)b).getName().length();
+			}
+
+			public boolean areIdentic(Comparison inProgress, EObject a, EObject b) {
+				return a == b;
+			}
+		});
+		for (EClassifier a : objects) {
+			for (EClassifier b : objects) {
+				if (a instanceof EClass) {
+					double expected = a.getName().length() + b.getName().length();
+					assertEquals(expected, distance.distance(null, a, b), 0d);
+					assertEquals(expected, distance.distance(null, b, a), 0d);
+				}
+			}
+		}
+		assertEquals(distance.getMissCount(), calls[0]);
+		assertTrue(distance.getHitCount() >= calls[0]);
+	}
+
+	@Test
+	public void cachingDistanceReportsEvictions() {
+		CachingDistance distance = new CachingDistance(new DistanceFunction() {
+			public double distance(Comparison inProgress, EObject a, EObject b) {
+				return 1d;
+			}
+
+			public boolean areIdentic(Comparison inProgress, EObject a, EObject b) {
+				return a == b;
+			}
+		}, 16);
+		for (EClassifier a : objects) {
+			for (EClassifier b : objects) {
+				distance.distance(null, a, b);
+			}
+		}
+		assertTrue(distance.getEvictionCount() > 0);
+		Map<String, Long> counters = Maps.newHashMap();
+		distance.collectCounters(counters);
+		assertEquals(Long.valueOf(distance.getEvictionCount()),
+				counters.get(ICompareMetrics.DISTANCE_CACHE_EVICTIONS));
+	}
+}
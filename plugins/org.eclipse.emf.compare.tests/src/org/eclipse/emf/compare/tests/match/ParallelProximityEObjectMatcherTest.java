@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.match.DefaultComparisonFactory;
+import org.eclipse.emf.compare.match.DefaultEqualityHelperFactory;
+import org.eclipse.emf.compare.match.DefaultMatchEngine;
+import org.eclipse.emf.compare.match.eobject.EqualityHelperExtensionProviderDescriptorRegistryImpl;
+import org.eclipse.emf.compare.match.eobject.IEObjectMatcher;
+import org.eclipse.emf.compare.match.eobject.WeightProviderDescriptorRegistryImpl;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.fullcomparison.data.distance.DistanceMatchInputData;
+import org.eclipse.emf.compare.utils.UseIdentifiers;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the parallel content matching finds the same matches as the sequential one.
+ */
+@SuppressWarnings("nls")
+public class ParallelProximityEObjectMatcherTest {
+
+	private DistanceMatchInputData inputData = new DistanceMatchInputData();
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void identicEcoreCopies() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+
+		Comparison parallel = match(parallelMatcher(executor), v1, v2, null);
+		for (Match match : allMatches(parallel)) {
+			assertTrue(match.getLeft() != null && match.getRight() != null);
+		}
+		assertSameMatches(match(sequentialMatcher(), v1, v2, null), parallel);
+	}
+
+	@Test
+	public void modifiedEcoreCopies() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v3 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		v1.setName("renamed");
+		int i = 0;
+		for (EClassifier classifier : v2.getEClassifiers()) {
+			if (classifier instanceof EClass && i++ % 3 == 0) {
+				((EClass)classifier).getEStructuralFeatures().clear();
+			}
+		}
+		v3.getEClassifiers().remove(0);
+
+		assertSameMatches(match(sequentialMatcher(), v1, v2, v3),
+				match(parallelMatcher(executor), v1, v2, v3));
+	}
+
+	@Test
+	public void distanceInputData() throws Exception {
+		assertSameMatches(
+				match(sequentialMatcher(), inputData.getCompareLeft(), inputData.getCompareRight(), null),
+				match(parallelMatcher(executor), inputData.getCompareLeft(), inputData.getCompareRight(),
+						null));
+		assertSameMatches(
+				match(sequentialMatcher(), inputData.get390666Left(), inputData.get390666Right(),
+						inputData.get390666Ancestor()),
+				match(parallelMatcher(executor), inputData.get390666Left(), inputData.get390666Right(),
+						inputData.get390666Ancestor()));
+		assertSameMatches(
+				match(sequentialMatcher(), inputData.getFeatureUpdateDeleteLeft(),
+						inputData.getFeatureUpdateDeleteRight(), null),
+				match(parallelMatcher(executor), inputData.getFeatureUpdateDeleteLeft(),
+						inputData.getFeatureUpdateDeleteRight(), null));
+	}
+
+	@Test
+	public void resultDoesNotDependOnThreadCount() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		v2.getEClassifiers().remove(3);
+		v2.getEClassifiers().get(5).setName("renamed");
+
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try {
+			Comparison single = match(parallelMatcher(singleThread), v1, v2, null);
+			Comparison multi = match(parallelMatcher(executor), v1, v2, null);
+			List<Match> singleMatches = allMatches(single);
+			List<Match> multiMatches = allMatches(multi);
+			assertEquals(singleMatches.size(), multiMatches.size());
+			for (int i = 0; i < singleMatches.size(); i++) {
+				assertEquals(asString(singleMatches.get(i)), asString(multiMatches.get(i)));
+			}
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	@Test
+	public void nestedContainment() {
+		assertSameNestedMatches(createNestedPackages(4, 3));
+	}
+
+	@Test
+	public void nestedContainmentMatchedAheadOfTime() {
+		// more than 1000 attributes so that they are matched ahead of time
+		assertSameNestedMatches(createNestedPackages(12, 8));
+	}
+
+	private static void assertSameNestedMatches(EPackage v1) {
+		EPackage v2 = EcoreUtil.copy(v1);
+		EPackage v3 = EcoreUtil.copy(v1);
+		EPackage renamedSubPackage = v2.getESubpackages().get(1);
+		renamedSubPackage.setName("renamed");
+		renamedSubPackage.getESubpackages().get(0).setName("renamedToo");
+		EClassifier moved = v2.getESubpackages().get(0).getESubpackages().get(1).getEClassifiers().remove(2);
+		v2.getESubpackages().get(2).getESubpackages().get(0).getEClassifiers().add(moved);
+		((EClass)renamedSubPackage.getESubpackages().get(1).getEClassifiers().get(0)).getEStructuralFeatures()
+				.clear();
+		v3.getESubpackages().remove(2);
+		v3.getESubpackages().get(0).getESubpackages().get(0).setName("renamedInOrigin");
+
+		Comparison twoWay = match(sequentialMatcher(), v1, v2, null);
+		Comparison threeWay = match(sequentialMatcher(), v1, v2, v3);
+		for (int threads : new int[] {1, 2, 4, 8, }) {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				for (int run = 0; run < 2; run++) {
+					assertSameMatches(twoWay, match(parallelMatcher(pool), v1, v2, null));
+					assertSameMatches(threeWay, match(parallelMatcher(pool), v1, v2, v3));
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+	}
+
+	private static EPackage createNestedPackages(int classes, int attributes) {
+		EcoreFactory factory = EcoreFactory.eINSTANCE;
+		EPackage root = factory.createEPackage();
+		root.setName("root");
+		for (int i = 0; i < 3; i++) {
+			EPackage sub = factory.createEPackage();
+			sub.setName("sub" + i);
+			root.getESubpackages().add(sub);
+			for (int j = 0; j < 4; j++) {
+				EPackage subSub = factory.createEPackage();
+				subSub.setName("sub" + i + "_" + j);
+				sub.getESubpackages().add(subSub);
+				for (int k = 0; k < classes; k++) {
+					EClass clazz = factory.createEClass();
+					clazz.setName("Class" + i + "_" + j + "_" + k);
+					subSub.getEClassifiers().add(clazz);
+					for (int l = 0; l < attributes; l++) {
+						EAttribute attribute = factory.createEAttribute();
+						attribute.setName("attribute" + l);
+						attribute.setEType(EcorePackage.Literals.ESTRING);
+						clazz.getEStructuralFeatures().add(attribute);
+					}
+				}
+			}
+		}
+		return root;
+	}
+
+	private static IEObjectMatcher sequentialMatcher() {
+		return DefaultMatchEngine.createDefaultEObjectMatcher(UseIdentifiers.NEVER);
+	}
+
+	private static IEObjectMatcher parallelMatcher(ExecutorService executor) {
+		return DefaultMatchEngine.createParallelEObjectMatcher(UseIdentifiers.NEVER,
+				WeightProviderDescriptorRegistryImpl.createStandaloneInstance(),
+				EqualityHelperExtensionProviderDescriptorRegistryImpl.createStandaloneInstance(), executor);
+	}
+
+	private static Comparison match(IEObjectMatcher matcher, Notifier left, Notifier right,
+			Notifier origin) {
+		DefaultMatchEngine engine = new DefaultMatchEngine(matcher,
+				new DefaultComparisonFactory(new DefaultEqualityHelperFactory()));
+		return engine.match(new DefaultComparisonScope(left, right, origin), new BasicMonitor());
+	}
+
+	private static List<Match> allMatches(Comparison comparison) {
+		return Lists.newArrayList(Iterators.filter(comparison.eAllContents(), Match.class));
+	}
+
+	private static void assertSameMatches(Comparison expected, Comparison actual) {
+		Set<String> expectedMatches = Sets.newHashSet();
+		for (Match match : allMatches(expected)) {
+			expectedMatches.add(asString(match));
+		}
+		Set<String> actualMatches = Sets.newHashSet();
+		for (Match match : allMatches(actual)) {
+			actualMatches.add(asString(match));
+		}
+		assertEquals(expectedMatches, actualMatches);
+	}
+
+	private static String asString(Match match) {
+		Iterator<EObject> sides = Lists.newArrayList(match.getLeft(), match.getRight(), match.getOrigin())
+				.iterator();
+		StringBuilder result = new StringBuilder();
+		while (sides.hasNext()) {
+			EObject side = sides.next();
+			if (side != null) {
+				result.append(EcoreUtil.getURI(side));
+			}
+			result.append('|');
+		}
+		if (match.eContainer() instanceof Match && ((Match)match.eContainer()).getLeft() != null) {
+			result.append(EcoreUtil.getURI(((Match)match.eContainer()).getLeft()));
+		}
+		return result.toString();
+	}
+}
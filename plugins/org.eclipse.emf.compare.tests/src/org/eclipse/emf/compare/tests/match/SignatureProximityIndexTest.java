@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.match;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
+
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.match.DefaultComparisonFactory;
+import org.eclipse.emf.compare.match.DefaultEqualityHelperFactory;
+import org.eclipse.emf.compare.match.DefaultMatchEngine;
+import org.eclipse.emf.compare.match.eobject.EditionDistance;
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher;
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.fullcomparison.data.distance.DistanceMatchInputData;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class SignatureProximityIndexTest {
+
+	private DistanceMatchInputData inputData = new DistanceMatchInputData();
+
+	@Test
+	public void identicEcoreCopies() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+
+		Comparison comparison = match(true, v1, v2, null);
+		for (Match match : Iterators.toArray(Iterators.filter(comparison.eAllContents(), Match.class),
+				Match.class)) {
+			assertTrue(match.getLeft() != null && match.getRight() != null);
+		}
+	}
+
+	@Test
+	public void modifiedEcoreCopies() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		v1.setName("renamed");
+		int i = 0;
+		for (EClassifier classifier : v2.getEClassifiers()) {
+			if (classifier instanceof EClass && i++ % 3 == 0) {
+				((EClass)classifier).getEStructuralFeatures().clear();
+				classifier.setName(classifier.getName() + "Renamed");
+			}
+		}
+		v2.getEClassifiers().remove(0);
+
+		assertSameMatches(match(false, v1, v2, null), match(true, v1, v2, null));
+	}
+
+	@Test
+	public void distanceInputData() throws Exception {
+		assertSameMatches(match(false, inputData.getCompareLeft(), inputData.getCompareRight(), null),
+				match(true, inputData.getCompareLeft(), inputData.getCompareRight(), null));
+		assertSameMatches(
+				match(false, inputData.get390666Left(), inputData.get390666Right(),
+						inputData.get390666Ancestor()),
+				match(true, inputData.get390666Left(), inputData.get390666Right(),
+						inputData.get390666Ancestor()));
+		assertSameMatches(
+				match(false, inputData.getFeatureUpdateDeleteLeft(), inputData.getFeatureUpdateDeleteRight(),
+						null),
+				match(true, inputData.getFeatureUpdateDeleteLeft(), inputData.getFeatureUpdateDeleteRight(),
+						null));
+	}
+
+	@Test
+	public void fewerDistancesAreMeasured() {
+		EPackage v1 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		EPackage v2 = EcoreUtil.copy(EcorePackage.eINSTANCE);
+		for (EClassifier classifier : v2.getEClassifiers()) {
+			classifier.setName(classifier.getName() + "Renamed");
+		}
+
+		CountingDistance all = new CountingDistance();
+		match(new ProximityEObjectMatcher(all, false), v1, v2, null);
+		CountingDistance prefiltered = new CountingDistance();
+		match(new ProximityEObjectMatcher(prefiltered, true), v1, v2, null);
+		assertTrue(prefiltered.count < all.count);
+	}
+
+	@Test
+	public void objectsWithoutTokensAreComparedToAllCandidates() {
+		// Root EClasses without any attribute value have no token at all
+		Resource left = new ResourceImpl(URI.createURI("left.ecore"));
+		EClass leftRoot = EcoreFactory.eINSTANCE.createEClass();
+		leftRoot.getESuperTypes().add(EcorePackage.Literals.EOBJECT);
+		left.getContents().add(leftRoot);
+		Resource right = new ResourceImpl(URI.createURI("right.ecore"));
+		for (int i = 0; i < 40; i++) {
+			right.getContents().add(EcoreFactory.eINSTANCE.createEClass());
+		}
+		EClass rightRoot = EcoreFactory.eINSTANCE.createEClass();
+		rightRoot.getESuperTypes().add(EcorePackage.Literals.EOBJECT);
+		right.getContents().add(rightRoot);
+
+		Comparison comparison = match(true, left, right, null);
+		assertSame(rightRoot, comparison.getMatch(leftRoot).getRight());
+		assertSameMatches(match(false, left, right, null), comparison);
+	}
+
+	private static Comparison match(boolean prefilter, Notifier left, Notifier right, Notifier origin) {
+		return match(new ProximityEObjectMatcher(EditionDistance.builder().build(), prefilter), left, right,
+				origin);
+	}
+
+	private static Comparison match(ProximityEObjectMatcher matcher, Notifier left, Notifier right,
+			Notifier origin) {
+		DefaultMatchEngine engine = new DefaultMatchEngine(matcher,
+				new DefaultComparisonFactory(new DefaultEqualityHelperFactory()));
+		return engine.match(new DefaultComparisonScope(left, right, origin), new BasicMonitor());
+	}
+
+	private static void assertSameMatches(Comparison expected, Comparison actual) {
+		assertEquals(asStrings(expected), asStrings(actual));
+	}
+
+	private static Set<String> asStrings(Comparison comparison) {
+		Set<String> result = Sets.newHashSet();
+		for (Match match : Iterators.toArray(Iterators.filter(comparison.eAllContents(), Match.class),
+				Match.class)) {
+			StringBuilder builder = new StringBuilder();
+			for (EObject side : new EObject[] {match.getLeft(), match.getRight(), match.getOrigin(), }) {
+				if (side != null) {
+					builder.append(EcoreUtil.getURI(side));
+				}
+				builder.append('|');
+			}
+			result.add(builder.toString());
+		}
+		return result;
+	}
+
+	private static class CountingDistance implements DistanceFunction {
+		private final DistanceFunction delegate = EditionDistance.builder().build();
+
+		private int count;
+
+		public double distance(Comparison inProgress, EObject a, EObject b) {
+			count++;
+			return delegate.distance(inProgress, a, b);
+		}
+
+		public boolean areIdentic(Comparison inProgress, EObject a, EObject b) {
+			return delegate.areIdentic(inProgress, a, b);
+		}
+	}
+}
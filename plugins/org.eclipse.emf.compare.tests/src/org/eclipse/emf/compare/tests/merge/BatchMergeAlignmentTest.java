@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.merge;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.merge.BatchMerger;
+import org.eclipse.emf.compare.merge.IMerger;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class BatchMergeAlignmentTest {
+	private final IMerger.Registry registry = IMerger.RegistryImpl.createStandaloneInstance();
+
+	@Test
+	public void shuffledAdditionsKeepSourceOrder() {
+		List<String> names = Lists.newArrayList();
+		for (int i = 0; i < 300; i++) {
+			names.add("C" + i);
+		}
+		List<String> kept = Lists.newArrayList();
+		for (int i = 0; i < 300; i += 3) {
+			kept.add("C" + i);
+		}
+		XMIResource left = createPackage("left", names);
+		XMIResource right = createPackage("right", kept);
+
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, null));
+		List<Diff> differences = Lists.newArrayList(comparison.getDifferences());
+		assertEquals(200, differences.size());
+		Collections.shuffle(differences, new Random(42L));
+		new BatchMerger(registry).copyAllLeftToRight(differences, new BasicMonitor());
+
+		assertEquals(names, classifierNames(right));
+	}
+
+	@Test
+	public void sameResultAsIndividualMerges() {
+		List<String> leftNames = Lists.newArrayList();
+		for (int i = 0; i < 60; i++) {
+			leftNames.add("C" + i);
+		}
+		List<String> rightNames = Lists.newArrayList();
+		for (int i = 0; i < 60; i += 2) {
+			rightNames.add("C" + i);
+		}
+		Collections.shuffle(rightNames, new Random(7L));
+
+		XMIResource batchRight = createPackage("right", rightNames);
+		Comparison batchComparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(createPackage("left", leftNames), batchRight, null));
+		new BatchMerger(registry).copyAllLeftToRight(batchComparison.getDifferences(), new BasicMonitor());
+
+		XMIResource individualRight = createPackage("right", rightNames);
+		Comparison individualComparison = EMFCompare.builder().build().compare(
+				new DefaultComparisonScope(createPackage("left", leftNames), individualRight, null));
+		for (Diff diff : Lists.newArrayList(individualComparison.getDifferences())) {
+			registry.getHighestRankingMerger(diff).copyLeftToRight(diff, new BasicMonitor());
+		}
+
+		assertEquals(classifierNames(individualRight), classifierNames(batchRight));
+	}
+
+	private static XMIResource createPackage(String name, List<String> classNames) {
+		XMIResource resource = new XMIResourceImpl(URI.createURI(name + ".ecore"));
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("package");
+		resource.getContents().add(ePackage);
+		resource.setID(ePackage, "package");
+		for (String className : classNames) {
+			EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+			eClass.setName(className);
+			ePackage.getEClassifiers().add(eClass);
+			resource.setID(eClass, className);
+		}
+		return resource;
+	}
+
+	private static List<String> classifierNames(XMIResource resource) {
+		List<String> names = Lists.newArrayList();
+		for (EClassifier classifier : ((EPackage)resource.getContents().get(0)).getEClassifiers()) {
+			names.add(classifier.getName());
+		}
+		return names;
+	}
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.merge;
+
+import static com.google.common.base.Predicates.alwaysTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.merge.BatchMerger;
+import org.eclipse.emf.compare.merge.DiffRelationshipComputer;
+import org.eclipse.emf.compare.merge.IMerger;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.ETypedElement;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.change.ChangeDescription;
+import org.eclipse.emf.ecore.change.util.ChangeRecorder;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class BulkMergeTest {
+	private final IMerger.Registry registry = IMerger.RegistryImpl.createStandaloneInstance();
+
+	private final EClass node;
+
+	private final EAttribute tags;
+
+	private final EAttribute values;
+
+	private final EReference children;
+
+	private final EReference links;
+
+	public BulkMergeTest() {
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("bulk");
+		ePackage.setNsPrefix("bulk");
+		ePackage.setNsURI("http://www.eclipse.org/emf/compare/tests/bulk");
+		node = EcoreFactory.eINSTANCE.createEClass();
+		node.setName("Node");
+		ePackage.getEClassifiers().add(node);
+		tags = createAttribute("tags", EcorePackage.Literals.ESTRING, true);
+		values = createAttribute("values", EcorePackage.Literals.EINT, false);
+		children = EcoreFactory.eINSTANCE.createEReference();
+		children.setName("children");
+		children.setEType(node);
+		children.setContainment(true);
+		children.setUpperBound(ETypedElement.UNBOUNDED_MULTIPLICITY);
+		node.getEStructuralFeatures().add(children);
+		links = EcoreFactory.eINSTANCE.createEReference();
+		links.setName("links");
+		links.setEType(node);
+		links.setUpperBound(ETypedElement.UNBOUNDED_MULTIPLICITY);
+		node.getEStructuralFeatures().add(links);
+	}
+
+	@Test
+	public void twoWayBulkMergeGivesTheSequentialResult() {
+		for (long seed = 0; seed < 5; seed++) {
+			for (boolean rightToLeft : new boolean[] {false, true }) {
+				assertSameResult(seed, false, rightToLeft);
+			}
+		}
+	}
+
+	@Test
+	public void threeWayBulkMergeGivesTheSequentialResult() {
+		for (long seed = 0; seed < 5; seed++) {
+			for (boolean rightToLeft : new boolean[] {false, true }) {
+				assertSameResult(seed, true, rightToLeft);
+			}
+		}
+	}
+
+	@Test
+	public void notificationsAreCoalesced() {
+		XMIResource sequentialLeft = createModel(3L, new Random(5L), "left");
+		XMIResource sequentialRight = createModel(3L, new Random(6L), "right");
+		XMIResource bulkLeft = createModel(3L, new Random(5L), "left");
+		XMIResource bulkRight = createModel(3L, new Random(6L), "right");
+
+		NotificationCounter sequentialCounter = new NotificationCounter();
+		merge(sequentialLeft, sequentialRight, null, false, false, sequentialCounter);
+		NotificationCounter bulkCounter = new NotificationCounter();
+		merge(bulkLeft, bulkRight, null, false, true, bulkCounter);
+
+		assertTrue(EcoreUtil.equals(sequentialRight.getContents(), bulkRight.getContents()));
+		assertTrue(bulkCounter.listNotifications.size() > 0);
+		assertTrue(bulkCounter.listNotifications.size() < sequentialCounter.listNotifications.size());
+		// A single notification per changed list, for the attributes and the non-containment references
+		assertEquals(bulkCounter.listNotifications.elementSet().size(), bulkCounter.listNotifications.size());
+		assertTrue(bulkCounter.notifiedFeatures.contains(tags));
+		assertTrue(bulkCounter.notifiedFeatures.contains(links));
+	}
+
+	@Test
+	public void bulkMergeCanBeUndone() {
+		XMIResource left = createModel(4L, new Random(7L), "left");
+		XMIResource right = createModel(4L, new Random(8L), "right");
+		XMIResource original = createModel(4L, new Random(8L), "right");
+
+		ChangeRecorder recorder = new ChangeRecorder(right);
+		merge(left, right, null, false, true, null);
+		assertFalse(EcoreUtil.equals(original.getContents(), right.getContents()));
+		ChangeDescription changes = recorder.endRecording();
+		changes.apply();
+
+		assertTrue(EcoreUtil.equals(original.getContents(), right.getContents()));
+	}
+
+	private void assertSameResult(long seed, boolean threeWay, boolean rightToLeft) {
+		XMIResource sequentialLeft = createModel(seed, new Random(seed * 31 + 1), "left");
+		XMIResource sequentialRight = createModel(seed, new Random(seed * 31 + 2), "right");
+		XMIResource sequentialOrigin = null;
+		XMIResource bulkLeft = createModel(seed, new Random(seed * 31 + 1), "left");
+		XMIResource bulkRight = createModel(seed, new Random(seed * 31 + 2), "right");
+		XMIResource bulkOrigin = null;
+		if (threeWay) {
+			sequentialOrigin = createModel(seed, null, "origin");
+			bulkOrigin = createModel(seed, null, "origin");
+		}
+
+		merge(sequentialLeft, sequentialRight, sequentialOrigin, rightToLeft, false, null);
+		merge(bulkLeft, bulkRight, bulkOrigin, rightToLeft, true, null);
+
+		assertTrue(EcoreUtil.equals(sequentialLeft.getContents(), bulkLeft.getContents()));
+		assertTrue(EcoreUtil.equals(sequentialRight.getContents(), bulkRight.getContents()));
+	}
+
+	private void merge(XMIResource left, XMIResource right, XMIResource origin, boolean rightToLeft,
+			boolean bulkApply, NotificationCounter counter) {
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, origin));
+		assertFalse(comparison.getDifferences().isEmpty());
+		if (counter != null) {
+			Iterator<EObject> contents = EcoreUtil.getAllContents(rightToLeft ? left : right, false);
+			while (contents.hasNext()) {
+				contents.next().eAdapters().add(counter);
+			}
+		}
+		BatchMerger merger = new BatchMerger(new DiffRelationshipComputer(registry), alwaysTrue(),
+				bulkApply);
+		if (rightToLeft) {
+			merger.copyAllRightToLeft(comparison.getDifferences(), new BasicMonitor());
+		} else {
+			merger.copyAllLeftToRight(comparison.getDifferences(), new BasicMonitor());
+		}
+	}
+
+	/**
+	 * Creates a tree of nodes. The same seed always gives the same base model, which is then randomly
+	 * altered if a random is given.
+	 */
+	private XMIResource createModel(long seed, Random changes, String name) {
+		XMIResource resource = new XMIResourceImpl(URI.createURI(name + ".xmi"));
+		Random base = new Random(seed);
+		EObject root = EcoreUtil.create(node);
+		resource.getContents().add(root);
+		resource.setID(root, "root");
+		for (int i = 0; i < 20; i++) {
+			EObject child = EcoreUtil.create(node);
+			getList(root, children).add(child);
+			resource.setID(child, "node" + i);
+			List<Object> childTags = getList(child, tags);
+			List<Object> childValues = getList(child, values);
+			for (int j = 0; j < 15; j++) {
+				childTags.add("t" + j);
+				childValues.add(Integer.valueOf(base.nextInt(8)));
+			}
+			if (changes != null) {
+				alter(childTags, changes, "t", 15);
+				alter(childValues, changes, null, 8);
+			}
+		}
+		List<Object> nodes = Lists.newArrayList(getList(root, children));
+		for (Object child : nodes) {
+			List<Object> childLinks = getList((EObject)child, links);
+			for (int j = 0; j < 8; j++) {
+				Object target = nodes.get(base.nextInt(nodes.size()));
+				if (!childLinks.contains(target)) {
+					childLinks.add(target);
+				}
+			}
+			if (changes != null) {
+				alterLinks(childLinks, nodes, changes);
+			}
+		}
+		if (changes != null) {
+			for (int i = 0; i < 3; i++) {
+				EObject child = EcoreUtil.create(node);
+				getList(root, children).add(changes.nextInt(getList(root, children).size()), child);
+				resource.setID(child, "added" + changes.nextInt(1000));
+				getList(child, tags).add("new");
+			}
+		}
+		return resource;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void alter(List<Object> list, Random changes, String prefix, int bound) {
+		for (int i = 0; i < 6 && !list.isEmpty(); i++) {
+			switch (changes.nextInt(3)) {
+				case 0:
+					list.remove(changes.nextInt(list.size()));
+					break;
+				case 1:
+					Object value;
+					if (prefix != null) {
+						value = prefix + (bound + changes.nextInt(1000));
+						if (list.contains(value)) {
+							break;
+						}
+					} else {
+						value = Integer.valueOf(changes.nextInt(bound));
+					}
+					list.add(changes.nextInt(list.size() + 1), value);
+					break;
+				default:
+					((EList<Object>)list).move(changes.nextInt(list.size()), changes.nextInt(list.size()));
+					break;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void alterLinks(List<Object> list, List<Object> nodes, Random changes) {
+		for (int i = 0; i < 4 && !list.isEmpty(); i++) {
+			switch (changes.nextInt(3)) {
+				case 0:
+					list.remove(changes.nextInt(list.size()));
+					break;
+				case 1:
+					Object target = nodes.get(changes.nextInt(nodes.size()));
+					if (!list.contains(target)) {
+						list.add(changes.nextInt(list.size() + 1), target);
+					}
+					break;
+				default:
+					((EList<Object>)list).move(changes.nextInt(list.size()), changes.nextInt(list.size()));
+					break;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> getList(EObject object, EReference reference) {
+		return (List<Object>)object.eGet(reference);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> getList(EObject object, EAttribute attribute) {
+		return (List<Object>)object.eGet(attribute);
+	}
+
+	private EAttribute createAttribute(String name, EDataType type, boolean unique) {
+		EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(type);
+		attribute.setUnique(unique);
+		attribute.setUpperBound(ETypedElement.UNBOUNDED_MULTIPLICITY);
+		node.getEStructuralFeatures().add(attribute);
+		return attribute;
+	}
+
+	/**
+	 * Counts the notifications of the changes to the staged lists, by notifier and feature.
+	 */
+	private final class NotificationCounter extends AdapterImpl {
+		private final Multiset<List<Object>> listNotifications = HashMultiset.create();
+
+		private final Multiset<Object> notifiedFeatures = HashMultiset.create();
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			Object feature = msg.getFeature();
+			if ((feature instanceof EAttribute || feature == links) && !msg.isTouch()) {
+				listNotifications.add(Arrays.asList(msg.getNotifier(), feature));
+				notifiedFeatures.add(feature);
+			}
+		}
+	}
+}
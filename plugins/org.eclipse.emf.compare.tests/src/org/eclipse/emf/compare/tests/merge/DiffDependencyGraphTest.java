@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.merge.ComputeDiffsToMerge;
+import org.eclipse.emf.compare.merge.DiffDependencyGraph;
+import org.eclipse.emf.compare.merge.DiffRelationshipComputer;
+import org.eclipse.emf.compare.merge.IDiffRelationshipComputer;
+import org.eclipse.emf.compare.merge.IMerger;
+import org.eclipse.emf.compare.merge.MergeBlockedByConflictException;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.conflict.data.ConflictInputData;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class DiffDependencyGraphTest {
+	private final IMerger.Registry registry = IMerger.RegistryImpl.createStandaloneInstance();
+
+	@Test
+	public void sameRelationshipsAsTheComputer() throws Exception {
+		Comparison comparison = createComparison();
+		IDiffRelationshipComputer computer = new DiffRelationshipComputer(registry);
+		for (boolean rightToLeft : new boolean[] {true, false }) {
+			DiffDependencyGraph graph = new DiffDependencyGraph(comparison, rightToLeft, computer);
+			for (Diff diff : comparison.getDifferences()) {
+				assertEquals(ImmutableList.copyOf(computer.getDirectMergeDependencies(diff, rightToLeft)),
+						ImmutableList.copyOf(graph.getDirectMergeDependencies(diff)));
+				assertEquals(ImmutableList.copyOf(computer.getDirectResultingMerges(diff, rightToLeft)),
+						ImmutableList.copyOf(graph.getDirectResultingMerges(diff)));
+			}
+		}
+	}
+
+	@Test
+	public void sameDiffsToMergeAsTheComputer() throws Exception {
+		Comparison comparison = createComparison();
+		IDiffRelationshipComputer computer = new DiffRelationshipComputer(registry);
+		for (boolean rightToLeft : new boolean[] {true, false }) {
+			DiffDependencyGraph graph = new DiffDependencyGraph(comparison, rightToLeft, computer);
+			for (Diff diff : comparison.getDifferences()) {
+				assertEquals(ImmutableList.copyOf(diffsToMerge(new ComputeDiffsToMerge(rightToLeft, computer),
+						diff)), ImmutableList.copyOf(diffsToMerge(new ComputeDiffsToMerge(graph), diff)));
+			}
+			assertEquals(
+					ImmutableList.copyOf(new ComputeDiffsToMerge(rightToLeft, computer)
+							.failOnRealConflictUnless(Predicates.alwaysFalse())
+							.getAllDiffsToMerge(comparison.getDifferences())),
+					ImmutableList.copyOf(new ComputeDiffsToMerge(graph)
+							.failOnRealConflictUnless(Predicates.alwaysFalse())
+							.getAllDiffsToMerge(comparison.getDifferences())));
+		}
+	}
+
+	@Test
+	public void allMergedDiffsIsTheTransitiveClosure() throws Exception {
+		Comparison comparison = createComparison();
+		IDiffRelationshipComputer computer = new DiffRelationshipComputer(registry);
+		DiffDependencyGraph graph = new DiffDependencyGraph(comparison, true, computer);
+		for (Diff diff : comparison.getDifferences()) {
+			Set<Diff> merged = graph.getAllMergedDiffs(diff);
+			assertTrue(merged.contains(diff));
+			assertEquals(naiveClosure(computer, Collections.singleton(diff), true), merged);
+		}
+		assertEquals(Sets.newHashSet(comparison.getDifferences()),
+				graph.getAllMergedDiffs(comparison.getDifferences()));
+	}
+
+	@Test
+	public void cyclesAreWalkedOnce() throws Exception {
+		Comparison comparison = createComparison();
+		final List<Diff> differences = ImmutableList.copyOf(comparison.getDifferences());
+		assertTrue(differences.size() > 8);
+		// 0 -> 1 -> 2 -> 3 -> 0 as dependencies, 3 => 4 as consequence, 5 and 6 requiring each other
+		IDiffRelationshipComputer computer = new DiffRelationshipComputer(registry) {
+			@Override
+			public Set<Diff> getDirectMergeDependencies(Diff diff, boolean mergeRightToLeft) {
+				int index = differences.indexOf(diff);
+				if (index < 4) {
+					return Collections.singleton(differences.get((index + 1) % 4));
+				} else if (index == 5 || index == 6) {
+					return Collections.singleton(differences.get(11 - index));
+				}
+				return Collections.emptySet();
+			}
+
+			@Override
+			public Set<Diff> getDirectResultingMerges(Diff diff, boolean mergeRightToLeft) {
+				if (differences.indexOf(diff) == 3) {
+					return Collections.singleton(differences.get(4));
+				}
+				return Collections.emptySet();
+			}
+		};
+		DiffDependencyGraph graph = new DiffDependencyGraph(comparison, false, computer);
+
+		assertEquals(Sets.newHashSet(differences.subList(0, 5)), graph.getAllMergedDiffs(differences.get(2)));
+		assertEquals(Collections.singleton(differences.get(4)), graph.getAllMergedDiffs(differences.get(4)));
+		assertEquals(Sets.newHashSet(differences.subList(5, 7)), graph.getAllMergedDiffs(differences.get(6)));
+		Set<Diff> merged = graph
+				.getAllMergedDiffs(Lists.newArrayList(differences.get(1), differences.get(5)));
+		assertEquals(Sets.newHashSet(differences.subList(0, 7)), merged);
+		assertFalse(merged.contains(differences.get(7)));
+
+		assertEquals(diffsToMerge(new ComputeDiffsToMerge(false, computer), differences.get(0)),
+				diffsToMerge(new ComputeDiffsToMerge(graph), differences.get(0)));
+	}
+
+	private static List<Diff> diffsToMerge(ComputeDiffsToMerge computer, Diff diff) {
+		try {
+			return Lists.newArrayList(
+					computer.failOnRealConflictUnless(Predicates.alwaysFalse()).getAllDiffsToMerge(diff));
+		} catch (MergeBlockedByConflictException e) {
+			return Lists.newArrayList(e.getConflictingDiffs());
+		}
+	}
+
+	private static Set<Diff> naiveClosure(IDiffRelationshipComputer computer, Iterable<Diff> diffs,
+			boolean rightToLeft) {
+		Set<Diff> closure = Sets.newHashSet();
+		Deque<Diff> pending = new ArrayDeque<Diff>();
+		for (Diff diff : diffs) {
+			pending.push(diff);
+		}
+		while (!pending.isEmpty()) {
+			Diff diff = pending.pop();
+			if (closure.add(diff)) {
+				pending.addAll(computer.getDirectMergeDependencies(diff, rightToLeft));
+				pending.addAll(computer.getDirectResultingMerges(diff, rightToLeft));
+			}
+		}
+		return closure;
+	}
+
+	private static Comparison createComparison() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		return EMFCompare.builder().build().compare(new DefaultComparisonScope(input.getComplexLeft(),
+				input.getComplexRight(), input.getComplexOrigin()));
+	}
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.monitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.ICompareMetrics.Measure;
+import org.eclipse.emf.compare.ICompareMetrics.Phase;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.match.IMatchEngine;
+import org.eclipse.emf.compare.match.impl.MatchEngineFactoryImpl;
+import org.eclipse.emf.compare.match.impl.MatchEngineFactoryRegistryImpl;
+import org.eclipse.emf.compare.postprocessor.BasicPostProcessorDescriptorImpl;
+import org.eclipse.emf.compare.postprocessor.IPostProcessor;
+import org.eclipse.emf.compare.postprocessor.PostProcessorDescriptorRegistryImpl;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.compare.utils.UseIdentifiers;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class CompareMetricsTest {
+
+	@Test
+	public void allPhasesMeasuredInThreeWay() {
+		final RecordingMetrics metrics = new RecordingMetrics();
+		final IPostProcessor postProcessor = new NoOpPostProcessor();
+		final Comparison comparison = createCompare(metrics, postProcessor).compare(createScope(true));
+
+		assertEquals(Arrays.asList(Phase.values()), metrics.phases);
+		assertEquals(Arrays.asList(Phase.POST_MATCH, Phase.POST_DIFF, Phase.POST_REQUIREMENTS,
+				Phase.POST_EQUIVALENCES, Phase.POST_CONFLICTS, Phase.POST_COMPARISON),
+				metrics.postProcessorPhases);
+		for (IPostProcessor measured : metrics.postProcessors) {
+			assertSame(postProcessor, measured);
+		}
+		for (Measure measure : metrics.measures) {
+			assertTrue(measure.getWallTime() >= 0);
+			assertTrue(measure.getCpuTime() >= -1);
+			assertTrue(measure.getAllocatedBytes() >= -1);
+		}
+		assertSame(comparison, metrics.comparison);
+		assertNotNull(metrics.total);
+	}
+
+	@Test
+	public void conflictsNotMeasuredInTwoWay() {
+		final RecordingMetrics metrics = new RecordingMetrics();
+		createCompare(metrics, new NoOpPostProcessor()).compare(createScope(false));
+
+		assertFalse(metrics.phases.contains(Phase.CONFLICTS));
+		assertFalse(metrics.phases.contains(Phase.POST_CONFLICTS));
+		assertEquals(Phase.POST_COMPARISON, metrics.phases.get(metrics.phases.size() - 1));
+		assertFalse(metrics.counters.containsKey(ICompareMetrics.CONFLICTS));
+	}
+
+	@Test
+	public void comparisonCounters() {
+		final RecordingMetrics metrics = new RecordingMetrics();
+		final Comparison comparison = createCompare(metrics, new NoOpPostProcessor())
+				.compare(createScope(true));
+
+		int matches = 0;
+		for (Match match : comparison.getMatches()) {
+			matches++;
+			for (Match submatch : match.getAllSubmatches()) {
+				assertNotNull(submatch);
+				matches++;
+			}
+		}
+		assertEquals(Long.valueOf(matches), metrics.counters.get(ICompareMetrics.MATCHES));
+		assertEquals(Long.valueOf(comparison.getDifferences().size()),
+				metrics.counters.get(ICompareMetrics.DIFFERENCES));
+		assertEquals(Long.valueOf(comparison.getEquivalences().size()),
+				metrics.counters.get(ICompareMetrics.EQUIVALENCES));
+		assertEquals(Long.valueOf(comparison.getConflicts().size()),
+				metrics.counters.get(ICompareMetrics.CONFLICTS));
+		assertFalse(comparison.getConflicts().isEmpty());
+	}
+
+	@Test
+	public void distanceCounters() {
+		final RecordingMetrics metrics = new RecordingMetrics();
+		createCompare(metrics, new NoOpPostProcessor()).compare(createScope(true));
+
+		final long computations = metrics.counters.get(ICompareMetrics.DISTANCE_COMPUTATIONS).longValue();
+		final long hits = metrics.counters.get(ICompareMetrics.DISTANCE_CACHE_HITS).longValue();
+		final long misses = metrics.counters.get(ICompareMetrics.DISTANCE_CACHE_MISSES).longValue();
+		assertTrue(computations > 0);
+		assertTrue(misses > 0);
+		// The default match engine caches all of the distances it measures
+		assertEquals(computations, hits + misses);
+		assertEquals(Phase.MATCH, metrics.counterPhases.get(ICompareMetrics.DISTANCE_COMPUTATIONS));
+	}
+
+	/**
+	 * The engines are reused by the successive comparisons of an EMFCompare instance, their counters must
+	 * still be reported for each comparison.
+	 */
+	@Test
+	public void countersReportedPerComparison() {
+		final RecordingMetrics metrics = new RecordingMetrics();
+		final EMFCompare compare = createCompare(metrics, new NoOpPostProcessor());
+
+		compare.compare(createScope(true));
+		final Map<String, Long> first = Maps.newHashMap(metrics.counters);
+		metrics.counters.clear();
+		compare.compare(createScope(true));
+
+		assertEquals(first, metrics.counters);
+	}
+
+	private static EMFCompare createCompare(ICompareMetrics metrics, IPostProcessor postProcessor) {
+		final IMatchEngine.Factory.Registry matchEngineFactoryRegistry = new MatchEngineFactoryRegistryImpl();
+		matchEngineFactoryRegistry.add(new MatchEngineFactoryImpl(UseIdentifiers.NEVER));
+		final PostProcessorDescriptorRegistryImpl<String> postProcessorRegistry = //
+				new PostProcessorDescriptorRegistryImpl<String>();
+		postProcessorRegistry.put(postProcessor.getClass().getName(),
+				new BasicPostProcessorDescriptorImpl(postProcessor, Pattern.compile(".*"), null));
+		return EMFCompare.builder().setMatchEngineFactoryRegistry(matchEngineFactoryRegistry)
+				.setPostProcessorRegistry(postProcessorRegistry).setMetrics(metrics).build();
+	}
+
+	/**
+	 * Creates a scope comparing copies of the Ecore package in which the same classifier has been renamed
+	 * differently on each side.
+	 */
+	private static IComparisonScope createScope(boolean threeWay) {
+		final Resource origin = createCopy("origin");
+		final Resource left = createCopy("left");
+		final Resource right = createCopy("right");
+		rename(left, "EAnnotation", "EAnnotationLeft");
+		rename(right, "EAnnotation", "EAnnotationRight");
+		rename(right, "EAttribute", "EAttributeRight");
+		if (threeWay) {
+			return new DefaultComparisonScope(left, right, origin);
+		}
+		return new DefaultComparisonScope(left, right, null);
+	}
+
+	private static Resource createCopy(String name) {
+		final Resource resource = new ResourceImpl(URI.createURI(name + ".ecore"));
+		resource.getContents().add(EcoreUtil.copy(EcorePackage.eINSTANCE));
+		return resource;
+	}
+
+	private static void rename(Resource resource, String classifierName, String newName) {
+		final EPackage ePackage = (EPackage)resource.getContents().get(0);
+		final EClassifier classifier = ePackage.getEClassifier(classifierName);
+		classifier.setName(newName);
+	}
+
+	private static class NoOpPostProcessor implements IPostProcessor {
+		public void postMatch(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+
+		public void postDiff(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+
+		public void postRequirements(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+
+		public void postEquivalences(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+
+		public void postConflicts(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+
+		public void postComparison(Comparison comparison, Monitor monitor) {
+			// Only here to be measured
+		}
+	}
+
+	private static class RecordingMetrics implements ICompareMetrics {
+		private final List<Phase> phases = Lists.newArrayList();
+
+		private final List<Phase> postProcessorPhases = Lists.newArrayList();
+
+		private final List<IPostProcessor> postProcessors = Lists.newArrayList();
+
+		private final List<Measure> measures = Lists.newArrayList();
+
+		private final Map<String, Long> counters = Maps.newHashMap();
+
+		private final Map<String, Phase> counterPhases = Maps.newHashMap();
+
+		private Comparison comparison;
+
+		private Measure total;
+
+		public void phaseCompleted(Phase phase, Measure measure) {
+			phases.add(phase);
+			measures.add(measure);
+		}
+
+		public void postProcessorCompleted(Phase phase, IPostProcessor postProcessor, Measure measure) {
+			postProcessorPhases.add(phase);
+			postProcessors.add(postProcessor);
+			measures.add(measure);
+		}
+
+		public void counterReported(Phase phase, String counter, long value) {
+			assertFalse(counters.containsKey(counter));
+			counters.put(counter, Long.valueOf(value));
+			counterPhases.put(counter, phase);
+		}
+
+		public void comparisonCompleted(Comparison completed, Measure measure) {
+			this.comparison = completed;
+			this.total = measure;
+		}
+	}
+}
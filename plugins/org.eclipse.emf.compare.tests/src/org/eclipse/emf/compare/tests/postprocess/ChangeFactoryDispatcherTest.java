@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.postprocess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collections;
+
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.ResourceAttachmentChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.AbstractChangeFactory;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactoryDispatcher;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
+import org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ChangeFactoryDispatcherTest {
+
+	@Test
+	public void testDefaultSignature() {
+		IChangeFactory factory = new TestFactory(null);
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(ImmutableList.of(factory));
+
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(
+				attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name")));
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(referenceChange(
+				EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcoreFactory.eINSTANCE.createEClass())));
+		ResourceAttachmentChange resourceAttachmentChange = CompareFactory.eINSTANCE
+				.createResourceAttachmentChange();
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(resourceAttachmentChange));
+		FeatureMapChange featureMapChange = CompareFactory.eINSTANCE.createFeatureMapChange();
+		assertTrue(dispatcher.getCandidates(featureMapChange).isEmpty());
+	}
+
+	@Test
+	public void testFeatureSignature() {
+		ChangeFactorySignature signature = ChangeFactorySignature.builder()
+				.feature(ComparePackage.Literals.ATTRIBUTE_CHANGE, EcorePackage.Literals.ENAMED_ELEMENT__NAME,
+						EcorePackage.Literals.ECLASS__ABSTRACT)
+				.build();
+		IChangeFactory factory = new TestFactory(signature);
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(ImmutableList.of(factory));
+
+		Diff nameChange = attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name");
+		Diff abstractChange = attributeChange(EcorePackage.Literals.ECLASS__ABSTRACT, Boolean.TRUE);
+		Diff interfaceChange = attributeChange(EcorePackage.Literals.ECLASS__INTERFACE, Boolean.TRUE);
+		Diff superTypeChange = referenceChange(EcorePackage.Literals.ECLASS__ESUPER_TYPES,
+				EcoreFactory.eINSTANCE.createEClass());
+
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(nameChange));
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(abstractChange));
+		assertTrue(dispatcher.getCandidates(interfaceChange).isEmpty());
+		assertTrue(dispatcher.getCandidates(superTypeChange).isEmpty());
+
+		assertTrue(signature.matches(nameChange));
+		assertFalse(signature.matches(interfaceChange));
+		assertFalse(signature.matches(superTypeChange));
+	}
+
+	@Test
+	public void testValueSignature() {
+		ChangeFactorySignature signature = ChangeFactorySignature.builder()
+				.value(ComparePackage.Literals.REFERENCE_CHANGE, EcorePackage.Literals.ECLASSIFIER).build();
+		IChangeFactory factory = new TestFactory(signature);
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(ImmutableList.of(factory));
+
+		Diff classChange = referenceChange(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS,
+				EcoreFactory.eINSTANCE.createEClass());
+		Diff dataTypeChange = referenceChange(EcorePackage.Literals.ETYPED_ELEMENT__ETYPE,
+				EcoreFactory.eINSTANCE.createEDataType());
+		Diff attributeChange = referenceChange(EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES,
+				EcoreFactory.eINSTANCE.createEAttribute());
+		Diff nameChange = attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name");
+
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(classChange));
+		assertEquals(ImmutableList.of(factory), dispatcher.getCandidates(dataTypeChange));
+		assertTrue(dispatcher.getCandidates(attributeChange).isEmpty());
+		assertTrue(dispatcher.getCandidates(nameChange).isEmpty());
+
+		assertTrue(signature.matches(classChange));
+		assertFalse(signature.matches(attributeChange));
+	}
+
+	@Test
+	public void testCandidatesKeepRegistrationOrder() {
+		IChangeFactory byValue = new TestFactory(ChangeFactorySignature.builder()
+				.value(ComparePackage.Literals.REFERENCE_CHANGE, EcorePackage.Literals.ECLASS).build());
+		IChangeFactory byType = new TestFactory(ChangeFactorySignature.builder()
+				.diffType(ComparePackage.Literals.REFERENCE_CHANGE).build());
+		IChangeFactory byFeatureAndValue = new TestFactory(ChangeFactorySignature.builder()
+				.feature(ComparePackage.Literals.REFERENCE_CHANGE,
+						EcorePackage.Literals.EPACKAGE__ECLASSIFIERS)
+				.value(ComparePackage.Literals.REFERENCE_CHANGE, EcorePackage.Literals.ECLASSIFIER).build());
+		IChangeFactory any = new TestFactory(ChangeFactorySignature.ANY);
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(
+				ImmutableList.of(byFeatureAndValue, byValue, any, byType));
+
+		Diff classChange = referenceChange(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS,
+				EcoreFactory.eINSTANCE.createEClass());
+		assertEquals(ImmutableList.of(byFeatureAndValue, byValue, any, byType),
+				dispatcher.getCandidates(classChange));
+
+		Diff superTypeChange = referenceChange(EcorePackage.Literals.ECLASS__ESUPER_TYPES,
+				EcoreFactory.eINSTANCE.createEClass());
+		assertEquals(ImmutableList.of(byFeatureAndValue, byValue, any, byType),
+				dispatcher.getCandidates(superTypeChange));
+
+		Diff packageChange = referenceChange(EcorePackage.Literals.EPACKAGE__ESUBPACKAGES,
+				EcoreFactory.eINSTANCE.createEPackage());
+		assertEquals(ImmutableList.of(any, byType), dispatcher.getCandidates(packageChange));
+
+		Diff nameChange = attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name");
+		assertEquals(ImmutableList.of(any), dispatcher.getCandidates(nameChange));
+	}
+
+	@Test
+	public void testMissingSignature() {
+		IChangeFactory byType = new TestFactory(ChangeFactorySignature.builder()
+				.diffType(ComparePackage.Literals.REFERENCE_CHANGE).build());
+		IChangeFactory noSignature = new TestFactory(null) {
+			@Override
+			public ChangeFactorySignature getSignature() {
+				return null;
+			}
+		};
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(
+				ImmutableList.of(noSignature, byType));
+
+		Diff classChange = referenceChange(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS,
+				EcoreFactory.eINSTANCE.createEClass());
+		assertEquals(ImmutableList.of(noSignature, byType), dispatcher.getCandidates(classChange));
+		Diff nameChange = attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name");
+		assertEquals(ImmutableList.of(noSignature), dispatcher.getCandidates(nameChange));
+		FeatureMapChange featureMapChange = CompareFactory.eINSTANCE.createFeatureMapChange();
+		assertEquals(ImmutableList.of(noSignature), dispatcher.getCandidates(featureMapChange));
+	}
+
+	@Test
+	public void testNoFactory() {
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(
+				Collections.<IChangeFactory> emptyList());
+		Diff nameChange = attributeChange(EcorePackage.Literals.ENAMED_ELEMENT__NAME, "name");
+		assertTrue(dispatcher.getCandidates(nameChange).isEmpty());
+	}
+
+	private static AttributeChange attributeChange(EAttribute attribute, Object value) {
+		AttributeChange diff = CompareFactory.eINSTANCE.createAttributeChange();
+		diff.setAttribute(attribute);
+		diff.setValue(value);
+		diff.setKind(DifferenceKind.CHANGE);
+		return diff;
+	}
+
+	private static ReferenceChange referenceChange(EReference reference, EObject value) {
+		ReferenceChange diff = CompareFactory.eINSTANCE.createReferenceChange();
+		diff.setReference(reference);
+		diff.setValue(value);
+		diff.setKind(DifferenceKind.ADD);
+		return diff;
+	}
+
+	private static class TestFactory extends AbstractChangeFactory {
+		private final ChangeFactorySignature signature;
+
+		TestFactory(ChangeFactorySignature signature) {
+			this.signature = signature;
+		}
+
+		@Override
+		public ChangeFactorySignature getSignature() {
+			if (signature == null) {
+				return super.getSignature();
+			}
+			return signature;
+		}
+
+		@Override
+		public Diff createExtension() {
+			return null;
+		}
+
+		@Override
+		public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
+			// Not used
+		}
+	}
+}
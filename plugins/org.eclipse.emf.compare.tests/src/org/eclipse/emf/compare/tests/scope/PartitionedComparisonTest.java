@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.scope;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.Diagnostic;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.MatchResource;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope2;
+import org.eclipse.emf.compare.scope.IPartitionedComparisonScope;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class PartitionedComparisonTest {
+
+	@Test
+	public void differencesOfAllPartitions() {
+		final int partitionCount = 3;
+		int expected = 0;
+		for (int i = 0; i < partitionCount; i++) {
+			final Comparison partial = EMFCompare.builder().build()
+					.compare(createPartition(i, partitionCount, false));
+			expected += partial.getDifferences().size();
+		}
+
+		final TestPartitionedScope scope = new TestPartitionedScope(partitionCount, false);
+		final Comparison comparison = EMFCompare.builder().build().comparePartitions(scope,
+				new BasicMonitor());
+
+		assertTrue(expected > 0);
+		assertEquals(expected, comparison.getDifferences().size());
+		assertEquals(partitionCount, comparison.getMatchedResources().size());
+		assertEquals(partitionCount, scope.released.size());
+		assertTrue(comparison.getDiagnostic().getSeverity() < Diagnostic.WARNING);
+	}
+
+	@Test
+	public void comparedModelsReleased() {
+		final TestPartitionedScope scope = new TestPartitionedScope(2, true);
+		final Comparison comparison = EMFCompare.builder().build().comparePartitions(scope,
+				new BasicMonitor());
+
+		assertTrue(comparison.isThreeWay());
+		for (MatchResource matchResource : comparison.getMatchedResources()) {
+			assertNull(matchResource.getLeft());
+			assertNull(matchResource.getRight());
+			assertNull(matchResource.getOrigin());
+		}
+		final Iterator<EObject> contents = comparison.eAllContents();
+		while (contents.hasNext()) {
+			final EObject next = contents.next();
+			if (next instanceof Match) {
+				assertReleased(((Match)next).getLeft());
+				assertReleased(((Match)next).getRight());
+				assertReleased(((Match)next).getOrigin());
+			} else if (next instanceof ReferenceChange) {
+				final EObject value = ((ReferenceChange)next).getValue();
+				if (value != null && value.eResource() != EcorePackage.eINSTANCE.eResource()) {
+					assertReleased(value);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void matchesOfReleasedValues() {
+		final TestPartitionedScope scope = new TestPartitionedScope(2, false);
+		final Comparison comparison = EMFCompare.builder().build().comparePartitions(scope,
+				new BasicMonitor());
+
+		for (Diff diff : comparison.getDifferences()) {
+			if (diff instanceof ReferenceChange && ((ReferenceChange)diff).getReference().isContainment()) {
+				final EObject value = ((ReferenceChange)diff).getValue();
+				assertTrue(value.eIsProxy());
+				assertNotNull(comparison.getMatch(value));
+			}
+		}
+	}
+
+	@Test
+	public void cancelledBetweenPartitions() {
+		final BasicMonitor monitor = new BasicMonitor();
+		final TestPartitionedScope scope = new TestPartitionedScope(3, false) {
+			@Override
+			public void release(IComparisonScope2 partition) {
+				super.release(partition);
+				monitor.setCanceled(true);
+			}
+		};
+		final Comparison comparison = EMFCompare.builder().build().comparePartitions(scope, monitor);
+
+		assertEquals(1, scope.released.size());
+		assertEquals(1, comparison.getMatchedResources().size());
+		assertEquals(Diagnostic.CANCEL, comparison.getDiagnostic().getSeverity());
+	}
+
+	private static void assertReleased(EObject eObject) {
+		if (eObject != null) {
+			assertTrue(eObject.eIsProxy());
+			assertTrue(EcoreUtil.getURI(eObject).trimFragment().lastSegment().startsWith("partition"));
+		}
+	}
+
+	/**
+	 * Creates the scope of a partition made of a single resource on each side, each holding a copy of the
+	 * Ecore package in which a classifier has been renamed and another one removed on the left side.
+	 */
+	private static IComparisonScope2 createPartition(int index, int partitionCount, boolean threeWay) {
+		final URI uri = URI.createURI("partition" + index + ".ecore");
+		final ResourceSet left = createResourceSet(uri);
+		final ResourceSet right = createResourceSet(uri);
+		final EPackage leftPackage = (EPackage)left.getResources().get(0).getContents().get(0);
+		final List<EClass> classes = Lists.newArrayList();
+		for (Object classifier : leftPackage.getEClassifiers()) {
+			if (classifier instanceof EClass) {
+				classes.add((EClass)classifier);
+			}
+		}
+		classes.get(index).setName("Renamed" + index);
+		EcoreUtil.delete(classes.get(partitionCount + index), true);
+		ResourceSet origin = null;
+		if (threeWay) {
+			origin = createResourceSet(uri);
+		}
+		final DefaultComparisonScope scope = new DefaultComparisonScope(left, right, origin);
+		scope.getAllInvolvedResourceURIs().add(uri);
+		return scope;
+	}
+
+	private static ResourceSet createResourceSet(URI uri) {
+		final ResourceSet resourceSet = new ResourceSetImpl();
+		final Resource resource = resourceSet.createResource(uri);
+		resource.getContents().add(EcoreUtil.copy(EcorePackage.eINSTANCE));
+		return resourceSet;
+	}
+
+	private static class TestPartitionedScope implements IPartitionedComparisonScope {
+		protected final List<IComparisonScope2> released = Lists.newArrayList();
+
+		private final int partitionCount;
+
+		private final boolean threeWay;
+
+		TestPartitionedScope(int partitionCount, boolean threeWay) {
+			this.partitionCount = partitionCount;
+			this.threeWay = threeWay;
+		}
+
+		public Set<URI> getAllInvolvedResourceURIs() {
+			final Set<URI> uris = Sets.newLinkedHashSet();
+			for (int i = 0; i < partitionCount; i++) {
+				uris.add(URI.createURI("partition" + i + ".ecore"));
+			}
+			return uris;
+		}
+
+		public Iterator<? extends IComparisonScope2> partitions() {
+			return new Iterator<IComparisonScope2>() {
+				private int next;
+
+				public boolean hasNext() {
+					return next < partitionCount;
+				}
+
+				public IComparisonScope2 next() {
+					return createPartition(next++, partitionCount, threeWay);
+				}
+
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		public void release(IComparisonScope2 partition) {
+			released.add(partition);
+			for (ResourceSet resourceSet : new ResourceSet[] {(ResourceSet)partition.getLeft(),
+					(ResourceSet)partition.getRight(), (ResourceSet)partition.getOrigin(), }) {
+				if (resourceSet != null) {
+					for (Resource resource : resourceSet.getResources()) {
+						resource.unload();
+					}
+				}
+			}
+		}
+	}
+}
@@ -17,9 +17,11 @@ package org.eclipse.emf.compare.tests.suite;
 
 import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.tests.command.CommandStackTestSuite;
+import org.eclipse.emf.compare.tests.conflict.ComparisonIndexTest;
 import org.eclipse.emf.compare.tests.conflict.ConflictDetectionTest;
 import org.eclipse.emf.compare.tests.conflict.ConflictSearchTest;
 import org.eclipse.emf.compare.tests.conflict.MultiLineAttributeConflictDetectionTest;
+import org.eclipse.emf.compare.tests.conflict.ParallelConflictDetectionTest;
 import org.eclipse.emf.compare.tests.conflict.PseudoConflictDetectionTest;
 import org.eclipse.emf.compare.tests.conflict.data.bug484557.Bug484557ConflictTest;
 import org.eclipse.emf.compare.tests.diff.ComparisonUtilTest;
@@ -28,6 +30,9 @@ import org.eclipse.emf.compare.tests.diff.DiffUtilTest;
 import org.eclipse.emf.compare.tests.diff.FeatureFilterTest;
 import org.eclipse.emf.compare.tests.diff.FeatureMapMoveDiffTest;
 import org.eclipse.emf.compare.tests.diff.LCSPerformanceTest;
+import org.eclipse.emf.compare.tests.diff.ParallelDiffEngineTest;
+import org.eclipse.emf.compare.tests.diff.RecompareTest;
+import org.eclipse.emf.compare.tests.diff.SequenceAlignerTest;
 import org.eclipse.emf.compare.tests.diff.ThreeWayTextDiffTest;
 import org.eclipse.emf.compare.tests.diff.URIDistanceTest;
 import org.eclipse.emf.compare.tests.edit.AllEditTests;
@@ -38,16 +43,24 @@ import org.eclipse.emf.compare.tests.fullcomparison.DynamicInstanceComparisonTes
 import org.eclipse.emf.compare.tests.fullcomparison.ExtLibraryTest;
 import org.eclipse.emf.compare.tests.fullcomparison.IdentifierComparisonTest;
 import org.eclipse.emf.compare.tests.fullcomparison.ProximityComparisonTest;
+import org.eclipse.emf.compare.tests.match.BigramProfileCacheTest;
+import org.eclipse.emf.compare.tests.match.CachingMatchEngineTest;
 import org.eclipse.emf.compare.tests.match.IdentifierEObjectMatcherTest;
 import org.eclipse.emf.compare.tests.match.MatchEngineFactoryRegistryTest;
+import org.eclipse.emf.compare.tests.match.DistanceCacheTest;
+import org.eclipse.emf.compare.tests.match.ParallelProximityEObjectMatcherTest;
+import org.eclipse.emf.compare.tests.match.SignatureProximityIndexTest;
 import org.eclipse.emf.compare.tests.match.ProximityIndexTest;
 import org.eclipse.emf.compare.tests.match.ProxyMatchingTest;
 import org.eclipse.emf.compare.tests.match.RootIDMatchingTest;
 import org.eclipse.emf.compare.tests.match.XMIMatchingTest;
+import org.eclipse.emf.compare.tests.merge.BatchMergeAlignmentTest;
 import org.eclipse.emf.compare.tests.merge.Bug485266_MoveDeleteConflict_Test;
+import org.eclipse.emf.compare.tests.merge.BulkMergeTest;
 import org.eclipse.emf.compare.tests.merge.ComplexMergeTest;
 import org.eclipse.emf.compare.tests.merge.ConflictImplicationsTest_Bug484579;
 import org.eclipse.emf.compare.tests.merge.ConflictMergeTest;
+import org.eclipse.emf.compare.tests.merge.DiffDependencyGraphTest;
 import org.eclipse.emf.compare.tests.merge.ExtensionMergeTest;
 import org.eclipse.emf.compare.tests.merge.FeatureMaps2wayMergeTest;
 import org.eclipse.emf.compare.tests.merge.FeatureMaps3wayMergeTest;
@@ -62,14 +75,20 @@ import org.eclipse.emf.compare.tests.merge.PseudoConflictMergeTest;
 import org.eclipse.emf.compare.tests.merge.RefineMergeTest;
 import org.eclipse.emf.compare.tests.merge.ThreeWayBatchMergingTest;
 import org.eclipse.emf.compare.tests.merge.TwoWayBatchMergingTest;
+import org.eclipse.emf.compare.tests.monitor.CompareMetricsTest;
 import org.eclipse.emf.compare.tests.monitor.MonitorCancelTest;
 import org.eclipse.emf.compare.tests.nodes.NodesPackage;
 import org.eclipse.emf.compare.tests.nodes.util.NodesResourceFactoryImpl;
+import org.eclipse.emf.compare.tests.postprocess.ChangeFactoryDispatcherTest;
 import org.eclipse.emf.compare.tests.postprocess.PostProcessorTest;
 import org.eclipse.emf.compare.tests.registry.RankedAdapterFactoryRegistryTest;
 import org.eclipse.emf.compare.tests.req.ReqComputingTest;
 import org.eclipse.emf.compare.tests.scope.ComparisonScopeAdapterTest;
 import org.eclipse.emf.compare.tests.scope.DefaultComparisonScopeTest;
+import org.eclipse.emf.compare.tests.scope.PartitionedComparisonTest;
+import org.eclipse.emf.compare.tests.utils.ComparisonOrdinalsTest;
+import org.eclipse.emf.compare.tests.utils.ComparisonSnapshotTest;
+import org.eclipse.emf.compare.tests.utils.DiffQueryTest;
 import org.eclipse.emf.compare.tests.utils.EMFComparePredicatesTest;
 import org.eclipse.emf.compare.tests.utils.EqualityHelperTest;
 import org.eclipse.emf.compare.tests.utils.GraphTest;
@@ -106,7 +125,15 @@ import org.junit.runners.Suite.SuiteClasses;
 		RankedAdapterFactoryRegistryTest.class, ComparisonScopeAdapterTest.class,
 		EMFComparePredicatesTest.class, ImplicationsMergeTest.class, GraphTest.class,
 		ConflictImplicationsTest_Bug484579.class, PseudoConflictDetectionTest.class, ComplexMergeTest.class,
-		ConflictSearchTest.class, DiffRelationshipComputerTest.class })
+		ConflictSearchTest.class, DiffRelationshipComputerTest.class,
+		ParallelProximityEObjectMatcherTest.class, DistanceCacheTest.class,
+		SignatureProximityIndexTest.class, RecompareTest.class,
+		ParallelDiffEngineTest.class, CompareMetricsTest.class,
+		PartitionedComparisonTest.class, ParallelConflictDetectionTest.class,
+		ComparisonIndexTest.class, SequenceAlignerTest.class, BatchMergeAlignmentTest.class,
+		ComparisonOrdinalsTest.class, DiffDependencyGraphTest.class, BulkMergeTest.class,
+		CachingMatchEngineTest.class, ComparisonSnapshotTest.class, BigramProfileCacheTest.class,
+		ChangeFactoryDispatcherTest.class, DiffQueryTest.class })
 public class AllTests {
 
 	@BeforeClass
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.tests.conflict.data.ConflictInputData;
+import org.eclipse.emf.compare.utils.ComparisonOrdinals;
+import org.eclipse.emf.compare.utils.DiffBitSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ComparisonOrdinalsTest {
+
+	@Test
+	public void denseOrdinals() throws Exception {
+		Comparison comparison = createComparison();
+		ComparisonOrdinals ordinals = ComparisonOrdinals.of(comparison);
+		assertSame(ordinals, ComparisonOrdinals.of(comparison));
+
+		List<Diff> differences = comparison.getDifferences();
+		assertEquals(differences.size(), ordinals.getDiffCount());
+		Set<Integer> seen = Sets.newHashSet();
+		for (Diff diff : differences) {
+			int ordinal = ordinals.ordinal(diff);
+			assertTrue(seen.add(Integer.valueOf(ordinal)));
+			assertSame(diff, ordinals.getDiff(ordinal));
+		}
+
+		List<Match> allMatches = Lists.newArrayList();
+		for (Match match : comparison.getMatches()) {
+			allMatches.add(match);
+			Iterables.addAll(allMatches, match.getAllSubmatches());
+		}
+		for (Match match : allMatches) {
+			assertSame(match, ordinals.getMatch(ordinals.ordinal(match)));
+		}
+		assertEquals(allMatches.size(), ordinals.getMatchCount());
+	}
+
+	@Test
+	public void lateDiffsGetNextOrdinal() throws Exception {
+		Comparison comparison = createComparison();
+		ComparisonOrdinals ordinals = ComparisonOrdinals.of(comparison);
+		int count = ordinals.getDiffCount();
+
+		Diff diff = CompareFactory.eINSTANCE.createReferenceChange();
+		comparison.getMatches().get(0).getDifferences().add(diff);
+
+		assertEquals(count, ordinals.ordinal(diff));
+		assertEquals(count + 1, ordinals.getDiffCount());
+		assertEquals(count, ordinals.ordinal(diff));
+	}
+
+	@Test
+	public void removedDiffsLoseTheirOrdinal() throws Exception {
+		Comparison comparison = createComparison();
+		ComparisonOrdinals ordinals = ComparisonOrdinals.of(comparison);
+		List<Diff> differences = ImmutableList.copyOf(comparison.getDifferences());
+		int count = ordinals.getDiffCount();
+		DiffBitSet bitSet = new DiffBitSet(comparison);
+		bitSet.addAll(differences);
+
+		Diff removed = differences.get(0);
+		int ordinal = ordinals.ordinal(removed);
+		Diff deleted = differences.get(1);
+		int deletedOrdinal = ordinals.ordinal(deleted);
+		removed.getMatch().getDifferences().remove(removed);
+		EcoreUtil.remove(deleted);
+
+		assertNull(ordinals.getDiff(ordinal));
+		assertNull(ordinals.getDiff(deletedOrdinal));
+		assertTrue(EcoreUtil.getExistingAdapter(removed, ordinals) == null);
+		assertFalse(bitSet.contains(removed));
+		assertEquals(differences.size() - 2, bitSet.size());
+		assertEquals(Sets.newHashSet(differences.subList(2, differences.size())), bitSet);
+		assertSame(differences.get(2), bitSet.iterator().next());
+		// The ordinals of the other diffs do not change, and those taken back are not assigned again
+		assertSame(differences.get(2), ordinals.getDiff(ordinals.ordinal(differences.get(2))));
+		assertEquals(count, ordinals.ordinal(removed));
+		assertEquals(count + 1, ordinals.getDiffCount());
+	}
+
+	@Test
+	public void diffBitSetBehavesAsASet() throws Exception {
+		Comparison comparison = createComparison();
+		List<Diff> differences = ImmutableList.copyOf(comparison.getDifferences());
+		DiffBitSet bitSet = new DiffBitSet(comparison);
+		Set<Diff> expected = Sets.newHashSet();
+		Random random = new Random(42L);
+		for (int i = 0; i < 1000; i++) {
+			Diff diff = differences.get(random.nextInt(differences.size()));
+			if (random.nextBoolean()) {
+				assertEquals(expected.add(diff), bitSet.add(diff));
+			} else {
+				assertEquals(expected.remove(diff), bitSet.remove(diff));
+			}
+			assertEquals(expected.size(), bitSet.size());
+		}
+		assertEquals(expected, bitSet);
+		assertFalse(bitSet.contains("not a diff"));
+
+		DiffBitSet other = new DiffBitSet(comparison);
+		other.addAll(differences);
+		bitSet.addAll(other);
+		assertEquals(Sets.newHashSet(differences), bitSet);
+
+		Iterator<Diff> iterator = bitSet.iterator();
+		while (iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+		}
+		assertTrue(bitSet.isEmpty());
+	}
+
+	private static Comparison createComparison() throws Exception {
+		ConflictInputData input = new ConflictInputData();
+		Comparison comparison = EMFCompare.builder().build().compare(new DefaultComparisonScope(
+				input.getComplexLeft(), input.getComplexRight(), input.getComplexOrigin()));
+		assertFalse(comparison.getDifferences().isEmpty());
+		assertTrue(EcoreUtil.getExistingAdapter(comparison, ComparisonOrdinals.class) == null);
+		return comparison;
+	}
+}
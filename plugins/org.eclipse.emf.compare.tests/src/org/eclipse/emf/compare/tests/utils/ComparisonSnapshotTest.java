@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.utils;
+
+import static com.google.common.base.Predicates.alwaysTrue;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.eclipse.emf.common.util.BasicMonitor;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Conflict;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompare;
+import org.eclipse.emf.compare.Equivalence;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.merge.BatchMerger;
+import org.eclipse.emf.compare.merge.IMerger;
+import org.eclipse.emf.compare.scope.DefaultComparisonScope;
+import org.eclipse.emf.compare.utils.ComparisonSnapshot;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class ComparisonSnapshotTest {
+	private static final URI MODEL_URI = URI.createURI("model.ecore");
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("snapshot", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void snapshotRestoresTheComparison() throws IOException {
+		ResourceSet left = createModel("left");
+		ResourceSet right = createModel("right");
+		ResourceSet origin = createModel("origin");
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, origin));
+		assertFalse(comparison.getConflicts().isEmpty());
+		// Ecore models have no equivalent differences, one is made up to check that they are saved
+		Equivalence equivalence = CompareFactory.eINSTANCE.createEquivalence();
+		equivalence.getDifferences().addAll(Lists.newArrayList(comparison.getDifferences().subList(0, 2)));
+		comparison.getEquivalences().add(equivalence);
+
+		Comparison loaded = reload(comparison, left, right, origin);
+
+		assertTrue(loaded.isThreeWay());
+		assertEquals(describe(comparison), describe(loaded));
+		Match root = loaded.getMatches().get(0);
+		assertSame(left, root.getLeft().eResource().getResourceSet());
+		assertSame(right, root.getRight().eResource().getResourceSet());
+		assertSame(origin, root.getOrigin().eResource().getResourceSet());
+		assertSame(left.getResources().get(0), loaded.getMatchedResources().get(0).getLeft());
+	}
+
+	@Test
+	public void modelsAreLoadedOnAccess() throws IOException {
+		ResourceSet left = createModel("left");
+		ResourceSet right = createModel("right");
+		ResourceSet origin = createModel("origin");
+		save(left);
+		save(right);
+		save(origin);
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, origin));
+
+		ResourceSet newLeft = createResourceSet("left");
+		ResourceSet newRight = createResourceSet("right");
+		ResourceSet newOrigin = createResourceSet("origin");
+		Comparison loaded = reload(comparison, newLeft, newRight, newOrigin);
+
+		assertTrue(newLeft.getResources().isEmpty());
+		assertTrue(newRight.getResources().isEmpty());
+		assertTrue(newOrigin.getResources().isEmpty());
+		EObject leftRoot = loaded.getMatches().get(0).getLeft();
+		assertEquals(1, newLeft.getResources().size());
+		assertSame(newLeft.getResources().get(0), leftRoot.eResource());
+		assertTrue(newRight.getResources().isEmpty());
+		assertEquals(describe(comparison), describe(loaded));
+	}
+
+	@Test
+	public void reloadedComparisonCanBeMerged() throws IOException {
+		ResourceSet left = createModel("left");
+		ResourceSet right = createModel("right");
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, null));
+		Comparison loaded = reload(comparison, left, right, null);
+
+		new BatchMerger(IMerger.RegistryImpl.createStandaloneInstance(), alwaysTrue())
+				.copyAllLeftToRight(loaded.getDifferences(), new BasicMonitor());
+
+		Comparison merged = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, null));
+		assertTrue(merged.getDifferences().isEmpty());
+	}
+
+	@Test
+	public void snapshotIsSmallerThanXMI() throws IOException {
+		ResourceSet left = createModel("left");
+		ResourceSet right = createModel("right");
+		ResourceSet origin = createModel("origin");
+		Comparison comparison = EMFCompare.builder().build()
+				.compare(new DefaultComparisonScope(left, right, origin));
+		ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+		ComparisonSnapshot.write(comparison, snapshot);
+
+		Resource xmi = new XMIResourceImpl(URI.createURI("comparison.xmi"));
+		xmi.getContents().add(comparison);
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		xmi.save(serialized, null);
+
+		assertTrue(snapshot.size() * 2 < serialized.size());
+	}
+
+	@Test(expected = IOException.class)
+	public void invalidSnapshotIsRejected() throws IOException {
+		ComparisonSnapshot.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8 }),
+				new ResourceSetImpl(), new ResourceSetImpl(), null);
+	}
+
+	private static Comparison reload(Comparison comparison, ResourceSet left, ResourceSet right,
+			ResourceSet origin) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ComparisonSnapshot.write(comparison, output);
+		return ComparisonSnapshot.read(new ByteArrayInputStream(output.toByteArray()), left, right, origin);
+	}
+
+	/**
+	 * Creates a small package, changed according to its side, in a resource set of its own. All sides share
+	 * the same URI.
+	 */
+	private ResourceSet createModel(String side) {
+		ResourceSet resourceSet = createResourceSet(side);
+		Resource resource = resourceSet.createResource(MODEL_URI);
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("library");
+		resource.getContents().add(ePackage);
+		EClass book = addClass(ePackage, "Book");
+		EClass writer = addClass(ePackage, "Writer");
+		addAttribute(book, "title");
+		addAttribute(book, "pages");
+		addAttribute(writer, "name");
+		addOpposites(book, "authors", writer, "books");
+		if ("left".equals(side)) {
+			book.setName("Volume");
+			book.getEStructuralFeatures().remove(book.getEStructuralFeature("pages"));
+			addOpposites(addClass(ePackage, "Magazine"), "editor", writer, "magazines");
+		} else if ("right".equals(side)) {
+			book.setName("Publication");
+			writer.setAbstract(true);
+			addOpposites(addClass(ePackage, "Shelf"), "books", book, "shelf");
+		}
+		return resourceSet;
+	}
+
+	private static EClass addClass(EPackage ePackage, String name) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		ePackage.getEClassifiers().add(eClass);
+		return eClass;
+	}
+
+	private static void addAttribute(EClass eClass, String name) {
+		EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(EcorePackage.Literals.ESTRING);
+		eClass.getEStructuralFeatures().add(attribute);
+	}
+
+	private static void addOpposites(EClass source, String name, EClass target, String oppositeName) {
+		EReference reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName(name);
+		reference.setEType(target);
+		reference.setUpperBound(-1);
+		EReference opposite = EcoreFactory.eINSTANCE.createEReference();
+		opposite.setName(oppositeName);
+		opposite.setEType(source);
+		source.getEStructuralFeatures().add(reference);
+		target.getEStructuralFeatures().add(opposite);
+		reference.setEOpposite(opposite);
+		opposite.setEOpposite(reference);
+	}
+
+	/**
+	 * Creates a resource set in which the model URI is mapped to the file of the given side.
+	 */
+	private ResourceSet createResourceSet(String side) {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*",
+				new XMIResourceFactoryImpl());
+		resourceSet.getURIConverter().getURIMap().put(MODEL_URI,
+				URI.createFileURI(new File(directory, side + ".ecore").getAbsolutePath()));
+		return resourceSet;
+	}
+
+	private static void save(ResourceSet resourceSet) throws IOException {
+		resourceSet.getResources().get(0).save(null);
+	}
+
+	/**
+	 * Describes the matches and differences of a comparison, the model objects by their URI fragment and the
+	 * differences by their position.
+	 */
+	private static List<String> describe(Comparison comparison) {
+		List<String> description = Lists.newArrayList();
+		for (Match match : comparison.getMatches()) {
+			describe(match, description);
+		}
+		List<Diff> differences = comparison.getDifferences();
+		for (Diff diff : differences) {
+			StringBuilder builder = new StringBuilder();
+			builder.append(diff.eClass().getName()).append(' ').append(diff.getKind()).append(' ')
+					.append(diff.getSource()).append(' ').append(diff.getState()).append(' ')
+					.append(fragment(diff.getMatch().getLeft())).append(' ');
+			if (diff instanceof ReferenceChange) {
+				builder.append(((ReferenceChange)diff).getReference().getName()).append('=')
+						.append(fragment(((ReferenceChange)diff).getValue()));
+			} else if (diff instanceof AttributeChange) {
+				builder.append(((AttributeChange)diff).getAttribute().getName()).append('=')
+						.append(((AttributeChange)diff).getValue());
+			}
+			builder.append(" requires").append(positions(differences, diff.getRequires()));
+			builder.append(" requiredBy").append(positions(differences, diff.getRequiredBy()));
+			builder.append(" refinedBy").append(positions(differences, diff.getRefinedBy()));
+			if (diff.getEquivalence() != null) {
+				builder.append(" equivalent")
+						.append(positions(differences, diff.getEquivalence().getDifferences()));
+			}
+			Conflict conflict = diff.getConflict();
+			if (conflict != null) {
+				builder.append(' ').append(conflict.getKind())
+						.append(positions(differences, conflict.getDifferences()));
+			}
+			description.add(builder.toString());
+		}
+		return description;
+	}
+
+	private static void describe(Match match, List<String> description) {
+		description.add(fragment(match.getLeft()) + "|" + fragment(match.getRight()) + "|"
+				+ fragment(match.getOrigin()));
+		for (Match submatch : match.getSubmatches()) {
+			describe(submatch, description);
+		}
+	}
+
+	private static List<Integer> positions(List<Diff> differences, List<Diff> diffs) {
+		List<Integer> positions = Lists.newArrayList();
+		for (Diff diff : diffs) {
+			positions.add(Integer.valueOf(differences.indexOf(diff)));
+		}
+		return positions;
+	}
+
+	private static String fragment(EObject eObject) {
+		if (eObject == null) {
+			return "-";
+		}
+		return eObject.eResource().getURIFragment(eObject);
+	}
+}
@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.tests.utils;
+
+import static org.eclipse.emf.compare.DifferenceKind.ADD;
+import static org.eclipse.emf.compare.DifferenceKind.CHANGE;
+import static org.eclipse.emf.compare.DifferenceKind.DELETE;
+import static org.eclipse.emf.compare.DifferenceSource.LEFT;
+import static org.eclipse.emf.compare.DifferenceSource.RIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.DifferenceState;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.spec.ComparisonSpec;
+import org.eclipse.emf.compare.internal.utils.ComparisonUtil;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.eclipse.emf.ecore.xml.type.XMLTypePackage;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("nls")
+public class DiffQueryTest {
+
+	private ComparisonSpec comparison;
+
+	private Match match;
+
+	private EClass value;
+
+	private ReferenceChange leftAdd;
+
+	private ReferenceChange rightAdd;
+
+	private AttributeChange leftName;
+
+	private ReferenceChange rightDelete;
+
+	@Before
+	public void setUp() {
+		comparison = new ComparisonSpec();
+		match = CompareFactory.eINSTANCE.createMatch();
+		comparison.getMatches().add(match);
+		value = EcoreFactory.eINSTANCE.createEClass();
+
+		leftAdd = referenceChange(ADD, LEFT, value);
+		rightAdd = referenceChange(ADD, RIGHT, value);
+		leftName = attributeChange(CHANGE, LEFT, "name");
+		rightDelete = referenceChange(DELETE, RIGHT, EcoreFactory.eINSTANCE.createEClass());
+		match.getDifferences().add(leftAdd);
+		match.getDifferences().add(rightAdd);
+		match.getDifferences().add(leftName);
+		match.getDifferences().add(rightDelete);
+	}
+
+	@Test
+	public void testCriteria() {
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, leftName, rightDelete),
+				comparison.queryDiffs().list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd), comparison.queryDiffs().ofKind(ADD).list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, rightDelete),
+				comparison.queryDiffs().ofKind(DELETE, ADD).list());
+		assertEquals(ImmutableList.of(leftAdd, leftName), comparison.queryDiffs().fromSource(LEFT).list());
+		assertEquals(ImmutableList.of(rightAdd),
+				comparison.queryDiffs().ofKind(ADD).fromSource(RIGHT).list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, rightDelete),
+				comparison.queryDiffs().onFeature(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS).list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd), comparison.queryDiffs().withValue(value).list());
+		assertEquals(ImmutableList.of(leftName), comparison.queryDiffs().withValue("name").list());
+		assertEquals(ImmutableList.of(leftAdd),
+				comparison.queryDiffs().ofKind(ADD).fromSource(LEFT)
+						.onFeature(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS).withValue(value)
+						.withState(DifferenceState.UNRESOLVED).list());
+		assertTrue(comparison.queryDiffs().withState(DifferenceState.MERGED).isEmpty());
+		assertFalse(comparison.queryDiffs().ofKind(CHANGE).isEmpty());
+	}
+
+	@Test
+	public void testContradictoryCriteria() {
+		assertTrue(comparison.queryDiffs().fromSource(LEFT).fromSource(RIGHT).list().isEmpty());
+		assertTrue(comparison.queryDiffs().ofKind(ADD).ofKind(DELETE).list().isEmpty());
+		assertEquals(ImmutableList.of(rightDelete),
+				comparison.queryDiffs().ofKind(ADD, DELETE).ofKind(DELETE, CHANGE).list());
+		assertTrue(comparison.queryDiffs().withValue(value).withValue("name").isEmpty());
+	}
+
+	@Test
+	public void testAddedAndRemovedDifferences() {
+		assertEquals(ImmutableList.of(leftAdd, leftName), comparison.queryDiffs().fromSource(LEFT).list());
+
+		ReferenceChange added = referenceChange(ADD, LEFT, value);
+		match.getDifferences().add(added);
+		Match subMatch = CompareFactory.eINSTANCE.createMatch();
+		ReferenceChange nested = referenceChange(DELETE, LEFT, value);
+		subMatch.getDifferences().add(nested);
+		match.getSubmatches().add(subMatch);
+		assertEquals(ImmutableList.of(leftAdd, leftName, added, nested),
+				comparison.queryDiffs().fromSource(LEFT).list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, added, nested),
+				comparison.queryDiffs().withValue(value).list());
+
+		match.getDifferences().remove(leftName);
+		assertEquals(ImmutableList.of(leftAdd, added, nested),
+				comparison.queryDiffs().fromSource(LEFT).list());
+
+		EcoreUtil.delete(leftAdd);
+		assertEquals(ImmutableList.of(added, nested), comparison.queryDiffs().fromSource(LEFT).list());
+
+		match.getSubmatches().remove(subMatch);
+		assertEquals(ImmutableList.of(added), comparison.queryDiffs().fromSource(LEFT).list());
+		assertEquals(ImmutableList.of(rightAdd, added), comparison.queryDiffs().withValue(value).list());
+	}
+
+	@Test
+	public void testModifiedDifferences() {
+		comparison.queryDiffs();
+
+		rightAdd.setSource(LEFT);
+		rightDelete.setKind(ADD);
+		leftName.setValue("label");
+		leftAdd.setState(DifferenceState.MERGED);
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, leftName),
+				comparison.queryDiffs().fromSource(LEFT).list());
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, rightDelete),
+				comparison.queryDiffs().ofKind(ADD).list());
+		assertTrue(comparison.queryDiffs().withValue("name").isEmpty());
+		assertEquals(ImmutableList.of(leftName), comparison.queryDiffs().withValue("label").list());
+		assertEquals(ImmutableList.of(leftAdd),
+				comparison.queryDiffs().withState(DifferenceState.MERGED).list());
+
+		rightAdd.setReference(EcorePackage.Literals.EPACKAGE__ESUBPACKAGES);
+		assertEquals(ImmutableList.of(leftAdd, rightDelete),
+				comparison.queryDiffs().onFeature(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS).list());
+		assertEquals(ImmutableList.of(rightAdd),
+				comparison.queryDiffs().onFeature(EcorePackage.Literals.EPACKAGE__ESUBPACKAGES).list());
+	}
+
+	@Test
+	public void testModifiedFeatureMapChanges() {
+		FeatureMapChange featureMapChange = CompareFactory.eINSTANCE.createFeatureMapChange();
+		featureMapChange.setKind(ADD);
+		featureMapChange.setSource(LEFT);
+		featureMapChange.setAttribute(XMLTypePackage.Literals.ANY_TYPE__MIXED);
+		FeatureMap.Entry text = FeatureMapUtil
+				.createEntry(XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__TEXT, "text");
+		featureMapChange.setValue(text);
+		match.getDifferences().add(featureMapChange);
+		assertEquals(ImmutableList.<Diff> of(featureMapChange),
+				comparison.queryDiffs().onFeature(XMLTypePackage.Literals.ANY_TYPE__MIXED).list());
+		assertEquals(ImmutableList.<Diff> of(featureMapChange),
+				comparison.queryDiffs().withValue(text).list());
+
+		featureMapChange.setAttribute(XMLTypePackage.Literals.ANY_TYPE__ANY);
+		FeatureMap.Entry comment = FeatureMapUtil
+				.createEntry(XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__COMMENT, "comment");
+		featureMapChange.setValue(comment);
+		assertTrue(comparison.queryDiffs().onFeature(XMLTypePackage.Literals.ANY_TYPE__MIXED).isEmpty());
+		assertTrue(comparison.queryDiffs().withValue(text).isEmpty());
+		assertEquals(ImmutableList.<Diff> of(featureMapChange),
+				comparison.queryDiffs().onFeature(XMLTypePackage.Literals.ANY_TYPE__ANY).list());
+		assertEquals(ImmutableList.<Diff> of(featureMapChange),
+				comparison.queryDiffs().withValue(comment).list());
+	}
+
+	@Test
+	public void testIndexBuiltAfterCrossReferencer() {
+		// Installs the diff cross referencer before the index
+		comparison.getDifferences(value);
+		assertEquals(ImmutableList.of(leftAdd, rightAdd), comparison.queryDiffs().ofKind(ADD).list());
+
+		ReferenceChange added = referenceChange(ADD, LEFT, value);
+		match.getDifferences().add(added);
+		assertEquals(ImmutableList.of(leftAdd, rightAdd, added), comparison.queryDiffs().ofKind(ADD).list());
+	}
+
+	@Test
+	public void testQueryOfAnyComparison() {
+		assertEquals(ImmutableList.of(rightAdd, rightDelete),
+				ComparisonUtil.queryDiffs(comparison).fromSource(RIGHT).list());
+
+		Match otherMatch = CompareFactory.eINSTANCE.createMatch();
+		ReferenceChange diff = referenceChange(ADD, RIGHT, value);
+		otherMatch.getDifferences().add(diff);
+		org.eclipse.emf.compare.Comparison other = CompareFactory.eINSTANCE.createComparison();
+		other.getMatches().add(otherMatch);
+		assertEquals(ImmutableList.<Diff> of(diff), ComparisonUtil.queryDiffs(other).ofKind(ADD).list());
+	}
+
+	private static ReferenceChange referenceChange(DifferenceKind kind, DifferenceSource source,
+			EClass referenced) {
+		ReferenceChange diff = CompareFactory.eINSTANCE.createReferenceChange();
+		diff.setKind(kind);
+		diff.setSource(source);
+		diff.setReference(EcorePackage.Literals.EPACKAGE__ECLASSIFIERS);
+		diff.setValue(referenced);
+		return diff;
+	}
+
+	private static AttributeChange attributeChange(DifferenceKind kind, DifferenceSource source,
+			Object attributeValue) {
+		AttributeChange diff = CompareFactory.eINSTANCE.createAttributeChange();
+		diff.setKind(kind);
+		diff.setSource(source);
+		diff.setAttribute(EcorePackage.Literals.ENAMED_ELEMENT__NAME);
+		diff.setValue(attributeValue);
+		return diff;
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.uml2.tests.association;
+
+import static org.junit.Assert.assertNotSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.compare.postprocessor.IPostProcessor.Descriptor.Registry;
+import org.eclipse.emf.compare.tests.postprocess.data.TestPostProcessor;
+import org.eclipse.emf.compare.uml2.internal.postprocessor.UMLPostProcessor;
+import org.eclipse.uml2.common.util.CacheAdapter;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the tests of {@link AddAssociationTest} with a UML post-processor preparing the extensions on an
+ * executor, one difference per task, to check that the extensions attached afterwards are the ones created
+ * sequentially.
+ * <p>
+ * The post-processor only uses its executor if the UML2 cache adapter is thread local, which requires the
+ * <code>org.eclipse.uml2.common.util.CacheAdapter.ThreadLocal</code> system property to be set before the
+ * cache adapter is first used (see the tycho-surefire configuration of this bundle).
+ * </p>
+ */
+@SuppressWarnings("nls")
+public class ConcurrentAddAssociationTest extends AddAssociationTest {
+
+	private static final String THREAD_LOCAL_CACHE_ADAPTER = CacheAdapter.class.getName() + ".ThreadLocal";
+
+	private static final int THREAD_COUNT = 4;
+
+	private static ExecutorService executor;
+
+	@BeforeClass
+	public static void setupExecutor() {
+		// Only effective if no test has used the cache adapter before this one
+		System.setProperty(THREAD_LOCAL_CACHE_ADAPTER, Boolean.TRUE.toString());
+		executor = Executors.newFixedThreadPool(THREAD_COUNT);
+	}
+
+	@AfterClass
+	public static void shutdownExecutor() {
+		executor.shutdownNow();
+		executor = null;
+	}
+
+	/**
+	 * Makes sure the tests of this class do not silently fall back to the sequential computation of the
+	 * extensions.
+	 */
+	@Test
+	public void testCacheAdapterIsThreadLocal() throws Exception {
+		CacheAdapter taskCacheAdapter = executor.submit(new Callable<CacheAdapter>() {
+			public CacheAdapter call() {
+				return CacheAdapter.getInstance();
+			}
+		}).get();
+		assertNotSame(CacheAdapter.getInstance(), taskCacheAdapter);
+	}
+
+	@Override
+	protected void registerPostProcessors(Registry<String> postProcessorRegistry) {
+		super.registerPostProcessors(postProcessorRegistry);
+		postProcessorRegistry.put(UMLPostProcessor.class.getName(),
+				new TestPostProcessor.TestPostProcessorDescriptor(
+						Pattern.compile("http://www.eclipse.org/uml2/\\d\\.0\\.0/UML"), null,
+						new UMLPostProcessor(executor, 1), 20));
+	}
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.uml2.tests.postprocessor;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactoryDispatcher;
+import org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory;
+import org.eclipse.emf.compare.postprocessor.IPostProcessor;
+import org.eclipse.emf.compare.uml2.internal.postprocessor.extension.UMLExtensionFactoryRegistry;
+import org.eclipse.emf.compare.uml2.tests.AbstractStaticProfileTest;
+import org.eclipse.emf.compare.uml2.tests.AbstractUMLInputData;
+import org.eclipse.emf.compare.uml2.tests.association.data.AssociationInputData;
+import org.eclipse.emf.compare.uml2.tests.conflict.data.ConflictInputData;
+import org.eclipse.emf.compare.uml2.tests.dependency.data.DependencyInputData;
+import org.eclipse.emf.compare.uml2.tests.executionSpecification.data.ExecutionSpecificationInputData;
+import org.eclipse.emf.compare.uml2.tests.extend.data.ExtendInputData;
+import org.eclipse.emf.compare.uml2.tests.generalizationSet.data.GeneralizationSetInputData;
+import org.eclipse.emf.compare.uml2.tests.implications.data.ImplicationsInputData;
+import org.eclipse.emf.compare.uml2.tests.include.data.IncludeInputData;
+import org.eclipse.emf.compare.uml2.tests.merge.data.InstanceSpecificationClassifiersMergeInputData;
+import org.eclipse.emf.compare.uml2.tests.message.data.MessageInputData;
+import org.eclipse.emf.compare.uml2.tests.opaque.data.OpaqueInputData;
+import org.eclipse.emf.compare.uml2.tests.profiles.data.static_.StaticProfileInputData;
+import org.eclipse.emf.compare.uml2.tests.stereotypes.data.dangling.DanglingStereotypeApplicationInputData;
+import org.eclipse.emf.compare.uml2.tests.stereotypes.data.static_.StaticStereotypeInputData;
+import org.eclipse.emf.compare.uml2.tests.timeConstraint.data.TimeConstraintInputData;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the signature of each UML extension factory covers the differences it handles: every
+ * difference of the test models that a factory {@link IChangeFactory#handles(Diff) handles} must have this
+ * factory among its candidates in the {@link ChangeFactoryDispatcher}, otherwise the UML post-processor would
+ * never create the extension.
+ */
+@SuppressWarnings({"nls", "restriction" })
+public class ChangeFactorySignatureTest extends AbstractStaticProfileTest {
+
+	/** The getters of the left side of the comparisons of an input data. */
+	private static final Pattern LEFT_GETTER = Pattern.compile("get(\\w+)Left");
+
+	/** The number of test cases of the multiplicity changes. */
+	private static final int MULTIPLICITY_CASES = 11;
+
+	private AbstractUMLInputData input;
+
+	@BeforeClass
+	public static void setupClass() {
+		fillRegistriesForStatic();
+	}
+
+	@AfterClass
+	public static void teardownClass() {
+		resetRegistriesForStatic();
+	}
+
+	@Override
+	protected void registerPostProcessors(
+			final IPostProcessor.Descriptor.Registry<String> postProcessorRegistry) {
+		// The factories are given the differences as computed before the UML post-processor runs
+	}
+
+	@Override
+	protected AbstractUMLInputData getInput() {
+		return input;
+	}
+
+	@Test
+	public void testAssociationSignatures() throws Exception {
+		checkSignatures(new AssociationInputData());
+	}
+
+	@Test
+	public void testConflictSignatures() throws Exception {
+		checkSignatures(new ConflictInputData());
+	}
+
+	@Test
+	public void testDependencySignatures() throws Exception {
+		checkSignatures(new DependencyInputData());
+	}
+
+	@Test
+	public void testExecutionSpecificationSignatures() throws Exception {
+		checkSignatures(new ExecutionSpecificationInputData());
+	}
+
+	@Test
+	public void testExtendSignatures() throws Exception {
+		checkSignatures(new ExtendInputData());
+	}
+
+	@Test
+	public void testGeneralizationSetSignatures() throws Exception {
+		checkSignatures(new GeneralizationSetInputData());
+	}
+
+	@Test
+	public void testImplicationsSignatures() throws Exception {
+		checkSignatures(new ImplicationsInputData());
+	}
+
+	@Test
+	public void testIncludeSignatures() throws Exception {
+		checkSignatures(new IncludeInputData());
+	}
+
+	@Test
+	public void testInstanceSpecificationSignatures() throws Exception {
+		checkSignatures(new InstanceSpecificationClassifiersMergeInputData());
+	}
+
+	@Test
+	public void testMessageSignatures() throws Exception {
+		checkSignatures(new MessageInputData());
+	}
+
+	@Test
+	public void testOpaqueElementBodySignatures() throws Exception {
+		checkSignatures(new OpaqueInputData());
+	}
+
+	@Test
+	public void testProfileApplicationSignatures() throws Exception {
+		checkSignatures(new StaticProfileInputData());
+	}
+
+	@Test
+	public void testStereotypeSignatures() throws Exception {
+		checkSignatures(new StaticStereotypeInputData());
+	}
+
+	@Test
+	public void testDanglingStereotypeSignatures() throws Exception {
+		checkSignatures(new DanglingStereotypeApplicationInputData());
+	}
+
+	@Test
+	public void testTimeConstraintSignatures() throws Exception {
+		checkSignatures(new TimeConstraintInputData());
+	}
+
+	@Test
+	public void testMultiplicitySignatures() throws Exception {
+		MultiplicityInputData multiplicityInput = new MultiplicityInputData();
+		input = multiplicityInput;
+		for (int i = 1; i <= MULTIPLICITY_CASES; i++) {
+			checkSignatures(compare(multiplicityInput.getLeft(i), multiplicityInput.getRight(i),
+					multiplicityInput.getOrigin(i)));
+		}
+	}
+
+	/**
+	 * Checks the signatures of the factories against all the comparisons of the given input data, i.e. all
+	 * the <code>get*Left()</code>, <code>get*Right()</code> and optional <code>get*Origin()</code> getters.
+	 */
+	private void checkSignatures(AbstractUMLInputData inputData) throws Exception {
+		input = inputData;
+		int comparisons = 0;
+		for (Method method : inputData.getClass().getMethods()) {
+			Matcher matcher = LEFT_GETTER.matcher(method.getName());
+			if (matcher.matches() && method.getParameterTypes().length == 0) {
+				String testCase = matcher.group(1);
+				Resource left = (Resource)method.invoke(inputData);
+				Resource right = (Resource)inputData.getClass().getMethod("get" + testCase + "Right")
+						.invoke(inputData);
+				Resource origin = null;
+				try {
+					origin = (Resource)inputData.getClass().getMethod("get" + testCase + "Origin")
+							.invoke(inputData);
+				} catch (NoSuchMethodException e) {
+					// two-way comparison
+				}
+				checkSignatures(compare(left, right, origin));
+				comparisons++;
+			}
+		}
+		assertTrue("No comparison found in " + inputData.getClass().getSimpleName(), comparisons > 0);
+	}
+
+	private void checkSignatures(Comparison comparison) {
+		Collection<IChangeFactory> factories = UMLExtensionFactoryRegistry.createExtensionFactories()
+				.values();
+		ChangeFactoryDispatcher dispatcher = new ChangeFactoryDispatcher(factories);
+		for (Diff diff : comparison.getDifferences()) {
+			List<IChangeFactory> candidates = dispatcher.getCandidates(diff);
+			for (IChangeFactory factory : factories) {
+				if (factory.handles(diff)) {
+					assertTrue(factory.getClass().getSimpleName() + " handles " + diff
+							+ " outside of its signature", candidates.contains(factory));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The models of the multiplicity changes tests, which are not described by an input data.
+	 */
+	private static class MultiplicityInputData extends AbstractUMLInputData {
+		private static final String PATH = "/org/eclipse/emf/compare/uml2/tests/multiplicitychanges/a";
+
+		public Resource getLeft(int testCase) throws IOException {
+			return loadFromClassLoader(PATH + testCase + "/left.uml");
+		}
+
+		public Resource getRight(int testCase) throws IOException {
+			return loadFromClassLoader(PATH + testCase + "/right.uml");
+		}
+
+		public Resource getOrigin(int testCase) throws IOException {
+			return loadFromClassLoader(PATH + testCase + "/origin.uml");
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.eclipse.emf.compare.uml2.tests.association.AddAssociation2Test;
 import org.eclipse.emf.compare.uml2.tests.association.AddAssociation3Test;
 import org.eclipse.emf.compare.uml2.tests.association.AddAssociationTest;
 import org.eclipse.emf.compare.uml2.tests.association.ChangeAssociationTest;
+import org.eclipse.emf.compare.uml2.tests.association.ConcurrentAddAssociationTest;
 import org.eclipse.emf.compare.uml2.tests.conflict.PseudoConflictTest;
 import org.eclipse.emf.compare.uml2.tests.dependency.AddAbstractionTest;
 import org.eclipse.emf.compare.uml2.tests.dependency.AddDependencyTest;
@@ -45,6 +46,7 @@ import org.eclipse.emf.compare.uml2.tests.multiplicitychanges.MultiplicityElemen
 import org.eclipse.emf.compare.uml2.tests.nonreg.bug484576_pseudoconflicts.TestNonRegPseudoConflict_484576;
 import org.eclipse.emf.compare.uml2.tests.opaque.OpaqueElementBodyChangeDiffTest;
 import org.eclipse.emf.compare.uml2.tests.opaque.OpaqueElementBodyChangeMergeTest;
+import org.eclipse.emf.compare.uml2.tests.postprocessor.ChangeFactorySignatureTest;
 import org.eclipse.emf.compare.uml2.tests.profiles.DynamicProfileTest;
 import org.eclipse.emf.compare.uml2.tests.profiles.StaticProfileTest;
 import org.eclipse.emf.compare.uml2.tests.resourceattachment.stereotype.RemoveStereotypeApplicationPseudoConflictTest;
@@ -83,7 +85,8 @@ import junit.textui.TestRunner;
 		OpaqueElementBodyChangeDiffTest.class, OpaqueElementBodyChangeMergeTest.class,
 		DanglingStereotypeApplicationTest.class, TestNonRegPseudoConflict_484576.class,
 		RemoveStereotypeApplicationPseudoConflictTest.class, MultiplicityElementChangesTest.class,
-		InstanceSpecificationClassifiersMergeTest.class, AddMessageSubDiffTest.class, })
+		InstanceSpecificationClassifiersMergeTest.class, AddMessageSubDiffTest.class,
+		ConcurrentAddAssociationTest.class, ChangeFactorySignatureTest.class, })
 public class AllTests {
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2017 Obeo and others.
+ * Copyright (c) 2013, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -234,7 +234,11 @@ public abstract class AbstractUMLChangeFactory extends AbstractChangeFactory {
 	 * ADD/DELETE plus a macroscopic CHANGE.<br>
 	 * At last, the first matching difference allows to create a complete macroscopic change (with all the
 	 * refining differences. So, the next matching ones will not be held to avoid to create duplicated
-	 * macroscopic changes.
+	 * macroscopic changes.<br>
+	 * This method only reads the comparison. Differences may gain refinements as extensions are
+	 * {@link PendingExtension#refine() refined}, which can only make it return <code>false</code> for
+	 * differences it accepted before: when the extensions are prepared concurrently, it must be called again
+	 * before refining each of them, on the thread refining them.
 	 * 
 	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.AbstractChangeFactory#handles(org.eclipse.emf.compare.Diff)
 	 */
@@ -254,23 +258,63 @@ public abstract class AbstractUMLChangeFactory extends AbstractChangeFactory {
 	 */
 	@Override
 	public Diff create(Diff input) {
-		Diff ret = super.create(input);
+		return prepare(input).refine();
+	}
+
+	/**
+	 * Computes the macroscopic change of the given difference without modifying the comparison. The returned
+	 * extension is built, but neither linked to its refining differences nor added to a match yet. As such,
+	 * the extensions of different differences may be prepared concurrently.
+	 * 
+	 * @param input
+	 *            The difference, which this factory {@link #handles(Diff) handles}.
+	 * @return The pending extension, to {@link PendingExtension#refine() refine} on a single thread.
+	 */
+	public PendingExtension prepare(Diff input) {
+		final Diff ret = createExtension();
+		final DifferenceKind extensionKind = getRelatedExtensionKind(input);
+		ret.setKind(extensionKind);
+		// It's important to set the source before computing the refining changes
+		// because refines/refinedBy EReferences demand diffs on the same side
+		ret.setSource(input.getSource());
 		if (ret instanceof UMLDiff) {
 			((UMLDiff)ret).setDiscriminant(getDiscriminant(input));
 			setEReference(input, (UMLDiff)ret);
 		}
-		return ret;
+		return PendingExtension.prepared(this, input, ret,
+				collectRefiningChanges(ret, extensionKind, input));
 	}
 
 	/**
 	 * {@inheritDoc}<br>
-	 * During the building process, it sets the differences refining the macroscopic one.
+	 * During the building process, it sets the differences refining the macroscopic one, as
+	 * {@link #collectRefiningChanges(Diff, DifferenceKind, Diff) collected}. Sub-classes should override the
+	 * latter rather than this method, which is not called when the extensions are {@link #prepare(Diff)
+	 * prepared}.
 	 * 
 	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.AbstractChangeFactory#setRefiningChanges(org.eclipse.emf.compare.Diff,
 	 *      org.eclipse.emf.compare.DifferenceKind, org.eclipse.emf.compare.Diff)
 	 */
 	@Override
 	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
+		extension.getRefinedBy().addAll(collectRefiningChanges(extension, extensionKind, refiningDiff));
+	}
+
+	/**
+	 * Collects the differences refining the given macroscopic change, from the given refining one. This must
+	 * only read the comparison, the differences being linked to the extension later on.
+	 * 
+	 * @param extension
+	 *            The extension, which kind and source are set.
+	 * @param extensionKind
+	 *            The extension kind.
+	 * @param refiningDiff
+	 *            The refining difference.
+	 * @return The differences refining the extension, in order.
+	 */
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
+		final Set<Diff> result = new LinkedHashSet<Diff>();
 		SetMultimap<Object, RefiningCandidate> refiningCandidates = LinkedHashMultimap.create();
 
 		Comparison comparison = ComparisonUtil.getComparison(refiningDiff);
@@ -284,10 +328,24 @@ public abstract class AbstractUMLChangeFactory extends AbstractChangeFactory {
 			// For each of these business objects, find the impacted differences, keeping only the ones
 			// matching the defined settings.
 			for (Object elt : refiningCandidates.keys()) {
-				beRefinedByCrossReferences(comparison, elt, (UMLDiff)extension,
-						new DifferencesOnRefiningCandidates(comparison, refiningCandidates));
+				collectCrossReferences(comparison, elt, extension,
+						new DifferencesOnRefiningCandidates(comparison, refiningCandidates), result);
 			}
 		}
+		return result;
+	}
+
+	/**
+	 * Completes the given macroscopic change, once its refining differences are set. Does nothing by
+	 * default.
+	 * 
+	 * @param extension
+	 *            The extension, refined by its refining differences.
+	 * @param input
+	 *            The difference from which it has been created.
+	 */
+	protected void completeExtension(Diff extension, Diff input) {
+		// Nothing to complete by default
 	}
 
 	/**
@@ -505,23 +563,25 @@ public abstract class AbstractUMLChangeFactory extends AbstractChangeFactory {
 	}
 
 	/**
-	 * Fill the refining link of the given refined extension (macroscopic change) with the found differences
-	 * on the given object (lookup), according to the given predicate.
+	 * Collect the differences refining the given extension (macroscopic change) found on the given object
+	 * (lookup), according to the given predicate.
 	 * 
 	 * @param comparison
 	 *            The comparison.
 	 * @param lookup
 	 *            The object on which differences have to be found.
 	 * @param refinedExtension
-	 *            The macroscopic change to set (refinedBy link)
+	 *            The macroscopic change to refine.
 	 * @param p
 	 *            The predicate.
+	 * @param refiningChanges
+	 *            The differences refining the extension, to which the found ones are added.
 	 */
-	private void beRefinedByCrossReferences(Comparison comparison, Object lookup, UMLDiff refinedExtension,
-			Predicate<Diff> p) {
+	private void collectCrossReferences(Comparison comparison, Object lookup, Diff refinedExtension,
+			Predicate<Diff> p, Set<Diff> refiningChanges) {
 		if (lookup instanceof EObject) {
 			List<Diff> crossReferences = findCrossReferences(comparison, (EObject)lookup, p);
-			refinedExtension.getRefinedBy().addAll(Collections2.filter(crossReferences,
+			refiningChanges.addAll(Collections2.filter(crossReferences,
 					EMFComparePredicates.fromSide(refinedExtension.getSource())));
 		}
 	}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.uml2.internal.postprocessor;
+
+import java.util.Set;
+
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory;
+
+/**
+ * A difference extension computed from a difference, which is not linked to the comparison yet.
+ * <p>
+ * {@link AbstractUMLChangeFactory#prepare(Diff) Preparing} an extension only reads the comparison, so that
+ * the extensions of many differences may be prepared concurrently. {@link #refine() Refining} it then sets
+ * its refining differences, which modifies them, and must thus be done on a single thread.
+ * </p>
+ */
+public final class PendingExtension {
+	/** The factory of the extension. */
+	private final IChangeFactory factory;
+
+	/** The difference from which the extension is created. */
+	private final Diff input;
+
+	/** The extension, <code>null</code> if it is to be created by the factory when refined. */
+	private final Diff extension;
+
+	/** The differences which will refine the extension. */
+	private final Set<Diff> refiningChanges;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param factory
+	 *            The factory of the extension.
+	 * @param input
+	 *            The difference from which the extension is created.
+	 * @param extension
+	 *            The extension, <code>null</code> if it is to be created by the factory when refined.
+	 * @param refiningChanges
+	 *            The differences which will refine the extension, ignored if there is no extension.
+	 */
+	private PendingExtension(IChangeFactory factory, Diff input, Diff extension, Set<Diff> refiningChanges) {
+		this.factory = factory;
+		this.input = input;
+		this.extension = extension;
+		this.refiningChanges = refiningChanges;
+	}
+
+	/**
+	 * Creates a pending extension which has been computed by the given factory.
+	 *
+	 * @param factory
+	 *            The factory of the extension.
+	 * @param input
+	 *            The difference from which the extension is created.
+	 * @param extension
+	 *            The extension, which has no refining difference yet.
+	 * @param refiningChanges
+	 *            The differences which will refine the extension.
+	 * @return The pending extension.
+	 */
+	static PendingExtension prepared(AbstractUMLChangeFactory factory, Diff input, Diff extension,
+			Set<Diff> refiningChanges) {
+		return new PendingExtension(factory, input, extension, refiningChanges);
+	}
+
+	/**
+	 * Creates a pending extension which will be {@link IChangeFactory#create(Diff) created} by the given
+	 * factory when refined, for the factories which cannot prepare their extensions.
+	 *
+	 * @param factory
+	 *            The factory of the extension.
+	 * @param input
+	 *            The difference from which the extension is created.
+	 * @return The pending extension.
+	 */
+	public static PendingExtension deferred(IChangeFactory factory, Diff input) {
+		return new PendingExtension(factory, input, null, null);
+	}
+
+	/**
+	 * Returns the factory of the extension.
+	 *
+	 * @return The factory of the extension.
+	 */
+	public IChangeFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Returns the difference from which the extension is created.
+	 *
+	 * @return The difference from which the extension is created.
+	 */
+	public Diff getInput() {
+		return input;
+	}
+
+	/**
+	 * Links the extension to its refining differences and completes it. This modifies the refining
+	 * differences and must not be called concurrently with other accesses to the comparison.
+	 *
+	 * @return The extension, refined by its refining differences.
+	 */
+	public Diff refine() {
+		if (extension == null) {
+			return factory.create(input);
+		}
+		extension.getRefinedBy().addAll(refiningChanges);
+		((AbstractUMLChangeFactory)factory).completeExtension(extension, input);
+		return extension;
+	}
+}
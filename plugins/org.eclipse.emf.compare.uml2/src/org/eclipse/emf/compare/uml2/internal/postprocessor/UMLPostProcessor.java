@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.uml2.internal.postprocessor;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.eclipse.emf.compare.internal.utils.ComparisonUtil.delete;
 import static org.eclipse.emf.compare.internal.utils.ComparisonUtil.isAddOrSetDiff;
 import static org.eclipse.emf.compare.internal.utils.ComparisonUtil.isDeleteOrUnsetDiff;
@@ -24,13 +25,18 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.Lists;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.regex.Pattern;
 
 import org.eclipse.emf.common.util.BasicDiagnostic;
@@ -41,7 +47,9 @@ import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.ComparisonCanceledException;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.MatchResource;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactoryDispatcher;
 import org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory;
 import org.eclipse.emf.compare.postprocessor.IPostProcessor;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareMessages;
@@ -57,13 +65,30 @@ import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.URIConverter;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.uml2.common.util.CacheAdapter;
 import org.eclipse.uml2.uml.Enumeration;
 import org.eclipse.uml2.uml.EnumerationLiteral;
 import org.eclipse.uml2.uml.ProfileApplication;
 
 /**
  * Post-processor to create the UML difference extensions.
+ * <p>
+ * If this post-processor is given an executor, the extensions and the implications of the differences are
+ * computed concurrently, by chunks of differences. The tasks only read the comparison, the extensions are
+ * then attached and the implications filled on the calling thread, in the order of the differences, so that
+ * the result does not depend on the number of threads.
+ * </p>
+ * <p>
+ * The factories query the derived features of the compared UML models from the tasks, which fill the UML2
+ * cache adapter. The executor is thus only used if the threads of the executor do not share the cache
+ * adapter of the calling thread, i.e. if the
+ * <code>org.eclipse.uml2.common.util.CacheAdapter.ThreadLocal</code> system property was set before the
+ * UML2 cache adapter was first used. The extensions are otherwise computed on the calling thread. The cross
+ * reference adapters attached to the compared models are lazily filled as well: before the tasks are run,
+ * they are filled on the calling thread for all the objects of the compared resources.
+ * </p>
  * 
  * @author <a href="mailto:cedric.notot@obeo.fr">Cedric Notot</a>
  */
@@ -82,8 +107,53 @@ public class UMLPostProcessor implements IPostProcessor {
 		}
 	};
 
-	/** UML2 extensions factories. */
-	private Set<IChangeFactory> uml2ExtensionFactories;
+	/** The default number of differences processed by a single task. */
+	private static final int DEFAULT_CHUNK_SIZE = 512;
+
+	/** Dispatches the differences to the UML2 extensions factories which may handle them. */
+	private ChangeFactoryDispatcher uml2ExtensionFactories;
+
+	/** The executor on which the extensions are computed, <code>null</code> to use the calling thread. */
+	private final ExecutorService executor;
+
+	/** The number of differences processed by a single task. */
+	private final int chunkSize;
+
+	/**
+	 * Creates a post-processor computing the extensions on the calling thread.
+	 */
+	public UMLPostProcessor() {
+		this.executor = null;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * Creates a post-processor computing the extensions concurrently.
+	 * 
+	 * @param executor
+	 *            The executor on which the extensions will be computed. This post-processor will not shut it
+	 *            down.
+	 */
+	public UMLPostProcessor(ExecutorService executor) {
+		this(executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a post-processor computing the extensions concurrently.
+	 * 
+	 * @param executor
+	 *            The executor on which the extensions will be computed. This post-processor will not shut it
+	 *            down.
+	 * @param chunkSize
+	 *            The number of differences processed by a single task.
+	 */
+	public UMLPostProcessor(ExecutorService executor, int chunkSize) {
+		this.executor = checkNotNull(executor);
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be strictly positive"); //$NON-NLS-1$
+		}
+		this.chunkSize = chunkSize;
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -298,14 +368,22 @@ public class UMLPostProcessor implements IPostProcessor {
 
 		final Map<Class<? extends Diff>, IChangeFactory> mapUml2ExtensionFactories = UMLExtensionFactoryRegistry
 				.createExtensionFactories();
-		uml2ExtensionFactories = new LinkedHashSet<IChangeFactory>(mapUml2ExtensionFactories.values());
+		uml2ExtensionFactories = new ChangeFactoryDispatcher(
+				new LinkedHashSet<IChangeFactory>(mapUml2ExtensionFactories.values()));
 
 		// Creation of the UML difference extensions
 		List<Diff> differences = comparison.getDifferences();
 		int diffCount = differences.size();
-		for (int i = 0; i < diffCount; i++) {
-			applyManagedTypes(differences.get(i));
-			reportProgress(monitor, "UMLPostProcessor.monitor.applyManagedTypes", i + 1, diffCount); //$NON-NLS-1$
+		final boolean concurrent = executor != null && prepareConcurrentAccess(comparison);
+		if (!concurrent) {
+			for (int i = 0; i < diffCount; i++) {
+				applyManagedTypes(differences.get(i));
+				reportProgress(monitor, "UMLPostProcessor.monitor.applyManagedTypes", i + 1, //$NON-NLS-1$
+						diffCount);
+			}
+		} else {
+			reportProgress(monitor, "UMLPostProcessor.monitor.applyManagedTypes", 1, diffCount); //$NON-NLS-1$
+			applyManagedTypesConcurrently(differences, monitor);
 		}
 
 		// Filling of the requirements link of the UML difference extensions
@@ -326,6 +404,11 @@ public class UMLPostProcessor implements IPostProcessor {
 
 		// Filling implications with subsets
 		// And delete enumeration literal classifier changes, as it is actually a derived feature
+		if (concurrent) {
+			reportProgress(monitor, "UMLPostProcessor.monitor.fillImplications", 1, diffCount); //$NON-NLS-1$
+			fillImplicationsConcurrently(differences, monitor);
+			return;
+		}
 		for (int i = 0; i < diffCount; i++) {
 			final Diff diff = differences.get(i);
 			if (diff instanceof ReferenceChange) {
@@ -337,6 +420,71 @@ public class UMLPostProcessor implements IPostProcessor {
 		}
 	}
 
+	/**
+	 * Checks whether the executor of this post-processor can be used on the given comparison and, if so,
+	 * fills on the calling thread the lazily filled structures the tasks would otherwise share and fill
+	 * concurrently.
+	 * 
+	 * @param comparison
+	 *            The comparison that will be shared with the tasks.
+	 * @return <code>true</code> if the executor can be used, <code>false</code> if the extensions must be
+	 *         computed on the calling thread.
+	 */
+	private boolean prepareConcurrentAccess(Comparison comparison) {
+		final CacheAdapter callerCacheAdapter = CacheAdapter.getInstance();
+		final CacheAdapter taskCacheAdapter;
+		try {
+			taskCacheAdapter = executor.submit(new Callable<CacheAdapter>() {
+				public CacheAdapter call() {
+					return CacheAdapter.getInstance();
+				}
+			}).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		} catch (ExecutionException e) {
+			return false;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+		if (taskCacheAdapter == callerCacheAdapter) {
+			// The cache adapter is not thread local
+			return false;
+		}
+
+		// The cross referencers of the comparison are lazily installed on first access
+		comparison.getMatch(comparison);
+		comparison.getDifferences(comparison);
+		// The cross reference adapters of the models lazily adapt the objects and resolve their references
+		for (MatchResource matchResource : comparison.getMatchedResources()) {
+			fillCrossReferenceAdapters(matchResource.getLeft());
+			fillCrossReferenceAdapters(matchResource.getRight());
+			fillCrossReferenceAdapters(matchResource.getOrigin());
+		}
+		return true;
+	}
+
+	/**
+	 * Queries the inverse references of all the objects of the given resource from the cross reference
+	 * adapters attached to them, so that these adapters are filled before being shared with the tasks.
+	 * 
+	 * @param resource
+	 *            The resource, may be <code>null</code>.
+	 */
+	private static void fillCrossReferenceAdapters(Resource resource) {
+		if (resource == null) {
+			return;
+		}
+		final Iterator<EObject> contents = resource.getAllContents();
+		while (contents.hasNext()) {
+			final EObject eObject = contents.next();
+			final ECrossReferenceAdapter adapter = ECrossReferenceAdapter.getCrossReferenceAdapter(eObject);
+			if (adapter != null) {
+				adapter.getInverseReferences(eObject);
+			}
+		}
+	}
+
 	/**
 	 * Reports the progress to the given <code>monitor</code> for the given <code>msgKey</code> in
 	 * {@link UMLCompareMessages} with the <code>currentDiffIndex</code> of the total <code>diffCount</code>.
@@ -368,7 +516,7 @@ public class UMLPostProcessor implements IPostProcessor {
 	 *            The input {@link DiffElement}.
 	 */
 	private void applyManagedTypes(Diff element) {
-		for (IChangeFactory factory : uml2ExtensionFactories) {
+		for (IChangeFactory factory : uml2ExtensionFactories.getCandidates(element)) {
 			if (factory.handles(element)) {
 				Diff extension = factory.create(element);
 				// FIXME: Instantiation of UML extensions (intersections of predicates)
@@ -386,6 +534,101 @@ public class UMLPostProcessor implements IPostProcessor {
 		}
 	}
 
+	/**
+	 * Prepares the extensions of the given differences on the executor, then attaches them in the order of
+	 * the differences.
+	 * 
+	 * @param differences
+	 *            The differences of the comparison.
+	 * @param monitor
+	 *            The monitor to check for cancellation.
+	 */
+	private void applyManagedTypesConcurrently(List<Diff> differences, Monitor monitor) {
+		final List<Callable<List<PendingExtension>>> tasks = Lists.newArrayList();
+		for (List<Diff> chunk : Lists.partition(differences, chunkSize)) {
+			tasks.add(new PrepareExtensionsTask(chunk, uml2ExtensionFactories, monitor));
+		}
+		for (List<PendingExtension> chunkExtensions : invokeAll(tasks)) {
+			for (PendingExtension pending : chunkExtensions) {
+				final IChangeFactory factory = pending.getFactory();
+				final Diff input = pending.getInput();
+				// The extensions attached so far may make the factory reject the input, as it would have if
+				// the extensions were created sequentially.
+				if (factory.handles(input)) {
+					final Diff extension = pending.refine();
+					if (!extension.getRefinedBy().isEmpty()) {
+						final Match match = factory.getParentMatch(input);
+						if (match != null) {
+							match.getDifferences().add(extension);
+						}
+					}
+				}
+			}
+			if (monitor.isCanceled()) {
+				throw new ComparisonCanceledException();
+			}
+		}
+	}
+
+	/**
+	 * Computes the implications of the given differences on the executor, then fills them and deletes the
+	 * enumeration literal classifier changes in the order of the differences.
+	 * 
+	 * @param differences
+	 *            The differences of the comparison.
+	 * @param monitor
+	 *            The monitor to check for cancellation.
+	 */
+	private void fillImplicationsConcurrently(List<Diff> differences, Monitor monitor) {
+		final List<Callable<List<Implications>>> tasks = Lists.newArrayList();
+		for (List<Diff> chunk : Lists.partition(differences, chunkSize)) {
+			tasks.add(new ComputeImplicationsTask(chunk, monitor));
+		}
+		for (List<Implications> chunkImplications : invokeAll(tasks)) {
+			for (Implications implications : chunkImplications) {
+				implications.apply();
+			}
+		}
+	}
+
+	/**
+	 * Runs the given tasks on the executor of this post-processor and waits for their results.
+	 * 
+	 * @param tasks
+	 *            The tasks to run.
+	 * @return The results of the tasks, in the order of the tasks.
+	 * @param <T>
+	 *            The type of the results.
+	 */
+	private <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+		final List<Future<T>> futures;
+		try {
+			futures = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		}
+		final List<T> results = Lists.newArrayListWithCapacity(futures.size());
+		for (Future<T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ComparisonCanceledException();
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException)cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+		return results;
+	}
+
 	/**
 	 * Fill the implication links ({@link Diff#getImplies()}, {@link Diff#getImpliedBy()}) on the given
 	 * reference change.
@@ -394,6 +637,22 @@ public class UMLPostProcessor implements IPostProcessor {
 	 *            The reference change.
 	 */
 	private void fillImplicationsWithUMLSubsets(ReferenceChange diff) {
+		collectImplicationsWithUMLSubsets(diff, diff.getImplies(), diff.getImpliedBy());
+	}
+
+	/**
+	 * Collects the differences the given reference change implies and is implied by, according to the
+	 * subsets and supersets of its reference.
+	 * 
+	 * @param diff
+	 *            The reference change.
+	 * @param implies
+	 *            The collection to which the differences implied by the reference change are added.
+	 * @param impliedBy
+	 *            The collection to which the differences implying the reference change are added.
+	 */
+	private static void collectImplicationsWithUMLSubsets(ReferenceChange diff, Collection<Diff> implies,
+			Collection<Diff> impliedBy) {
 		EReference reference = diff.getReference();
 		// ADD implies ADD on non union supersets
 		// DELETE is implied by DEL on non union supersets
@@ -406,9 +665,9 @@ public class UMLPostProcessor implements IPostProcessor {
 						&& ((ReferenceChange)superSetDiff).getValue() == diff.getValue()
 						&& superSetDiff.getMatch() == diff.getMatch()) {
 					if (isAddOrSetDiff(diff) && isAddOrSetDiff(superSetDiff)) {
-						diff.getImplies().add(superSetDiff);
+						implies.add(superSetDiff);
 					} else if (isDeleteOrUnsetDiff(diff) && isDeleteOrUnsetDiff(superSetDiff)) {
-						diff.getImpliedBy().add(superSetDiff);
+						impliedBy.add(superSetDiff);
 					}
 				}
 			}
@@ -428,9 +687,9 @@ public class UMLPostProcessor implements IPostProcessor {
 							&& ((ReferenceChange)superSetDiff).getReference() == superSet
 							&& superSetDiff.getMatch() == comparison.getMatch(diff.getValue())) {
 						if (isAddOrSetDiff(diff) && isAddOrSetDiff(superSetDiff)) {
-							diff.getImplies().add(superSetDiff);
+							implies.add(superSetDiff);
 						} else if (isDeleteOrUnsetDiff(diff) && isDeleteOrUnsetDiff(superSetDiff)) {
-							diff.getImpliedBy().add(superSetDiff);
+							impliedBy.add(superSetDiff);
 						}
 					}
 				}
@@ -461,7 +720,7 @@ public class UMLPostProcessor implements IPostProcessor {
 	 * @return <code>true</code> if it is a EnumerationLiteral classifier change, <code>false</code>
 	 *         otherwise.
 	 */
-	private boolean isEnumerationLiteralClassifierChange(ReferenceChange referenceChange) {
+	private static boolean isEnumerationLiteralClassifierChange(ReferenceChange referenceChange) {
 		return INSTANCE_SPECIFICATION__CLASSIFIER.equals(referenceChange.getReference())
 				&& getAnyMatchedEObject(referenceChange) instanceof EnumerationLiteral
 				&& referenceChange.getValue() instanceof Enumeration;
@@ -474,7 +733,7 @@ public class UMLPostProcessor implements IPostProcessor {
 	 *            The diff to get the matched object for.
 	 * @return The matched object of any side.
 	 */
-	private EObject getAnyMatchedEObject(Diff diff) {
+	private static EObject getAnyMatchedEObject(Diff diff) {
 		final Match match = diff.getMatch();
 		final EObject eObject;
 		if (match.getLeft() != null) {
@@ -486,4 +745,162 @@ public class UMLPostProcessor implements IPostProcessor {
 		}
 		return eObject;
 	}
+
+	/**
+	 * Prepares the extensions of a chunk of differences, without modifying the comparison.
+	 */
+	private static class PrepareExtensionsTask implements Callable<List<PendingExtension>> {
+		/** The differences for which to prepare extensions. */
+		private final List<Diff> chunk;
+
+		/** Dispatches the differences to the factories which may handle them. */
+		private final ChangeFactoryDispatcher factories;
+
+		/** Monitor to check for cancellation. */
+		private final Monitor monitor;
+
+		/**
+		 * Creates a task preparing the extensions of the given differences.
+		 * 
+		 * @param chunk
+		 *            The differences for which to prepare extensions.
+		 * @param factories
+		 *            Dispatches the differences to the factories which may handle them.
+		 * @param monitor
+		 *            Monitor to check for cancellation.
+		 */
+		PrepareExtensionsTask(List<Diff> chunk, ChangeFactoryDispatcher factories, Monitor monitor) {
+			this.chunk = chunk;
+			this.factories = factories;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public List<PendingExtension> call() {
+			final List<PendingExtension> result = Lists.newArrayList();
+			for (Diff diff : chunk) {
+				if (monitor.isCanceled()) {
+					throw new ComparisonCanceledException();
+				}
+				for (IChangeFactory factory : factories.getCandidates(diff)) {
+					if (factory.handles(diff)) {
+						if (factory instanceof AbstractUMLChangeFactory) {
+							result.add(((AbstractUMLChangeFactory)factory).prepare(diff));
+						} else {
+							result.add(PendingExtension.deferred(factory, diff));
+						}
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Computes the implications of a chunk of differences, without modifying the comparison.
+	 */
+	private static class ComputeImplicationsTask implements Callable<List<Implications>> {
+		/** The differences for which to compute the implications. */
+		private final List<Diff> chunk;
+
+		/** Monitor to check for cancellation. */
+		private final Monitor monitor;
+
+		/**
+		 * Creates a task computing the implications of the given differences.
+		 * 
+		 * @param chunk
+		 *            The differences for which to compute the implications.
+		 * @param monitor
+		 *            Monitor to check for cancellation.
+		 */
+		ComputeImplicationsTask(List<Diff> chunk, Monitor monitor) {
+			this.chunk = chunk;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public List<Implications> call() {
+			final List<Implications> result = Lists.newArrayList();
+			for (Diff diff : chunk) {
+				if (monitor.isCanceled()) {
+					throw new ComparisonCanceledException();
+				}
+				if (diff instanceof ReferenceChange) {
+					final ReferenceChange referenceChange = (ReferenceChange)diff;
+					final Implications implications = new Implications(referenceChange,
+							isEnumerationLiteralClassifierChange(referenceChange));
+					collectImplicationsWithUMLSubsets(referenceChange, implications.implies,
+							implications.impliedBy);
+					if (!implications.isEmpty()) {
+						result.add(implications);
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * The implications of a reference change, computed but not filled yet.
+	 */
+	private static final class Implications {
+		/** The reference change. */
+		private final ReferenceChange diff;
+
+		/** Whether the reference change is to be deleted once its implications are filled. */
+		private final boolean delete;
+
+		/** The differences implied by the reference change. */
+		private final List<Diff> implies = Lists.newArrayList();
+
+		/** The differences implying the reference change. */
+		private final List<Diff> impliedBy = Lists.newArrayList();
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param diff
+		 *            The reference change.
+		 * @param delete
+		 *            Whether the reference change is to be deleted once its implications are filled.
+		 */
+		Implications(ReferenceChange diff, boolean delete) {
+			this.diff = diff;
+			this.delete = delete;
+		}
+
+		/**
+		 * Checks whether there is nothing to apply.
+		 * 
+		 * @return <code>true</code> if the reference change has no implication and is not to be deleted.
+		 */
+		boolean isEmpty() {
+			return !delete && implies.isEmpty() && impliedBy.isEmpty();
+		}
+
+		/**
+		 * Fills the implications of the reference change, then deletes it if needed. The differences deleted
+		 * by the implications applied before this one are ignored.
+		 */
+		void apply() {
+			for (Diff implied : implies) {
+				if (implied.eContainer() != null) {
+					diff.getImplies().add(implied);
+				}
+			}
+			for (Diff implying : impliedBy) {
+				if (implying.eContainer() != null) {
+					diff.getImpliedBy().add(implying);
+				}
+			}
+			if (delete) {
+				delete(diff);
+			}
+		}
+	}
 }
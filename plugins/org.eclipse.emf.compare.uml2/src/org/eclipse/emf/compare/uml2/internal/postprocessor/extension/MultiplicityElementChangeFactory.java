@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016, 2017 EclipseSource Muenchen GmbH and others.
+ * Copyright (c) 2016, 2019 EclipseSource Muenchen GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,15 +15,18 @@ import static com.google.common.base.Predicates.instanceOf;
 import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Iterables.find;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.internal.utils.ComparisonUtil;
 import org.eclipse.emf.compare.uml2.internal.MultiplicityElementChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
@@ -47,6 +50,14 @@ import org.eclipse.uml2.uml.ValueSpecification;
  */
 public class MultiplicityElementChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.feature(ComparePackage.Literals.REFERENCE_CHANGE,
+					UMLPackage.Literals.MULTIPLICITY_ELEMENT__LOWER_VALUE,
+					UMLPackage.Literals.MULTIPLICITY_ELEMENT__UPPER_VALUE)
+			.feature(ComparePackage.Literals.ATTRIBUTE_CHANGE, UMLPackage.Literals.LITERAL_INTEGER__VALUE,
+					UMLPackage.Literals.LITERAL_UNLIMITED_NATURAL__VALUE).build();
+
 	@Override
 	public boolean handles(Diff input) {
 		return isChangeOfMultiplicityElement(input) && !refinesMultiplicityChange(input);
@@ -97,23 +108,27 @@ public class MultiplicityElementChangeFactory extends AbstractUMLChangeFactory {
 	}
 
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
 		if (refiningDiff.getSource() == extension.getSource()) {
-			addRefiningDiffAndDependencies(extension, refiningDiff);
+			return Collections.singleton(refiningDiff);
 		}
+		return Collections.emptySet();
 	}
 
 	/**
-	 * Add the extension's refining diff and update the its kind, based on the refining diff's kind.
+	 * Update the kind of the extension, based on the kind of its refining diff.
 	 * 
 	 * @param extension
-	 *            The diff to which the refining diff must be added
-	 * @param refiningDiff
-	 *            The refining diff to add
+	 *            The extension, refined by its refining diff
+	 * @param input
+	 *            The refining diff
 	 */
-	private void addRefiningDiffAndDependencies(Diff extension, Diff refiningDiff) {
-		extension.getRefinedBy().add(refiningDiff);
-		extension.setKind(refiningDiff.getKind());
+	@Override
+	protected void completeExtension(Diff extension, Diff input) {
+		if (extension.getRefinedBy().contains(input)) {
+			extension.setKind(input.getKind());
+		}
 	}
 
 	@Override
@@ -159,4 +174,16 @@ public class MultiplicityElementChangeFactory extends AbstractUMLChangeFactory {
 		return UMLCompareFactory.eINSTANCE.createMultiplicityElementChange();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the changes of the bounds of a multiplicity element or of the value of a literal may be
+	 * changes of multiplicity.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
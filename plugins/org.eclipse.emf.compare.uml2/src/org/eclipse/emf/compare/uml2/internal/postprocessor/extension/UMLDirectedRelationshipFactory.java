@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,8 +19,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.DirectedRelationshipChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -125,4 +127,20 @@ public class UMLDirectedRelationshipFactory extends AbstractUMLChangeFactory {
 				&& getManagedConcreteDiscriminantKind().contains(input.getValue().eClass());
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is of one of the
+	 * {@link #getManagedConcreteDiscriminantKind() managed kinds} may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		final ChangeFactorySignature.Builder builder = ChangeFactorySignature.builder();
+		for (EClass kind : getManagedConcreteDiscriminantKind()) {
+			builder.value(ComparePackage.Literals.REFERENCE_CHANGE, kind);
+		}
+		return builder.build();
+	}
+
 }
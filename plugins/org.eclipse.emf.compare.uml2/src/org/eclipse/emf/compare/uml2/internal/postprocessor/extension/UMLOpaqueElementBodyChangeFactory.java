@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 EclipseSource Muenchen GmbH and others.
+ * Copyright (c) 2014, 2019 EclipseSource Muenchen GmbH and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,9 +35,11 @@ import java.util.Set;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.OpaqueElementBodyChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -47,6 +49,7 @@ import org.eclipse.emf.ecore.util.Switch;
 import org.eclipse.uml2.uml.OpaqueAction;
 import org.eclipse.uml2.uml.OpaqueBehavior;
 import org.eclipse.uml2.uml.OpaqueExpression;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * A change factory for creating {@link OpaqueElementBodyChange changes of bodies} of {@link OpaqueAction
@@ -56,6 +59,14 @@ import org.eclipse.uml2.uml.OpaqueExpression;
  */
 public class UMLOpaqueElementBodyChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.feature(ComparePackage.Literals.ATTRIBUTE_CHANGE, UMLPackage.Literals.OPAQUE_ACTION__BODY,
+					UMLPackage.Literals.OPAQUE_ACTION__LANGUAGE, UMLPackage.Literals.OPAQUE_BEHAVIOR__BODY,
+					UMLPackage.Literals.OPAQUE_BEHAVIOR__LANGUAGE,
+					UMLPackage.Literals.OPAQUE_EXPRESSION__BODY,
+					UMLPackage.Literals.OPAQUE_EXPRESSION__LANGUAGE).build();
+
 	@Override
 	public boolean handles(Diff input) {
 		if (input instanceof AttributeChange && !refinesOpaqueElementBodyChange(input)) {
@@ -234,8 +245,8 @@ public class UMLOpaqueElementBodyChangeFactory extends AbstractUMLChangeFactory
 	}
 
 	@Override
-	public Diff create(Diff input) {
-		final OpaqueElementBodyChange extension = (OpaqueElementBodyChange)super.create(input);
+	protected void completeExtension(Diff diff, Diff input) {
+		final OpaqueElementBodyChange extension = (OpaqueElementBodyChange)diff;
 
 		// getAffectedLanguage must yield a value at this point, otherwise we wouldn't have
 		// returned true when handle was called
@@ -246,8 +257,6 @@ public class UMLOpaqueElementBodyChangeFactory extends AbstractUMLChangeFactory
 		// AbstractChangeFactory#create()) because we add specific conflicts for OpaqueElementBodyChanges
 		// later in the post processor
 		extension.setConflict(null);
-
-		return extension;
 	}
 
 	/**
@@ -273,31 +282,35 @@ public class UMLOpaqueElementBodyChangeFactory extends AbstractUMLChangeFactory
 	}
 
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
-		final OpaqueElementBodyChange bodyChange = (OpaqueElementBodyChange)extension;
-		if (refiningDiff.getSource() == bodyChange.getSource()) {
-			bodyChange.getRefinedBy().add(refiningDiff);
-			collectAndAddOtherRefiningDiffs(bodyChange, refiningDiff);
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
+		final Set<Diff> refiningDiffs = new LinkedHashSet<Diff>();
+		if (refiningDiff.getSource() == extension.getSource()) {
+			refiningDiffs.add(refiningDiff);
+			collectOtherRefiningDiffs(extension, refiningDiff, refiningDiffs);
 		}
+		return refiningDiffs;
 	}
 
 	/**
 	 * Collects all {@link #isRefiningDiff(OpaqueElementBodyChange) refining differences} for the given
-	 * {@code bodyChange} from all differences of the match of the {@code bodyChange} and adds it to the
-	 * {@link Diff#getRefinedBy() refining differences} of {@code bodyChange}.
+	 * {@code bodyChange} from all differences of the match of the {@code bodyChange} and adds them to the
+	 * given {@code refiningDiffs}.
 	 * 
 	 * @param bodyChange
 	 *            The {@link OpaqueElementBodyChange} to collect the refining changes for.
 	 * @param refiningDiff
 	 *            The difference that is refining {@code bodyChange}.
+	 * @param refiningDiffs
+	 *            The refining differences of {@code bodyChange}, to which the collected ones are added.
 	 */
-	private void collectAndAddOtherRefiningDiffs(final OpaqueElementBodyChange bodyChange,
-			Diff refiningDiff) {
+	private void collectOtherRefiningDiffs(final Diff bodyChange, Diff refiningDiff,
+			Set<Diff> refiningDiffs) {
 		final RefinementCollector collector = new RefinementCollector((AttributeChange)refiningDiff);
 		Iterable<Diff> collectedRefiningDiffs = collector.collect();
 		for (Diff otherRefiningDiff : collectedRefiningDiffs) {
 			if (otherRefiningDiff.getSource() == bodyChange.getSource()) {
-				bodyChange.getRefinedBy().add(otherRefiningDiff);
+				refiningDiffs.add(otherRefiningDiff);
 			}
 		}
 	}
@@ -518,4 +531,15 @@ public class UMLOpaqueElementBodyChangeFactory extends AbstractUMLChangeFactory
 		};
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the changes of the body or language attributes of opaque elements are handled.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,7 +19,9 @@ import com.google.common.collect.Iterables;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.AssociationChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -29,6 +31,7 @@ import org.eclipse.emf.ecore.util.Switch;
 import org.eclipse.uml2.uml.Association;
 import org.eclipse.uml2.uml.Classifier;
 import org.eclipse.uml2.uml.Property;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Factory for Association changes.
@@ -37,6 +40,10 @@ import org.eclipse.uml2.uml.Property;
  */
 public class UMLAssociationChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.ASSOCIATION).build();
+
 	/**
 	 * Discriminants getter for the Association change.
 	 * 
@@ -133,4 +140,15 @@ public class UMLAssociationChangeFactory extends AbstractUMLChangeFactory {
 		return new AssociationDiscriminantsGetter();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is an association may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
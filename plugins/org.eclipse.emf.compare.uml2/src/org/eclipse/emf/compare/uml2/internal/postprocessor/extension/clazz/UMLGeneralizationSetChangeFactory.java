@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,7 +17,9 @@ import com.google.common.collect.Iterables;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.GeneralizationSetChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -25,6 +27,7 @@ import org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFact
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.Switch;
 import org.eclipse.uml2.uml.GeneralizationSet;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Factory for Generalization set changes.
@@ -33,6 +36,10 @@ import org.eclipse.uml2.uml.GeneralizationSet;
  */
 public class UMLGeneralizationSetChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.GENERALIZATION_SET).build();
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -81,4 +88,15 @@ public class UMLGeneralizationSetChangeFactory extends AbstractUMLChangeFactory
 		};
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is a generalization set may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
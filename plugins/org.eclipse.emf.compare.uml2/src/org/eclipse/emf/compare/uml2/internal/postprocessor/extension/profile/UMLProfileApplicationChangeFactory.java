@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2015 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,10 +20,12 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.internal.utils.ComparisonUtil;
 import org.eclipse.emf.compare.uml2.internal.ProfileApplicationChange;
 import org.eclipse.emf.compare.uml2.internal.StereotypeApplicationChange;
@@ -35,6 +37,7 @@ import org.eclipse.emf.ecore.util.Switch;
 import org.eclipse.uml2.uml.Element;
 import org.eclipse.uml2.uml.ProfileApplication;
 import org.eclipse.uml2.uml.Stereotype;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Factory for Profile Application changes.
@@ -43,6 +46,10 @@ import org.eclipse.uml2.uml.Stereotype;
  */
 public class UMLProfileApplicationChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.PROFILE_APPLICATION).build();
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -164,4 +171,15 @@ public class UMLProfileApplicationChangeFactory extends AbstractUMLChangeFactory
 		return super.getParentMatch(input);
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is a profile application may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
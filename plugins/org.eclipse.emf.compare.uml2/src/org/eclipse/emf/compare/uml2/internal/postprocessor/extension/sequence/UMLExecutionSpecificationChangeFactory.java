@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,7 +17,9 @@ import com.google.common.collect.Iterables;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.ExecutionSpecificationChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -28,6 +30,7 @@ import org.eclipse.uml2.uml.ExecutionOccurrenceSpecification;
 import org.eclipse.uml2.uml.ExecutionSpecification;
 import org.eclipse.uml2.uml.InteractionFragment;
 import org.eclipse.uml2.uml.Lifeline;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Factory for execution specification changes.
@@ -36,6 +39,11 @@ import org.eclipse.uml2.uml.Lifeline;
  */
 public class UMLExecutionSpecificationChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.EXECUTION_SPECIFICATION)
+			.build();
+
 	/**
 	 * Discriminants getter for the ExecutionSpecification change.
 	 * 
@@ -131,4 +139,15 @@ public class UMLExecutionSpecificationChangeFactory extends AbstractUMLChangeFac
 		return new ExecutionSpecificationDiscriminantsGetter();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is an execution specification may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
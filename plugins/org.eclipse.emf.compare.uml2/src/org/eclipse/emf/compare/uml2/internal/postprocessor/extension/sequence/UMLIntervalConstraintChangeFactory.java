@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,7 +18,9 @@ import com.google.common.collect.Iterables;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.IntervalConstraintChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.UMLDiff;
@@ -42,6 +44,10 @@ import org.eclipse.uml2.uml.ValueSpecification;
  */
 public class UMLIntervalConstraintChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.INTERVAL_CONSTRAINT).build();
+
 	/**
 	 * Discriminants getter for the interval constraint change.
 	 * 
@@ -156,4 +162,15 @@ public class UMLIntervalConstraintChangeFactory extends AbstractUMLChangeFactory
 		return new IntervalConstraintGetter();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is an interval constraint may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2015 Obeo.
+ * Copyright (c) 2015, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,11 +10,14 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.uml2.internal.postprocessor.extension.stereotype;
 
+import java.util.Collections;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.ResourceAttachmentChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.DanglingStereotypeApplication;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory;
@@ -31,6 +34,10 @@ import org.eclipse.uml2.uml.util.UMLUtil;
  */
 public class UMLDanglingStereotypeApplicationFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.diffType(ComparePackage.Literals.RESOURCE_ATTACHMENT_CHANGE).build();
+
 	@Override
 	public boolean handles(Diff input) {
 		final boolean handles;
@@ -70,15 +77,20 @@ public class UMLDanglingStereotypeApplicationFactory extends AbstractUMLChangeFa
 	}
 
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
 		if (refiningDiff.getSource() == extension.getSource()) {
-			extension.getRefinedBy().add(refiningDiff);
-			// Unfortunate, don't know how to set the resourceURI elsewhere than here.
-			if (refiningDiff instanceof ResourceAttachmentChange
-					&& extension instanceof DanglingStereotypeApplication) {
-				((DanglingStereotypeApplication)extension)
-						.setResourceURI(((ResourceAttachmentChange)refiningDiff).getResourceURI());
-			}
+			return Collections.singleton(refiningDiff);
+		}
+		return Collections.emptySet();
+	}
+
+	@Override
+	protected void completeExtension(Diff extension, Diff input) {
+		if (extension.getRefinedBy().contains(input) && input instanceof ResourceAttachmentChange
+				&& extension instanceof DanglingStereotypeApplication) {
+			((DanglingStereotypeApplication)extension)
+					.setResourceURI(((ResourceAttachmentChange)input).getResourceURI());
 		}
 	}
 
@@ -92,4 +104,15 @@ public class UMLDanglingStereotypeApplicationFactory extends AbstractUMLChangeFa
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the resource attachment changes are handled.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
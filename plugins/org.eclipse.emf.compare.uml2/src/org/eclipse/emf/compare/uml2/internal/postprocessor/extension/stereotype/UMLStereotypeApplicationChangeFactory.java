@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2015 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -106,12 +106,14 @@ public class UMLStereotypeApplicationChangeFactory extends AbstractUMLChangeFact
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * @see org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory#setRefiningChanges(org.eclipse.emf.compare.Diff,
+	 * @see org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory#collectRefiningChanges(org.eclipse.emf.compare.Diff,
 	 *      org.eclipse.emf.compare.DifferenceKind, org.eclipse.emf.compare.Diff)
 	 */
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
-		super.setRefiningChanges(extension, extensionKind, refiningDiff);
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
+		final Set<Diff> refiningChanges = super.collectRefiningChanges(extension, extensionKind,
+				refiningDiff);
 
 		EObject discriminant = getDiscriminant(refiningDiff);
 
@@ -123,11 +125,11 @@ public class UMLStereotypeApplicationChangeFactory extends AbstractUMLChangeFact
 				if ((diff instanceof AttributeChange || diff instanceof ReferenceChange
 						|| diff instanceof ResourceAttachmentChange)
 						&& diff.getSource() == extension.getSource()) {
-					extension.getRefinedBy().add(diff);
+					refiningChanges.add(diff);
 				}
 			}
 		}
-
+		return refiningChanges;
 	}
 
 	/**
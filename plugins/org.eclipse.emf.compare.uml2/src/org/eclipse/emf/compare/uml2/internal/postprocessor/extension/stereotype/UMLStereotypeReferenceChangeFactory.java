@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2015 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,13 +14,16 @@ import static com.google.common.base.Predicates.instanceOf;
 
 import com.google.common.collect.Iterables;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.StereotypeReferenceChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
 import org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory;
@@ -38,6 +41,10 @@ import org.eclipse.uml2.uml.Element;
  */
 public class UMLStereotypeReferenceChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.diffType(ComparePackage.Literals.REFERENCE_CHANGE).build();
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -124,14 +131,16 @@ public class UMLStereotypeReferenceChangeFactory extends AbstractUMLChangeFactor
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * @see org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory#setRefiningChanges(org.eclipse.emf.compare.Diff,
+	 * @see org.eclipse.emf.compare.uml2.internal.postprocessor.AbstractUMLChangeFactory#collectRefiningChanges(org.eclipse.emf.compare.Diff,
 	 *      org.eclipse.emf.compare.DifferenceKind, org.eclipse.emf.compare.Diff)
 	 */
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
 		if (refiningDiff.getSource() == extension.getSource()) {
-			extension.getRefinedBy().add(refiningDiff);
+			return Collections.singleton(refiningDiff);
 		}
+		return Collections.emptySet();
 	}
 
 	/**
@@ -155,4 +164,15 @@ public class UMLStereotypeReferenceChangeFactory extends AbstractUMLChangeFactor
 		}
 		return match;
 	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes are handled.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
 }
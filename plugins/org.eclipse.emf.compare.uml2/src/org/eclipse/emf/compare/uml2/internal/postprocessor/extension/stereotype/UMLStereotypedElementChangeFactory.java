@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014, 2015 Obeo.
+ * Copyright (c) 2014, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,12 +14,15 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.Lists;
 
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature;
 import org.eclipse.emf.compare.uml2.internal.StereotypeApplicationChange;
 import org.eclipse.emf.compare.uml2.internal.StereotypedElementChange;
 import org.eclipse.emf.compare.uml2.internal.UMLCompareFactory;
@@ -29,6 +32,7 @@ import org.eclipse.emf.compare.utils.EMFComparePredicates;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.Switch;
 import org.eclipse.uml2.uml.Element;
+import org.eclipse.uml2.uml.UMLPackage;
 
 /**
  * Factory of {@link StereotypeApplicationChange}.
@@ -37,6 +41,10 @@ import org.eclipse.uml2.uml.Element;
  */
 public class UMLStereotypedElementChangeFactory extends AbstractUMLChangeFactory {
 
+	/** The signature of the differences this factory may handle. */
+	private static final ChangeFactorySignature SIGNATURE = ChangeFactorySignature.builder()
+			.value(ComparePackage.Literals.REFERENCE_CHANGE, UMLPackage.Literals.ELEMENT).build();
+
 	@Override
 	public Class<? extends Diff> getExtensionKind() {
 		return StereotypedElementChange.class;
@@ -95,16 +103,17 @@ public class UMLStereotypedElementChangeFactory extends AbstractUMLChangeFactory
 	}
 
 	@Override
-	public void setRefiningChanges(Diff extension, DifferenceKind extensionKind, Diff refiningDiff) {
-		// super.setRefiningChanges(extension, extensionKind, refiningDiff);
+	protected Set<Diff> collectRefiningChanges(Diff extension, DifferenceKind extensionKind,
+			Diff refiningDiff) {
 		List<StereotypeApplicationChange> stereotypeApplicationChanges = getStereotypeApplicationChanges(
 				(ReferenceChange)refiningDiff);
+		Set<Diff> refiningChanges = new LinkedHashSet<Diff>();
 		if (refiningDiff.getSource() == extension.getSource()) {
-			extension.getRefinedBy().add(refiningDiff);
-			extension.getRefinedBy().addAll(Collections2.filter(stereotypeApplicationChanges,
+			refiningChanges.add(refiningDiff);
+			refiningChanges.addAll(Collections2.filter(stereotypeApplicationChanges,
 					EMFComparePredicates.fromSide(extension.getSource())));
 		}
-
+		return refiningChanges;
 	}
 
 	@Override
@@ -118,4 +127,15 @@ public class UMLStereotypedElementChangeFactory extends AbstractUMLChangeFactory
 		return ((ReferenceChange)input).getValue();
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * Only the reference changes which value is a UML element may add or delete it.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	@Override
+	public ChangeFactorySignature getSignature() {
+		return SIGNATURE;
+	}
+
 }
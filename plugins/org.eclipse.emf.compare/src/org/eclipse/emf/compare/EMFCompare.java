@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,15 +11,22 @@
  *******************************************************************************/
 package org.eclipse.emf.compare;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.SetMultimap;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.BasicDiagnostic;
 import org.eclipse.emf.common.util.BasicMonitor;
@@ -27,15 +34,23 @@ import org.eclipse.emf.common.util.Diagnostic;
 import org.eclipse.emf.common.util.DiagnosticChain;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.ICompareMetrics.Phase;
 import org.eclipse.emf.compare.conflict.IConflictDetector;
+import org.eclipse.emf.compare.conflict.IConflictDetector2;
 import org.eclipse.emf.compare.conflict.MatchBasedConflictDetector;
 import org.eclipse.emf.compare.diff.DefaultDiffEngine;
 import org.eclipse.emf.compare.diff.DiffBuilder;
 import org.eclipse.emf.compare.diff.IDiffEngine;
+import org.eclipse.emf.compare.diff.IDiffEngine2;
 import org.eclipse.emf.compare.equi.DefaultEquiEngine;
 import org.eclipse.emf.compare.equi.IEquiEngine;
+import org.eclipse.emf.compare.equi.IEquiEngine2;
+import org.eclipse.emf.compare.internal.ComparisonContentReleaser;
+import org.eclipse.emf.compare.internal.ComparisonUpdater;
 import org.eclipse.emf.compare.internal.spec.ComparisonSpec;
+import org.eclipse.emf.compare.internal.utils.MetricsUtil;
 import org.eclipse.emf.compare.internal.utils.SafeSubMonitor;
+import org.eclipse.emf.compare.internal.utils.ThreadStopwatch;
 import org.eclipse.emf.compare.match.IMatchEngine;
 import org.eclipse.emf.compare.match.impl.MatchEngineFactoryRegistryImpl;
 import org.eclipse.emf.compare.merge.ResourceChangeAdapter;
@@ -43,8 +58,12 @@ import org.eclipse.emf.compare.postprocessor.IPostProcessor;
 import org.eclipse.emf.compare.postprocessor.PostProcessorDescriptorRegistryImpl;
 import org.eclipse.emf.compare.req.DefaultReqEngine;
 import org.eclipse.emf.compare.req.IReqEngine;
+import org.eclipse.emf.compare.req.IReqEngine2;
 import org.eclipse.emf.compare.scope.DefaultComparisonScope;
 import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.compare.scope.IComparisonScope2;
+import org.eclipse.emf.compare.scope.IPartitionedComparisonScope;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -99,6 +118,9 @@ public class EMFCompare {
 	/** The PostProcessorRegistry to use to find an IPostProcessor. */
 	private final IPostProcessor.Descriptor.Registry<?> postProcessorDescriptorRegistry;
 
+	/** The listener notified of the cost of each step of the comparisons, <code>null</code> if none. */
+	private final ICompareMetrics metrics;
+
 	/**
 	 * Creates a new EMFCompare object able to compare Notifier with the help of given engines.
 	 * 
@@ -119,12 +141,41 @@ public class EMFCompare {
 	protected EMFCompare(IMatchEngine.Factory.Registry matchEngineFactoryRegistry, IDiffEngine diffEngine,
 			IReqEngine reqEngine, IEquiEngine equiEngine, IConflictDetector conflictDetector,
 			IPostProcessor.Descriptor.Registry<?> postProcessorFactoryRegistry) {
+		this(matchEngineFactoryRegistry, diffEngine, reqEngine, equiEngine, conflictDetector,
+				postProcessorFactoryRegistry, null);
+	}
+
+	/**
+	 * Creates a new EMFCompare object able to compare Notifier with the help of given engines, notifying the
+	 * given listener of the cost of each step of the comparisons.
+	 * 
+	 * @param matchEngineFactoryRegistry
+	 *            {@link IMatchEngine.Factory.Registry} to use to find a match engine factory to compute
+	 *            comparison
+	 * @param diffEngine
+	 *            IDiffEngine to use to compute comparison
+	 * @param reqEngine
+	 *            IReqEngine to use to compute comparison
+	 * @param equiEngine
+	 *            IEquiEngine to use to compute comparison
+	 * @param conflictDetector
+	 *            IConflictDetector to use to compute comparison
+	 * @param postProcessorFactoryRegistry
+	 *            PostProcessorRegistry to use to find an IPostProcessor
+	 * @param metrics
+	 *            the listener to notify of the cost of each step of the comparisons, may be {@code null}.
+	 * @since 3.5
+	 */
+	protected EMFCompare(IMatchEngine.Factory.Registry matchEngineFactoryRegistry, IDiffEngine diffEngine,
+			IReqEngine reqEngine, IEquiEngine equiEngine, IConflictDetector conflictDetector,
+			IPostProcessor.Descriptor.Registry<?> postProcessorFactoryRegistry, ICompareMetrics metrics) {
 		this.matchEngineFactoryRegistry = checkNotNull(matchEngineFactoryRegistry);
 		this.diffEngine = checkNotNull(diffEngine);
 		this.reqEngine = checkNotNull(reqEngine);
 		this.equiEngine = checkNotNull(equiEngine);
 		this.conflictDetector = conflictDetector;
 		this.postProcessorDescriptorRegistry = checkNotNull(postProcessorFactoryRegistry);
+		this.metrics = metrics;
 	}
 
 	/**
@@ -213,14 +264,23 @@ public class EMFCompare {
 			LOGGER.info("compare() - START"); //$NON-NLS-1$
 		}
 
+		final ThreadStopwatch comparisonWatch = startWatch();
 		Comparison comparison = null;
 		try {
 			Monitor subMonitor = new SafeSubMonitor(monitor);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("compare() - starting step: MATCH"); //$NON-NLS-1$
 			}
-			comparison = matchEngineFactoryRegistry.getHighestRankingMatchEngineFactory(scope)
-					.getMatchEngine().match(scope, subMonitor);
+			final IMatchEngine matchEngine = matchEngineFactoryRegistry
+					.getHighestRankingMatchEngineFactory(scope).getMatchEngine();
+			final Map<String, Long> matchCounters = collectCounters(matchEngine);
+			ThreadStopwatch watch = startWatch();
+			comparison = matchEngine.match(scope, subMonitor);
+			phaseCompleted(Phase.MATCH, watch);
+			reportCounters(Phase.MATCH, matchEngine, matchCounters);
+			if (metrics != null) {
+				metrics.counterReported(Phase.MATCH, ICompareMetrics.MATCHES, countMatches(comparison));
+			}
 
 			installResourceChangeAdapter(comparison, scope);
 
@@ -239,7 +299,15 @@ public class EMFCompare {
 				if (LOGGER.isInfoEnabled()) {
 					LOGGER.info("compare() - starting step: DIFF"); //$NON-NLS-1$
 				}
+				final Map<String, Long> diffCounters = collectCounters(diffEngine);
+				watch = startWatch();
 				diffEngine.diff(comparison, subMonitor);
+				phaseCompleted(Phase.DIFF, watch);
+				reportCounters(Phase.DIFF, diffEngine, diffCounters);
+				if (metrics != null) {
+					metrics.counterReported(Phase.DIFF, ICompareMetrics.DIFFERENCES,
+							comparison.getDifferences().size());
+				}
 				monitor.worked(1);
 				if (LOGGER.isInfoEnabled()) {
 					LOGGER.info("compare() - starting step: POST-DIFF with " //$NON-NLS-1$
@@ -252,7 +320,11 @@ public class EMFCompare {
 					if (LOGGER.isInfoEnabled()) {
 						LOGGER.info("compare() - starting step: REQUIREMENTS"); //$NON-NLS-1$
 					}
+					final Map<String, Long> reqCounters = collectCounters(reqEngine);
+					watch = startWatch();
 					reqEngine.computeRequirements(comparison, subMonitor);
+					phaseCompleted(Phase.REQUIREMENTS, watch);
+					reportCounters(Phase.REQUIREMENTS, reqEngine, reqCounters);
 					monitor.worked(1);
 					if (LOGGER.isInfoEnabled()) {
 						LOGGER.info("compare() - starting step: POST-REQUIREMENTS with " //$NON-NLS-1$
@@ -265,7 +337,15 @@ public class EMFCompare {
 						if (LOGGER.isInfoEnabled()) {
 							LOGGER.info("compare() - starting step: EQUIVALENCES"); //$NON-NLS-1$
 						}
+						final Map<String, Long> equiCounters = collectCounters(equiEngine);
+						watch = startWatch();
 						equiEngine.computeEquivalences(comparison, subMonitor);
+						phaseCompleted(Phase.EQUIVALENCES, watch);
+						reportCounters(Phase.EQUIVALENCES, equiEngine, equiCounters);
+						if (metrics != null) {
+							metrics.counterReported(Phase.EQUIVALENCES, ICompareMetrics.EQUIVALENCES,
+									comparison.getEquivalences().size());
+						}
 						monitor.worked(1);
 						if (LOGGER.isInfoEnabled()) {
 							LOGGER.info("compare() - starting step: POST-EQUIVALENCES with " //$NON-NLS-1$
@@ -309,6 +389,10 @@ public class EMFCompare {
 			monitor.done();
 		}
 
+		if (metrics != null) {
+			metrics.comparisonCompleted(comparison, comparisonWatch.stop());
+		}
+
 		if (LOGGER.isInfoEnabled()) {
 			logEndOfComparison(comparison, startTime);
 		}
@@ -321,6 +405,191 @@ public class EMFCompare {
 		return comparison;
 	}
 
+	/**
+	 * Compares the partitions of the given scope one after the other, so that only one of them is held in
+	 * memory at any time.
+	 * <p>
+	 * Each partition is compared as a whole through {@link #compare(IComparisonScope, Monitor)}. The matches,
+	 * differences, equivalences and conflicts of its comparison are then moved into the returned comparison,
+	 * after their references to the compared objects have been replaced by proxies: the returned comparison
+	 * does not retain the compared models, which are released through
+	 * {@link IPartitionedComparisonScope#release(IComparisonScope2)} as soon as their partition has been
+	 * compared. The proxies can be resolved against resource sets holding the compared models, if need be.
+	 * </p>
+	 * <p>
+	 * Since each partition is compared independently, the results only equal those of a comparison of the
+	 * whole scope if the partitions gather the resources that reference each other. The diagnostics of the
+	 * comparisons of the partitions are gathered as children of the diagnostic of the returned comparison.
+	 * </p>
+	 * 
+	 * @param scope
+	 *            the partitioned scope to compare, must not be {@code null}.
+	 * @param monitor
+	 *            the monitor to report progress to, must not be {@code null}. {@code done()} will be called
+	 *            on it. If it is cancelled, the partitions which have not been compared yet are skipped and
+	 *            the returned comparison holds a diagnostic indicating the cancellation.
+	 * @return The result of the comparison of all partitions.
+	 * @since 3.5
+	 */
+	public Comparison comparePartitions(IPartitionedComparisonScope scope, Monitor monitor) {
+		checkNotNull(scope);
+		checkNotNull(monitor);
+
+		long startTime = System.currentTimeMillis();
+		final Comparison result = new ComparisonSpec();
+		final BasicDiagnostic diagnostic = new BasicDiagnostic(Diagnostic.OK, DIAGNOSTIC_SOURCE, 0, null,
+				new Object[0]);
+		int partitionCount = 0;
+		try {
+			final Iterator<? extends IComparisonScope2> partitions = scope.partitions();
+			while (!monitor.isCanceled() && diagnostic.getSeverity() < Diagnostic.CANCEL
+					&& partitions.hasNext()) {
+				final IComparisonScope2 partition = partitions.next();
+				try {
+					final Comparison partial = compare(partition, new SafeSubMonitor(monitor));
+					new ComparisonContentReleaser(partition).release(partial);
+					moveContent(partial, result);
+					if (partial.getDiagnostic() != null) {
+						diagnostic.add(partial.getDiagnostic());
+					}
+				} finally {
+					scope.release(partition);
+				}
+				partitionCount++;
+			}
+			if (monitor.isCanceled() && diagnostic.getSeverity() < Diagnostic.CANCEL) {
+				diagnostic.add(new BasicDiagnostic(Diagnostic.CANCEL, DIAGNOSTIC_SOURCE, 0,
+						EMFCompareMessages.getString("ComparisonCancelled"), null)); //$NON-NLS-1$
+			}
+		} finally {
+			monitor.done();
+		}
+		result.setDiagnostic(diagnostic);
+
+		if (LOGGER.isInfoEnabled()) {
+			final long duration = System.currentTimeMillis() - startTime;
+			LOGGER.info("comparePartitions() - FINISH - " + partitionCount //$NON-NLS-1$
+					+ " partitions compared in " + duration + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return result;
+	}
+
+	/**
+	 * Moves the matches, equivalences and conflicts of a comparison into another one.
+	 * 
+	 * @param source
+	 *            the comparison to empty.
+	 * @param target
+	 *            the comparison receiving the content of <code>source</code>.
+	 */
+	private static void moveContent(Comparison source, Comparison target) {
+		target.setThreeWay(target.isThreeWay() || source.isThreeWay());
+		target.getMatchedResources().addAll(ImmutableList.copyOf(source.getMatchedResources()));
+		target.getMatches().addAll(ImmutableList.copyOf(source.getMatches()));
+		target.getEquivalences().addAll(ImmutableList.copyOf(source.getEquivalences()));
+		target.getConflicts().addAll(ImmutableList.copyOf(source.getConflicts()));
+	}
+
+	/**
+	 * Updates a comparison after some of the compared objects have changed.
+	 * 
+	 * @param previous
+	 *            a comparison computed by this instance.
+	 * @param changes
+	 *            the changes that occurred on the compared objects since <code>previous</code> was computed.
+	 * @return the updated comparison.
+	 * @see #recompare(Comparison, Collection, Monitor)
+	 * @since 3.5
+	 */
+	public Comparison recompare(Comparison previous, Collection<? extends Notification> changes) {
+		return recompare(previous, changes, new BasicMonitor());
+	}
+
+	/**
+	 * Updates a comparison after some of the compared objects have changed.
+	 * <p>
+	 * When the changes only affect non-containment features of matched objects, the given comparison is
+	 * updated in place: only the differences on the changed features of the impacted matches are computed
+	 * again, along with the requirements, equivalences and conflicts that relate to them. Otherwise, or if
+	 * the engines of this instance or the post-processors of the scope do not support such updates, the scope
+	 * of <code>previous</code> is compared anew and a new comparison is returned.
+	 * </p>
+	 * <p>
+	 * The matches of an updated comparison are kept as they were: if the objects were matched through their
+	 * similarity rather than through their identifiers, a new comparison might have matched some of the
+	 * changed objects differently.
+	 * </p>
+	 * 
+	 * @param previous
+	 *            a comparison computed by this instance, must not be {@code null}. Its scope is expected to
+	 *            be one of its adapters, as is the case for any scope extending
+	 *            {@link org.eclipse.emf.compare.scope.AbstractComparisonScope}.
+	 * @param changes
+	 *            the changes that occurred on the compared objects since <code>previous</code> was computed,
+	 *            must not be {@code null}.
+	 * @param monitor
+	 *            the monitor to report progress to, must not be {@code null}.
+	 * @return the updated comparison, either <code>previous</code> or a new comparison.
+	 * @throws ComparisonCanceledException
+	 *             If the comparison is cancelled at any time.
+	 * @since 3.5
+	 */
+	public Comparison recompare(Comparison previous, Collection<? extends Notification> changes,
+			Monitor monitor) {
+		checkNotNull(previous);
+		checkNotNull(changes);
+		checkNotNull(monitor);
+		final IComparisonScope scope = (IComparisonScope)EcoreUtil.getAdapter(previous.eAdapters(),
+				IComparisonScope.class);
+		checkArgument(scope != null, "The scope of the comparison cannot be found"); //$NON-NLS-1$
+
+		final ComparisonUpdater updater = createUpdater(previous);
+		SetMultimap<Match, EStructuralFeature> impacted = null;
+		if (updater != null && postProcessorDescriptorRegistry.getPostProcessors(scope).isEmpty()) {
+			impacted = updater.getImpactedFeatures(previous, changes);
+		}
+		if (impacted == null) {
+			if (LOGGER.isInfoEnabled()) {
+				LOGGER.info("recompare() - comparison cannot be updated, comparing the scope again"); //$NON-NLS-1$
+			}
+			return compare(scope, monitor);
+		}
+
+		long startTime = System.currentTimeMillis();
+		try {
+			updater.update(previous, impacted, monitor);
+		} finally {
+			monitor.done();
+		}
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info("recompare() - FINISH - " + impacted.keySet().size() + " matches updated in " //$NON-NLS-1$ //$NON-NLS-2$
+					+ (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$
+		}
+		return previous;
+	}
+
+	/**
+	 * Creates the object able to update the comparisons computed by this instance.
+	 * 
+	 * @param comparison
+	 *            the comparison to update.
+	 * @return the updater, <code>null</code> if one of the engines of this instance does not support updates.
+	 */
+	private ComparisonUpdater createUpdater(Comparison comparison) {
+		final boolean detectConflicts = comparison.isThreeWay() && conflictDetector != null;
+		if (diffEngine instanceof IDiffEngine2 && reqEngine instanceof IReqEngine2
+				&& equiEngine instanceof IEquiEngine2
+				&& (!detectConflicts || conflictDetector instanceof IConflictDetector2)) {
+			IConflictDetector2 conflicts = null;
+			if (detectConflicts) {
+				conflicts = (IConflictDetector2)conflictDetector;
+			}
+			return new ComparisonUpdater((IDiffEngine2)diffEngine, (IReqEngine2)reqEngine,
+					(IEquiEngine2)equiEngine, conflicts);
+		}
+		return null;
+	}
+
 	/**
 	 * Install a new {@link ResourceChangeAdapter} on the given comparison and on all the resources on the
 	 * left and right side of the scope, unless it's already been done. If a {@link ResourceChangeAdapter} is
@@ -389,7 +658,15 @@ public class EMFCompare {
 	private void detectConflicts(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
 		if (!hasToStop(comparison, monitor) && comparison.isThreeWay() && conflictDetector != null) {
+			final Map<String, Long> conflictCounters = collectCounters(conflictDetector);
+			final ThreadStopwatch watch = startWatch();
 			conflictDetector.detect(comparison, monitor);
+			phaseCompleted(Phase.CONFLICTS, watch);
+			reportCounters(Phase.CONFLICTS, conflictDetector, conflictCounters);
+			if (metrics != null) {
+				metrics.counterReported(Phase.CONFLICTS, ICompareMetrics.CONFLICTS,
+						comparison.getConflicts().size());
+			}
 			postConflicts(comparison, postProcessors, monitor);
 		}
 	}
@@ -406,6 +683,7 @@ public class EMFCompare {
 	 */
 	private void postMatch(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
 			final IPostProcessor iPostProcessor = processorsIterator.next();
@@ -413,12 +691,15 @@ public class EMFCompare {
 				LOGGER.info("postMatch with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + START);
 			}
+			final ThreadStopwatch watch = startWatch();
 			iPostProcessor.postMatch(comparison, monitor);
+			postProcessorCompleted(Phase.POST_MATCH, iPostProcessor, watch);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postMatch with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_MATCH, phaseWatch);
 	}
 
 	/**
@@ -433,6 +714,7 @@ public class EMFCompare {
 	 */
 	private void postDiff(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
 			final IPostProcessor iPostProcessor = processorsIterator.next();
@@ -440,12 +722,15 @@ public class EMFCompare {
 				LOGGER.info("postDiff with post-processor: " + iPostProcessor.getClass().getName() //$NON-NLS-1$
 						+ START);
 			}
+			final ThreadStopwatch watch = startWatch();
 			iPostProcessor.postDiff(comparison, monitor);
+			postProcessorCompleted(Phase.POST_DIFF, iPostProcessor, watch);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postDiff with post-processor: " + iPostProcessor.getClass().getName() //$NON-NLS-1$
 						+ FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_DIFF, phaseWatch);
 	}
 
 	/**
@@ -460,6 +745,7 @@ public class EMFCompare {
 	 */
 	private void postRequirements(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
 			final IPostProcessor iPostProcessor = processorsIterator.next();
@@ -467,12 +753,15 @@ public class EMFCompare {
 				LOGGER.info("postRequirements with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + START);
 			}
+			final ThreadStopwatch watch = startWatch();
 			iPostProcessor.postRequirements(comparison, monitor);
+			postProcessorCompleted(Phase.POST_REQUIREMENTS, iPostProcessor, watch);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postRequirements with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_REQUIREMENTS, phaseWatch);
 	}
 
 	/**
@@ -487,6 +776,7 @@ public class EMFCompare {
 	 */
 	private void postEquivalences(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
 			final IPostProcessor iPostProcessor = processorsIterator.next();
@@ -494,12 +784,15 @@ public class EMFCompare {
 				LOGGER.info("postEquivalences with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + START);
 			}
+			final ThreadStopwatch watch = startWatch();
 			iPostProcessor.postEquivalences(comparison, monitor);
+			postProcessorCompleted(Phase.POST_EQUIVALENCES, iPostProcessor, watch);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postEquivalences with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_EQUIVALENCES, phaseWatch);
 	}
 
 	/**
@@ -514,6 +807,7 @@ public class EMFCompare {
 	 */
 	private void postConflicts(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
 			final IPostProcessor iPostProcessor = processorsIterator.next();
@@ -521,12 +815,15 @@ public class EMFCompare {
 				LOGGER.info("postConflicts with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + START);
 			}
+			final ThreadStopwatch watch = startWatch();
 			iPostProcessor.postConflicts(comparison, monitor);
+			postProcessorCompleted(Phase.POST_CONFLICTS, iPostProcessor, watch);
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postConflicts with post-processor: " //$NON-NLS-1$
 						+ iPostProcessor.getClass().getName() + FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_CONFLICTS, phaseWatch);
 	}
 
 	/**
@@ -541,6 +838,7 @@ public class EMFCompare {
 	 */
 	private void postComparison(final Comparison comparison, List<IPostProcessor> postProcessors,
 			final Monitor monitor) {
+		final ThreadStopwatch phaseWatch = startWatch();
 		final Iterator<IPostProcessor> processorsIterator = postProcessors.iterator();
 		int postProcessorIndex = 1;
 		while (!hasToStop(comparison, monitor) && processorsIterator.hasNext()) {
@@ -552,13 +850,109 @@ public class EMFCompare {
 			monitor.subTask(EMFCompareMessages.getString("PostComparison.monitor.postprocessor", //$NON-NLS-1$
 					postProcessor.getClass().getSimpleName(), String.valueOf(postProcessorIndex),
 					String.valueOf(postProcessors.size())));
+			final ThreadStopwatch watch = startWatch();
 			postProcessor.postComparison(comparison, monitor);
+			postProcessorCompleted(Phase.POST_COMPARISON, postProcessor, watch);
 			postProcessorIndex++;
 			if (LOGGER.isInfoEnabled()) {
 				LOGGER.info("postComparison with post-processor: " //$NON-NLS-1$
 						+ postProcessor.getClass().getName() + FINISH);
 			}
 		}
+		phaseCompleted(Phase.POST_COMPARISON, phaseWatch);
+	}
+
+	/**
+	 * Starts measuring a step of the comparison if a {@link ICompareMetrics} has been given.
+	 * 
+	 * @return the stopwatch measuring the step, <code>null</code> if there are no metrics to notify.
+	 */
+	private ThreadStopwatch startWatch() {
+		if (metrics != null) {
+			return new ThreadStopwatch();
+		}
+		return null;
+	}
+
+	/**
+	 * Notifies the metrics, if any, that a step of the comparison has been completed.
+	 * 
+	 * @param phase
+	 *            the completed step.
+	 * @param watch
+	 *            the stopwatch started along with the step, <code>null</code> if there are no metrics.
+	 */
+	private void phaseCompleted(Phase phase, ThreadStopwatch watch) {
+		if (watch != null) {
+			metrics.phaseCompleted(phase, watch.stop());
+		}
+	}
+
+	/**
+	 * Notifies the metrics, if any, that a post-processor has been applied.
+	 * 
+	 * @param phase
+	 *            the post-processing step.
+	 * @param postProcessor
+	 *            the post-processor.
+	 * @param watch
+	 *            the stopwatch started along with the post-processor, <code>null</code> if there are no
+	 *            metrics.
+	 */
+	private void postProcessorCompleted(Phase phase, IPostProcessor postProcessor, ThreadStopwatch watch) {
+		if (watch != null) {
+			metrics.postProcessorCompleted(phase, postProcessor, watch.stop());
+		}
+	}
+
+	/**
+	 * Collects the counters of the given engine if it has some and if there are metrics to notify.
+	 * 
+	 * @param engine
+	 *            the engine.
+	 * @return the current values of the counters of the engine, an empty map if none.
+	 */
+	private Map<String, Long> collectCounters(Object engine) {
+		if (metrics != null) {
+			return MetricsUtil.collectCounters(engine);
+		}
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Notifies the metrics, if any, of the increase of the counters of the given engine during a step.
+	 * 
+	 * @param phase
+	 *            the completed step.
+	 * @param engine
+	 *            the engine which has run the step.
+	 * @param before
+	 *            the counters of the engine collected before the step.
+	 */
+	private void reportCounters(Phase phase, Object engine, Map<String, Long> before) {
+		if (metrics != null) {
+			final Map<String, Long> increase = MetricsUtil.increase(before,
+					MetricsUtil.collectCounters(engine));
+			for (Map.Entry<String, Long> counter : increase.entrySet()) {
+				metrics.counterReported(phase, counter.getKey(), counter.getValue().longValue());
+			}
+		}
+	}
+
+	/**
+	 * Counts the matches of the given comparison, including the sub-matches.
+	 * 
+	 * @param comparison
+	 *            the comparison.
+	 * @return the number of matches.
+	 */
+	private static long countMatches(Comparison comparison) {
+		long matchQuantity = 0;
+		for (Match match : comparison.getMatches()) {
+			matchQuantity++;
+			matchQuantity += Iterators.size(match.getAllSubmatches().iterator());
+		}
+		return matchQuantity;
 	}
 
 	/**
@@ -609,6 +1003,13 @@ public class EMFCompare {
 		/** The PostProcessorRegistry to use to find an IPostProcessor. */
 		protected IPostProcessor.Descriptor.Registry<?> registry;
 
+		/**
+		 * The listener notified of the cost of each step of the comparisons, <code>null</code> if none.
+		 * 
+		 * @since 3.5
+		 */
+		protected ICompareMetrics metrics;
+
 		/**
 		 * Creates a new builder object.
 		 */
@@ -689,6 +1090,20 @@ public class EMFCompare {
 			return this;
 		}
 
+		/**
+		 * Sets the listener to notify of the cost of each step of the comparisons. None is notified by
+		 * default, in which case the comparisons are not measured at all.
+		 * 
+		 * @param m
+		 *            the listener to notify of the cost of each step of the comparisons.
+		 * @return this same builder to allow chained call.
+		 * @since 3.5
+		 */
+		public Builder setMetrics(ICompareMetrics m) {
+			this.metrics = checkNotNull(m);
+			return this;
+		}
+
 		/**
 		 * Instantiates and return an EMFCompare object configured with the previously given engines.
 		 * 
@@ -714,7 +1129,7 @@ public class EMFCompare {
 				conflictDetector = new MatchBasedConflictDetector();
 			}
 			return new EMFCompare(this.matchEngineFactoryRegistry, this.diffEngine, this.reqEngine,
-					this.equiEngine, this.conflictDetector, this.registry);
+					this.equiEngine, this.conflictDetector, this.registry, this.metrics);
 		}
 	}
 
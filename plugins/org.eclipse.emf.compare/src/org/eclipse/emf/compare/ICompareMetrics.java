@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare;
+
+import java.util.Map;
+
+import org.eclipse.emf.compare.postprocessor.IPostProcessor;
+
+/**
+ * A listener notified of the cost of each step of the comparisons computed by an {@link EMFCompare}
+ * instance. It can be registered through {@link EMFCompare.Builder#setMetrics(ICompareMetrics)}.
+ * <p>
+ * The CPU time and allocated bytes are those of the thread calling {@link EMFCompare#compare}: work done by
+ * other threads, for example by a parallel engine, is only accounted for in the wall time. They are
+ * <code>-1</code> when the running JVM cannot measure them.
+ * </p>
+ * <p>
+ * The notifications are sent synchronously by the comparing thread, implementations should return quickly.
+ * </p>
+ *
+ * @since 3.5
+ */
+public interface ICompareMetrics {
+	/** Name of the counter of the matches, including the sub-matches, of a comparison. */
+	String MATCHES = "matches"; //$NON-NLS-1$
+
+	/** Name of the counter of the differences of a comparison. */
+	String DIFFERENCES = "differences"; //$NON-NLS-1$
+
+	/** Name of the counter of the equivalences of a comparison. */
+	String EQUIVALENCES = "equivalences"; //$NON-NLS-1$
+
+	/** Name of the counter of the conflicts of a comparison. */
+	String CONFLICTS = "conflicts"; //$NON-NLS-1$
+
+	/** Name of the counter of the distances requested while matching objects by their similarity. */
+	String DISTANCE_COMPUTATIONS = "distanceComputations"; //$NON-NLS-1$
+
+	/** Name of the counter of the distances that were found in a cache. */
+	String DISTANCE_CACHE_HITS = "distanceCacheHits"; //$NON-NLS-1$
+
+	/** Name of the counter of the distances that had to be computed as they were not in a cache. */
+	String DISTANCE_CACHE_MISSES = "distanceCacheMisses"; //$NON-NLS-1$
+
+	/** Name of the counter of the distances that were evicted from a cache to make room for others. */
+	String DISTANCE_CACHE_EVICTIONS = "distanceCacheEvictions"; //$NON-NLS-1$
+
+	/** Name of the counter of the String similarity profiles that were found in a cache. */
+	String BIGRAM_PROFILE_HITS = "bigramProfileHits"; //$NON-NLS-1$
+
+	/** Name of the counter of the String similarity profiles that had to be computed. */
+	String BIGRAM_PROFILE_MISSES = "bigramProfileMisses"; //$NON-NLS-1$
+
+	/** Name of the counter of the comparisons whose matches were found in a persistent match cache. */
+	String MATCH_CACHE_HITS = "matchCacheHits"; //$NON-NLS-1$
+
+	/** Name of the counter of the comparisons whose matches had to be computed as they were not cached. */
+	String MATCH_CACHE_MISSES = "matchCacheMisses"; //$NON-NLS-1$
+
+	/**
+	 * Notifies that a step of a comparison has been completed. For the post-processing steps, this covers all
+	 * of the post-processors of the step.
+	 *
+	 * @param phase
+	 *            the completed step.
+	 * @param measure
+	 *            the cost of the step.
+	 */
+	void phaseCompleted(Phase phase, Measure measure);
+
+	/**
+	 * Notifies that a post-processor has been applied during one of the post-processing steps.
+	 *
+	 * @param phase
+	 *            the post-processing step.
+	 * @param postProcessor
+	 *            the post-processor.
+	 * @param measure
+	 *            the cost of the post-processor for this step.
+	 */
+	void postProcessorCompleted(Phase phase, IPostProcessor postProcessor, Measure measure);
+
+	/**
+	 * Notifies the value of a counter once a step of a comparison has been completed. Besides the counters
+	 * named by the constants of this interface, the engines implementing {@link CounterSource} might report
+	 * their own counters.
+	 *
+	 * @param phase
+	 *            the completed step.
+	 * @param counter
+	 *            the name of the counter.
+	 * @param value
+	 *            the value of the counter for this step.
+	 */
+	void counterReported(Phase phase, String counter, long value);
+
+	/**
+	 * Notifies that a comparison has been completed, or canceled.
+	 *
+	 * @param comparison
+	 *            the comparison.
+	 * @param measure
+	 *            the cost of the whole comparison.
+	 */
+	void comparisonCompleted(Comparison comparison, Measure measure);
+
+	/**
+	 * The steps of a comparison.
+	 */
+	enum Phase {
+		/** Matching of the compared objects. */
+		MATCH,
+
+		/** Post-processing of the matches. */
+		POST_MATCH,
+
+		/** Computation of the differences. */
+		DIFF,
+
+		/** Post-processing of the differences. */
+		POST_DIFF,
+
+		/** Computation of the requirements between differences. */
+		REQUIREMENTS,
+
+		/** Post-processing of the requirements. */
+		POST_REQUIREMENTS,
+
+		/** Computation of the equivalences between differences. */
+		EQUIVALENCES,
+
+		/** Post-processing of the equivalences. */
+		POST_EQUIVALENCES,
+
+		/** Detection of the conflicts. */
+		CONFLICTS,
+
+		/** Post-processing of the conflicts. */
+		POST_CONFLICTS,
+
+		/** Post-processing of the whole comparison. */
+		POST_COMPARISON;
+	}
+
+	/**
+	 * An engine, or a component of an engine, able to report the counters of its work. The counters are
+	 * expected to be cumulative: {@link EMFCompare} reports the difference between their values before and
+	 * after each step, so that engines reused by several comparisons do not need to reset them.
+	 */
+	interface CounterSource {
+		/**
+		 * Adds the current values of the counters of this instance to those of the given map. Counters
+		 * absent from the map should be added to it, those already present should have the value of this
+		 * instance added to theirs so that several components can contribute to the same counter.
+		 *
+		 * @param counters
+		 *            the counters, by name.
+		 */
+		void collectCounters(Map<String, Long> counters);
+	}
+
+	/**
+	 * The cost of a step of a comparison.
+	 */
+	final class Measure {
+		/** The elapsed time, in nanoseconds. */
+		private final long wallTime;
+
+		/** The CPU time of the comparing thread, in nanoseconds. */
+		private final long cpuTime;
+
+		/** The bytes allocated by the comparing thread. */
+		private final long allocatedBytes;
+
+		/**
+		 * Creates a measure.
+		 *
+		 * @param wallTime
+		 *            the elapsed time, in nanoseconds.
+		 * @param cpuTime
+		 *            the CPU time of the comparing thread in nanoseconds, <code>-1</code> if unknown.
+		 * @param allocatedBytes
+		 *            the bytes allocated by the comparing thread, <code>-1</code> if unknown.
+		 */
+		public Measure(long wallTime, long cpuTime, long allocatedBytes) {
+			this.wallTime = wallTime;
+			this.cpuTime = cpuTime;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		/**
+		 * Returns the elapsed time.
+		 *
+		 * @return the elapsed time, in nanoseconds.
+		 */
+		public long getWallTime() {
+			return wallTime;
+		}
+
+		/**
+		 * Returns the CPU time of the comparing thread.
+		 *
+		 * @return the CPU time in nanoseconds, <code>-1</code> if unknown.
+		 */
+		public long getCpuTime() {
+			return cpuTime;
+		}
+
+		/**
+		 * Returns the bytes allocated by the comparing thread.
+		 *
+		 * @return the allocated bytes, <code>-1</code> if unknown.
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("nls")
+		public String toString() {
+			return "Measure [wallTime=" + wallTime + ", cpuTime=" + cpuTime + ", allocatedBytes="
+					+ allocatedBytes + "]";
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.conflict;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+
+/**
+ * This adds the ability for {@link IConflictDetector conflict detectors} to look for the conflicts of a
+ * subset of the differences of a comparison only. This is used to update a comparison after a few of the
+ * compared objects have changed.
+ * 
+ * @since 3.5
+ * @see MatchBasedConflictDetector
+ */
+public interface IConflictDetector2 extends IConflictDetector {
+	/**
+	 * Detects the conflicts between the given differences and all the differences of the comparison.
+	 * 
+	 * @param comparison
+	 *            The comparison this engine is expected to complete.
+	 * @param differences
+	 *            The differences which conflicts are to be detected.
+	 * @param monitor
+	 *            The monitor to report progress or to check for cancellation
+	 */
+	void detect(Comparison comparison, Iterable<? extends Diff> differences, Monitor monitor);
+}
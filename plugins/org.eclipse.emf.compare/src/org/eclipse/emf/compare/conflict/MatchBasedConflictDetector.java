@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Obeo and others.
+ * Copyright (c) 2016, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,7 +10,15 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.conflict;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.Monitor;
@@ -22,6 +30,7 @@ import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.ReferenceChange;
 import org.eclipse.emf.compare.internal.conflict.AbstractConflictSearch;
 import org.eclipse.emf.compare.internal.conflict.ConflictSearchFactory;
+import org.eclipse.emf.compare.internal.conflict.ConflictUnion;
 import org.eclipse.emf.ecore.EObject;
 
 /**
@@ -32,15 +41,68 @@ import org.eclipse.emf.ecore.EObject;
  * This implementation of {@link IConflictDetector} is a generic as the default one but scales better since it
  * is not O(n²) but rather O(n) or O(n log(n)), n being the number of differences in the comparison.
  * </p>
+ * <p>
+ * If this detector is given an executor, the differences are split into chunks that are searched
+ * concurrently. The conflicting pairs found by the searches are then gathered in a union-find structure, the
+ * conflicts are only created once all differences have been searched: the searches only read the comparison,
+ * which is not modified until all of them are over. The conflicts are created in the order of their first
+ * difference, and do not depend on the number of threads. Otherwise, the conflicts are created in the
+ * comparison as soon as they are found.
+ * </p>
  * 
  * @author <a href="mailto:laurent.delaigue@obeo.fr">Laurent Delaigue</a>
  * @since 3.3
  */
-public class MatchBasedConflictDetector implements IConflictDetector {
+public class MatchBasedConflictDetector implements IConflictDetector2 {
 
 	/** The logger. */
 	private static final Logger LOGGER = Logger.getLogger(MatchBasedConflictDetector.class);
 
+	/** The default number of differences searched by a single task. */
+	private static final int DEFAULT_CHUNK_SIZE = 512;
+
+	/** The executor on which the searches are run, <code>null</code> to run them on the calling thread. */
+	private final ExecutorService executor;
+
+	/** The number of differences searched by a single task. */
+	private final int chunkSize;
+
+	/**
+	 * Creates a conflict detector searching the differences on the calling thread.
+	 */
+	public MatchBasedConflictDetector() {
+		this.executor = null;
+		this.chunkSize = DEFAULT_CHUNK_SIZE;
+	}
+
+	/**
+	 * Creates a conflict detector searching the differences concurrently.
+	 * 
+	 * @param executor
+	 *            The executor on which the searches will be run. This detector will not shut it down.
+	 * @since 3.5
+	 */
+	public MatchBasedConflictDetector(ExecutorService executor) {
+		this(executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a conflict detector searching the differences concurrently.
+	 * 
+	 * @param executor
+	 *            The executor on which the searches will be run. This detector will not shut it down.
+	 * @param chunkSize
+	 *            The number of differences searched by a single task.
+	 * @since 3.5
+	 */
+	public MatchBasedConflictDetector(ExecutorService executor, int chunkSize) {
+		this.executor = checkNotNull(executor);
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be strictly positive"); //$NON-NLS-1$
+		}
+		this.chunkSize = chunkSize;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -53,9 +115,38 @@ public class MatchBasedConflictDetector implements IConflictDetector {
 			LOGGER.debug("detect conflicts - START"); //$NON-NLS-1$
 		}
 		final List<Diff> differences = comparison.getDifferences();
-		final int diffCount = differences.size();
+		if (executor == null) {
+			detectSequentially(differences, new ConflictSearchFactory(comparison, monitor), monitor);
+		} else {
+			final ConflictUnion conflictUnion = new ConflictUnion(comparison);
+			final ConflictSearchFactory conflictSearchFactory = new ConflictSearchFactory(comparison,
+					monitor, conflictUnion);
+			// The match cross referencer is lazily installed on first access, make sure this happens on this
+			// thread before the comparison is shared with the tasks.
+			comparison.getMatch(comparison);
+			detectConcurrently(differences, conflictSearchFactory, monitor);
+			conflictUnion.createConflicts();
+		}
 
-		ConflictSearchFactory conflictSearchFactory = new ConflictSearchFactory(comparison, monitor);
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info(String.format("detect conflicts - END - Took %d ms", Long.valueOf(System //$NON-NLS-1$
+					.currentTimeMillis() - start)));
+		}
+	}
+
+	/**
+	 * Searches the conflicts of the given differences on the calling thread.
+	 * 
+	 * @param differences
+	 *            The differences of the comparison.
+	 * @param conflictSearchFactory
+	 *            The factory of the searches.
+	 * @param monitor
+	 *            The monitor to report progress to.
+	 */
+	private void detectSequentially(List<Diff> differences, ConflictSearchFactory conflictSearchFactory,
+			Monitor monitor) {
+		final int diffCount = differences.size();
 		for (int i = 0; i < diffCount; i++) {
 			if (i % 100 == 0) {
 				monitor.subTask(EMFCompareMessages.getString("DefaultConflictDetector.monitor.detect", //$NON-NLS-1$
@@ -68,10 +159,112 @@ public class MatchBasedConflictDetector implements IConflictDetector {
 			AbstractConflictSearch<? extends Diff> search = conflictSearchFactory.doSwitch(diff);
 			search.detectConflicts();
 		}
+	}
 
-		if (LOGGER.isInfoEnabled()) {
-			LOGGER.info(String.format("detect conflicts - END - Took %d ms", Long.valueOf(System //$NON-NLS-1$
-					.currentTimeMillis() - start)));
+	/**
+	 * Searches the conflicts of the given differences on the executor of this detector.
+	 * 
+	 * @param differences
+	 *            The differences of the comparison.
+	 * @param conflictSearchFactory
+	 *            The factory of the searches, which must record their conflicts in a
+	 *            {@link ConflictUnion}.
+	 * @param monitor
+	 *            The monitor to check for cancellation.
+	 */
+	private void detectConcurrently(List<Diff> differences, ConflictSearchFactory conflictSearchFactory,
+			Monitor monitor) {
+		monitor.subTask(EMFCompareMessages.getString("DefaultConflictDetector.monitor.detect", //$NON-NLS-1$
+				Integer.valueOf(1), Integer.valueOf(differences.size())));
+		final List<Callable<Void>> tasks = Lists.newArrayList();
+		for (List<Diff> chunk : Lists.partition(differences, chunkSize)) {
+			tasks.add(new SearchTask(chunk, conflictSearchFactory, monitor));
+		}
+		final List<Future<Void>> results;
+		try {
+			results = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		}
+		for (Future<Void> result : results) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ComparisonCanceledException();
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException)cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+				throw new RuntimeException(cause);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The differences are searched on the calling thread.
+	 * </p>
+	 * 
+	 * @see org.eclipse.emf.compare.conflict.IConflictDetector2#detect(Comparison, Iterable, Monitor)
+	 * @since 3.5
+	 */
+	public void detect(Comparison comparison, Iterable<? extends Diff> differences, Monitor monitor) {
+		ConflictSearchFactory conflictSearchFactory = new ConflictSearchFactory(comparison, monitor);
+		for (Diff diff : differences) {
+			if (monitor.isCanceled()) {
+				throw new ComparisonCanceledException();
+			}
+			conflictSearchFactory.doSwitch(diff).detectConflicts();
+		}
+	}
+
+	/**
+	 * Searches the conflicts of a chunk of differences, recording them in the union of its factory.
+	 */
+	private static class SearchTask implements Callable<Void> {
+		/** The differences to search. */
+		private final List<Diff> chunk;
+
+		/** The factory of the searches. */
+		private final ConflictSearchFactory conflictSearchFactory;
+
+		/** Monitor to check for cancellation. */
+		private final Monitor monitor;
+
+		/**
+		 * Creates a task searching the conflicts of the given differences.
+		 * 
+		 * @param chunk
+		 *            The differences to search.
+		 * @param conflictSearchFactory
+		 *            The factory of the searches.
+		 * @param monitor
+		 *            Monitor to check for cancellation.
+		 */
+		SearchTask(List<Diff> chunk, ConflictSearchFactory conflictSearchFactory, Monitor monitor) {
+			this.chunk = chunk;
+			this.conflictSearchFactory = conflictSearchFactory;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		public Void call() {
+			for (Diff diff : chunk) {
+				if (monitor.isCanceled()) {
+					throw new ComparisonCanceledException();
+				}
+				conflictSearchFactory.doSwitch(diff).detectConflicts();
+			}
+			return null;
 		}
 	}
 }
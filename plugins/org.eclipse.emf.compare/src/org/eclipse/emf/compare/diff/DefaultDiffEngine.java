@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import com.google.common.base.Optional;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.Monitor;
@@ -52,7 +53,7 @@ import org.eclipse.emf.ecore.util.FeatureMapUtil;
  * 
  * @author <a href="mailto:laurent.goubet@obeo.fr">Laurent Goubet</a>
  */
-public class DefaultDiffEngine implements IDiffEngine {
+public class DefaultDiffEngine implements IDiffEngine2 {
 	/**
 	 * We'll use this "placeholder" to differentiate the unmatched elements from the "null" values that
 	 * attributes can legitimately use.
@@ -130,6 +131,36 @@ public class DefaultDiffEngine implements IDiffEngine {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.eclipse.emf.compare.diff.IDiffEngine2#diff(org.eclipse.emf.compare.Match, java.util.Set,
+	 *      org.eclipse.emf.common.util.Monitor)
+	 * @since 3.5
+	 */
+	public void diff(Match match, Set<? extends EStructuralFeature> features, Monitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new ComparisonCanceledException();
+		}
+		final FeatureFilter featureFilter = createFeatureFilter();
+
+		final Iterator<EReference> references = featureFilter.getReferencesToCheck(match);
+		while (references.hasNext()) {
+			final EReference reference = references.next();
+			if (features.contains(reference)) {
+				computeDifferences(match, reference, featureFilter.checkForOrderingChanges(reference));
+			}
+		}
+
+		final Iterator<EAttribute> attributes = featureFilter.getAttributesToCheck(match);
+		while (attributes.hasNext()) {
+			final EAttribute attribute = attributes.next();
+			if (features.contains(attribute)) {
+				computeDifferences(match, attribute, featureFilter.checkForOrderingChanges(attribute));
+			}
+		}
+	}
+
 	/**
 	 * Checks the given {@link Match}'s sides for potential differences. Will recursively check for
 	 * differences on submatches.
@@ -140,6 +171,23 @@ public class DefaultDiffEngine implements IDiffEngine {
 	 *            The monitor to report progress or to check for cancellation.
 	 */
 	protected void checkForDifferences(Match match, Monitor monitor) {
+		checkForLocalDifferences(match, monitor);
+
+		for (Match submatch : match.getSubmatches()) {
+			checkForDifferences(submatch, monitor);
+		}
+	}
+
+	/**
+	 * Checks the given {@link Match}'s sides for potential differences, without looking at its submatches.
+	 * 
+	 * @param match
+	 *            The match that is to be checked.
+	 * @param monitor
+	 *            The monitor to report progress or to check for cancellation.
+	 * @since 3.5
+	 */
+	protected void checkForLocalDifferences(Match match, Monitor monitor) {
 		if (monitor.isCanceled()) {
 			throw new ComparisonCanceledException();
 		}
@@ -160,10 +208,6 @@ public class DefaultDiffEngine implements IDiffEngine {
 			final boolean considerOrdering = featureFilter.checkForOrderingChanges(attribute);
 			computeDifferences(match, attribute, considerOrdering);
 		}
-
-		for (Match submatch : match.getSubmatches()) {
-			checkForDifferences(submatch, monitor);
-		}
 	}
 
 	/**
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.diff;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.MatchResource;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.ResourceAttachmentChange;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+
+/**
+ * An {@link IDiffProcessor} which can be called from several threads at once. Contrary to the
+ * {@link DiffBuilder}, the differences it builds are not attached to their {@link Match} right away, since
+ * that would modify the comparison: each thread buffers the differences it built until they are
+ * {@link #drain() drained} and attached by the caller.
+ *
+ * @since 3.5
+ */
+public class DeferredDiffBuilder implements IDiffProcessor {
+	/** The differences built by each thread and not drained yet, along with the Match they belong to. */
+	private final ThreadLocal<List<Map.Entry<Match, Diff>>> buffers;
+
+	/**
+	 * Creates a builder with an empty buffer for each thread.
+	 */
+	public DeferredDiffBuilder() {
+		buffers = new ThreadLocal<List<Map.Entry<Match, Diff>>>() {
+			@Override
+			protected List<Map.Entry<Match, Diff>> initialValue() {
+				return Lists.newArrayList();
+			}
+		};
+	}
+
+	/**
+	 * Returns the differences built by the calling thread since the last time it called this, in the order
+	 * they were built. These differences are not attached to their match yet.
+	 *
+	 * @return The differences built by the calling thread, each along with the Match it should be attached
+	 *         to.
+	 */
+	public List<Map.Entry<Match, Diff>> drain() {
+		final List<Map.Entry<Match, Diff>> buffer = buffers.get();
+		final List<Map.Entry<Match, Diff>> drained = Lists.newArrayList(buffer);
+		buffer.clear();
+		return drained;
+	}
+
+	/**
+	 * Attaches the given differences to their match, in the given order.
+	 *
+	 * @param differences
+	 *            The differences to attach, each along with the Match it should be attached to, as
+	 *            returned by {@link #drain()}.
+	 */
+	public static void attach(Iterable<Map.Entry<Match, Diff>> differences) {
+		for (Map.Entry<Match, Diff> entry : differences) {
+			entry.getValue().setMatch(entry.getKey());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffProcessor#referenceChange(org.eclipse.emf.compare.Match,
+	 *      org.eclipse.emf.ecore.EReference, org.eclipse.emf.ecore.EObject,
+	 *      org.eclipse.emf.compare.DifferenceKind, org.eclipse.emf.compare.DifferenceSource)
+	 */
+	public void referenceChange(Match match, EReference reference, EObject value, DifferenceKind kind,
+			DifferenceSource source) {
+		final ReferenceChange referenceChange = CompareFactory.eINSTANCE.createReferenceChange();
+		referenceChange.setReference(reference);
+		referenceChange.setValue(value);
+		referenceChange.setKind(kind);
+		referenceChange.setSource(source);
+		buffer(match, referenceChange);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffProcessor#attributeChange(org.eclipse.emf.compare.Match,
+	 *      org.eclipse.emf.ecore.EAttribute, java.lang.Object, org.eclipse.emf.compare.DifferenceKind,
+	 *      org.eclipse.emf.compare.DifferenceSource)
+	 */
+	public void attributeChange(Match match, EAttribute attribute, Object value, DifferenceKind kind,
+			DifferenceSource source) {
+		final AttributeChange attributeChange = CompareFactory.eINSTANCE.createAttributeChange();
+		attributeChange.setAttribute(attribute);
+		attributeChange.setValue(value);
+		attributeChange.setKind(kind);
+		attributeChange.setSource(source);
+		buffer(match, attributeChange);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffProcessor#featureMapChange(org.eclipse.emf.compare.Match,
+	 *      org.eclipse.emf.ecore.EAttribute, java.lang.Object, org.eclipse.emf.compare.DifferenceKind,
+	 *      org.eclipse.emf.compare.DifferenceSource)
+	 */
+	public void featureMapChange(Match match, EAttribute attribute, Object value, DifferenceKind kind,
+			DifferenceSource source) {
+		final FeatureMapChange featureMapChange = CompareFactory.eINSTANCE.createFeatureMapChange();
+		featureMapChange.setAttribute(attribute);
+		featureMapChange.setValue(value);
+		featureMapChange.setKind(kind);
+		featureMapChange.setSource(source);
+		buffer(match, featureMapChange);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffProcessor#resourceAttachmentChange(org.eclipse.emf.compare.Match,
+	 *      java.lang.String, org.eclipse.emf.compare.DifferenceKind,
+	 *      org.eclipse.emf.compare.DifferenceSource)
+	 */
+	public void resourceAttachmentChange(Match match, String uri, DifferenceKind kind,
+			DifferenceSource source) {
+		final ResourceAttachmentChange change = CompareFactory.eINSTANCE.createResourceAttachmentChange();
+		change.setResourceURI(uri);
+		change.setKind(kind);
+		change.setSource(source);
+		buffer(match, change);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffProcessor#resourceLocationChange(org.eclipse.emf.compare.
+	 *      MatchResource, java.lang.String, java.lang.String org.eclipse.emf.compare.DifferenceKind,
+	 *      org.eclipse.emf.compare.DifferenceSource)
+	 * @deprecated {@link org.eclipse.emf.compare.ResourceLocationChange}s have been replaced by
+	 *             {@link ResourceAttachmentChange}s of kind Move.
+	 */
+	@Deprecated
+	public void resourceLocationChange(MatchResource matchResource, String baseLocation,
+			String changedLocation, DifferenceKind kind, DifferenceSource source) {
+		// Nothing to do here.
+	}
+
+	/**
+	 * Keeps the given difference in the calling thread's buffer.
+	 *
+	 * @param match
+	 *            The match this difference should be attached to.
+	 * @param diff
+	 *            The difference.
+	 */
+	private void buffer(Match match, Diff diff) {
+		buffers.get().add(Maps.immutableEntry(match, diff));
+	}
+}
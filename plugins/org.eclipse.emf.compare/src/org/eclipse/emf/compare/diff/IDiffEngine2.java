@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.diff;
+
+import java.util.Set;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * This adds the ability for {@link IDiffEngine diff engines} to compute the differences of a part of a
+ * comparison only. This is used to update a comparison after a few of the compared objects have changed.
+ * 
+ * @since 3.5
+ * @see DefaultDiffEngine
+ */
+public interface IDiffEngine2 extends IDiffEngine {
+	/**
+	 * Completes the given match with the differences that can be detected on the given features of its sides.
+	 * The submatches of that match are not considered. The given match is not expected to hold any difference
+	 * on these features when this is called.
+	 * 
+	 * @param match
+	 *            The match which differences are to be computed.
+	 * @param features
+	 *            The features on which to look for differences.
+	 * @param monitor
+	 *            The monitor to report progress or to check for cancellation.
+	 */
+	void diff(Match match, Set<? extends EStructuralFeature> features, Monitor monitor);
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.diff;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ComparisonCanceledException;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.EMFCompareMessages;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * A {@link DefaultDiffEngine} spreading the computation of the differences over several threads.
+ * <p>
+ * The differences of a Match only depend on its sides and on the matches of the comparison, which are not
+ * modified during this phase. The matches are thus split into chunks, in the order in which the
+ * {@link DefaultDiffEngine} would visit them, and each chunk is handed to its own task. The differences are
+ * built by a {@link DeferredDiffBuilder} which keeps them in a buffer of the thread that built them, so the
+ * comparison is only read while the tasks run. Once every task is done, the differences are attached to their
+ * match chunk after chunk: they end up in the same order as if they had been computed by a single thread.
+ * </p>
+ * <p>
+ * The match cross referencer of the comparison is installed before the tasks are started. Past this point,
+ * looking up the match of an EObject through the comparison or its equality helper does not modify anything
+ * and can be done concurrently. Subclasses overriding
+ * {@link #checkForLocalDifferences(Match, Monitor)} must preserve this: they are not allowed to modify the
+ * comparison.
+ * </p>
+ * <p>
+ * The tasks call {@link #checkForLocalDifferences(Match, Monitor)} for each match of their chunk, they do not
+ * go through {@link #checkForDifferences(Match, Monitor)} since the submatches are handled by other tasks.
+ * This engine thus does not allow subclasses to override the latter: the differences of a match are to be
+ * customized through {@link #checkForLocalDifferences(Match, Monitor)}, which is called for every match
+ * whether the differences are computed in parallel or not.
+ * </p>
+ *
+ * @since 3.5
+ */
+public class ParallelDiffEngine extends DefaultDiffEngine {
+	/** The default number of matches handled by a single task. */
+	private static final int DEFAULT_CHUNK_SIZE = 128;
+
+	/** The logger. */
+	private static final Logger LOGGER = Logger.getLogger(ParallelDiffEngine.class);
+
+	/** The builder of the differences, which will be drained once per task. */
+	private final DeferredDiffBuilder builder;
+
+	/** The executor on which the tasks will be run. */
+	private final ExecutorService executor;
+
+	/** The number of matches handled by a single task. */
+	private final int chunkSize;
+
+	/**
+	 * Create the diff engine.
+	 *
+	 * @param executor
+	 *            The executor on which the tasks will be run. This engine will not shut it down.
+	 */
+	public ParallelDiffEngine(ExecutorService executor) {
+		this(new DeferredDiffBuilder(), executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create the diff engine.
+	 *
+	 * @param builder
+	 *            This instance will be called for each detected difference, from any of the threads of the
+	 *            executor.
+	 * @param executor
+	 *            The executor on which the tasks will be run. This engine will not shut it down.
+	 * @param chunkSize
+	 *            The number of matches handled by a single task.
+	 */
+	public ParallelDiffEngine(DeferredDiffBuilder builder, ExecutorService executor, int chunkSize) {
+		super(builder);
+		this.builder = builder;
+		this.executor = checkNotNull(executor);
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("The chunk size must be strictly positive"); //$NON-NLS-1$
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffEngine#diff(org.eclipse.emf.compare.Comparison,
+	 *      org.eclipse.emf.common.util.Monitor)
+	 */
+	@Override
+	public void diff(Comparison comparison, Monitor monitor) {
+		long start = System.currentTimeMillis();
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug(String.format("detect differences - START")); //$NON-NLS-1$
+		}
+		monitor.subTask(EMFCompareMessages.getString("DefaultDiffEngine.monitor.diff")); //$NON-NLS-1$
+
+		// The match cross referencer is lazily installed on first access, make sure this happens on this
+		// thread before the comparison is shared with the tasks.
+		comparison.getMatch(comparison);
+
+		final List<Match> matches = Lists.newArrayList();
+		for (Match rootMatch : comparison.getMatches()) {
+			collectMatches(rootMatch, matches);
+		}
+		final List<Callable<List<Map.Entry<Match, Diff>>>> tasks = Lists.newArrayList();
+		for (List<Match> chunk : Lists.partition(matches, chunkSize)) {
+			tasks.add(new DiffTask(chunk, monitor));
+		}
+
+		final List<Future<List<Map.Entry<Match, Diff>>>> results;
+		try {
+			results = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		}
+		for (Future<List<Map.Entry<Match, Diff>>> result : results) {
+			DeferredDiffBuilder.attach(getResult(result));
+		}
+
+		if (LOGGER.isInfoEnabled()) {
+			LOGGER.info(String.format("detect differences - END - Took %d ms", Long.valueOf(System //$NON-NLS-1$
+					.currentTimeMillis() - start)));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The differences are computed on the calling thread.
+	 * </p>
+	 *
+	 * @see org.eclipse.emf.compare.diff.IDiffEngine2#diff(org.eclipse.emf.compare.Match, java.util.Set,
+	 *      org.eclipse.emf.common.util.Monitor)
+	 */
+	@Override
+	public void diff(Match match, Set<? extends EStructuralFeature> features, Monitor monitor) {
+		try {
+			super.diff(match, features, monitor);
+		} finally {
+			DeferredDiffBuilder.attach(builder.drain());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The differences are computed on the calling thread. This is not called when computing the differences
+	 * of a whole comparison, override {@link #checkForLocalDifferences(Match, Monitor)} instead.
+	 * </p>
+	 */
+	@Override
+	protected final void checkForDifferences(Match match, Monitor monitor) {
+		try {
+			super.checkForDifferences(match, monitor);
+		} finally {
+			DeferredDiffBuilder.attach(builder.drain());
+		}
+	}
+
+	/**
+	 * Collects the given match and all of its submatches, in the order in which
+	 * {@link #checkForDifferences(Match, Monitor)} visits them.
+	 *
+	 * @param match
+	 *            The match to collect.
+	 * @param matches
+	 *            The list in which to collect the matches.
+	 */
+	private static void collectMatches(Match match, List<Match> matches) {
+		matches.add(match);
+		for (Match submatch : match.getSubmatches()) {
+			collectMatches(submatch, matches);
+		}
+	}
+
+	/**
+	 * Retrieves the result of a completed task, rethrowing its failure if any.
+	 *
+	 * @param result
+	 *            the future of a completed task.
+	 * @return the result of the task.
+	 */
+	private static List<Map.Entry<Match, Diff>> getResult(Future<List<Map.Entry<Match, Diff>>> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * This will compute the differences of a chunk of matches. The task does not modify the comparison, the
+	 * differences it finds are returned instead of being attached to their match.
+	 */
+	private class DiffTask implements Callable<List<Map.Entry<Match, Diff>>> {
+		/** The matches which differences are to be computed. */
+		private final List<Match> chunk;
+
+		/** Monitor to check for cancellation. */
+		private final Monitor monitor;
+
+		/**
+		 * Creates a task computing the differences of the given matches.
+		 *
+		 * @param chunk
+		 *            the matches which differences are to be computed.
+		 * @param monitor
+		 *            monitor to check for cancellation.
+		 */
+		DiffTask(List<Match> chunk, Monitor monitor) {
+			this.chunk = chunk;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @return the differences found by this task, each along with its match, in the order in which they
+		 *         were found.
+		 */
+		public List<Map.Entry<Match, Diff>> call() {
+			try {
+				for (Match match : chunk) {
+					checkForLocalDifferences(match, monitor);
+				}
+				return builder.drain();
+			} catch (RuntimeException e) {
+				// Do not leave the differences of a failed task in the buffer of this thread
+				builder.drain();
+				throw e;
+			}
+		}
+	}
+}
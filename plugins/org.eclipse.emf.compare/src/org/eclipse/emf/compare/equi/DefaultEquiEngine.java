@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,7 +48,7 @@ import org.eclipse.emf.ecore.util.FeatureMap;
  * 
  * @author <a href="mailto:cedric.notot@obeo.fr">Cedric Notot</a>
  */
-public class DefaultEquiEngine implements IEquiEngine {
+public class DefaultEquiEngine implements IEquiEngine2 {
 
 	/** The logger. */
 	private static final Logger LOGGER = Logger.getLogger(DefaultEquiEngine.class);
@@ -77,6 +77,22 @@ public class DefaultEquiEngine implements IEquiEngine {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.eclipse.emf.compare.equi.IEquiEngine2#computeEquivalences(Comparison, Iterable, Monitor)
+	 * @since 3.5
+	 */
+	public void computeEquivalences(Comparison comparison, Iterable<? extends Diff> differences,
+			Monitor monitor) {
+		for (Diff difference : differences) {
+			if (monitor.isCanceled()) {
+				throw new ComparisonCanceledException();
+			}
+			checkForEquivalences(comparison, difference);
+		}
+	}
+
 	/**
 	 * Checks the potential equivalence from the given <code>difference</code>.
 	 * 
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.MatchResource;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Detaches a comparison from the compared models so that they can be unloaded and garbage collected while
+ * the comparison is kept.
+ * <p>
+ * Every reference of the matches and differences to an EObject of the compared models is replaced by a
+ * reference to an empty proxy of the same EClass, the URI of which is the URI of the replaced EObject. All
+ * of the references to the same EObject are replaced by the same proxy so that the matches of the values of
+ * the differences can still be found through {@link Comparison#getMatch(EObject)}. References to EObjects
+ * outside of the compared models, such as the metamodel elements, are kept as is.
+ * </p>
+ */
+public class ComparisonContentReleaser {
+	/** The compared notifiers, any EObject under them is part of the compared models. */
+	private final Set<Notifier> comparedNotifiers;
+
+	/** The proxies created so far, by the EObject they replace. */
+	private final Map<EObject, EObject> proxies;
+
+	/**
+	 * Creates a releaser of the models of the given scope.
+	 *
+	 * @param scope
+	 *            The scope of the comparisons to detach from their models.
+	 */
+	public ComparisonContentReleaser(IComparisonScope scope) {
+		this.comparedNotifiers = Sets.newHashSet();
+		for (Notifier notifier : new Notifier[] {scope.getLeft(), scope.getRight(), scope.getOrigin(), }) {
+			if (notifier != null) {
+				comparedNotifiers.add(notifier);
+			}
+		}
+		this.proxies = Maps.newHashMap();
+	}
+
+	/**
+	 * Replaces all references of the given comparison to the compared models by proxies.
+	 *
+	 * @param comparison
+	 *            A comparison of the models of the scope of this releaser.
+	 */
+	public void release(Comparison comparison) {
+		for (MatchResource matchResource : comparison.getMatchedResources()) {
+			matchResource.setLeft(null);
+			matchResource.setRight(null);
+			matchResource.setOrigin(null);
+		}
+		final Iterator<EObject> contents = comparison.eAllContents();
+		while (contents.hasNext()) {
+			final EObject next = contents.next();
+			if (next instanceof Match || next instanceof Diff) {
+				releaseReferences(next);
+			}
+			if (next instanceof FeatureMapChange) {
+				releaseEntry((FeatureMapChange)next);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the references of the given match or difference to the compared models by proxies.
+	 *
+	 * @param eObject
+	 *            A match or a difference.
+	 */
+	@SuppressWarnings("unchecked")
+	private void releaseReferences(EObject eObject) {
+		for (EReference reference : eObject.eClass().getEAllReferences()) {
+			if (reference.isContainment() || reference.isContainer() || reference.isDerived()
+					|| !reference.isChangeable()
+					|| reference.getEReferenceType().getEPackage() == ComparePackage.eINSTANCE) {
+				continue;
+			}
+			if (reference.isMany()) {
+				final InternalEList<EObject> values = (InternalEList<EObject>)eObject.eGet(reference, false);
+				for (int i = 0; i < values.size(); i++) {
+					final EObject value = values.basicGet(i);
+					if (isReleasable(value)) {
+						values.setUnique(i, getProxy(value));
+					}
+				}
+			} else {
+				final Object value = eObject.eGet(reference, false);
+				if (value instanceof EObject && isReleasable((EObject)value)) {
+					eObject.eSet(reference, getProxy((EObject)value));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the EObject value of the entry of the given feature map change by a proxy.
+	 *
+	 * @param diff
+	 *            The feature map change.
+	 */
+	private void releaseEntry(FeatureMapChange diff) {
+		if (diff.getValue() instanceof FeatureMap.Entry) {
+			final FeatureMap.Entry entry = (FeatureMap.Entry)diff.getValue();
+			if (entry.getValue() instanceof EObject && isReleasable((EObject)entry.getValue())) {
+				diff.setValue(FeatureMapUtil.createEntry(entry.getEStructuralFeature(),
+						getProxy((EObject)entry.getValue())));
+			}
+		}
+	}
+
+	/**
+	 * Checks whether the given EObject is part of the compared models.
+	 *
+	 * @param eObject
+	 *            Any EObject, may be <code>null</code>.
+	 * @return <code>true</code> if it is a loaded EObject of the compared models.
+	 */
+	private boolean isReleasable(EObject eObject) {
+		if (eObject == null || eObject.eIsProxy()) {
+			return false;
+		}
+		final Resource resource = eObject.eResource();
+		if (resource != null && (comparedNotifiers.contains(resource)
+				|| comparedNotifiers.contains(resource.getResourceSet()))) {
+			return true;
+		}
+		return comparedNotifiers.contains(EcoreUtil.getRootContainer(eObject));
+	}
+
+	/**
+	 * Returns the proxy replacing the given EObject, creating it if needed.
+	 *
+	 * @param eObject
+	 *            An EObject of the compared models.
+	 * @return The proxy replacing it.
+	 */
+	private EObject getProxy(EObject eObject) {
+		EObject proxy = proxies.get(eObject);
+		if (proxy == null) {
+			final URI uri = EcoreUtil.getURI(eObject);
+			proxy = EcoreUtil.create(eObject.eClass());
+			((InternalEObject)proxy).eSetProxyURI(uri);
+			proxies.put(eObject, proxy);
+		}
+		return proxy;
+	}
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Conflict;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.Equivalence;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.conflict.IConflictDetector2;
+import org.eclipse.emf.compare.diff.IDiffEngine2;
+import org.eclipse.emf.compare.equi.IEquiEngine2;
+import org.eclipse.emf.compare.req.IReqEngine2;
+import org.eclipse.emf.compare.utils.EqualityHelper;
+import org.eclipse.emf.compare.utils.IEqualityHelper;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+/**
+ * Updates an existing comparison after some of the compared EObjects have changed, without computing it
+ * anew.
+ * <p>
+ * Only the changes of non-containment features of matched EObjects can be handled this way: the matches of
+ * the comparison are kept as is and only the differences on the changed features of these matches are
+ * replaced. When the change of an attribute may have changed the URI fragment of an EObject, the references
+ * to this EObject and to its contents are checked again as well since they might be compared through their
+ * URIs. The requirements, equivalences and conflicts are then computed for the new differences and for the
+ * differences that were related to the replaced ones. Any other change (containment, resource content,
+ * unmatched EObject, identifier) might change the matches themselves and cannot be handled here.
+ * </p>
+ */
+public class ComparisonUpdater {
+	/** The engine used to compute the differences of the changed features. */
+	private final IDiffEngine2 diffEngine;
+
+	/** The engine used to compute the requirements of the impacted differences. */
+	private final IReqEngine2 reqEngine;
+
+	/** The engine used to compute the equivalences of the impacted differences. */
+	private final IEquiEngine2 equiEngine;
+
+	/** The detector used to compute the conflicts of the impacted differences, may be <code>null</code>. */
+	private final IConflictDetector2 conflictDetector;
+
+	/**
+	 * Creates an updater relying on the given engines.
+	 *
+	 * @param diffEngine
+	 *            The engine used to compute the differences of the changed features.
+	 * @param reqEngine
+	 *            The engine used to compute the requirements of the impacted differences.
+	 * @param equiEngine
+	 *            The engine used to compute the equivalences of the impacted differences.
+	 * @param conflictDetector
+	 *            The detector used to compute the conflicts of the impacted differences, <code>null</code> if
+	 *            conflicts should not be detected.
+	 */
+	public ComparisonUpdater(IDiffEngine2 diffEngine, IReqEngine2 reqEngine, IEquiEngine2 equiEngine,
+			IConflictDetector2 conflictDetector) {
+		this.diffEngine = diffEngine;
+		this.reqEngine = reqEngine;
+		this.equiEngine = equiEngine;
+		this.conflictDetector = conflictDetector;
+	}
+
+	/**
+	 * Computes the features of the given comparison's matches that need to be checked again after the given
+	 * changes.
+	 *
+	 * @param comparison
+	 *            The comparison to update.
+	 * @param changes
+	 *            The changes that occurred on the compared EObjects since the comparison was computed.
+	 * @return The features to check again for each impacted match, <code>null</code> if at least one of these
+	 *         changes cannot be handled without computing the whole comparison again.
+	 */
+	public SetMultimap<Match, EStructuralFeature> getImpactedFeatures(Comparison comparison,
+			Collection<? extends Notification> changes) {
+		final SetMultimap<Match, EStructuralFeature> impacted = LinkedHashMultimap.create();
+		final Set<EObject> renamed = Sets.newLinkedHashSet();
+		for (Notification change : changes) {
+			if (change.isTouch() || change.getEventType() == Notification.REMOVING_ADAPTER) {
+				continue;
+			}
+			final Object notifier = change.getNotifier();
+			final Object feature = change.getFeature();
+			if (!(notifier instanceof EObject) || !(feature instanceof EStructuralFeature)
+					|| isStructural((EStructuralFeature)feature)) {
+				return null;
+			}
+			final Match match = comparison.getMatch((EObject)notifier);
+			if (match == null) {
+				return null;
+			}
+			impacted.put(match, (EStructuralFeature)feature);
+			if (feature instanceof EAttribute && mayChangeURIFragment((EObject)notifier)) {
+				renamed.add((EObject)notifier);
+			}
+		}
+		if (!renamed.isEmpty()) {
+			addReferencingFeatures(comparison, renamed, impacted);
+		}
+		return impacted;
+	}
+
+	/**
+	 * Checks whether the URI fragment of the given EObject may depend on the value of its attributes, i.e.
+	 * if it is not the position of this EObject in its container or resource.
+	 *
+	 * @param eObject
+	 *            The EObject which attributes have changed.
+	 * @return <code>true</code> if the URI fragment of this EObject may have changed.
+	 */
+	private static boolean mayChangeURIFragment(EObject eObject) {
+		final InternalEObject container = (InternalEObject)eObject.eContainer();
+		if (container != null) {
+			final String segment = container.eURIFragmentSegment(eObject.eContainingFeature(), eObject);
+			return !segment.startsWith("@"); //$NON-NLS-1$
+		}
+		final Resource resource = eObject.eResource();
+		return resource != null && !resource.getURIFragment(eObject).startsWith("/"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Adds the non-containment features of the matched EObjects referencing one of the given EObjects or
+	 * their contents to the impacted features.
+	 *
+	 * @param comparison
+	 *            The comparison to update.
+	 * @param renamed
+	 *            The EObjects which URI fragment may have changed.
+	 * @param impacted
+	 *            The features to check again for each impacted match.
+	 */
+	private static void addReferencingFeatures(Comparison comparison, Set<EObject> renamed,
+			SetMultimap<Match, EStructuralFeature> impacted) {
+		final Set<EObject> targets = Sets.newLinkedHashSet();
+		final Set<Notifier> roots = Sets.newLinkedHashSet();
+		for (EObject eObject : renamed) {
+			targets.add(eObject);
+			Iterators.addAll(targets, eObject.eAllContents());
+			final Resource resource = eObject.eResource();
+			if (resource != null && resource.getResourceSet() != null) {
+				roots.add(resource.getResourceSet());
+			} else if (resource != null) {
+				roots.add(resource);
+			} else {
+				roots.add(EcoreUtil.getRootContainer(eObject));
+			}
+		}
+		for (Collection<EStructuralFeature.Setting> settings : EcoreUtil.UsageCrossReferencer
+				.findAll(targets, roots).values()) {
+			for (EStructuralFeature.Setting setting : settings) {
+				final EStructuralFeature feature = setting.getEStructuralFeature();
+				final Match match = comparison.getMatch(setting.getEObject());
+				if (match != null && !isStructural(feature)) {
+					impacted.put(match, feature);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the differences of the given features of the given matches, then updates the requirements,
+	 * equivalences and conflicts.
+	 *
+	 * @param comparison
+	 *            The comparison to update.
+	 * @param impacted
+	 *            The features to check again for each impacted match, as returned by
+	 *            {@link #getImpactedFeatures(Comparison, Collection)}.
+	 * @param monitor
+	 *            The monitor to report progress or to check for cancellation.
+	 */
+	public void update(Comparison comparison, SetMultimap<Match, EStructuralFeature> impacted,
+			Monitor monitor) {
+		final Set<Diff> obsolete = Sets.newLinkedHashSet();
+		for (Map.Entry<Match, Collection<EStructuralFeature>> entry : impacted.asMap().entrySet()) {
+			obsolete.addAll(getDifferences(entry.getKey(), entry.getValue()));
+		}
+
+		final Set<Diff> toRequire = Sets.newLinkedHashSet();
+		final Set<Diff> toEquivalence = Sets.newLinkedHashSet();
+		final Set<Diff> toConflict = Sets.newLinkedHashSet();
+		for (Diff diff : obsolete) {
+			toRequire.addAll(diff.getRequires());
+			toRequire.addAll(diff.getRequiredBy());
+			if (diff.getEquivalence() != null) {
+				toEquivalence.addAll(dissolve(comparison, diff.getEquivalence()));
+			}
+			if (diff.getConflict() != null) {
+				toConflict.addAll(dissolve(comparison, diff.getConflict()));
+			}
+		}
+		for (Diff diff : obsolete) {
+			remove(diff);
+		}
+		toRequire.removeAll(obsolete);
+		toEquivalence.removeAll(obsolete);
+		toConflict.removeAll(obsolete);
+
+		// Names and such might have changed, and with them the URIs of the changed EObjects
+		final IEqualityHelper equalityHelper = comparison.getEqualityHelper();
+		if (equalityHelper instanceof EqualityHelper) {
+			((EqualityHelper)equalityHelper).invalidateCache();
+		}
+
+		final List<Diff> created = Lists.newArrayList();
+		for (Map.Entry<Match, Collection<EStructuralFeature>> entry : impacted.asMap().entrySet()) {
+			diffEngine.diff(entry.getKey(), Sets.newHashSet(entry.getValue()), monitor);
+			created.addAll(getDifferences(entry.getKey(), entry.getValue()));
+		}
+
+		toRequire.addAll(created);
+		reqEngine.computeRequirements(comparison, toRequire, monitor);
+		toEquivalence.addAll(created);
+		equiEngine.computeEquivalences(comparison, toEquivalence, monitor);
+		if (conflictDetector != null && comparison.isThreeWay()) {
+			toConflict.addAll(created);
+			conflictDetector.detect(comparison, toConflict, monitor);
+		}
+	}
+
+	/**
+	 * Checks whether a change of the given feature can change the matches of a comparison.
+	 *
+	 * @param feature
+	 *            The changed feature.
+	 * @return <code>true</code> if changing this feature may require to match the EObjects again.
+	 */
+	private static boolean isStructural(EStructuralFeature feature) {
+		if (feature instanceof EReference) {
+			return ((EReference)feature).isContainment() || ((EReference)feature).isContainer();
+		}
+		return ((EAttribute)feature).isID() || FeatureMapUtil.isFeatureMap(feature);
+	}
+
+	/**
+	 * Returns the differences of the given match which are on one of the given features.
+	 *
+	 * @param match
+	 *            The match which differences we need.
+	 * @param features
+	 *            The features we're interested in.
+	 * @return The differences of this match on these features.
+	 */
+	private static List<Diff> getDifferences(Match match, Collection<EStructuralFeature> features) {
+		final List<Diff> result = Lists.newArrayList();
+		for (Diff diff : match.getDifferences()) {
+			final EStructuralFeature feature;
+			if (diff instanceof AttributeChange) {
+				feature = ((AttributeChange)diff).getAttribute();
+			} else if (diff instanceof ReferenceChange) {
+				feature = ((ReferenceChange)diff).getReference();
+			} else if (diff instanceof FeatureMapChange) {
+				feature = ((FeatureMapChange)diff).getAttribute();
+			} else {
+				feature = null;
+			}
+			if (feature != null && features.contains(feature)) {
+				result.add(diff);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the given equivalence from the comparison.
+	 *
+	 * @param comparison
+	 *            The comparison holding that equivalence.
+	 * @param equivalence
+	 *            The equivalence to remove.
+	 * @return The differences that were equivalent.
+	 */
+	private static List<Diff> dissolve(Comparison comparison, Equivalence equivalence) {
+		final List<Diff> differences = Lists.newArrayList(equivalence.getDifferences());
+		equivalence.getDifferences().clear();
+		comparison.getEquivalences().remove(equivalence);
+		return differences;
+	}
+
+	/**
+	 * Removes the given conflict from the comparison.
+	 *
+	 * @param comparison
+	 *            The comparison holding that conflict.
+	 * @param conflict
+	 *            The conflict to remove.
+	 * @return The differences that were in conflict.
+	 */
+	private static List<Diff> dissolve(Comparison comparison, Conflict conflict) {
+		final List<Diff> differences = Lists.newArrayList(conflict.getDifferences());
+		conflict.getDifferences().clear();
+		comparison.getConflicts().remove(conflict);
+		return differences;
+	}
+
+	/**
+	 * Removes the given difference from its match, along with all of its relations to other differences.
+	 *
+	 * @param diff
+	 *            The difference to remove.
+	 */
+	private static void remove(Diff diff) {
+		diff.getRequires().clear();
+		diff.getRequiredBy().clear();
+		diff.getImplies().clear();
+		diff.getImpliedBy().clear();
+		diff.getRefines().clear();
+		diff.getRefinedBy().clear();
+		diff.getMatch().getDifferences().remove(diff);
+	}
+}
@@ -0,0 +1,419 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.DifferenceState;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.utils.MatchUtil;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Secondary index of the differences of a comparison, by kind, source, state, structural feature and value.
+ * <p>
+ * Each of these attributes has its own postings: the set of the indexed differences per value of the
+ * attribute. The feature and value of a difference are the ones returned by
+ * {@link MatchUtil#getStructuralFeature(Diff)} and {@link MatchUtil#getValue(Diff)}, or the attribute and
+ * value of a {@link FeatureMapChange}; the differences which have none are not posted for this attribute.
+ * The index is kept up to date by the diff cross referencer of the comparison, which tells it about the
+ * added and removed differences and the notifications of the indexed ones. It is queried through
+ * {@link DiffQuery}.
+ * </p>
+ * <p>
+ * This class is not thread safe, just like the cross referencer which maintains it.
+ * </p>
+ */
+public final class DiffIndex {
+	/** The features of the differences which value is indexed. */
+	private static final Set<EStructuralFeature> INDEXED_FEATURES = ImmutableSet.<EStructuralFeature> of(
+			ComparePackage.Literals.DIFF__KIND, ComparePackage.Literals.DIFF__SOURCE,
+			ComparePackage.Literals.DIFF__STATE, ComparePackage.Literals.ATTRIBUTE_CHANGE__ATTRIBUTE,
+			ComparePackage.Literals.ATTRIBUTE_CHANGE__VALUE,
+			ComparePackage.Literals.REFERENCE_CHANGE__REFERENCE,
+			ComparePackage.Literals.REFERENCE_CHANGE__VALUE,
+			ComparePackage.Literals.FEATURE_MAP_CHANGE__ATTRIBUTE,
+			ComparePackage.Literals.FEATURE_MAP_CHANGE__VALUE);
+
+	/** The entries of the indexed differences. */
+	private final Map<Diff, Entry> entries;
+
+	/** The differences by kind. */
+	private final Map<DifferenceKind, Set<Diff>> byKind;
+
+	/** The differences by source. */
+	private final Map<DifferenceSource, Set<Diff>> bySource;
+
+	/** The differences by state. */
+	private final Map<DifferenceState, Set<Diff>> byState;
+
+	/** The differences by structural feature. */
+	private final Map<EStructuralFeature, Set<Diff>> byFeature;
+
+	/** The differences by value. */
+	private final Map<Object, Set<Diff>> byValue;
+
+	/** The sequence number of the next indexed difference. */
+	private long nextSequence;
+
+	/**
+	 * Creates an empty index.
+	 */
+	public DiffIndex() {
+		this.entries = Maps.newHashMap();
+		this.byKind = Maps.newEnumMap(DifferenceKind.class);
+		this.bySource = Maps.newEnumMap(DifferenceSource.class);
+		this.byState = Maps.newEnumMap(DifferenceState.class);
+		this.byFeature = Maps.newHashMap();
+		this.byValue = Maps.newHashMap();
+	}
+
+	/**
+	 * Creates an index of the given differences, which will not be kept up to date.
+	 *
+	 * @param differences
+	 *            The differences to index.
+	 * @return The index.
+	 */
+	public static DiffIndex of(Iterable<? extends Diff> differences) {
+		final DiffIndex index = new DiffIndex();
+		for (Diff diff : differences) {
+			index.add(diff);
+		}
+		return index;
+	}
+
+	/**
+	 * Indexes the given difference, if it is not indexed yet.
+	 *
+	 * @param diff
+	 *            The difference.
+	 */
+	public void add(Diff diff) {
+		if (!entries.containsKey(diff)) {
+			final Entry entry = new Entry(nextSequence++);
+			entry.read(diff);
+			entries.put(diff, entry);
+			post(byKind, entry.kind, diff);
+			post(bySource, entry.source, diff);
+			post(byState, entry.state, diff);
+			post(byFeature, entry.feature, diff);
+			post(byValue, entry.value, diff);
+		}
+	}
+
+	/**
+	 * Removes the given difference from the index, if it is indexed.
+	 *
+	 * @param diff
+	 *            The difference.
+	 */
+	public void remove(Diff diff) {
+		final Entry entry = entries.remove(diff);
+		if (entry != null) {
+			unpost(byKind, entry.kind, diff);
+			unpost(bySource, entry.source, diff);
+			unpost(byState, entry.state, diff);
+			unpost(byFeature, entry.feature, diff);
+			unpost(byValue, entry.value, diff);
+		}
+	}
+
+	/**
+	 * Updates the postings of an indexed difference after it has been modified.
+	 *
+	 * @param notification
+	 *            A notification sent by a difference, or any other object.
+	 */
+	public void notifyChanged(Notification notification) {
+		final Object notifier = notification.getNotifier();
+		if (notifier instanceof Diff && !notification.isTouch()
+				&& INDEXED_FEATURES.contains(notification.getFeature())) {
+			final Diff diff = (Diff)notifier;
+			final Entry entry = entries.get(diff);
+			if (entry != null) {
+				final Entry old = new Entry(entry.sequence);
+				old.copy(entry);
+				entry.read(diff);
+				repost(byKind, old.kind, entry.kind, diff);
+				repost(bySource, old.source, entry.source, diff);
+				repost(byState, old.state, entry.state, diff);
+				repost(byFeature, old.feature, entry.feature, diff);
+				repost(byValue, old.value, entry.value, diff);
+			}
+		}
+	}
+
+	/**
+	 * Returns all indexed differences.
+	 *
+	 * @return An unmodifiable view of the indexed differences.
+	 */
+	Set<Diff> getAll() {
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * Returns the differences of the given kind.
+	 *
+	 * @param kind
+	 *            The kind.
+	 * @return An unmodifiable view of the differences of this kind.
+	 */
+	Set<Diff> getByKind(DifferenceKind kind) {
+		return get(byKind, kind);
+	}
+
+	/**
+	 * Returns the differences from the given source.
+	 *
+	 * @param source
+	 *            The source.
+	 * @return An unmodifiable view of the differences from this source.
+	 */
+	Set<Diff> getBySource(DifferenceSource source) {
+		return get(bySource, source);
+	}
+
+	/**
+	 * Returns the differences in the given state.
+	 *
+	 * @param state
+	 *            The state.
+	 * @return An unmodifiable view of the differences in this state.
+	 */
+	Set<Diff> getByState(DifferenceState state) {
+		return get(byState, state);
+	}
+
+	/**
+	 * Returns the differences on the given structural feature.
+	 *
+	 * @param feature
+	 *            The structural feature.
+	 * @return An unmodifiable view of the differences on this feature.
+	 */
+	Set<Diff> getByFeature(EStructuralFeature feature) {
+		return get(byFeature, feature);
+	}
+
+	/**
+	 * Returns the differences which value is equal to the given one.
+	 *
+	 * @param value
+	 *            The value.
+	 * @return An unmodifiable view of the differences with this value.
+	 */
+	Set<Diff> getByValue(Object value) {
+		return get(byValue, value);
+	}
+
+	/**
+	 * Returns the sequence number of the given difference, which orders the differences by time of indexing.
+	 *
+	 * @param diff
+	 *            An indexed difference.
+	 * @return Its sequence number.
+	 */
+	long getSequence(Diff diff) {
+		return entries.get(diff).sequence;
+	}
+
+	/**
+	 * Returns the structural feature under which the given difference is indexed.
+	 *
+	 * @param diff
+	 *            The difference.
+	 * @return The attribute of a feature map change, the feature returned by
+	 *         {@link MatchUtil#getStructuralFeature(Diff)} otherwise.
+	 */
+	static EStructuralFeature getStructuralFeature(Diff diff) {
+		if (diff instanceof FeatureMapChange) {
+			return ((FeatureMapChange)diff).getAttribute();
+		}
+		return MatchUtil.getStructuralFeature(diff);
+	}
+
+	/**
+	 * Returns the value under which the given difference is indexed.
+	 *
+	 * @param diff
+	 *            The difference.
+	 * @return The value of a feature map change, the value returned by {@link MatchUtil#getValue(Diff)}
+	 *         otherwise.
+	 */
+	static Object getValue(Diff diff) {
+		if (diff instanceof FeatureMapChange) {
+			return ((FeatureMapChange)diff).getValue();
+		}
+		return MatchUtil.getValue(diff);
+	}
+
+	/**
+	 * Returns the postings of the given key.
+	 *
+	 * @param postings
+	 *            The postings of an attribute.
+	 * @param key
+	 *            The value of the attribute.
+	 * @return An unmodifiable view of the differences posted for this key.
+	 * @param <K>
+	 *            The type of the attribute.
+	 */
+	private static <K> Set<Diff> get(Map<K, Set<Diff>> postings, K key) {
+		final Set<Diff> diffs = postings.get(key);
+		if (diffs == null) {
+			return Collections.emptySet();
+		}
+		return Collections.unmodifiableSet(diffs);
+	}
+
+	/**
+	 * Posts a difference for the given key.
+	 *
+	 * @param postings
+	 *            The postings of an attribute.
+	 * @param key
+	 *            The value of the attribute for the difference, <code>null</code> to not post it.
+	 * @param diff
+	 *            The difference.
+	 * @param <K>
+	 *            The type of the attribute.
+	 */
+	private static <K> void post(Map<K, Set<Diff>> postings, K key, Diff diff) {
+		if (key != null) {
+			Set<Diff> diffs = postings.get(key);
+			if (diffs == null) {
+				diffs = Sets.newHashSet();
+				postings.put(key, diffs);
+			}
+			diffs.add(diff);
+		}
+	}
+
+	/**
+	 * Removes a difference from the postings of the given key.
+	 *
+	 * @param postings
+	 *            The postings of an attribute.
+	 * @param key
+	 *            The value of the attribute for the difference, <code>null</code> if it is not posted.
+	 * @param diff
+	 *            The difference.
+	 * @param <K>
+	 *            The type of the attribute.
+	 */
+	private static <K> void unpost(Map<K, Set<Diff>> postings, K key, Diff diff) {
+		if (key != null) {
+			final Set<Diff> diffs = postings.get(key);
+			if (diffs != null) {
+				diffs.remove(diff);
+				if (diffs.isEmpty()) {
+					postings.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves a difference from the postings of its former key to those of its new key, if they differ.
+	 *
+	 * @param postings
+	 *            The postings of an attribute.
+	 * @param oldKey
+	 *            The former value of the attribute for the difference.
+	 * @param newKey
+	 *            The new value of the attribute for the difference.
+	 * @param diff
+	 *            The difference.
+	 * @param <K>
+	 *            The type of the attribute.
+	 */
+	private static <K> void repost(Map<K, Set<Diff>> postings, K oldKey, K newKey, Diff diff) {
+		if (!Objects.equal(oldKey, newKey)) {
+			unpost(postings, oldKey, diff);
+			post(postings, newKey, diff);
+		}
+	}
+
+	/**
+	 * The keys under which a difference is posted.
+	 */
+	private static final class Entry {
+		/** The sequence number of the difference. */
+		private final long sequence;
+
+		/** The kind of the difference. */
+		private DifferenceKind kind;
+
+		/** The source of the difference. */
+		private DifferenceSource source;
+
+		/** The state of the difference. */
+		private DifferenceState state;
+
+		/** The structural feature of the difference. */
+		private EStructuralFeature feature;
+
+		/** The value of the difference. */
+		private Object value;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param sequence
+		 *            The sequence number of the difference.
+		 */
+		Entry(long sequence) {
+			this.sequence = sequence;
+		}
+
+		/**
+		 * Reads the keys of the given difference.
+		 *
+		 * @param diff
+		 *            The difference.
+		 */
+		void read(Diff diff) {
+			kind = diff.getKind();
+			source = diff.getSource();
+			state = diff.getState();
+			feature = getStructuralFeature(diff);
+			value = getValue(diff);
+		}
+
+		/**
+		 * Copies the keys of the given entry.
+		 *
+		 * @param other
+		 *            The entry to copy.
+		 */
+		void copy(Entry other) {
+			kind = other.kind;
+			source = other.source;
+			state = other.state;
+			feature = other.feature;
+			value = other.value;
+		}
+	}
+}
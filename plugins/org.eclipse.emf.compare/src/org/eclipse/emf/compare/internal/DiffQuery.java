@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.DifferenceKind;
+import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.DifferenceState;
+import org.eclipse.emf.compare.FeatureMapChange;
+import org.eclipse.emf.compare.utils.MatchUtil;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * A query on the differences of a comparison, answered by a {@link DiffIndex}.
+ * <p>
+ * The criteria are combined with a logical and, for instance
+ * <code>queryDiffs().ofKind(ADD).fromSource(LEFT).onFeature(feature).list()</code> returns the differences
+ * adding values to the given feature on the left side. The query starts from the smallest postings of its
+ * criteria and checks the others on each of these differences, so that it costs in proportion to the size
+ * of these postings rather than to the number of differences.
+ * </p>
+ */
+public final class DiffQuery {
+	/** The index answering this query. */
+	private final DiffIndex index;
+
+	/** Orders the differences by time of indexing. */
+	private final Comparator<Diff> bySequence = new Comparator<Diff>() {
+		public int compare(Diff o1, Diff o2) {
+			return Long.compare(index.getSequence(o1), index.getSequence(o2));
+		}
+	};
+
+	/** The accepted kinds, <code>null</code> for any. */
+	private Set<DifferenceKind> kinds;
+
+	/** The accepted source, <code>null</code> for any. */
+	private DifferenceSource source;
+
+	/** The accepted states, <code>null</code> for any. */
+	private Set<DifferenceState> states;
+
+	/** The accepted structural feature, <code>null</code> for any. */
+	private EStructuralFeature feature;
+
+	/** The accepted value, <code>null</code> for any. */
+	private Object value;
+
+	/** Whether two criteria on the same attribute contradict each other, so that nothing is accepted. */
+	private boolean contradictory;
+
+	/**
+	 * Creates a query accepting any difference of the given index.
+	 *
+	 * @param index
+	 *            The index answering this query.
+	 */
+	public DiffQuery(DiffIndex index) {
+		this.index = checkNotNull(index);
+	}
+
+	/**
+	 * Only accepts the differences of the given kinds.
+	 *
+	 * @param first
+	 *            An accepted kind.
+	 * @param others
+	 *            The other accepted kinds.
+	 * @return This query.
+	 */
+	public DiffQuery ofKind(DifferenceKind first, DifferenceKind... others) {
+		final Set<DifferenceKind> accepted = EnumSet.of(first, others);
+		if (kinds != null) {
+			accepted.retainAll(kinds);
+		}
+		kinds = accepted;
+		return this;
+	}
+
+	/**
+	 * Only accepts the differences from the given side.
+	 *
+	 * @param side
+	 *            The accepted source.
+	 * @return This query.
+	 */
+	public DiffQuery fromSource(DifferenceSource side) {
+		checkNotNull(side);
+		if (source != null && source != side) {
+			contradictory = true;
+		}
+		source = side;
+		return this;
+	}
+
+	/**
+	 * Only accepts the differences in the given states.
+	 *
+	 * @param first
+	 *            An accepted state.
+	 * @param others
+	 *            The other accepted states.
+	 * @return This query.
+	 */
+	public DiffQuery withState(DifferenceState first, DifferenceState... others) {
+		final Set<DifferenceState> accepted = EnumSet.of(first, others);
+		if (states != null) {
+			accepted.retainAll(states);
+		}
+		states = accepted;
+		return this;
+	}
+
+	/**
+	 * Only accepts the differences on the given structural feature, as returned by
+	 * {@link MatchUtil#getStructuralFeature(Diff)}, or the attribute of a {@link FeatureMapChange}.
+	 *
+	 * @param structuralFeature
+	 *            The accepted feature.
+	 * @return This query.
+	 */
+	public DiffQuery onFeature(EStructuralFeature structuralFeature) {
+		checkNotNull(structuralFeature);
+		if (feature != null && feature != structuralFeature) {
+			contradictory = true;
+		}
+		feature = structuralFeature;
+		return this;
+	}
+
+	/**
+	 * Only accepts the differences which value, as returned by {@link MatchUtil#getValue(Diff)} or by
+	 * {@link FeatureMapChange#getValue()}, is equal to the given one. Unlike
+	 * {@link org.eclipse.emf.compare.utils.EMFComparePredicates#valueIs(Object)}, the values of different
+	 * sides are not matched: an {@link org.eclipse.emf.ecore.EObject} value is only equal to itself.
+	 *
+	 * @param expectedValue
+	 *            The accepted value.
+	 * @return This query.
+	 */
+	public DiffQuery withValue(Object expectedValue) {
+		checkNotNull(expectedValue);
+		if (value != null && !value.equals(expectedValue)) {
+			contradictory = true;
+		}
+		value = expectedValue;
+		return this;
+	}
+
+	/**
+	 * Returns the differences accepted by all criteria of this query.
+	 *
+	 * @return A new list of the accepted differences, in the order in which they were indexed.
+	 */
+	public List<Diff> list() {
+		final Collection<Diff> candidates = getSmallestPostings();
+		final List<Diff> result = Lists.newArrayListWithCapacity(candidates.size());
+		for (Diff diff : candidates) {
+			if (accepts(diff)) {
+				result.add(diff);
+			}
+		}
+		Collections.sort(result, bySequence);
+		return result;
+	}
+
+	/**
+	 * Checks whether any difference is accepted by all criteria of this query.
+	 *
+	 * @return <code>true</code> if no difference is accepted.
+	 */
+	public boolean isEmpty() {
+		for (Diff diff : getSmallestPostings()) {
+			if (accepts(diff)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the smallest postings of the criteria of this query, which contains all accepted differences.
+	 *
+	 * @return The candidate differences.
+	 */
+	private Collection<Diff> getSmallestPostings() {
+		if (contradictory) {
+			return Collections.emptySet();
+		}
+		Collection<Diff> smallest = index.getAll();
+		if (kinds != null) {
+			smallest = smallest(smallest, union(kinds, true));
+		}
+		if (states != null) {
+			smallest = smallest(smallest, union(states, false));
+		}
+		if (source != null) {
+			smallest = smallest(smallest, index.getBySource(source));
+		}
+		if (feature != null) {
+			smallest = smallest(smallest, index.getByFeature(feature));
+		}
+		if (value != null) {
+			smallest = smallest(smallest, index.getByValue(value));
+		}
+		return smallest;
+	}
+
+	/**
+	 * Returns the union of the postings of the given kinds or states.
+	 *
+	 * @param keys
+	 *            The kinds or states.
+	 * @param ofKinds
+	 *            <code>true</code> if the keys are kinds, <code>false</code> if they are states.
+	 * @return The union of their postings.
+	 */
+	private Collection<Diff> union(Set<? extends Enum<?>> keys, boolean ofKinds) {
+		Collection<Diff> result = null;
+		for (Enum<?> key : keys) {
+			final Set<Diff> postings;
+			if (ofKinds) {
+				postings = index.getByKind((DifferenceKind)key);
+			} else {
+				postings = index.getByState((DifferenceState)key);
+			}
+			if (result == null) {
+				result = postings;
+			} else if (!postings.isEmpty()) {
+				// The postings of different keys are disjoint
+				final Set<Diff> merged = Sets.newHashSetWithExpectedSize(result.size() + postings.size());
+				merged.addAll(result);
+				merged.addAll(postings);
+				result = merged;
+			}
+		}
+		if (result == null) {
+			return Collections.emptySet();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the smallest of the given collections.
+	 *
+	 * @param first
+	 *            A collection.
+	 * @param second
+	 *            Another collection.
+	 * @return The collection with the fewest elements, the first one if they have as many.
+	 */
+	private static Collection<Diff> smallest(Collection<Diff> first, Collection<Diff> second) {
+		if (second.size() < first.size()) {
+			return second;
+		}
+		return first;
+	}
+
+	/**
+	 * Checks whether the given difference is accepted by all criteria of this query.
+	 *
+	 * @param diff
+	 *            The difference.
+	 * @return <code>true</code> if it is accepted.
+	 */
+	private boolean accepts(Diff diff) {
+		return (kinds == null || kinds.contains(diff.getKind()))
+				&& (states == null || states.contains(diff.getState()))
+				&& (source == null || source == diff.getSource())
+				&& (feature == null || feature == DiffIndex.getStructuralFeature(diff))
+				&& (value == null || Objects.equal(value, DiffIndex.getValue(diff)));
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Obeo.
+ * Copyright (c) 2016, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -68,6 +68,9 @@ public abstract class AbstractConflictSearch<T extends Diff> {
 	/** The monitor to report progress to. */
 	protected final Monitor monitor;
 
+	/** The union recording the conflicts, <code>null</code> to create the conflicts right away. */
+	private ConflictUnion conflictUnion;
+
 	/**
 	 * Constructor.
 	 * 
@@ -98,6 +101,38 @@ public abstract class AbstractConflictSearch<T extends Diff> {
 	 */
 	public abstract void detectConflicts();
 
+	/**
+	 * Makes this search record the conflicts it detects in the given union instead of creating them in the
+	 * comparison.
+	 * 
+	 * @param union
+	 *            The union recording the conflicts, <code>null</code> to create the conflicts right away.
+	 */
+	void setConflictUnion(ConflictUnion union) {
+		this.conflictUnion = union;
+	}
+
+	/**
+	 * Runs {@link #detectDeferredConflicts()}, the part of the detection which depends on the conflicts
+	 * found by the other searches. If this search records its conflicts in a {@link ConflictUnion}, the other
+	 * searches may still be running: that part is then deferred until all of them are over.
+	 */
+	protected void deferConflictDetection() {
+		if (conflictUnion != null) {
+			conflictUnion.defer(this);
+		} else {
+			detectDeferredConflicts();
+		}
+	}
+
+	/**
+	 * Detects the conflicts which depend on the conflicts found by the other searches. This is called through
+	 * {@link #deferConflictDetection()}, and does nothing by default.
+	 */
+	protected void detectDeferredConflicts() {
+		// Nothing to defer by default
+	}
+
 	/**
 	 * Get the diffs in the same {@link Match} as diff.
 	 * 
@@ -228,9 +263,31 @@ public abstract class AbstractConflictSearch<T extends Diff> {
 		return changedValue;
 	}
 
+	/**
+	 * Returns the kind of the conflict the given difference is part of so far. If this search records its
+	 * conflicts in a {@link ConflictUnion}, the difference has no conflict yet in the comparison and the kind
+	 * is the one of the pairs recorded in the union at the time of the call: this should only be called from
+	 * {@link #detectDeferredConflicts()} so that it does not depend on the scheduling of the searches.
+	 * 
+	 * @param aDiff
+	 *            A difference of the comparison.
+	 * @return The kind of its conflict, <code>null</code> if it is not conflicting so far.
+	 */
+	protected ConflictKind getConflictKind(Diff aDiff) {
+		if (conflictUnion != null) {
+			return conflictUnion.getKind(aDiff);
+		}
+		final Conflict conflict = aDiff.getConflict();
+		if (conflict == null) {
+			return null;
+		}
+		return conflict.getKind();
+	}
+
 	/**
 	 * This will be called whenever we detect a new conflict in order to create (or update) the actual
-	 * association.
+	 * association. If this search records its conflicts in a {@link ConflictUnion}, the association is only
+	 * recorded there and the comparison is left untouched.
 	 * 
 	 * @param other
 	 *            Second of the two differences for which we detected a conflict.
@@ -238,6 +295,10 @@ public abstract class AbstractConflictSearch<T extends Diff> {
 	 *            Kind of this conflict.
 	 */
 	protected void conflict(Diff other, ConflictKind kind) {
+		if (conflictUnion != null) {
+			conflictUnion.union(diff, other, kind);
+			return;
+		}
 		// Pre-condition: diff and other are not already part of the same conflict
 		if (diff.getConflict() != null && diff.getConflict().getDifferences().contains(other)) {
 			return;
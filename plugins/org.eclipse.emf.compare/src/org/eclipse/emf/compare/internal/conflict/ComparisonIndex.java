@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Obeo.
+ * Copyright (c) 2016, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,11 +10,11 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.internal.conflict;
 
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
-
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.emf.common.util.Monitor;
 import org.eclipse.emf.common.util.URI;
@@ -27,21 +27,44 @@ import org.eclipse.emf.ecore.util.EcoreUtil;
 
 /**
  * Index of diffs in a comparison.
+ * <p>
+ * The reference changes are indexed by the match of their value, or by the URI of their value if it has no
+ * match. Each of these keys is given a dense integer identifier, and the reference changes are stored in a
+ * single array grouped by key, in compressed sparse row fashion: the reference changes of the key
+ * <code>k</code> are stored between <code>offsets[k]</code> included and <code>offsets[k + 1]</code>
+ * excluded, in the order of the differences of the comparison. The identifiers of the keys are found through
+ * an open addressing hash table of plain integers. The index thus only holds a handful of arrays whatever
+ * the number of differences, instead of a map entry and a collection per key. It is never modified once
+ * built and can be queried concurrently.
+ * </p>
  * 
  * @author <a href="mailto:laurent.delaigue@obeo.fr">Laurent Delaigue</a>
  */
 public final class ComparisonIndex {
 
-	/**
-	 * Index of reference changes by their target.
-	 */
-	private final Multimap<Object, ReferenceChange> refChangeIndex;
+	/** Marks the free slots of {@link #table}. */
+	private static final int FREE = -1;
 
 	/**
 	 * The indexed comparison.
 	 */
 	private final Comparison comparison;
 
+	/** The keys of the index, either {@link Match}es or {@link URI}s, by identifier. */
+	private Object[] keys;
+
+	/** The number of distinct keys. */
+	private int keyCount;
+
+	/** Open addressing hash table of the identifiers of the keys, {@link #FREE} for the empty slots. */
+	private int[] table;
+
+	/** The start of the reference changes of each key in {@link #values}, plus the total count at the end. */
+	private int[] offsets;
+
+	/** The reference changes, grouped by key. */
+	private ReferenceChange[] values;
+
 	/**
 	 * Constructor.
 	 * 
@@ -50,7 +73,6 @@ public final class ComparisonIndex {
 	 */
 	private ComparisonIndex(Comparison comparison) {
 		this.comparison = comparison;
-		refChangeIndex = LinkedHashMultimap.create();
 		index();
 	}
 
@@ -74,19 +96,130 @@ public final class ComparisonIndex {
 	 * Actually computes the index.
 	 */
 	private void index() {
-		for (Diff diff : comparison.getDifferences()) {
+		final List<Diff> differences = comparison.getDifferences();
+		int refChangeCount = 0;
+		for (Diff diff : differences) {
+			if (diff instanceof ReferenceChange) {
+				refChangeCount++;
+			}
+		}
+
+		keys = new Object[refChangeCount];
+		table = new int[tableSize(refChangeCount)];
+		Arrays.fill(table, FREE);
+		final ReferenceChange[] refChanges = new ReferenceChange[refChangeCount];
+		final int[] keyIds = new int[refChangeCount];
+		final int[] counts = new int[refChangeCount];
+		int position = 0;
+		for (Diff diff : differences) {
 			if (diff instanceof ReferenceChange) {
 				final EObject value = ((ReferenceChange)diff).getValue();
 				Match match = comparison.getMatch(value);
+				final int keyId;
 				if (match != null) {
-					refChangeIndex.put(match, (ReferenceChange)diff);
+					keyId = idOf(match, true);
 				} else {
-					refChangeIndex.put(EcoreUtil.getURI(value), (ReferenceChange)diff);
+					keyId = idOf(EcoreUtil.getURI(value), true);
 				}
-			} else {
-				continue;
+				refChanges[position] = (ReferenceChange)diff;
+				keyIds[position] = keyId;
+				counts[keyId]++;
+				position++;
+			}
+		}
+
+		offsets = new int[keyCount + 1];
+		for (int i = 0; i < keyCount; i++) {
+			offsets[i + 1] = offsets[i] + counts[i];
+		}
+		values = new ReferenceChange[refChangeCount];
+		// Reuse the counts as the next free position of each key
+		System.arraycopy(offsets, 0, counts, 0, keyCount);
+		for (int i = 0; i < refChangeCount; i++) {
+			values[counts[keyIds[i]]++] = refChanges[i];
+		}
+		if (keyCount < keys.length) {
+			final Object[] trimmed = new Object[keyCount];
+			System.arraycopy(keys, 0, trimmed, 0, keyCount);
+			keys = trimmed;
+		}
+	}
+
+	/**
+	 * Computes the size of the hash table for the given number of keys, a power of two keeping the load
+	 * factor at most one half.
+	 * 
+	 * @param expectedKeys
+	 *            The maximum number of keys.
+	 * @return The size of the table.
+	 */
+	private static int tableSize(int expectedKeys) {
+		int size = 2;
+		while (size < expectedKeys * 2) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the identifier of the given key.
+	 * 
+	 * @param key
+	 *            A Match or URI, may be <code>null</code>.
+	 * @param create
+	 *            Whether to give an identifier to the key if it does not have one yet.
+	 * @return The identifier of the key, or {@link #FREE} if it is unknown and <code>create</code> is
+	 *         <code>false</code>.
+	 */
+	private int idOf(Object key, boolean create) {
+		if (key == null) {
+			return FREE;
+		}
+		final int mask = table.length - 1;
+		int slot = spread(key.hashCode()) & mask;
+		while (table[slot] != FREE) {
+			final int id = table[slot];
+			if (keys[id].equals(key)) {
+				return id;
 			}
+			slot = (slot + 1) & mask;
+		}
+		if (!create) {
+			return FREE;
 		}
+		final int id = keyCount++;
+		keys[id] = key;
+		table[slot] = id;
+		return id;
+	}
+
+	/**
+	 * Spreads the bits of the given hash code so that the low bits used to find a slot depend on all of
+	 * them.
+	 * 
+	 * @param hashCode
+	 *            A hash code.
+	 * @return The spread hash code.
+	 */
+	private static int spread(int hashCode) {
+		final int h = hashCode * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the reference changes of the given key.
+	 * 
+	 * @param key
+	 *            A Match or URI, may be <code>null</code>.
+	 * @return A never null, unmodifiable list of the reference changes of the key, or <code>null</code> if
+	 *         the key is unknown.
+	 */
+	private List<ReferenceChange> get(Object key) {
+		final int id = idOf(key, false);
+		if (id == FREE) {
+			return null;
+		}
+		return new ValueList(offsets[id], offsets[id + 1]);
 	}
 
 	/**
@@ -99,8 +232,9 @@ public final class ComparisonIndex {
 	 */
 	public Collection<ReferenceChange> getReferenceChangesByValue(EObject value) {
 		Match match = comparison.getMatch(value);
-		if (refChangeIndex.containsKey(match)) {
-			return refChangeIndex.get(match);
+		final List<ReferenceChange> refChanges = get(match);
+		if (refChanges != null) {
+			return refChanges;
 		}
 		return getReferenceChangesByValueURI(EcoreUtil.getURI(value));
 	}
@@ -113,8 +247,9 @@ public final class ComparisonIndex {
 	 * @return A never null collection of {@link ReferenceChange}s whose value in the given match.
 	 */
 	public Collection<ReferenceChange> getReferenceChangesByValueMatch(Match valueMatch) {
-		if (refChangeIndex.containsKey(valueMatch)) {
-			return refChangeIndex.get(valueMatch);
+		final List<ReferenceChange> refChanges = get(valueMatch);
+		if (refChanges != null) {
+			return refChanges;
 		}
 		return Collections.emptyList();
 	}
@@ -129,9 +264,47 @@ public final class ComparisonIndex {
 	 *         URI
 	 */
 	public Collection<ReferenceChange> getReferenceChangesByValueURI(URI valueURI) {
-		if (refChangeIndex.containsKey(valueURI)) {
-			return refChangeIndex.get(valueURI);
+		final List<ReferenceChange> refChanges = get(valueURI);
+		if (refChanges != null) {
+			return refChanges;
 		}
 		return Collections.emptyList();
 	}
+
+	/**
+	 * Unmodifiable view of a range of {@link ComparisonIndex#values}.
+	 */
+	private final class ValueList extends AbstractList<ReferenceChange> {
+		/** The start of the range, included. */
+		private final int from;
+
+		/** The end of the range, excluded. */
+		private final int to;
+
+		/**
+		 * Creates a view of the given range.
+		 * 
+		 * @param from
+		 *            The start of the range, included.
+		 * @param to
+		 *            The end of the range, excluded.
+		 */
+		ValueList(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public ReferenceChange get(int index) {
+			if (index < 0 || index >= to - from) {
+				throw new IndexOutOfBoundsException(String.valueOf(index));
+			}
+			return values[from + index];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
 }
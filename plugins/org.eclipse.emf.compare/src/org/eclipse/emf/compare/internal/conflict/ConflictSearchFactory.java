@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Obeo.
+ * Copyright (c) 2016, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,7 @@ import org.eclipse.emf.compare.FeatureMapChange;
 import org.eclipse.emf.compare.ReferenceChange;
 import org.eclipse.emf.compare.ResourceAttachmentChange;
 import org.eclipse.emf.compare.util.CompareSwitch;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
 
 /**
@@ -39,6 +40,12 @@ public class ConflictSearchFactory extends CompareSwitch<AbstractConflictSearch<
 	 */
 	private final Monitor monitor;
 
+	/**
+	 * The union in which the searches instantiated by this factory record their conflicts, may be
+	 * <code>null</code>.
+	 */
+	private final ConflictUnion conflictUnion;
+
 	/**
 	 * Constructor.
 	 * 
@@ -48,11 +55,37 @@ public class ConflictSearchFactory extends CompareSwitch<AbstractConflictSearch<
 	 *            The progress monitor
 	 */
 	public ConflictSearchFactory(Comparison comparison, Monitor monitor) {
+		this(comparison, monitor, null);
+	}
+
+	/**
+	 * Constructor of a factory which searches record their conflicts in the given union rather than in the
+	 * comparison. Such a factory and its searches only read the comparison, they can be used concurrently.
+	 * 
+	 * @param comparison
+	 *            The comparison
+	 * @param monitor
+	 *            The progress monitor
+	 * @param conflictUnion
+	 *            The union recording the conflicts, <code>null</code> to create the conflicts in the
+	 *            comparison as soon as they are detected.
+	 */
+	public ConflictSearchFactory(Comparison comparison, Monitor monitor, ConflictUnion conflictUnion) {
 		checkNotNull(comparison);
 		this.monitor = checkNotNull(monitor);
+		this.conflictUnion = conflictUnion;
 		this.index = ComparisonIndex.index(comparison, monitor);
 	}
 
+	@Override
+	public AbstractConflictSearch<? extends Diff> doSwitch(EObject diff) {
+		final AbstractConflictSearch<? extends Diff> search = super.doSwitch(diff);
+		if (search != null) {
+			search.setConflictUnion(conflictUnion);
+		}
+		return search;
+	}
+
 	@Override
 	public AbstractConflictSearch<AttributeChange> caseAttributeChange(AttributeChange diff) {
 		switch (diff.getKind()) {
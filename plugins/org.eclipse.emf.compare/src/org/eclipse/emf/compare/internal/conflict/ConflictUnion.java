@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.conflict;
+
+import static org.eclipse.emf.compare.ConflictKind.PSEUDO;
+import static org.eclipse.emf.compare.ConflictKind.REAL;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Conflict;
+import org.eclipse.emf.compare.ConflictKind;
+import org.eclipse.emf.compare.Diff;
+
+/**
+ * Gathers the conflicting pairs of differences detected by the {@link AbstractConflictSearch conflict
+ * searches} into disjoint sets, each of them becoming a {@link Conflict} once the detection is over.
+ * <p>
+ * This is a lock-free union-find over the differences of a comparison:
+ * {@link #union(Diff, Diff, ConflictKind)} can be called concurrently from any number of threads, and does
+ * not modify the comparison. The conflicts are only created by {@link #createConflicts()}, which must be
+ * called once all of the searches are done. Two differences end up in the same conflict if a chain of
+ * conflicting pairs links them, equivalent differences always ending up in the same conflict. A conflict is
+ * {@link ConflictKind#REAL real} if any of its pairs is, {@link ConflictKind#PSEUDO pseudo} otherwise.
+ * </p>
+ * <p>
+ * The part of a search which depends on the kind of the conflicts found by the other searches is
+ * {@link #defer(AbstractConflictSearch) deferred}: it is run by {@link #createConflicts()}, on the calling
+ * thread and in the order of the differences, once all the pairs found by the searches have been recorded.
+ * Such deferred searches can then rely on {@link #getKind(Diff)}, which does not depend on the scheduling of
+ * the searches anymore.
+ * </p>
+ */
+public class ConflictUnion {
+	/** State flag of a difference that is part of a conflicting pair. */
+	private static final int CONFLICTING = 1;
+
+	/** State flag of a difference that is part of a real conflicting pair. */
+	private static final int REAL_CONFLICTING = 2;
+
+	/** The comparison which differences are gathered. */
+	private final Comparison comparison;
+
+	/** The differences of the comparison, in their order in the comparison. */
+	private final List<Diff> differences;
+
+	/** The position of each difference in {@link #differences}. */
+	private final Map<Diff, Integer> indices;
+
+	/** The parent of each difference in the union-find forest, roots are their own parents. */
+	private final AtomicIntegerArray parents;
+
+	/** The state flags of each difference. */
+	private final AtomicIntegerArray states;
+
+	/** The searches whose part has been deferred until all the searches are over. */
+	private final Queue<AbstractConflictSearch<? extends Diff>> deferred;
+
+	/**
+	 * Creates an empty union of the differences of the given comparison.
+	 *
+	 * @param comparison
+	 *            The comparison which conflicts are to be detected.
+	 */
+	public ConflictUnion(Comparison comparison) {
+		this.comparison = comparison;
+		this.differences = ImmutableList.copyOf(comparison.getDifferences());
+		final int size = differences.size();
+		this.indices = Maps.newHashMapWithExpectedSize(size);
+		this.parents = new AtomicIntegerArray(size);
+		this.states = new AtomicIntegerArray(size);
+		this.deferred = new ConcurrentLinkedQueue<AbstractConflictSearch<? extends Diff>>();
+		for (int i = 0; i < size; i++) {
+			indices.put(differences.get(i), Integer.valueOf(i));
+			parents.set(i, i);
+		}
+	}
+
+	/**
+	 * Records that the two given differences, along with their equivalent differences, are in conflict. This
+	 * can be called concurrently.
+	 *
+	 * @param diff
+	 *            One of the conflicting differences.
+	 * @param other
+	 *            The other conflicting difference.
+	 * @param kind
+	 *            The kind of the conflict between the two differences.
+	 */
+	public void union(Diff diff, Diff other, ConflictKind kind) {
+		final int flags;
+		if (kind == REAL) {
+			flags = CONFLICTING | REAL_CONFLICTING;
+		} else {
+			flags = CONFLICTING;
+		}
+		final int diffIndex = indexOf(diff);
+		mark(diffIndex, flags);
+		link(diffIndex, other, flags);
+		if (diff.getEquivalence() != null) {
+			for (Diff equivalent : diff.getEquivalence().getDifferences()) {
+				link(diffIndex, equivalent, CONFLICTING);
+			}
+		}
+		if (other.getEquivalence() != null) {
+			for (Diff equivalent : other.getEquivalence().getDifferences()) {
+				link(diffIndex, equivalent, CONFLICTING);
+			}
+		}
+		if (kind == REAL) {
+			mark(find(diffIndex), REAL_CONFLICTING);
+		}
+	}
+
+	/**
+	 * Defers the part of the given search which depends on the kind of the conflicts found by the other
+	 * searches until all of them are over. This can be called concurrently.
+	 *
+	 * @param search
+	 *            The search which {@link AbstractConflictSearch#detectDeferredConflicts()} is to be called
+	 *            by {@link #createConflicts()}.
+	 */
+	public void defer(AbstractConflictSearch<? extends Diff> search) {
+		deferred.add(search);
+	}
+
+	/**
+	 * Returns the kind of the conflict the given difference is part of, as recorded so far. This can be
+	 * called concurrently with {@link #union(Diff, Diff, ConflictKind)}, in which case the pairs being
+	 * recorded may or may not be accounted for, nor the kind of the sets they join.
+	 *
+	 * @param diff
+	 *            A difference of the comparison.
+	 * @return The kind of its conflict, <code>null</code> if no pair involving it has been recorded.
+	 */
+	public ConflictKind getKind(Diff diff) {
+		final int index = indexOf(diff);
+		if ((states.get(index) & CONFLICTING) == 0) {
+			return null;
+		}
+		if ((states.get(find(index)) & REAL_CONFLICTING) != 0) {
+			return REAL;
+		}
+		return PSEUDO;
+	}
+
+	/**
+	 * Runs the deferred searches, then creates a conflict for each of the disjoint sets of conflicting
+	 * differences and adds them to the comparison. The conflicts are created in the order of their first
+	 * difference in the comparison, the differences of a conflict keeping their order in the comparison as
+	 * well.
+	 * <p>
+	 * This must not be called concurrently with {@link #union(Diff, Diff, ConflictKind)}.
+	 * </p>
+	 */
+	public void createConflicts() {
+		// A concurrent union may have attached a set under another root before its kind was marked, the
+		// roots carry the kind of their whole set again from now on
+		for (int i = 0; i < differences.size(); i++) {
+			if ((states.get(i) & REAL_CONFLICTING) != 0) {
+				mark(find(i), REAL_CONFLICTING);
+			}
+		}
+		final List<AbstractConflictSearch<? extends Diff>> searches = Lists.newArrayList(deferred);
+		deferred.clear();
+		Collections.sort(searches, new Comparator<AbstractConflictSearch<? extends Diff>>() {
+			public int compare(AbstractConflictSearch<? extends Diff> o1,
+					AbstractConflictSearch<? extends Diff> o2) {
+				return indexOf(o1.diff) - indexOf(o2.diff);
+			}
+		});
+		for (AbstractConflictSearch<? extends Diff> search : searches) {
+			search.detectDeferredConflicts();
+		}
+
+		final Map<Integer, Conflict> conflicts = Maps.newHashMap();
+		for (int i = 0; i < differences.size(); i++) {
+			final int state = states.get(i);
+			if ((state & CONFLICTING) == 0) {
+				continue;
+			}
+			final Integer root = Integer.valueOf(find(i));
+			Conflict conflict = conflicts.get(root);
+			if (conflict == null) {
+				conflict = CompareFactory.eINSTANCE.createConflict();
+				conflict.setKind(PSEUDO);
+				comparison.getConflicts().add(conflict);
+				conflicts.put(root, conflict);
+			}
+			conflict.getDifferences().add(differences.get(i));
+			if ((state & REAL_CONFLICTING) != 0) {
+				conflict.setKind(REAL);
+			}
+		}
+	}
+
+	/**
+	 * Marks the given difference as conflicting and puts it in the same set as the difference at the given
+	 * position.
+	 *
+	 * @param index
+	 *            Position of a conflicting difference.
+	 * @param diff
+	 *            The difference in conflict with the one at <code>index</code>.
+	 * @param flags
+	 *            The state flags to set on <code>diff</code>.
+	 */
+	private void link(int index, Diff diff, int flags) {
+		final int otherIndex = indexOf(diff);
+		mark(otherIndex, flags);
+		while (true) {
+			final int root = find(index);
+			final int otherRoot = find(otherIndex);
+			if (root == otherRoot) {
+				return;
+			}
+			// Always attach the highest root under the lowest so that concurrent unions cannot form cycles
+			final int child = Math.max(root, otherRoot);
+			final int parent = Math.min(root, otherRoot);
+			if (parents.compareAndSet(child, child, parent)) {
+				// Roots carry the kind of their whole set
+				if ((states.get(child) & REAL_CONFLICTING) != 0) {
+					mark(parent, REAL_CONFLICTING);
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Finds the root of the set of the difference at the given position, halving the path to it on the way.
+	 *
+	 * @param index
+	 *            Position of a difference.
+	 * @return The position of the root of its set.
+	 */
+	private int find(int index) {
+		int current = index;
+		int parent = parents.get(current);
+		while (parent != current) {
+			final int grandParent = parents.get(parent);
+			// Losing this race is harmless, the grand parent is still an ancestor
+			parents.compareAndSet(current, parent, grandParent);
+			current = grandParent;
+			parent = parents.get(current);
+		}
+		return current;
+	}
+
+	/**
+	 * Sets the given state flags on the difference at the given position.
+	 *
+	 * @param index
+	 *            Position of a difference.
+	 * @param flags
+	 *            The flags to set.
+	 */
+	private void mark(int index, int flags) {
+		int state = states.get(index);
+		while ((state & flags) != flags && !states.compareAndSet(index, state, state | flags)) {
+			state = states.get(index);
+		}
+	}
+
+	/**
+	 * Returns the position of the given difference.
+	 *
+	 * @param diff
+	 *            A difference of the comparison.
+	 * @return Its position in {@link #differences}.
+	 */
+	private int indexOf(Diff diff) {
+		final Integer index = indices.get(diff);
+		if (index == null) {
+			throw new IllegalArgumentException("The difference is not part of the comparison"); //$NON-NLS-1$
+		}
+		return index.intValue();
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2016 Obeo.
+ * Copyright (c) 2016, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -212,12 +212,25 @@ public class ResourceAttachmentChangeConflictSearch {
 			}
 
 			// [381143] Every Diff "under" a root deletion conflicts with it.
+			if (isDanglingRootDeletion()) {
+				deferConflictDetection();
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * Every difference under a dangling root deletion conflicts with it, unless the deletion is only part
+		 * of pseudo conflicts.
+		 * </p>
+		 */
+		@Override
+		protected void detectDeferredConflicts() {
 			// [477607] DELETE does not necessarily mean that the element is removed from the model
 			// Each element under a pseudo-conflicting diff should have its own conflict and not be just a
 			// dependence of the existing conflict
-			if (isDanglingRootDeletion()
-					&& (diff.getConflict() == null || diff.getConflict().getKind() != PSEUDO)) {
-				for (Diff extendedCandidate : Iterables.filter(match.getDifferences(),
+			if (getConflictKind(diff) != PSEUDO) {
+				for (Diff extendedCandidate : Iterables.filter(diff.getMatch().getDifferences(),
 						possiblyConflictingWith(diff))) {
 					if (isDeleteOrUnsetDiff(extendedCandidate)) {
 						// We do not want to create a pseudo conflict between a deleted container and its
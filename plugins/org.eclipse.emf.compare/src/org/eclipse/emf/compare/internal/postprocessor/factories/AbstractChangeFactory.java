@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 Obeo and others.
+ * Copyright (c) 2013, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.ComparePackage;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceKind;
@@ -41,6 +42,14 @@ import org.eclipse.emf.ecore.EObject;
  * @author <a href="mailto:cedric.notot@obeo.fr">Cedric Notot</a>
  */
 public abstract class AbstractChangeFactory implements IChangeFactory {
+	/**
+	 * The signature of the differences the {@link #getRelatedExtensionKind(Diff) related extension kind} of
+	 * which may be computed.
+	 */
+	private static final ChangeFactorySignature DEFAULT_SIGNATURE = ChangeFactorySignature.builder()
+			.diffType(ComparePackage.Literals.ATTRIBUTE_CHANGE)
+			.diffType(ComparePackage.Literals.REFERENCE_CHANGE)
+			.diffType(ComparePackage.Literals.RESOURCE_ATTACHMENT_CHANGE).build();
 
 	/**
 	 * Switch which returns the <code>DifferenceKind</code> of the matching diagram extension in relation to
@@ -57,6 +66,17 @@ public abstract class AbstractChangeFactory implements IChangeFactory {
 		return getRelatedExtensionKind(input) != null;
 	}
 
+	/**
+	 * {@inheritDoc} By default, the attribute, reference and resource attachment changes, which are the ones
+	 * for which the <code>isRelatedToAnExtension*</code> methods are called. Factories should narrow it
+	 * whenever they can.
+	 * 
+	 * @see org.eclipse.emf.compare.internal.postprocessor.factories.IChangeFactory#getSignature()
+	 */
+	public ChangeFactorySignature getSignature() {
+		return DEFAULT_SIGNATURE;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.postprocessor.factories;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.postprocessor.factories.ChangeFactorySignature.Pattern;
+import org.eclipse.emf.compare.utils.MatchUtil;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Routes the differences of a comparison to the {@link IChangeFactory factories} which
+ * {@link IChangeFactory#getSignature() signature} they match.
+ * <p>
+ * Rather than asking every factory whether it {@link IChangeFactory#handles(Diff) handles} every difference,
+ * the post-processors ask this dispatcher for the few candidate factories of each difference. The patterns of
+ * the signatures are indexed by type of difference, then by structural feature, so that finding the
+ * candidates of a difference costs two lookups and a check of the value types, whatever the number of
+ * factories. The candidates are returned in the order in which the factories were given.
+ * </p>
+ * <p>
+ * A factory without signature, i.e. which {@link IChangeFactory#getSignature()} returns <code>null</code>,
+ * is dispatched all differences as if its signature was {@link ChangeFactorySignature#ANY}: its
+ * {@link IChangeFactory#handles(Diff)} method then decides alone.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+public final class ChangeFactoryDispatcher {
+	/** Orders the candidates by rank of their factory. */
+	private static final Comparator<Candidate> BY_RANK = new Comparator<Candidate>() {
+		public int compare(Candidate o1, Candidate o2) {
+			return Integer.compare(o1.getRank(), o2.getRank());
+		}
+	};
+
+	/** The patterns of all factories, in the order of the factories. */
+	private final List<Candidate> candidates;
+
+	/** The patterns that may match the differences of a given type, lazily computed. */
+	private final ConcurrentMap<EClass, TypeIndex> typeIndices;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param factories
+	 *            The factories to dispatch the differences to, in the order in which they are to be returned.
+	 *            Those without signature are dispatched all differences.
+	 */
+	public ChangeFactoryDispatcher(Iterable<? extends IChangeFactory> factories) {
+		final ImmutableList.Builder<Candidate> builder = ImmutableList.builder();
+		int rank = 0;
+		for (IChangeFactory factory : factories) {
+			ChangeFactorySignature signature = factory.getSignature();
+			if (signature == null) {
+				signature = ChangeFactorySignature.ANY;
+			}
+			for (Pattern pattern : signature.getPatterns()) {
+				builder.add(new Candidate(factory, rank, pattern));
+			}
+			rank++;
+		}
+		this.candidates = builder.build();
+		this.typeIndices = new ConcurrentHashMap<EClass, TypeIndex>();
+	}
+
+	/**
+	 * Returns the factories which signature the given difference matches. Only these may
+	 * {@link IChangeFactory#handles(Diff) handle} it.
+	 *
+	 * @param diff
+	 *            The difference.
+	 * @return The candidate factories, in the order they were given to this dispatcher.
+	 */
+	public List<IChangeFactory> getCandidates(Diff diff) {
+		final List<Candidate> typeCandidates = getTypeIndex(diff.eClass())
+				.get(MatchUtil.getStructuralFeature(diff));
+		if (typeCandidates.isEmpty()) {
+			return Collections.emptyList();
+		}
+		final Object value = MatchUtil.getValue(diff);
+		final List<IChangeFactory> result = Lists.newArrayListWithCapacity(typeCandidates.size());
+		int lastRank = -1;
+		for (Candidate candidate : typeCandidates) {
+			// candidates are sorted by rank, a factory matching several patterns is only added once
+			if (candidate.getRank() != lastRank && candidate.getPattern().matchesValue(value)) {
+				result.add(candidate.getFactory());
+				lastRank = candidate.getRank();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the patterns that may match differences of the given type.
+	 *
+	 * @param diffType
+	 *            The type of difference.
+	 * @return The index of the patterns of this type.
+	 */
+	private TypeIndex getTypeIndex(EClass diffType) {
+		TypeIndex index = typeIndices.get(diffType);
+		if (index == null) {
+			index = new TypeIndex(diffType);
+			final TypeIndex existing = typeIndices.putIfAbsent(diffType, index);
+			if (existing != null) {
+				index = existing;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * The patterns that may match differences of a given type, by structural feature.
+	 */
+	private final class TypeIndex {
+		/** The patterns that match the differences on any feature. */
+		private final List<Candidate> anyFeature;
+
+		/**
+		 * The patterns that match the differences on a given feature, including those matching any feature,
+		 * sorted by rank.
+		 */
+		private final Map<EStructuralFeature, List<Candidate>> byFeature;
+
+		/**
+		 * Indexes the patterns that may match differences of the given type.
+		 *
+		 * @param diffType
+		 *            The type of differences.
+		 */
+		TypeIndex(EClass diffType) {
+			final List<Candidate> any = Lists.newArrayList();
+			final Map<EStructuralFeature, List<Candidate>> features = Maps.newLinkedHashMap();
+			for (Candidate candidate : candidates) {
+				final Pattern pattern = candidate.getPattern();
+				if (pattern.matchesType(diffType)) {
+					if (pattern.getFeature() == null) {
+						any.add(candidate);
+					} else {
+						List<Candidate> featureCandidates = features.get(pattern.getFeature());
+						if (featureCandidates == null) {
+							featureCandidates = Lists.newArrayList();
+							features.put(pattern.getFeature(), featureCandidates);
+						}
+						featureCandidates.add(candidate);
+					}
+				}
+			}
+			final ImmutableMap.Builder<EStructuralFeature, List<Candidate>> builder = ImmutableMap.builder();
+			for (Map.Entry<EStructuralFeature, List<Candidate>> entry : features.entrySet()) {
+				final List<Candidate> merged = Lists.newArrayList(entry.getValue());
+				merged.addAll(any);
+				Collections.sort(merged, BY_RANK);
+				builder.put(entry.getKey(), ImmutableList.copyOf(merged));
+			}
+			this.anyFeature = ImmutableList.copyOf(any);
+			this.byFeature = builder.build();
+		}
+
+		/**
+		 * Returns the patterns that may match differences on the given feature.
+		 *
+		 * @param feature
+		 *            The structural feature of a difference, may be <code>null</code>.
+		 * @return The patterns, sorted by rank.
+		 */
+		List<Candidate> get(EStructuralFeature feature) {
+			List<Candidate> result = null;
+			if (feature != null) {
+				result = byFeature.get(feature);
+			}
+			if (result == null) {
+				result = anyFeature;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A pattern of the signature of a factory.
+	 */
+	private static final class Candidate {
+		/** The factory. */
+		private final IChangeFactory factory;
+
+		/** The position of the factory in the dispatched ones. */
+		private final int rank;
+
+		/** The pattern. */
+		private final Pattern pattern;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param factory
+		 *            The factory.
+		 * @param rank
+		 *            The position of the factory in the dispatched ones.
+		 * @param pattern
+		 *            A pattern of its signature.
+		 */
+		Candidate(IChangeFactory factory, int rank, Pattern pattern) {
+			this.factory = factory;
+			this.rank = rank;
+			this.pattern = pattern;
+		}
+
+		/**
+		 * Returns the factory.
+		 *
+		 * @return The factory.
+		 */
+		IChangeFactory getFactory() {
+			return factory;
+		}
+
+		/**
+		 * Returns the position of the factory in the dispatched ones.
+		 *
+		 * @return The rank of the factory.
+		 */
+		int getRank() {
+			return rank;
+		}
+
+		/**
+		 * Returns the pattern.
+		 *
+		 * @return The pattern.
+		 */
+		Pattern getPattern() {
+			return pattern;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.postprocessor.factories;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.utils.MatchUtil;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Describes the differences an {@link IChangeFactory} may {@link IChangeFactory#handles(Diff) handle}, as a
+ * union of patterns on the type of the difference, its structural feature and the type of its value.
+ * <p>
+ * A signature is a necessary condition: it may accept differences the factory does not handle, but must
+ * accept all of those it handles. It allows the post-processors to only ask a factory whether it handles the
+ * differences that match its signature, through a {@link ChangeFactoryDispatcher}.
+ * </p>
+ */
+public final class ChangeFactorySignature {
+	/** The signature of a factory that may handle any difference. */
+	public static final ChangeFactorySignature ANY = new ChangeFactorySignature(
+			ImmutableList.of(new Pattern(null, null, null)));
+
+	/** The patterns of this signature, a difference matching any of them matches the signature. */
+	private final List<Pattern> patterns;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param patterns
+	 *            The patterns of this signature.
+	 */
+	private ChangeFactorySignature(List<Pattern> patterns) {
+		this.patterns = patterns;
+	}
+
+	/**
+	 * Creates a builder of signature.
+	 *
+	 * @return A new builder.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the patterns of this signature.
+	 *
+	 * @return The patterns of this signature.
+	 */
+	List<Pattern> getPatterns() {
+		return patterns;
+	}
+
+	/**
+	 * Checks whether the given difference matches this signature.
+	 *
+	 * @param diff
+	 *            The difference.
+	 * @return <code>true</code> if it matches one of the patterns of this signature.
+	 */
+	public boolean matches(Diff diff) {
+		final EStructuralFeature feature = MatchUtil.getStructuralFeature(diff);
+		final Object value = MatchUtil.getValue(diff);
+		for (Pattern pattern : patterns) {
+			if (pattern.matchesType(diff.eClass()) && pattern.matchesFeature(feature)
+					&& pattern.matchesValue(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A pattern of difference, any of its members being <code>null</code> meaning that it matches anything.
+	 */
+	static final class Pattern {
+		/** The type of the matched differences. */
+		private final EClass diffType;
+
+		/** The structural feature of the matched differences. */
+		private final EStructuralFeature feature;
+
+		/** The type of the value of the matched differences. */
+		private final EClassifier valueType;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param diffType
+		 *            The type of the matched differences, <code>null</code> for any.
+		 * @param feature
+		 *            The structural feature of the matched differences, <code>null</code> for any.
+		 * @param valueType
+		 *            The type of the value of the matched differences, <code>null</code> for any.
+		 */
+		Pattern(EClass diffType, EStructuralFeature feature, EClassifier valueType) {
+			this.diffType = diffType;
+			this.feature = feature;
+			this.valueType = valueType;
+		}
+
+		/**
+		 * Returns the structural feature of the matched differences.
+		 *
+		 * @return The feature, <code>null</code> if any is matched.
+		 */
+		EStructuralFeature getFeature() {
+			return feature;
+		}
+
+		/**
+		 * Checks whether differences of the given type may match this pattern.
+		 *
+		 * @param type
+		 *            The type of a difference.
+		 * @return <code>true</code> if the type of the difference is matched.
+		 */
+		boolean matchesType(EClass type) {
+			return diffType == null || diffType.isSuperTypeOf(type);
+		}
+
+		/**
+		 * Checks whether differences on the given feature may match this pattern.
+		 *
+		 * @param diffFeature
+		 *            The structural feature of a difference, may be <code>null</code>.
+		 * @return <code>true</code> if the feature of the difference is matched.
+		 */
+		boolean matchesFeature(EStructuralFeature diffFeature) {
+			return feature == null || feature == diffFeature;
+		}
+
+		/**
+		 * Checks whether differences with the given value may match this pattern.
+		 *
+		 * @param value
+		 *            The value of a difference, may be <code>null</code>.
+		 * @return <code>true</code> if the value of the difference is matched.
+		 */
+		boolean matchesValue(Object value) {
+			return valueType == null || valueType.isInstance(value);
+		}
+	}
+
+	/**
+	 * Builds a signature pattern after pattern.
+	 */
+	public static final class Builder {
+		/** The patterns added so far. */
+		private final ImmutableList.Builder<Pattern> patterns = ImmutableList.builder();
+
+		/**
+		 * Constructor.
+		 */
+		private Builder() {
+			// Use ChangeFactorySignature#builder()
+		}
+
+		/**
+		 * Matches all differences of the given type.
+		 *
+		 * @param diffType
+		 *            The type of differences, such as a subclass of {@link Diff}.
+		 * @return This builder.
+		 */
+		public Builder diffType(EClass diffType) {
+			patterns.add(new Pattern(checkNotNull(diffType), null, null));
+			return this;
+		}
+
+		/**
+		 * Matches the differences of the given type on any of the given structural features.
+		 *
+		 * @param diffType
+		 *            The type of differences.
+		 * @param features
+		 *            The structural features.
+		 * @return This builder.
+		 */
+		public Builder feature(EClass diffType, EStructuralFeature... features) {
+			checkNotNull(diffType);
+			for (EStructuralFeature feature : features) {
+				patterns.add(new Pattern(diffType, checkNotNull(feature), null));
+			}
+			return this;
+		}
+
+		/**
+		 * Matches the differences of the given type which value is an instance of the given type, whatever
+		 * their structural feature.
+		 *
+		 * @param diffType
+		 *            The type of differences.
+		 * @param valueType
+		 *            The type of their value.
+		 * @return This builder.
+		 */
+		public Builder value(EClass diffType, EClassifier valueType) {
+			patterns.add(new Pattern(checkNotNull(diffType), null, checkNotNull(valueType)));
+			return this;
+		}
+
+		/**
+		 * Creates the signature.
+		 *
+		 * @return The signature matching the differences that match any of the added patterns.
+		 */
+		public ChangeFactorySignature build() {
+			return new ChangeFactorySignature(patterns.build());
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,7 +37,7 @@ public interface IChangeFactory {
 	 * extension}.
 	 * <p>
 	 * <b>Performance note: </b> this method should return as quickly as possible as it will called on every
-	 * {@link Diff} of the Comparison.
+	 * {@link Diff} of the Comparison that matches the {@link #getSignature() signature} of this factory.
 	 * 
 	 * @param input
 	 *            the element to test
@@ -45,6 +45,17 @@ public interface IChangeFactory {
 	 */
 	boolean handles(Diff input);
 
+	/**
+	 * Returns the signature of the differences this factory may handle. Only the differences matching this
+	 * signature will be given to {@link #handles(Diff)}, which remains the one to decide.
+	 * 
+	 * @return The signature of the handled differences, {@link ChangeFactorySignature#ANY} or
+	 *         <code>null</code> if it cannot be narrowed, in which case all differences are given to
+	 *         {@link #handles(Diff)}.
+	 * @see ChangeFactoryDispatcher
+	 */
+	ChangeFactorySignature getSignature();
+
 	/**
 	 * Creates and returns a {@link Diff extension} from the given {@link Diff}. The returned element MUST NOT
 	 * be added to its parent, it will be done by the post processor.
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
@@ -31,6 +32,8 @@ import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.ResourceAttachmentChange;
 import org.eclipse.emf.compare.impl.ComparisonImpl;
 import org.eclipse.emf.compare.internal.DiffCrossReferencer;
+import org.eclipse.emf.compare.internal.DiffIndex;
+import org.eclipse.emf.compare.internal.DiffQuery;
 import org.eclipse.emf.compare.internal.MatchCrossReferencer;
 import org.eclipse.emf.compare.match.DefaultMatchEngine;
 import org.eclipse.emf.compare.utils.EqualityHelper;
@@ -60,6 +63,9 @@ public class ComparisonSpec extends ComparisonImpl {
 	 */
 	private EList<Diff> differences;
 
+	/** The index of the differences, kept up to date by the {@link #diffCrossReferencer}. */
+	private DiffIndex diffIndex;
+
 	@Override
 	public EList<Diff> getDifferences() {
 		if (differences == null) {
@@ -100,20 +106,7 @@ public class ComparisonSpec extends ComparisonImpl {
 		}
 
 		if (diffCrossReferencer == null) {
-			diffCrossReferencer = new DiffCrossReferencer() {
-				@Override
-				protected void addAdapter(Notifier notifier) {
-					differences = null;
-					super.addAdapter(notifier);
-				}
-
-				@Override
-				protected void removeAdapter(Notifier notifier) {
-					differences = null;
-					super.removeAdapter(notifier);
-				}
-			};
-			eAdapters().add(diffCrossReferencer);
+			installDiffCrossReferencer();
 		}
 
 		final EList<Diff> result;
@@ -132,6 +125,62 @@ public class ComparisonSpec extends ComparisonImpl {
 		return result;
 	}
 
+	/**
+	 * Creates a query on the differences of this comparison, answered by an index of the differences. The
+	 * index is built on the first call, then kept up to date as the differences are added, removed or
+	 * modified. It is not thread safe: it must not be built nor queried while other threads modify the
+	 * comparison.
+	 * 
+	 * @return A query accepting any difference, to be refined through its criteria.
+	 */
+	public DiffQuery queryDiffs() {
+		if (diffIndex == null) {
+			if (diffCrossReferencer == null) {
+				// Installing the cross referencer indexes all differences, in the order of their containment
+				diffIndex = new DiffIndex();
+				installDiffCrossReferencer();
+			} else {
+				diffIndex = DiffIndex.of(getDifferences());
+			}
+		}
+		return new DiffQuery(diffIndex);
+	}
+
+	/**
+	 * Installs the {@link #diffCrossReferencer}, which also flushes the cached {@link #differences} and
+	 * maintains the {@link #diffIndex} if any.
+	 */
+	private void installDiffCrossReferencer() {
+		diffCrossReferencer = new DiffCrossReferencer() {
+			@Override
+			protected void addAdapter(Notifier notifier) {
+				differences = null;
+				if (diffIndex != null && notifier instanceof Diff) {
+					diffIndex.add((Diff)notifier);
+				}
+				super.addAdapter(notifier);
+			}
+
+			@Override
+			protected void removeAdapter(Notifier notifier) {
+				differences = null;
+				if (diffIndex != null && notifier instanceof Diff) {
+					diffIndex.remove((Diff)notifier);
+				}
+				super.removeAdapter(notifier);
+			}
+
+			@Override
+			public void notifyChanged(Notification notification) {
+				super.notifyChanged(notification);
+				if (diffIndex != null) {
+					diffIndex.notifyChanged(notification);
+				}
+			}
+		};
+		eAdapters().add(diffCrossReferencer);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * 
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import java.util.Arrays;
+
+/**
+ * A String along with its sorted bigrams, as used by
+ * {@link DiffUtil#diceCoefficientOfProfiles(BigramProfile, BigramProfile)}. Computing the profile of a String
+ * once allows to compare it with many others without tokenizing it again.
+ */
+public final class BigramProfile {
+	/** The profile of strings which have no bigram. */
+	private static final int[] NO_BIGRAMS = new int[0];
+
+	/** The profiled String. */
+	private final String value;
+
+	/** The bigrams of the String, including duplicates, sorted. */
+	private final int[] sortedBigrams;
+
+	/**
+	 * Computes the profile of the given String.
+	 *
+	 * @param value
+	 *            The String to profile.
+	 */
+	public BigramProfile(String value) {
+		this.value = value;
+		if (value.length() < 2) {
+			this.sortedBigrams = NO_BIGRAMS;
+		} else {
+			this.sortedBigrams = toBigrams(value);
+			Arrays.sort(sortedBigrams);
+		}
+	}
+
+	/**
+	 * Returns the profiled String.
+	 *
+	 * @return The profiled String.
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the sorted bigrams of the profiled String. This array must not be modified.
+	 *
+	 * @return The bigrams, including duplicates, sorted.
+	 */
+	int[] getSortedBigrams() {
+		return sortedBigrams;
+	}
+
+	/**
+	 * Converts a String into its individual bigrams. Should only be used on Strings with a length greater
+	 * than or equal to 2.
+	 * <p>
+	 * Note that we're storing the individual bigrams into ints along the way, the first of a pair in the
+	 * least-significant 16 bits. <code>"ab"</code> would thus be converted to <code>6422625</code> or, as
+	 * seen bit-wise, <code>0000 0000 0110 0010 0000 0000 0110 0001</code>. We do not care about the ordering
+	 * of these integers, even if "bj" comes after "za" and before "az", since it is only used to hasten the
+	 * comparisons.
+	 * </p>
+	 *
+	 * @param str
+	 *            The String which bigrams we seek.
+	 * @return The individual bigrams of str, including potential duplicates.
+	 */
+	private static int[] toBigrams(String str) {
+		final int[] bigrams = new int[str.length() - 1];
+		final int charBitLength = 16;
+		for (int i = 0; i < bigrams.length; i++) {
+			bigrams[i] = str.charAt(i) | (str.charAt(i + 1) << charBitLength);
+		}
+		return bigrams;
+	}
+}
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.util.BasicEList;
+import org.eclipse.emf.common.util.UniqueEList;
+import org.eclipse.emf.compare.utils.ReferenceUtil;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Stages the changes made to the multi-valued attributes and non-containment references of the target model
+ * during a bulk merge, and applies them once per list when the session is closed.
+ * <p>
+ * While a session is open, the mergers change a copy of each list they
+ * {@link #getTargetList(EObject, EStructuralFeature) ask for}, and the insertion indices are computed
+ * against this same copy, so that the final content of each list is the one sequential merges would give.
+ * The copy of a reference list rejects duplicates the way the list itself does. When the outermost session
+ * is closed, each list that has changed is replaced by its copy at once: the list is shifted once instead of
+ * once per insertion, and listeners of its owner get a single {@link Notification#SET} notification which
+ * old and new values are the former and the new content of the list. This notification is preceded by a
+ * {@link Notification#isTouch() touch} of the list, through which change recorders capture its former
+ * content so that the merge can be undone.
+ * </p>
+ * <p>
+ * Containment references are never staged, since changing them maintains containment and resource
+ * attachments, which later merges of the same session may rely upon. References with an opposite are not
+ * staged either, since changing them changes the opposite list too, nor are feature maps, which may hold
+ * such references. Mergers changing a staged list must do it through this class: a list that has been
+ * changed directly during the session is left as is, and the session fails when closed.
+ * </p>
+ * <p>
+ * A session is bound to the thread that {@link #open() opened} it and must be {@link #close() closed} by
+ * this same thread, typically in a <code>finally</code> block. Sessions can be nested, in which case the
+ * outermost one is used.
+ * </p>
+ */
+public final class BulkListUpdates {
+	/** The session opened by each thread, if any. */
+	private static final ThreadLocal<BulkListUpdates> SESSION = new ThreadLocal<BulkListUpdates>();
+
+	/** The staged copies of the lists, by target container and attribute, in the order they were staged. */
+	private final Map<List<Object>, StagedList> stagedLists;
+
+	/** The number of times this session has been opened and not yet closed. */
+	private int depth;
+
+	/** Only accessible through {@link #open()}. */
+	private BulkListUpdates() {
+		this.stagedLists = Maps.newLinkedHashMap();
+	}
+
+	/**
+	 * Opens a bulk merge session on the current thread, or joins the session which is already open.
+	 *
+	 * @return The session of the current thread.
+	 */
+	public static BulkListUpdates open() {
+		BulkListUpdates session = SESSION.get();
+		if (session == null) {
+			session = new BulkListUpdates();
+			SESSION.set(session);
+		}
+		session.depth++;
+		return session;
+	}
+
+	/**
+	 * Closes this session, applying all of the staged lists to the model if it is not nested in another
+	 * one. The lists are applied even if the merge failed, so that the model is left in the state sequential
+	 * merges would have left it in.
+	 *
+	 * @throws IllegalStateException
+	 *             if a staged list has been changed without going through this session. This list is left
+	 *             as is, the other ones are applied.
+	 */
+	public void close() {
+		depth--;
+		if (depth == 0) {
+			SESSION.remove();
+			StagedList changedBehind = null;
+			for (StagedList staged : stagedLists.values()) {
+				if (!staged.apply() && changedBehind == null) {
+					changedBehind = staged;
+				}
+			}
+			stagedLists.clear();
+			if (changedBehind != null) {
+				throw new IllegalStateException("The " + changedBehind.feature.getName() //$NON-NLS-1$
+						+ " list of " + changedBehind.container //$NON-NLS-1$
+						+ " has been changed outside of the bulk merge"); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Returns the list of values of the given feature of the given target object. If a bulk merge session is
+	 * open on the current thread and the feature is {@link #isStaged(EStructuralFeature) staged}, this is the
+	 * staged copy of this list, created on the first call. Otherwise this is the list of the object itself.
+	 *
+	 * @param container
+	 *            The target object.
+	 * @param feature
+	 *            The feature.
+	 * @return The list of values to change, or the value of the feature if it is not a staged list.
+	 */
+	public static Object getTargetValue(EObject container, EStructuralFeature feature) {
+		final BulkListUpdates session = SESSION.get();
+		if (session != null && isStaged(feature)) {
+			return session.getStagedList(container, feature);
+		}
+		return ReferenceUtil.safeEGet(container, feature);
+	}
+
+	/**
+	 * Returns the list of values of the given feature of the given target object, as
+	 * {@link ReferenceUtil#getAsList(EObject, EStructuralFeature)} does, or its staged copy if a bulk merge
+	 * session is open on the current thread and the feature is {@link #isStaged(EStructuralFeature) staged}.
+	 *
+	 * @param container
+	 *            The target object.
+	 * @param feature
+	 *            The feature.
+	 * @return The list of values of the feature.
+	 */
+	public static List<Object> getTargetList(EObject container, EStructuralFeature feature) {
+		final BulkListUpdates session = SESSION.get();
+		if (session != null && container != null && isStaged(feature)) {
+			return session.getStagedList(container, feature);
+		}
+		return ReferenceUtil.getAsList(container, feature);
+	}
+
+	/**
+	 * Checks whether the changes to the given feature are staged in a bulk merge session.
+	 *
+	 * @param feature
+	 *            The feature.
+	 * @return <code>true</code> for multi-valued attributes which are not feature maps and multi-valued
+	 *         non-containment references without opposite.
+	 */
+	private static boolean isStaged(EStructuralFeature feature) {
+		if (!feature.isMany() || FeatureMapUtil.isFeatureMap(feature)) {
+			return false;
+		}
+		if (feature instanceof EReference) {
+			final EReference reference = (EReference)feature;
+			return !reference.isContainment() && !reference.isContainer() && reference.getEOpposite() == null;
+		}
+		return feature instanceof EAttribute;
+	}
+
+	/**
+	 * Returns the staged copy of the list of values of the given feature, creating it if needed.
+	 *
+	 * @param container
+	 *            The target object.
+	 * @param feature
+	 *            The feature.
+	 * @return The staged copy.
+	 */
+	private List<Object> getStagedList(EObject container, EStructuralFeature feature) {
+		final List<Object> key = Arrays.<Object> asList(container, feature);
+		StagedList staged = stagedLists.get(key);
+		if (staged == null) {
+			staged = new StagedList(container, feature);
+			stagedLists.put(key, staged);
+		}
+		return staged.copy;
+	}
+
+	/**
+	 * The staged copy of the list of values of a feature.
+	 */
+	private static final class StagedList {
+		/** The target object. */
+		private final EObject container;
+
+		/** The feature. */
+		private final EStructuralFeature feature;
+
+		/** The values of the feature when the list was staged. */
+		private final List<Object> original;
+
+		/** The copy of the list, which the mergers change. */
+		private final List<Object> copy;
+
+		/**
+		 * Copies the current values of the given feature.
+		 *
+		 * @param container
+		 *            The target object.
+		 * @param feature
+		 *            The feature.
+		 */
+		@SuppressWarnings("unchecked")
+		StagedList(EObject container, EStructuralFeature feature) {
+			this.container = container;
+			this.feature = feature;
+			if (feature instanceof EReference) {
+				// Mergers change the resolving list of a reference, which never holds the same object twice
+				final List<Object> values = (List<Object>)ReferenceUtil.safeEGet(container, feature);
+				this.original = new BasicEList<Object>(values);
+				if (feature.isUnique()) {
+					this.copy = new UniqueEList.FastCompare<Object>(values);
+				} else {
+					this.copy = new BasicEList.FastCompare<Object>(values);
+				}
+			} else {
+				this.original = Lists.newArrayList(ReferenceUtil.getAsList(container, feature));
+				this.copy = Lists.newArrayList(original);
+			}
+		}
+
+		/**
+		 * Replaces the values of the feature by the staged copy, if they differ. The listeners of the target
+		 * object get a single notification for this change.
+		 *
+		 * @return <code>false</code> if the values of the feature have been changed since the list was
+		 *         staged, in which case they are left as is.
+		 */
+		@SuppressWarnings("unchecked")
+		boolean apply() {
+			final List<Object> list = (List<Object>)ReferenceUtil.safeEGet(container, feature);
+			if (!list.equals(original)) {
+				return false;
+			}
+			if (list.equals(copy)) {
+				return true;
+			}
+			final boolean deliver = container.eDeliver();
+			final boolean notify = deliver && ((InternalEObject)container).eNotificationRequired();
+			if (notify) {
+				// Recorders such as the ChangeRecorder read the former content of a list from the list itself
+				// the first time it is set: let them see it before it is replaced
+				container.eNotify(new ENotificationImpl((InternalEObject)container, Notification.SET, feature,
+						original, original));
+			}
+			container.eSetDeliver(false);
+			try {
+				list.clear();
+				if (list instanceof InternalEList<?>) {
+					// The copy has been changed the way the mergers change the list itself, uniqueness
+					// included
+					((InternalEList<Object>)list).addAllUnique(copy);
+				} else {
+					list.addAll(copy);
+				}
+			} finally {
+				container.eSetDeliver(deliver);
+			}
+			if (notify) {
+				container.eNotify(new ENotificationImpl((InternalEObject)container, Notification.SET, feature,
+						original, new BasicEList<Object>(copy)));
+			}
+			return true;
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -49,6 +49,9 @@ import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.MatchResource;
 import org.eclipse.emf.compare.ReferenceChange;
 import org.eclipse.emf.compare.ResourceAttachmentChange;
+import org.eclipse.emf.compare.internal.DiffIndex;
+import org.eclipse.emf.compare.internal.DiffQuery;
+import org.eclipse.emf.compare.internal.spec.ComparisonSpec;
 import org.eclipse.emf.compare.utils.ReferenceUtil;
 import org.eclipse.emf.ecore.EAnnotation;
 import org.eclipse.emf.ecore.EObject;
@@ -526,6 +529,22 @@ public final class ComparisonUtil {
 		return comparison;
 	}
 
+	/**
+	 * Creates a query on the differences of the given comparison. A {@link ComparisonSpec} answers it through
+	 * its index of the differences, any other comparison through an index built for this query only.
+	 * 
+	 * @param comparison
+	 *            The comparison.
+	 * @return A query accepting any difference of the comparison, to be refined through its criteria.
+	 * @see ComparisonSpec#queryDiffs()
+	 */
+	public static DiffQuery queryDiffs(Comparison comparison) {
+		if (comparison instanceof ComparisonSpec) {
+			return ((ComparisonSpec)comparison).queryDiffs();
+		}
+		return new DiffQuery(DiffIndex.of(comparison.getDifferences()));
+	}
+
 	/**
 	 * Determines the side of the given {@link Match} which represents the model state the other side will be
 	 * changed to.
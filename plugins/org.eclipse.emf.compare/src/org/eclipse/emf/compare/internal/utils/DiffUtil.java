@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -50,6 +50,7 @@ import org.eclipse.emf.compare.utils.ReferenceUtil;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
 
 /**
  * This utility class will be used to provide similarity implementations.
@@ -68,6 +69,18 @@ public final class DiffUtil {
 	 */
 	private static final double SIMILAR = Double.longBitsToDouble(0x3fefffffffffffffL);
 
+	/**
+	 * The maximum number of cells of the matrix of the {@link MatrixSequenceAligner} for it to be used by
+	 * default. Its matrix costs two bytes per cell, this limits it to a couple of megabytes.
+	 */
+	private static final long MATRIX_ALIGNMENT_MAX_CELLS = 1L << 20;
+
+	/** The aligner used by default for small sequences. */
+	private static final ISequenceAligner MATRIX_ALIGNER = new MatrixSequenceAligner();
+
+	/** The aligner used by default for long sequences. */
+	private static final ISequenceAligner MYERS_ALIGNER = new MyersSequenceAligner();
+
 	/**
 	 * {@#computeIgnoredElements(Comparison, IEqualityHelper, List, Diff, boolean) Computing ignored elements}
 	 * is an O(n^2) algorithm, so we need to make the operation as efficient as possible to avoid the very bad
@@ -171,41 +184,56 @@ public final class DiffUtil {
 	 * @return The dice coefficient of the two given String's bigrams, ranging from 0d to 1d.
 	 */
 	public static double diceCoefficient(String first, String second) {
-		final char[] str1 = first.toCharArray();
-		final char[] str2 = second.toCharArray();
+		if (first.equals(second)) {
+			return 1d;
+		}
+		return diceCoefficientOfProfiles(new BigramProfile(first), new BigramProfile(second));
+	}
+
+	/**
+	 * Computes the dice coefficient between the two given String's bigrams, as
+	 * {@link #diceCoefficient(String, String)} does, from their precomputed profiles. This avoids tokenizing
+	 * the same String again each time it is compared with another.
+	 * 
+	 * @param first
+	 *            Profile of the first of the two Strings to compare.
+	 * @param second
+	 *            Profile of the second of the two Strings to compare.
+	 * @return The dice coefficient of the two given String's bigrams, ranging from 0d to 1d.
+	 */
+	public static double diceCoefficientOfProfiles(BigramProfile first, BigramProfile second) {
+		final String str1 = first.getValue();
+		final String str2 = second.getValue();
 
-		if (Arrays.equals(str1, str2)) {
+		if (str1.equals(str2)) {
 			return 1d;
 		}
 
+		final int length1 = str1.length();
+		final int length2 = str2.length();
 		final double coefficient;
-		if (str1.length == 0 || str2.length == 0) {
+		if (length1 == 0 || length2 == 0) {
 			coefficient = 0d;
-		} else if (str1.length == 1 || str2.length == 1 || (str1.length == 2 && str2.length == 2)) {
+		} else if (length1 == 1 || length2 == 1 || (length1 == 2 && length2 == 2)) {
 			int equalChars = 0;
 
-			for (int i = 0; i < Math.min(str1.length, str2.length); i++) {
-				if (str1[i] == str2[i]) {
+			for (int i = 0; i < Math.min(length1, length2); i++) {
+				if (str1.charAt(i) == str2.charAt(i)) {
 					equalChars++;
 				}
 			}
 
-			int union = str1.length + str2.length;
-			if (str1.length != str2.length) {
+			int union = length1 + length2;
+			if (length1 != length2) {
 				// one of the two is one (or 0) character long, don't double the matches
 				coefficient = (double)equalChars / union;
 			} else {
 				coefficient = ((double)equalChars * 2) / union;
 			}
 		} else {
-			final int[] s1Bigrams = toBigrams(str1);
-			final int[] s2Bigrams = toBigrams(str2);
-
-			// We've converted our bigrams to integers. Note that we do not care about the ordering of these
-			// integers, even if "bj" comes after "za" and before "az", this will pose no threat since we only
-			// use their ordering to hasten the comparisons thereafter.
-			Arrays.sort(s1Bigrams);
-			Arrays.sort(s2Bigrams);
+			// The profiles hold the bigrams converted to integers and sorted, see BigramProfile
+			final int[] s1Bigrams = first.getSortedBigrams();
+			final int[] s2Bigrams = second.getSortedBigrams();
 
 			int matchingBigrams = 0;
 			int index1 = 0;
@@ -234,32 +262,6 @@ public final class DiffUtil {
 		return Math.min(coefficient, SIMILAR);
 	}
 
-	/**
-	 * Converts the array representation of a String into its individual bigrams. Should only be used on
-	 * arrays with size greater than or equal to 2.
-	 * <p>
-	 * Note that we're storing the individual bigrams into ints along the way, the first of a pair in the
-	 * least-significant 16 bits. <code>"ab"</code> would thus be converted to <code>6422625</code> or, as
-	 * seen bit-wise, <code>0000 0000 0110 0010 0000 0000 0110 0001</code>.
-	 * </p>
-	 * <p>
-	 * We're ignoring the sign of these objects since they do not influence the unicity of the mapping bigram
-	 * <-> int.
-	 * </p>
-	 * 
-	 * @param strArray
-	 *            The array representation of the string which bigrams we seek.
-	 * @return The individual bigrams of strArray, including potential duplicates.
-	 */
-	private static int[] toBigrams(char[] strArray) {
-		final int[] bigrams = new int[strArray.length - 1];
-		final int charBitLength = 16;
-		for (int i = 0; i < strArray.length - 1; i++) {
-			bigrams[i] = strArray[i] | (strArray[i + 1] << charBitLength);
-		}
-		return bigrams;
-	}
-
 	/**
 	 * This will compute the longest common subsequence between the two given Lists, ignoring any object that
 	 * is included in {@code ignoredElements}. We will use
@@ -293,10 +295,43 @@ public final class DiffUtil {
 	 */
 	public static <E> List<E> longestCommonSubsequence(Comparison comparison, Iterable<E> ignoredElements,
 			List<E> sequence1, List<E> sequence2) {
+		return longestCommonSubsequence(comparison, ignoredElements, sequence1, sequence2, null);
+	}
+
+	/**
+	 * This will compute a common subsequence between the two given Lists, ignoring any object that is
+	 * included in {@code ignoredElements}, through the given alignment strategy.
+	 * <p>
+	 * The common prefix and suffix of the two lists are trimmed, and the ignored elements removed from the
+	 * second list, before {@code aligner} is called: it will never see the ignored elements. When no aligner
+	 * is given, the {@link MatrixSequenceAligner} is used for small sequences, which yields the same result
+	 * as {@link #longestCommonSubsequence(Comparison, List, List)} always did. Longer sequences are aligned
+	 * through the linear space {@link MyersSequenceAligner}, since the matrix would cost O(n·m) memory.
+	 * </p>
+	 * 
+	 * @param comparison
+	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
+	 * @param ignoredElements
+	 *            Specifies elements that should be excluded from the subsequences.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param aligner
+	 *            The strategy computing the common subsequence of the sequences once trimmed,
+	 *            <code>null</code> to choose one depending on the size of the sequences.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The common subsequence of the two given sequences. Will never be the same instance as one of
+	 *         the input sequences.
+	 * @see #longestCommonSubsequence(Comparison, Iterable, List, List)
+	 */
+	public static <E> List<E> longestCommonSubsequence(Comparison comparison, Iterable<E> ignoredElements,
+			List<E> sequence1, List<E> sequence2, ISequenceAligner aligner) {
 		IEqualityHelper equalityHelper = comparison.getEqualityHelper();
 
 		final List<E> copy1 = Lists.newArrayList(sequence1);
-		final List<E> copy2 = Lists.newArrayList(sequence2);
+		List<E> copy2 = Lists.newArrayList(sequence2);
 
 		Object[] ignoredElementsArray = Iterables.toArray(ignoredElements, Object.class);
 
@@ -304,15 +339,26 @@ public final class DiffUtil {
 		final List<E> prefix = trimPrefix(comparison, equalityHelper, ignoredElementsArray, copy1, copy2);
 		final List<E> suffix = trimSuffix(comparison, equalityHelper, ignoredElementsArray, copy1, copy2);
 
+		// The ignored elements of the second sequence can never be part of the LCS
+		if (ignoredElementsArray.length > 0) {
+			final List<E> filtered = new ArrayList<E>(copy2.size());
+			for (E element : copy2) {
+				if (!contains(equalityHelper, ignoredElementsArray, element)) {
+					filtered.add(element);
+				}
+			}
+			copy2 = filtered;
+		}
+
 		final List<E> subLCS;
-		// FIXME extract an interface for the LCS and properly separate these two differently typed
-		// implementations.
-		if (copy1.size() > Short.MAX_VALUE || copy2.size() > Short.MAX_VALUE) {
-			subLCS = intLongestCommonSubsequence(comparison, equalityHelper, ignoredElementsArray, copy1,
-					copy2);
+		if (copy1.isEmpty() || copy2.isEmpty()) {
+			subLCS = Collections.emptyList();
+		} else if (aligner != null) {
+			subLCS = aligner.longestCommonSubsequence(comparison, copy1, copy2);
+		} else if ((long)copy1.size() * copy2.size() <= MATRIX_ALIGNMENT_MAX_CELLS) {
+			subLCS = MATRIX_ALIGNER.longestCommonSubsequence(comparison, copy1, copy2);
 		} else {
-			subLCS = shortLongestCommonSubsequence(comparison, equalityHelper, ignoredElementsArray, copy1,
-					copy2);
+			subLCS = MYERS_ALIGNER.longestCommonSubsequence(comparison, copy1, copy2);
 		}
 
 		final List<E> lcs = new ArrayList<E>(prefix.size() + subLCS.size() + suffix.size());
@@ -506,148 +552,6 @@ public final class DiffUtil {
 		return false;
 	}
 
-	/**
-	 * This is a classic, single-threaded implementation. We use shorts for the score matrix so as to limit
-	 * the memory cost (we know the max LCS length is not greater than Short#MAX_VALUE).
-	 * 
-	 * @param comparison
-	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
-	 * @param equalityHelper
-	 *            The equality helper to use for this computation.
-	 * @param ignoredElements
-	 *            Specifies elements that should be excluded from the subsequences.
-	 * @param sequence1
-	 *            First of the two sequences to consider.
-	 * @param sequence2
-	 *            Second of the two sequences to consider.
-	 * @param <E>
-	 *            Type of the sequences content.
-	 * @return The LCS of the two given sequences. Will never be the same instance as one of the input
-	 *         sequences.
-	 */
-	private static <E> List<E> shortLongestCommonSubsequence(Comparison comparison,
-			IEqualityHelper equalityHelper, Object[] ignoredElements, List<E> sequence1, List<E> sequence2) {
-		final int size1 = sequence1.size();
-		final int size2 = sequence2.size();
-
-		final short[][] matrix = new short[size1 + 1][size2 + 1];
-
-		// Compute the LCS matrix
-		for (int i = 1; i <= size1; i++) {
-			final E first = sequence1.get(i - 1);
-			for (int j = 1; j <= size2; j++) {
-				// assume array dereferencing and arithmetics faster than equals
-				final short current = matrix[i - 1][j - 1];
-				final short nextIfNoMatch = (short)Math.max(matrix[i - 1][j], matrix[i][j - 1]);
-
-				if (nextIfNoMatch > current) {
-					matrix[i][j] = nextIfNoMatch;
-				} else {
-					final E second = sequence2.get(j - 1);
-					if (equalityHelper.matchingValues(first, second)
-							&& !contains(equalityHelper, ignoredElements, second)) {
-						matrix[i][j] = (short)(1 + current);
-					} else {
-						matrix[i][j] = nextIfNoMatch;
-					}
-				}
-			}
-		}
-
-		// Traceback the matrix to create the final LCS
-		int current1 = size1;
-		int current2 = size2;
-		final List<E> result = Lists.newArrayList();
-
-		while (current1 > 0 && current2 > 0) {
-			final short currentLength = matrix[current1][current2];
-			final short nextLeft = matrix[current1][current2 - 1];
-			final short nextUp = matrix[current1 - 1][current2];
-			if (currentLength > nextLeft && currentLength > nextUp) {
-				result.add(sequence1.get(current1 - 1));
-				current1--;
-				current2--;
-			} else if (nextLeft >= nextUp) {
-				current2--;
-			} else {
-				current1--;
-			}
-		}
-
-		return Lists.reverse(result);
-	}
-
-	/**
-	 * This is a classic, single-threaded implementation. We know the max LCS length is greater than
-	 * Short#MAX_VALUE... the score matrix will thus be int-typed, resulting in a huge memory cost.
-	 * 
-	 * @param comparison
-	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
-	 * @param equalityHelper
-	 *            The equality helper to use for this computation.
-	 * @param ignoredElements
-	 *            Specifies elements that should be excluded from the subsequences.
-	 * @param sequence1
-	 *            First of the two sequences to consider.
-	 * @param sequence2
-	 *            Second of the two sequences to consider.
-	 * @param <E>
-	 *            Type of the sequences content.
-	 * @return The LCS of the two given sequences. Will never be the same instance as one of the input
-	 *         sequences.
-	 */
-	private static <E> List<E> intLongestCommonSubsequence(Comparison comparison,
-			IEqualityHelper equalityHelper, Object[] ignoredElements, List<E> sequence1, List<E> sequence2) {
-		final int size1 = sequence1.size();
-		final int size2 = sequence2.size();
-
-		final int[][] matrix = new int[size1 + 1][size2 + 1];
-
-		// Compute the LCS matrix
-		for (int i = 1; i <= size1; i++) {
-			final E first = sequence1.get(i - 1);
-			for (int j = 1; j <= size2; j++) {
-				// assume array dereferencing and arithmetics faster than equals
-				final int current = matrix[i - 1][j - 1];
-				final int nextIfNoMatch = Math.max(matrix[i - 1][j], matrix[i][j - 1]);
-
-				if (nextIfNoMatch > current) {
-					matrix[i][j] = nextIfNoMatch;
-				} else {
-					final E second = sequence2.get(j - 1);
-					if (equalityHelper.matchingValues(first, second)
-							&& !contains(equalityHelper, ignoredElements, second)) {
-						matrix[i][j] = 1 + current;
-					} else {
-						matrix[i][j] = nextIfNoMatch;
-					}
-				}
-			}
-		}
-
-		// Traceback the matrix to create the final LCS
-		int current1 = size1;
-		int current2 = size2;
-		final List<E> result = Lists.newArrayList();
-
-		while (current1 > 0 && current2 > 0) {
-			final int currentLength = matrix[current1][current2];
-			final int nextLeft = matrix[current1][current2 - 1];
-			final int nextUp = matrix[current1 - 1][current2];
-			if (currentLength > nextLeft && currentLength > nextUp) {
-				result.add(sequence1.get(current1 - 1));
-				current1--;
-				current2--;
-			} else if (nextLeft >= nextUp) {
-				current2--;
-			} else {
-				current1--;
-			}
-		}
-
-		return Lists.reverse(result);
-	}
-
 	/*
 	 * TODO perf : all "lookups" in source and target could be rewritten by using the lcs elements' matches.
 	 * This may or may not help, should be profiled.
@@ -698,7 +602,30 @@ public final class DiffUtil {
 		} else {
 			lcs = longestCommonSubsequence(comparison, source, target);
 		}
+		return findInsertionIndexFromLCS(equalityHelper, lcs, source, target, newElement);
+	}
 
+	/**
+	 * Determines the index at which a given element from the {@code source} list should be inserted in the
+	 * {@code target} list, relatively to an already computed LCS of these two lists.
+	 * 
+	 * @param equalityHelper
+	 *            The equality helper to use for this computation.
+	 * @param lcs
+	 *            The lcs between {@code source} and {@code target}.
+	 * @param source
+	 *            The List from which one element has to be added to the {@code target} list.
+	 * @param target
+	 *            The List into which one element from {@code source} has to be added.
+	 * @param newElement
+	 *            The element from {@code source} that needs to be added into {@code target}.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The index at which {@code newElement} should be inserted in {@code target}.
+	 * @see #findInsertionIndex(Comparison, Iterable, List, List, Object)
+	 */
+	static <E> int findInsertionIndexFromLCS(IEqualityHelper equalityHelper, List<E> lcs, List<E> source,
+			List<E> target, E newElement) {
 		E firstLCS = null;
 		E lastLCS = null;
 		int lcsSize = lcs.size();
@@ -967,6 +894,17 @@ public final class DiffUtil {
 		Set<Object> ignoredElements = computeIgnoredElements(comparison, comparison.getEqualityHelper(),
 				targetList, diff, rightToLeft);
 		if (ignoredElements.isEmpty()) {
+			final MergeAlignmentCache session = MergeAlignmentCache.current();
+			if (session != null) {
+				// Successive insertions in the same list during a merge session reuse its alignment
+				final List<Object> key = Arrays.<Object> asList(
+						getTargetContainer(comparison, diff, rightToLeft), targetFeature,
+						Boolean.valueOf(rightToLeft));
+				final boolean unique = targetFeature.isUnique()
+						&& !FeatureMapUtil.isFeatureMap(targetFeature);
+				return session.findInsertionIndex(comparison, key, sourceList, targetList, changedValue,
+						unique);
+			}
 			ignoredElements = Collections.singleton(changedValue);
 		} else {
 			ignoredElements.add(changedValue);
@@ -1076,7 +1014,7 @@ public final class DiffUtil {
 	private static List<Object> getTargetList(Comparison comparison, Diff diff, boolean rightToLeft) {
 		final EStructuralFeature targetFeature = getTargetFeature(comparison, diff, rightToLeft);
 		final EObject expectedContainer = getTargetContainer(comparison, diff, rightToLeft);
-		return ReferenceUtil.getAsList(expectedContainer, targetFeature);
+		return BulkListUpdates.getTargetList(expectedContainer, targetFeature);
 	}
 
 	/**
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import java.util.List;
+
+import org.eclipse.emf.compare.Comparison;
+
+/**
+ * A strategy computing a common subsequence of two sequences, as used by
+ * {@link DiffUtil#longestCommonSubsequence(Comparison, Iterable, List, List, ISequenceAligner)} once the
+ * common prefix and suffix of the sequences have been trimmed and the ignored elements removed.
+ * <p>
+ * Two elements are considered equal if they are matching according to the
+ * {@link org.eclipse.emf.compare.utils.IEqualityHelper equality helper} of the comparison. Implementations
+ * only rely on this equality: they must not assume that it is consistent with {@link Object#equals(Object)}
+ * or {@link Object#hashCode()}.
+ * </p>
+ */
+public interface ISequenceAligner {
+	/**
+	 * Computes a common subsequence of the two given sequences, which should be as long as possible.
+	 *
+	 * @param comparison
+	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
+	 * @param sequence1
+	 *            First of the two sequences to consider, must implement {@link java.util.RandomAccess}.
+	 * @param sequence2
+	 *            Second of the two sequences to consider, must implement {@link java.util.RandomAccess}.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The elements of {@code sequence1} which are part of the common subsequence, in their order in
+	 *         {@code sequence1}. Will never be the same instance as one of the input sequences.
+	 */
+	<E> List<E> longestCommonSubsequence(Comparison comparison, List<E> sequence1, List<E> sequence2);
+}
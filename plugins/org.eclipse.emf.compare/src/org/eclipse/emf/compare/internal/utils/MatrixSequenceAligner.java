@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2012, 2019 Obeo and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.utils.IEqualityHelper;
+
+/**
+ * The classic dynamic programming computation of the longest common subsequence, which fills the whole
+ * matrix of the lengths of the LCS of all prefixes of the two sequences before backtracking through it. It
+ * costs O(n·m) in both time and memory, n and m being the lengths of the two sequences, and should thus be
+ * restricted to small sequences. If there are two subsequences of the same "longest" length, the first
+ * (according to the second sequence) is returned.
+ * <p>
+ * The following algorithm has been inferred from the wikipedia article on the Longest Common Subsequence,
+ * http://en.wikipedia.org/wiki/Longest_common_subsequence_problem at the time of writing.
+ * </p>
+ */
+public class MatrixSequenceAligner implements ISequenceAligner {
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.internal.utils.ISequenceAligner#longestCommonSubsequence(Comparison,
+	 *      List, List)
+	 */
+	public <E> List<E> longestCommonSubsequence(Comparison comparison, List<E> sequence1,
+			List<E> sequence2) {
+		final IEqualityHelper equalityHelper = comparison.getEqualityHelper();
+		if (sequence1.size() > Short.MAX_VALUE || sequence2.size() > Short.MAX_VALUE) {
+			return intLongestCommonSubsequence(equalityHelper, sequence1, sequence2);
+		}
+		return shortLongestCommonSubsequence(equalityHelper, sequence1, sequence2);
+	}
+
+	/**
+	 * This is a classic, single-threaded implementation. We use shorts for the score matrix so as to limit
+	 * the memory cost (we know the max LCS length is not greater than Short#MAX_VALUE).
+	 *
+	 * @param equalityHelper
+	 *            The equality helper to use for this computation.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The LCS of the two given sequences. Will never be the same instance as one of the input
+	 *         sequences.
+	 */
+	private static <E> List<E> shortLongestCommonSubsequence(IEqualityHelper equalityHelper,
+			List<E> sequence1, List<E> sequence2) {
+		final int size1 = sequence1.size();
+		final int size2 = sequence2.size();
+
+		final short[][] matrix = new short[size1 + 1][size2 + 1];
+
+		// Compute the LCS matrix
+		for (int i = 1; i <= size1; i++) {
+			final E first = sequence1.get(i - 1);
+			for (int j = 1; j <= size2; j++) {
+				// assume array dereferencing and arithmetics faster than equals
+				final short current = matrix[i - 1][j - 1];
+				final short nextIfNoMatch = (short)Math.max(matrix[i - 1][j], matrix[i][j - 1]);
+
+				if (nextIfNoMatch > current) {
+					matrix[i][j] = nextIfNoMatch;
+				} else {
+					final E second = sequence2.get(j - 1);
+					if (equalityHelper.matchingValues(first, second)) {
+						matrix[i][j] = (short)(1 + current);
+					} else {
+						matrix[i][j] = nextIfNoMatch;
+					}
+				}
+			}
+		}
+
+		// Traceback the matrix to create the final LCS
+		int current1 = size1;
+		int current2 = size2;
+		final List<E> result = Lists.newArrayList();
+
+		while (current1 > 0 && current2 > 0) {
+			final short currentLength = matrix[current1][current2];
+			final short nextLeft = matrix[current1][current2 - 1];
+			final short nextUp = matrix[current1 - 1][current2];
+			if (currentLength > nextLeft && currentLength > nextUp) {
+				result.add(sequence1.get(current1 - 1));
+				current1--;
+				current2--;
+			} else if (nextLeft >= nextUp) {
+				current2--;
+			} else {
+				current1--;
+			}
+		}
+
+		return Lists.reverse(result);
+	}
+
+	/**
+	 * This is a classic, single-threaded implementation. We know the max LCS length is greater than
+	 * Short#MAX_VALUE... the score matrix will thus be int-typed, resulting in a huge memory cost.
+	 *
+	 * @param equalityHelper
+	 *            The equality helper to use for this computation.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The LCS of the two given sequences. Will never be the same instance as one of the input
+	 *         sequences.
+	 */
+	private static <E> List<E> intLongestCommonSubsequence(IEqualityHelper equalityHelper,
+			List<E> sequence1, List<E> sequence2) {
+		final int size1 = sequence1.size();
+		final int size2 = sequence2.size();
+
+		final int[][] matrix = new int[size1 + 1][size2 + 1];
+
+		// Compute the LCS matrix
+		for (int i = 1; i <= size1; i++) {
+			final E first = sequence1.get(i - 1);
+			for (int j = 1; j <= size2; j++) {
+				// assume array dereferencing and arithmetics faster than equals
+				final int current = matrix[i - 1][j - 1];
+				final int nextIfNoMatch = Math.max(matrix[i - 1][j], matrix[i][j - 1]);
+
+				if (nextIfNoMatch > current) {
+					matrix[i][j] = nextIfNoMatch;
+				} else {
+					final E second = sequence2.get(j - 1);
+					if (equalityHelper.matchingValues(first, second)) {
+						matrix[i][j] = 1 + current;
+					} else {
+						matrix[i][j] = nextIfNoMatch;
+					}
+				}
+			}
+		}
+
+		// Traceback the matrix to create the final LCS
+		int current1 = size1;
+		int current2 = size2;
+		final List<E> result = Lists.newArrayList();
+
+		while (current1 > 0 && current2 > 0) {
+			final int currentLength = matrix[current1][current2];
+			final int nextLeft = matrix[current1][current2 - 1];
+			final int nextUp = matrix[current1 - 1][current2];
+			if (currentLength > nextLeft && currentLength > nextUp) {
+				result.add(sequence1.get(current1 - 1));
+				current1--;
+				current2--;
+			} else if (nextLeft >= nextUp) {
+				current2--;
+			} else {
+				current1--;
+			}
+		}
+
+		return Lists.reverse(result);
+	}
+}
@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.utils.IEqualityHelper;
+
+/**
+ * Keeps the alignment of the source and target lists of the multi-valued features being merged during a
+ * merge session, so that successive insertions into the same list do not compute its longest common
+ * subsequence with the source list over and over again.
+ * <p>
+ * The alignment of a list is kept along with a snapshot of the source and target lists it was computed for.
+ * When asked for the insertion index of a new value, the cache checks whether the lists are unchanged, or
+ * whether the only change to the target list is the insertion of the value it has last placed, at the
+ * index it has computed for it. In the latter case, that value is simply added to the known LCS: the LCS of
+ * the new lists cannot be more than one element longer than the former one. Any other change to the lists
+ * leads to the LCS being computed from scratch.
+ * </p>
+ * <p>
+ * A session is bound to the thread that {@link #open() opened} it and must be {@link #close() closed} by
+ * this same thread, typically in a <code>finally</code> block. Sessions can be nested, in which case the
+ * outermost one is used.
+ * </p>
+ */
+public final class MergeAlignmentCache {
+	/** The session opened by each thread, if any. */
+	private static final ThreadLocal<MergeAlignmentCache> SESSION = new ThreadLocal<MergeAlignmentCache>();
+
+	/** The known alignments, by target container, feature and direction of merge. */
+	private final Map<List<Object>, Alignment> alignments;
+
+	/** The number of times this session has been opened and not yet closed. */
+	private int depth;
+
+	/** Only accessible through {@link #open()}. */
+	private MergeAlignmentCache() {
+		this.alignments = Maps.newHashMap();
+	}
+
+	/**
+	 * Opens a merge session on the current thread, or joins the session which is already open.
+	 *
+	 * @return The session of the current thread.
+	 */
+	public static MergeAlignmentCache open() {
+		MergeAlignmentCache session = SESSION.get();
+		if (session == null) {
+			session = new MergeAlignmentCache();
+			SESSION.set(session);
+		}
+		session.depth++;
+		return session;
+	}
+
+	/**
+	 * Closes this session, discarding all of the known alignments if it is not nested in another one.
+	 */
+	public void close() {
+		depth--;
+		if (depth == 0) {
+			alignments.clear();
+			SESSION.remove();
+		}
+	}
+
+	/**
+	 * Returns the session opened by the current thread.
+	 *
+	 * @return The session of the current thread, <code>null</code> if it has not opened any.
+	 */
+	static MergeAlignmentCache current() {
+		return SESSION.get();
+	}
+
+	/**
+	 * Finds the index at which {@code newElement} should be inserted in {@code target}, reusing the known
+	 * alignment of the two lists if possible. This yields the same result as
+	 * {@link DiffUtil#findInsertionIndex(Comparison, Iterable, List, List, Object)} when {@code newElement}
+	 * is the only ignored element.
+	 *
+	 * @param comparison
+	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
+	 * @param key
+	 *            Identifies the target list in this session.
+	 * @param source
+	 *            The List from which one element has to be added to the {@code target} list.
+	 * @param target
+	 *            The List into which one element from {@code source} has to be added.
+	 * @param newElement
+	 *            The element from {@code source} that needs to be added into {@code target}.
+	 * @param unique
+	 *            Whether the lists are known not to contain duplicates, in which case the position of the
+	 *            elements of the LCS in both lists can be used directly to locate the insertion index.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The index at which {@code newElement} should be inserted in {@code target}.
+	 */
+	@SuppressWarnings("unchecked")
+	<E> int findInsertionIndex(Comparison comparison, List<Object> key, List<E> source, List<E> target,
+			E newElement, boolean unique) {
+		final IEqualityHelper equalityHelper = comparison.getEqualityHelper();
+		final Object[] sourceArray = source.toArray();
+		final Object[] targetArray = target.toArray();
+
+		Alignment alignment = alignments.get(key);
+		if (alignment != null && !alignment.update(equalityHelper, sourceArray, targetArray)) {
+			alignment = null;
+		}
+		if (indexOf(equalityHelper, targetArray, newElement) != -1) {
+			// Ignoring a value which is part of the target changes its alignment, we can't reuse it.
+			alignments.remove(key);
+			return DiffUtil.findInsertionIndex(comparison, Collections.singleton(newElement), source, target,
+					newElement);
+		}
+		if (alignment == null) {
+			final List<E> lcs = DiffUtil.longestCommonSubsequence(comparison,
+					Collections.singleton(newElement), source, target);
+			alignment = new Alignment(equalityHelper, sourceArray, targetArray, (List<Object>)lcs);
+			alignments.put(key, alignment);
+		}
+
+		final int sourceIndex = indexOf(equalityHelper, sourceArray, newElement);
+		final int insertionIndex;
+		if (unique && alignment.isEmbedded()) {
+			insertionIndex = alignment.insertionIndex(sourceIndex);
+		} else {
+			insertionIndex = DiffUtil.findInsertionIndexFromLCS(equalityHelper, (List<E>)alignment.lcs,
+					source, target, newElement);
+		}
+		alignment.expectInsertion(newElement, sourceIndex, insertionIndex);
+		return insertionIndex;
+	}
+
+	/**
+	 * Returns the index of the first element of the given array which is matching the given value.
+	 *
+	 * @param equalityHelper
+	 *            The equality helper to use for this computation.
+	 * @param array
+	 *            The array in which to look for {@code value}.
+	 * @param value
+	 *            The value to look for.
+	 * @return The index of {@code value} in {@code array}, <code>-1</code> if it is not found.
+	 */
+	private static int indexOf(IEqualityHelper equalityHelper, Object[] array, Object value) {
+		for (int i = 0; i < array.length; i++) {
+			if (equalityHelper.matchingValues(value, array[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The alignment of a source list with a target list.
+	 */
+	private static final class Alignment {
+		/** The source list at the time of the last computation. */
+		private Object[] source;
+
+		/** The target list at the time of the last computation. */
+		private Object[] target;
+
+		/** The longest common subsequence of {@link #source} and {@link #target}. */
+		private final List<Object> lcs;
+
+		/** The index in {@link #source} of each element of the {@link #lcs}. */
+		private final List<Integer> lcsIndices;
+
+		/** The index in {@link #target} of each element of the {@link #lcs}. */
+		private final List<Integer> lcsTargetIndices;
+
+		/** The last value which insertion index has been computed, <code>null</code> if none. */
+		private Object pendingValue;
+
+		/** The index of {@link #pendingValue} in {@link #source}. */
+		private int pendingSourceIndex;
+
+		/** The index at which {@link #pendingValue} should have been inserted in {@link #target}. */
+		private int pendingTargetIndex;
+
+		/**
+		 * Creates the alignment of the given lists.
+		 *
+		 * @param equalityHelper
+		 *            The equality helper used to compute the LCS.
+		 * @param source
+		 *            The source list.
+		 * @param target
+		 *            The target list.
+		 * @param lcs
+		 *            The longest common subsequence of {@code source} and {@code target}.
+		 */
+		Alignment(IEqualityHelper equalityHelper, Object[] source, Object[] target, List<Object> lcs) {
+			this.source = source;
+			this.target = target;
+			this.lcs = Lists.newArrayList(lcs);
+			this.lcsIndices = embed(equalityHelper, source, lcs);
+			this.lcsTargetIndices = embed(equalityHelper, target, lcs);
+		}
+
+		/**
+		 * Locates the elements of the given subsequence in the given list, each at the first position
+		 * following the previous one.
+		 *
+		 * @param equalityHelper
+		 *            The equality helper used to compare values.
+		 * @param list
+		 *            The list containing the subsequence.
+		 * @param subsequence
+		 *            The subsequence.
+		 * @return The index in {@code list} of each element of {@code subsequence} that could be located.
+		 */
+		private static List<Integer> embed(IEqualityHelper equalityHelper, Object[] list,
+				List<Object> subsequence) {
+			final List<Integer> indices = Lists.newArrayListWithCapacity(subsequence.size());
+			for (int i = 0; i < list.length && indices.size() < subsequence.size(); i++) {
+				if (equalityHelper.matchingValues(list[i], subsequence.get(indices.size()))) {
+					indices.add(Integer.valueOf(i));
+				}
+			}
+			return indices;
+		}
+
+		/**
+		 * Checks whether all of the elements of the LCS have been located in both lists.
+		 *
+		 * @return <code>true</code> if the position of each element of the LCS is known in both lists.
+		 */
+		boolean isEmbedded() {
+			return lcsIndices.size() == lcs.size() && lcsTargetIndices.size() == lcs.size();
+		}
+
+		/**
+		 * Computes the index at which the source element at the given index should be inserted in the
+		 * target list, assuming that neither list contains duplicates: this is right after the last element
+		 * of the LCS that precedes it in the source list, or right before the first element of the LCS.
+		 *
+		 * @param sourceIndex
+		 *            The index of the element in the source list, <code>-1</code> if it isn't part of it.
+		 * @return The index at which this element should be inserted in the target list.
+		 */
+		int insertionIndex(int sourceIndex) {
+			if (lcs.isEmpty()) {
+				return target.length;
+			}
+			int position = Collections.binarySearch(lcsIndices, Integer.valueOf(sourceIndex));
+			if (position < 0) {
+				position = -position - 1;
+			}
+			if (position == 0) {
+				return lcsTargetIndices.get(0).intValue();
+			}
+			return lcsTargetIndices.get(position - 1).intValue() + 1;
+		}
+
+		/**
+		 * Records the insertion index which has been computed for the given value, so that its insertion
+		 * can be recognized by the next {@link #update(IEqualityHelper, Object[], Object[]) update}.
+		 *
+		 * @param value
+		 *            The value that is to be inserted.
+		 * @param sourceIndex
+		 *            The index of {@code value} in the source list.
+		 * @param targetIndex
+		 *            The index at which {@code value} is to be inserted in the target list.
+		 */
+		void expectInsertion(Object value, int sourceIndex, int targetIndex) {
+			if (sourceIndex == -1) {
+				pendingValue = null;
+			} else {
+				pendingValue = value;
+				pendingSourceIndex = sourceIndex;
+				pendingTargetIndex = targetIndex;
+			}
+		}
+
+		/**
+		 * Brings this alignment up to date with the given lists.
+		 *
+		 * @param equalityHelper
+		 *            The equality helper used to compare values.
+		 * @param newSource
+		 *            The current state of the source list.
+		 * @param newTarget
+		 *            The current state of the target list.
+		 * @return <code>true</code> if the alignment is up to date, <code>false</code> if the lists have
+		 *         changed in a way it could not follow.
+		 */
+		boolean update(IEqualityHelper equalityHelper, Object[] newSource, Object[] newTarget) {
+			if (source.length != newSource.length || !sameElements(source, 0, newSource, 0, source.length)) {
+				return false;
+			}
+			source = newSource;
+			if (newTarget.length == target.length) {
+				if (!sameElements(target, 0, newTarget, 0, newTarget.length)) {
+					return false;
+				}
+				target = newTarget;
+				return true;
+			}
+			if (pendingValue == null || !isEmbedded() || newTarget.length != target.length + 1
+					|| !isPendingInsertion(equalityHelper, newTarget)) {
+				return false;
+			}
+
+			int position = Collections.binarySearch(lcsIndices, Integer.valueOf(pendingSourceIndex));
+			if (position >= 0) {
+				// The value already is part of the LCS, it should have been ignored
+				return false;
+			}
+			position = -position - 1;
+			// The value was inserted right after its predecessor in the LCS, or right before the LCS start
+			final boolean aligned;
+			if (position > 0) {
+				aligned = pendingTargetIndex > 0 && equalityHelper.matchingValues(lcs.get(position - 1),
+						newTarget[pendingTargetIndex - 1]);
+			} else if (!lcs.isEmpty()) {
+				aligned = pendingTargetIndex + 1 < newTarget.length
+						&& equalityHelper.matchingValues(lcs.get(0), newTarget[pendingTargetIndex + 1]);
+			} else {
+				aligned = true;
+			}
+			if (!aligned) {
+				return false;
+			}
+			lcs.add(position, pendingValue);
+			lcsIndices.add(position, Integer.valueOf(pendingSourceIndex));
+			for (int i = position; i < lcsTargetIndices.size(); i++) {
+				lcsTargetIndices.set(i, Integer.valueOf(lcsTargetIndices.get(i).intValue() + 1));
+			}
+			lcsTargetIndices.add(position, Integer.valueOf(pendingTargetIndex));
+			target = newTarget;
+			pendingValue = null;
+			return true;
+		}
+
+		/**
+		 * Checks whether the given target list is the known target list in which {@link #pendingValue}
+		 * has been inserted at {@link #pendingTargetIndex}.
+		 *
+		 * @param equalityHelper
+		 *            The equality helper used to compare values.
+		 * @param newTarget
+		 *            The current state of the target list.
+		 * @return <code>true</code> if that is the only change of the target list.
+		 */
+		private boolean isPendingInsertion(IEqualityHelper equalityHelper, Object[] newTarget) {
+			return pendingTargetIndex <= target.length
+					&& sameElements(target, 0, newTarget, 0, pendingTargetIndex)
+					&& sameElements(target, pendingTargetIndex, newTarget, pendingTargetIndex + 1,
+							target.length - pendingTargetIndex)
+					&& equalityHelper.matchingValues(pendingValue, newTarget[pendingTargetIndex]);
+		}
+
+		/**
+		 * Checks whether the given ranges of two arrays hold the very same elements.
+		 *
+		 * @param array1
+		 *            The first array.
+		 * @param from1
+		 *            Start of the range in {@code array1}.
+		 * @param array2
+		 *            The second array.
+		 * @param from2
+		 *            Start of the range in {@code array2}.
+		 * @param length
+		 *            Length of the ranges, which must fit in both arrays.
+		 * @return <code>true</code> if both ranges hold identical elements.
+		 */
+		private static boolean sameElements(Object[] array1, int from1, Object[] array2, int from2,
+				int length) {
+			if (from1 + length > array1.length || from2 + length > array2.length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (array1[from1 + i] != array2[from2 + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
+
+/**
+ * Utility methods to handle the counters of the {@link CounterSource}s.
+ */
+public final class MetricsUtil {
+	/**
+	 * Utility classes don't need a public constructor.
+	 */
+	private MetricsUtil() {
+		// Hides default constructor
+	}
+
+	/**
+	 * Adds the given value to a counter of the given map.
+	 * 
+	 * @param counters
+	 *            the counters, by name.
+	 * @param counter
+	 *            name of the counter to increase, it is added to the map if absent.
+	 * @param value
+	 *            the value to add.
+	 */
+	public static void addCounter(Map<String, Long> counters, String counter, long value) {
+		final Long previous = counters.get(counter);
+		if (previous == null) {
+			counters.put(counter, Long.valueOf(value));
+		} else {
+			counters.put(counter, Long.valueOf(previous.longValue() + value));
+		}
+	}
+
+	/**
+	 * Collects the counters of the given object if it is a {@link CounterSource}.
+	 * 
+	 * @param source
+	 *            any object, may be <code>null</code>.
+	 * @return the counters of <code>source</code>, an empty map if it is not a {@link CounterSource}.
+	 */
+	public static Map<String, Long> collectCounters(Object source) {
+		if (source instanceof CounterSource) {
+			final Map<String, Long> counters = Maps.newLinkedHashMap();
+			((CounterSource)source).collectCounters(counters);
+			return counters;
+		}
+		return Collections.emptyMap();
+	}
+
+	/**
+	 * Computes the increase of each counter between two collections of the same source.
+	 * 
+	 * @param before
+	 *            the counters collected first.
+	 * @param after
+	 *            the counters collected last.
+	 * @return the difference between <code>after</code> and <code>before</code>, for all of the counters of
+	 *         <code>after</code>.
+	 */
+	public static Map<String, Long> increase(Map<String, Long> before, Map<String, Long> after) {
+		final Map<String, Long> increase = Maps.newLinkedHashMap();
+		for (Map.Entry<String, Long> entry : after.entrySet()) {
+			final Long previous = before.get(entry.getKey());
+			long value = entry.getValue().longValue();
+			if (previous != null) {
+				value -= previous.longValue();
+			}
+			increase.put(entry.getKey(), Long.valueOf(value));
+		}
+		return increase;
+	}
+}
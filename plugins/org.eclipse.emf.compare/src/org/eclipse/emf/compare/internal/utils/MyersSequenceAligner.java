@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.utils.IEqualityHelper;
+
+/**
+ * Computes the longest common subsequence with the O(ND) algorithm of Eugene W. Myers ("An O(ND) Difference
+ * Algorithm and Its Variations", Algorithmica 1, 1986), D being the number of elements that are not part of
+ * the LCS, in its linear space refinement.
+ * <p>
+ * The "middle snake" of the edit graph is searched for from both of its ends at the same time, after which
+ * the sequences are split at this snake and both halves are aligned recursively, in the way of Hirschberg's
+ * algorithm. Only two vectors of O(n + m) integers are needed at any time. This is much cheaper than the
+ * {@link MatrixSequenceAligner} on long sequences that are mostly similar, and never allocates more than a
+ * few arrays of the size of the sequences.
+ * </p>
+ */
+public class MyersSequenceAligner implements ISequenceAligner {
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.internal.utils.ISequenceAligner#longestCommonSubsequence(Comparison,
+	 *      List, List)
+	 */
+	public <E> List<E> longestCommonSubsequence(Comparison comparison, List<E> sequence1,
+			List<E> sequence2) {
+		final Alignment<E> alignment = new Alignment<E>(comparison.getEqualityHelper(), sequence1, sequence2);
+		alignment.align(0, sequence1.size(), 0, sequence2.size());
+		return alignment.result;
+	}
+
+	/**
+	 * Computes the longest common subsequence of ranges of the given sequences, adding its elements to a
+	 * result list.
+	 *
+	 * @param equalityHelper
+	 *            The equality helper used to compare the elements of the sequences.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param from1
+	 *            Start of the range of {@code sequence1}, included.
+	 * @param to1
+	 *            End of the range of {@code sequence1}, excluded.
+	 * @param from2
+	 *            Start of the range of {@code sequence2}, included.
+	 * @param to2
+	 *            End of the range of {@code sequence2}, excluded.
+	 * @param result
+	 *            The list to which the elements of {@code sequence1} in the LCS of the ranges are added.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 */
+	static <E> void align(IEqualityHelper equalityHelper, List<E> sequence1, List<E> sequence2, int from1,
+			int to1, int from2, int to2, List<E> result) {
+		final Alignment<E> alignment = new Alignment<E>(equalityHelper, sequence1, sequence2);
+		alignment.align(from1, to1, from2, to2);
+		result.addAll(alignment.result);
+	}
+
+	/**
+	 * The state of the alignment of two sequences.
+	 *
+	 * @param <E>
+	 *            Type of the sequences content.
+	 */
+	private static final class Alignment<E> {
+		/** The equality helper used to compare the elements of the sequences. */
+		private final IEqualityHelper equalityHelper;
+
+		/** First of the two sequences to consider. */
+		private final List<E> sequence1;
+
+		/** Second of the two sequences to consider. */
+		private final List<E> sequence2;
+
+		/** The elements of the LCS found so far, in order. */
+		private final List<E> result;
+
+		/** Furthest reaching forward paths, by diagonal. */
+		private int[] forward;
+
+		/** Furthest reaching backward paths, by diagonal. */
+		private int[] backward;
+
+		/** Offset in the first range of the split point found by the last search for a middle snake. */
+		private int split1;
+
+		/** Offset in the second range of the split point found by the last search for a middle snake. */
+		private int split2;
+
+		/**
+		 * Creates an alignment of the two given sequences.
+		 *
+		 * @param equalityHelper
+		 *            The equality helper used to compare the elements of the sequences.
+		 * @param sequence1
+		 *            First of the two sequences to consider.
+		 * @param sequence2
+		 *            Second of the two sequences to consider.
+		 */
+		Alignment(IEqualityHelper equalityHelper, List<E> sequence1, List<E> sequence2) {
+			this.equalityHelper = equalityHelper;
+			this.sequence1 = sequence1;
+			this.sequence2 = sequence2;
+			this.result = new ArrayList<E>();
+		}
+
+		/**
+		 * Checks whether the elements at the given positions are matching.
+		 *
+		 * @param index1
+		 *            Position in {@link #sequence1}.
+		 * @param index2
+		 *            Position in {@link #sequence2}.
+		 * @return <code>true</code> if the two elements are matching.
+		 */
+		private boolean matching(int index1, int index2) {
+			return equalityHelper.matchingValues(sequence1.get(index1), sequence2.get(index2));
+		}
+
+		/**
+		 * Adds the LCS of the given ranges of the two sequences to {@link #result}.
+		 *
+		 * @param from1
+		 *            Start of the range of {@link #sequence1}, included.
+		 * @param to1
+		 *            End of the range of {@link #sequence1}, excluded.
+		 * @param from2
+		 *            Start of the range of {@link #sequence2}, included.
+		 * @param to2
+		 *            End of the range of {@link #sequence2}, excluded.
+		 */
+		void align(int from1, int to1, int from2, int to2) {
+			int start1 = from1;
+			int start2 = from2;
+			while (start1 < to1 && start2 < to2 && matching(start1, start2)) {
+				result.add(sequence1.get(start1));
+				start1++;
+				start2++;
+			}
+			int end1 = to1;
+			int end2 = to2;
+			while (end1 > start1 && end2 > start2 && matching(end1 - 1, end2 - 1)) {
+				end1--;
+				end2--;
+			}
+
+			if (start1 < end1 && start2 < end2 && findMiddleSnake(start1, end1, start2, end2)) {
+				final int middle1 = start1 + split1;
+				final int middle2 = start2 + split2;
+				align(start1, middle1, start2, middle2);
+				align(middle1, end1, middle2, end2);
+			}
+
+			for (int i = end1; i < to1; i++) {
+				result.add(sequence1.get(i));
+			}
+		}
+
+		/**
+		 * Searches for the middle snake of the edit graph of the given ranges, which must neither start nor
+		 * end with matching elements.
+		 *
+		 * @param from1
+		 *            Start of the range of {@link #sequence1}, included.
+		 * @param to1
+		 *            End of the range of {@link #sequence1}, excluded.
+		 * @param from2
+		 *            Start of the range of {@link #sequence2}, included.
+		 * @param to2
+		 *            End of the range of {@link #sequence2}, excluded.
+		 * @return <code>true</code> if the snake was found, in which case the point at which to split the
+		 *         ranges is stored in {@link #split1} and {@link #split2}, <code>false</code> if the ranges
+		 *         have no matching elements.
+		 */
+		private boolean findMiddleSnake(int from1, int to1, int from2, int to2) {
+			final int length1 = to1 - from1;
+			final int length2 = to2 - from2;
+			final int maxD = (length1 + length2 + 1) / 2;
+			final int offset = maxD;
+			final int vectorLength = 2 * maxD + 2;
+			if (forward == null || forward.length < vectorLength) {
+				forward = new int[vectorLength];
+				backward = new int[vectorLength];
+			}
+			Arrays.fill(forward, 0, vectorLength, -1);
+			Arrays.fill(backward, 0, vectorLength, -1);
+			forward[offset + 1] = 0;
+			backward[offset + 1] = 0;
+			final int delta = length1 - length2;
+			// If the total number of elements is odd, the forward path will collide with the backward path
+			final boolean front = (delta & 1) != 0;
+			// Offsets for the start and end of the diagonals to consider, to prune those out of the graph
+			int k1start = 0;
+			int k1end = 0;
+			int k2start = 0;
+			int k2end = 0;
+			for (int d = 0; d < maxD; d++) {
+				for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+					final int k1Offset = offset + k1;
+					int x1;
+					if (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) {
+						x1 = forward[k1Offset + 1];
+					} else {
+						x1 = forward[k1Offset - 1] + 1;
+					}
+					int y1 = x1 - k1;
+					while (x1 < length1 && y1 < length2 && matching(from1 + x1, from2 + y1)) {
+						x1++;
+						y1++;
+					}
+					forward[k1Offset] = x1;
+					if (x1 > length1) {
+						k1end += 2;
+					} else if (y1 > length2) {
+						k1start += 2;
+					} else if (front) {
+						final int k2Offset = offset + delta - k1;
+						if (k2Offset >= 0 && k2Offset < vectorLength && backward[k2Offset] != -1) {
+							if (x1 >= length1 - backward[k2Offset]) {
+								return split(x1, y1);
+							}
+						}
+					}
+				}
+
+				for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+					final int k2Offset = offset + k2;
+					int x2;
+					if (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) {
+						x2 = backward[k2Offset + 1];
+					} else {
+						x2 = backward[k2Offset - 1] + 1;
+					}
+					int y2 = x2 - k2;
+					while (x2 < length1 && y2 < length2 && matching(to1 - x2 - 1, to2 - y2 - 1)) {
+						x2++;
+						y2++;
+					}
+					backward[k2Offset] = x2;
+					if (x2 > length1) {
+						k2end += 2;
+					} else if (y2 > length2) {
+						k2start += 2;
+					} else if (!front) {
+						final int k1Offset = offset + delta - k2;
+						if (k1Offset >= 0 && k1Offset < vectorLength && forward[k1Offset] != -1) {
+							final int x1 = forward[k1Offset];
+							final int y1 = offset + x1 - k1Offset;
+							if (x1 >= length1 - x2) {
+								return split(x1, y1);
+							}
+						}
+					}
+				}
+			}
+			// No common element
+			return false;
+		}
+
+		/**
+		 * Records the point at which to split the ranges being aligned.
+		 *
+		 * @param offset1
+		 *            Offset of the split point in the first range.
+		 * @param offset2
+		 *            Offset of the split point in the second range.
+		 * @return <code>true</code>.
+		 */
+		private boolean split(int offset1, int offset2) {
+			this.split1 = offset1;
+			this.split2 = offset2;
+			return true;
+		}
+	}
+}
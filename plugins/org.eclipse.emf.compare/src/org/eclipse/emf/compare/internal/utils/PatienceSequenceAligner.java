@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.utils.IEqualityHelper;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Aligns two sequences in the way of the "patience diff": the elements that appear exactly once in each of
+ * the two sequences are used as anchors, the longest increasing subsequence of which is kept as part of the
+ * common subsequence. The ranges between two consecutive anchors are then aligned recursively, falling back
+ * to the {@link MyersSequenceAligner} for the ranges that have no unique element.
+ * <p>
+ * This runs in O((n + m) log(n + m)) on sequences which elements are unique, as is the case of containment
+ * lists or of most reference lists, whatever the number of elements that have been moved around. The
+ * resulting common subsequence is not guaranteed to be the longest one, but it is usually closer to what a
+ * human would expect of the alignment of reordered lists.
+ * </p>
+ * <p>
+ * Elements are grouped through a key, which is their {@link Match} for the EObjects that have one and the
+ * element itself otherwise. Two elements with the same key are only used as an anchor if they are also
+ * matching according to the equality helper of the comparison: elements which match one another without
+ * sharing their key are simply not used as anchors, they can still be part of the subsequence through the
+ * Myers alignment of the ranges between the anchors.
+ * </p>
+ */
+public class PatienceSequenceAligner implements ISequenceAligner {
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.compare.internal.utils.ISequenceAligner#longestCommonSubsequence(Comparison,
+	 *      List, List)
+	 */
+	public <E> List<E> longestCommonSubsequence(Comparison comparison, List<E> sequence1,
+			List<E> sequence2) {
+		final List<E> result = new ArrayList<E>();
+		align(comparison, sequence1, sequence2, 0, sequence1.size(), 0, sequence2.size(), result);
+		return result;
+	}
+
+	/**
+	 * Adds a common subsequence of the given ranges of the two sequences to a result list.
+	 *
+	 * @param comparison
+	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param from1
+	 *            Start of the range of {@code sequence1}, included.
+	 * @param to1
+	 *            End of the range of {@code sequence1}, excluded.
+	 * @param from2
+	 *            Start of the range of {@code sequence2}, included.
+	 * @param to2
+	 *            End of the range of {@code sequence2}, excluded.
+	 * @param result
+	 *            The list to which the elements of {@code sequence1} in the common subsequence are added.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 */
+	private static <E> void align(Comparison comparison, List<E> sequence1, List<E> sequence2, int from1,
+			int to1, int from2, int to2, List<E> result) {
+		final IEqualityHelper equalityHelper = comparison.getEqualityHelper();
+		int start1 = from1;
+		int start2 = from2;
+		while (start1 < to1 && start2 < to2
+				&& equalityHelper.matchingValues(sequence1.get(start1), sequence2.get(start2))) {
+			result.add(sequence1.get(start1));
+			start1++;
+			start2++;
+		}
+		int end1 = to1;
+		int end2 = to2;
+		while (end1 > start1 && end2 > start2
+				&& equalityHelper.matchingValues(sequence1.get(end1 - 1), sequence2.get(end2 - 1))) {
+			end1--;
+			end2--;
+		}
+
+		if (start1 < end1 && start2 < end2) {
+			final int[] anchors = findAnchors(comparison, sequence1, sequence2, start1, end1, start2, end2);
+			if (anchors.length == 0) {
+				MyersSequenceAligner.align(equalityHelper, sequence1, sequence2, start1, end1, start2, end2,
+						result);
+			} else {
+				int previous1 = start1;
+				int previous2 = start2;
+				for (int i = 0; i < anchors.length; i += 2) {
+					align(comparison, sequence1, sequence2, previous1, anchors[i], previous2, anchors[i + 1],
+							result);
+					result.add(sequence1.get(anchors[i]));
+					previous1 = anchors[i] + 1;
+					previous2 = anchors[i + 1] + 1;
+				}
+				align(comparison, sequence1, sequence2, previous1, end1, previous2, end2, result);
+			}
+		}
+
+		for (int i = end1; i < to1; i++) {
+			result.add(sequence1.get(i));
+		}
+	}
+
+	/**
+	 * Finds the pairs of matching elements which are unique in both ranges, and keeps the longest chain of
+	 * them which is in the same order in both ranges.
+	 *
+	 * @param comparison
+	 *            This will be used in order to retrieve the Match for EObjects when comparing them.
+	 * @param sequence1
+	 *            First of the two sequences to consider.
+	 * @param sequence2
+	 *            Second of the two sequences to consider.
+	 * @param from1
+	 *            Start of the range of {@code sequence1}, included.
+	 * @param to1
+	 *            End of the range of {@code sequence1}, excluded.
+	 * @param from2
+	 *            Start of the range of {@code sequence2}, included.
+	 * @param to2
+	 *            End of the range of {@code sequence2}, excluded.
+	 * @param <E>
+	 *            Type of the sequences content.
+	 * @return The positions of the anchors, as consecutive pairs of a position in {@code sequence1} and a
+	 *         position in {@code sequence2}, in increasing order.
+	 */
+	private static <E> int[] findAnchors(Comparison comparison, List<E> sequence1, List<E> sequence2,
+			int from1, int to1, int from2, int to2) {
+		// Position of the unique occurrence of each key in the second range, -1 if it occurs more than once
+		final Map<Object, Integer> positions2 = Maps.newHashMap();
+		for (int j = from2; j < to2; j++) {
+			final Object key = keyOf(comparison, sequence2.get(j));
+			if (positions2.containsKey(key)) {
+				positions2.put(key, Integer.valueOf(-1));
+			} else {
+				positions2.put(key, Integer.valueOf(j));
+			}
+		}
+		final Map<Object, Integer> positions1 = Maps.newLinkedHashMap();
+		for (int i = from1; i < to1; i++) {
+			final Object key = keyOf(comparison, sequence1.get(i));
+			if (positions1.containsKey(key)) {
+				positions1.put(key, Integer.valueOf(-1));
+			} else if (positions2.containsKey(key)) {
+				positions1.put(key, Integer.valueOf(i));
+			}
+		}
+
+		// The unique pairs, sorted by position in the first range
+		final List<int[]> pairs = Lists.newArrayList();
+		final IEqualityHelper equalityHelper = comparison.getEqualityHelper();
+		for (Map.Entry<Object, Integer> entry : positions1.entrySet()) {
+			final int i = entry.getValue().intValue();
+			final int j = positions2.get(entry.getKey()).intValue();
+			if (i >= 0 && j >= 0 && equalityHelper.matchingValues(sequence1.get(i), sequence2.get(j))) {
+				pairs.add(new int[] {i, j, });
+			}
+		}
+		return longestIncreasingSubsequence(pairs);
+	}
+
+	/**
+	 * Computes the longest subsequence of the given pairs whose second positions are increasing, through
+	 * patience sorting.
+	 *
+	 * @param pairs
+	 *            Pairs of positions, sorted by their first position.
+	 * @return The positions of the pairs of the longest increasing subsequence, flattened.
+	 */
+	private static int[] longestIncreasingSubsequence(List<int[]> pairs) {
+		final int size = pairs.size();
+		// Index of the pair at the top of each pile
+		final int[] tops = new int[size];
+		// Index of the pair at the top of the previous pile when each pair was added
+		final int[] predecessors = new int[size];
+		int piles = 0;
+		for (int p = 0; p < size; p++) {
+			final int value = pairs.get(p)[1];
+			int low = 0;
+			int high = piles;
+			while (low < high) {
+				final int mid = (low + high) >>> 1;
+				if (pairs.get(tops[mid])[1] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			if (low > 0) {
+				predecessors[p] = tops[low - 1];
+			} else {
+				predecessors[p] = -1;
+			}
+			tops[low] = p;
+			if (low == piles) {
+				piles++;
+			}
+		}
+
+		final int[] anchors = new int[piles * 2];
+		int current;
+		if (piles > 0) {
+			current = tops[piles - 1];
+		} else {
+			current = -1;
+		}
+		for (int i = piles - 1; i >= 0; i--) {
+			anchors[i * 2] = pairs.get(current)[0];
+			anchors[i * 2 + 1] = pairs.get(current)[1];
+			current = predecessors[current];
+		}
+		return anchors;
+	}
+
+	/**
+	 * Returns the key grouping the given element with the elements it is expected to match.
+	 *
+	 * @param comparison
+	 *            The comparison in which to look for the matches of EObjects.
+	 * @param element
+	 *            An element of one of the sequences.
+	 * @return Its key.
+	 */
+	private static Object keyOf(Comparison comparison, Object element) {
+		if (element == null) {
+			// The empty String is matching null
+			return ""; //$NON-NLS-1$
+		} else if (element instanceof EObject) {
+			final Match match = comparison.getMatch((EObject)element);
+			if (match != null) {
+				return match;
+			}
+		}
+		return element;
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.internal.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.eclipse.emf.compare.ICompareMetrics.Measure;
+
+/**
+ * Measures the elapsed time, along with the CPU time and the bytes allocated by the current thread when the
+ * JVM supports it, between its creation and a call to {@link #stop()}. Instances must be stopped by the
+ * thread that created them.
+ */
+public final class ThreadStopwatch {
+	/** The bean giving the CPU time of the threads. */
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The method of the HotSpot specific bean giving the bytes allocated by a thread, <code>null</code> if
+	 * not available. It is called reflectively so that this does not depend on the <code>com.sun</code>
+	 * packages.
+	 */
+	private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+
+	/** The time at which this has been started. */
+	private final long wallStart;
+
+	/** The CPU time of the current thread when this has been started. */
+	private final long cpuStart;
+
+	/** The bytes allocated by the current thread when this has been started. */
+	private final long allocationStart;
+
+	/**
+	 * Starts a new stopwatch.
+	 */
+	public ThreadStopwatch() {
+		this.allocationStart = allocatedBytes();
+		this.cpuStart = cpuTime();
+		this.wallStart = System.nanoTime();
+	}
+
+	/**
+	 * Measures what has been spent since this stopwatch has been created.
+	 * 
+	 * @return the measure.
+	 */
+	public Measure stop() {
+		final long wall = System.nanoTime() - wallStart;
+		final long cpu = cpuTime();
+		final long allocated = allocatedBytes();
+		final long cpuDelta;
+		if (cpu >= 0 && cpuStart >= 0) {
+			cpuDelta = cpu - cpuStart;
+		} else {
+			cpuDelta = -1L;
+		}
+		final long allocatedDelta;
+		if (allocated >= 0 && allocationStart >= 0) {
+			allocatedDelta = allocated - allocationStart;
+		} else {
+			allocatedDelta = -1L;
+		}
+		return new Measure(wall, cpuDelta, allocatedDelta);
+	}
+
+	/**
+	 * Returns the CPU time of the current thread.
+	 * 
+	 * @return the CPU time in nanoseconds, <code>-1</code> if unknown.
+	 */
+	private static long cpuTime() {
+		if (THREADS.isCurrentThreadCpuTimeSupported()) {
+			return THREADS.getCurrentThreadCpuTime();
+		}
+		return -1L;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread since its start.
+	 * 
+	 * @return the allocated bytes, <code>-1</code> if unknown.
+	 */
+	private static long allocatedBytes() {
+		if (ALLOCATED_BYTES != null) {
+			try {
+				return ((Long)ALLOCATED_BYTES.invoke(THREADS, Long.valueOf(Thread.currentThread().getId())))
+						.longValue();
+			} catch (IllegalAccessException e) {
+				return -1L;
+			} catch (InvocationTargetException e) {
+				return -1L;
+			}
+		}
+		return -1L;
+	}
+
+	/**
+	 * Looks up the method giving the bytes allocated by a thread.
+	 * 
+	 * @return the method, <code>null</code> if the running JVM does not provide it.
+	 */
+	private static Method findAllocatedBytesMethod() {
+		try {
+			final Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean"); //$NON-NLS-1$
+			if (beanClass.isInstance(THREADS)) {
+				return beanClass.getMethod("getThreadAllocatedBytes", long.class); //$NON-NLS-1$
+			}
+		} catch (ClassNotFoundException e) {
+			// Not a HotSpot based JVM
+		} catch (NoSuchMethodException e) {
+			// Not a HotSpot based JVM
+		} catch (SecurityException e) {
+			// Not allowed to call it
+		}
+		return null;
+	}
+}
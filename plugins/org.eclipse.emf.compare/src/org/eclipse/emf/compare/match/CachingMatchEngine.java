@@ -0,0 +1,631 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.CompareFactory;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.MatchResource;
+import org.eclipse.emf.compare.internal.utils.MetricsUtil;
+import org.eclipse.emf.compare.match.impl.NotLoadedFragmentMatch;
+import org.eclipse.emf.compare.scope.IComparisonScope;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+/**
+ * A match engine that keeps the matches computed by another one in an on-disk cache, so that comparing the
+ * same models again does not match them again.
+ * <p>
+ * The cache is keyed by a hash of the content of all the resources covered by the comparison scope, as
+ * they are serialized, along with the configuration of the engine: a key given by the client, which must
+ * change whenever the configuration of the delegate engine (use of identifiers, weights, ...) does, and the
+ * types of the delegate engine and of the scope. An entry stores the pairing of the matched objects as
+ * compact pairs of resource positions and URI fragments. On a cache hit, the match tree is rebuilt from the
+ * entry by resolving these fragments, without any call to the delegate engine or to a distance function.
+ * </p>
+ * <p>
+ * Only the comparisons of resources or resource sets are cached, the comparisons of a single object are
+ * always delegated. The cache does not know about the filters of the scope beyond its type: clients must
+ * make the configuration key reflect them if they vary. The entries are kept under a maximum total size by
+ * deleting the least recently used ones, and an entry that cannot be read back is ignored.
+ * </p>
+ * <p>
+ * Computing the key serializes every covered resource of the three sides again on each call to
+ * {@link #match(IComparisonScope, Monitor)}, whether the entry is found or not, the serialized content is
+ * hashed on the fly and not kept in memory. The cost of a call is thus at least that of saving all of the
+ * models, which is only worth it when matching them costs much more, e.g. with the proximity matching of
+ * large models without identifiers.
+ * </p>
+ *
+ * @since 3.5
+ */
+public class CachingMatchEngine implements IMatchEngine, CounterSource {
+	/** The logger. */
+	private static final Logger LOGGER = Logger.getLogger(CachingMatchEngine.class);
+
+	/** Version of the format of the entries, part of the keys so that older entries are ignored. */
+	private static final int FORMAT_VERSION = 1;
+
+	/** Charset of the strings hashed in the key. */
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	/** Hexadecimal digits of the keys. */
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	/** The engine computing the matches which are not in the cache. */
+	private final IMatchEngine delegate;
+
+	/** The factory of the comparisons rebuilt from the cache. */
+	private final IComparisonFactory comparisonFactory;
+
+	/** The on-disk cache. */
+	private final MatchCacheStore store;
+
+	/** Identifies the configuration of the delegate engine in the keys of the cache. */
+	private final String configurationKey;
+
+	/** The number of comparisons whose matches were found in the cache. */
+	private final AtomicLong hitCount = new AtomicLong();
+
+	/** The number of comparisons whose matches were not found in the cache. */
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param delegate
+	 *            The engine computing the matches which are not in the cache.
+	 * @param comparisonFactory
+	 *            The factory of the comparisons rebuilt from the cache, which should be the one of the
+	 *            delegate engine.
+	 * @param cacheDirectory
+	 *            The directory of the cache, created if needed. It can be shared by several engines and
+	 *            several processes.
+	 * @param maxCacheSize
+	 *            The maximum total size of the entries of the cache, in bytes.
+	 * @param configurationKey
+	 *            Identifies the configuration of the delegate engine. Engines that would not give the same
+	 *            matches for the same models must have different keys.
+	 */
+	public CachingMatchEngine(IMatchEngine delegate, IComparisonFactory comparisonFactory,
+			File cacheDirectory, long maxCacheSize, String configurationKey) {
+		this.delegate = checkNotNull(delegate);
+		this.comparisonFactory = checkNotNull(comparisonFactory);
+		this.store = new MatchCacheStore(checkNotNull(cacheDirectory), maxCacheSize);
+		this.configurationKey = checkNotNull(configurationKey);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This returns the matches found in the cache if any, and delegates otherwise.
+	 * </p>
+	 *
+	 * @see org.eclipse.emf.compare.match.IMatchEngine#match(org.eclipse.emf.compare.scope.IComparisonScope,
+	 *      org.eclipse.emf.common.util.Monitor)
+	 */
+	public Comparison match(IComparisonScope scope, Monitor monitor) {
+		final List<Resource> left = getCoveredResources(scope, scope.getLeft());
+		final List<Resource> right = getCoveredResources(scope, scope.getRight());
+		final List<Resource> origin = getCoveredResources(scope, scope.getOrigin());
+		if (left == null || right == null || origin == null) {
+			return delegate.match(scope, monitor);
+		}
+
+		final String key = computeKey(scope, left, right, origin);
+		if (key != null) {
+			final Comparison cached = readEntry(key, left, right, origin);
+			if (cached != null) {
+				hitCount.incrementAndGet();
+				return cached;
+			}
+		}
+		missCount.incrementAndGet();
+
+		final Comparison comparison = delegate.match(scope, monitor);
+		if (key != null) {
+			writeEntry(key, comparison, left, right, origin);
+		}
+		return comparison;
+	}
+
+	/**
+	 * Returns the number of comparisons whose matches were found in the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of comparisons whose matches were not found in the cache.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the cache hits and misses, and the counters of the delegate engine if it has some.
+	 * </p>
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		MetricsUtil.addCounter(counters, ICompareMetrics.MATCH_CACHE_HITS, getHitCount());
+		MetricsUtil.addCounter(counters, ICompareMetrics.MATCH_CACHE_MISSES, getMissCount());
+		if (delegate instanceof CounterSource) {
+			((CounterSource)delegate).collectCounters(counters);
+		}
+	}
+
+	/**
+	 * Returns the resources covered by the scope on one side.
+	 *
+	 * @param scope
+	 *            The scope.
+	 * @param notifier
+	 *            The notifier of the side, may be <code>null</code>.
+	 * @return The resources of the side, in the order of the scope, <code>null</code> if the side is not a
+	 *         resource or a resource set.
+	 */
+	private static List<Resource> getCoveredResources(IComparisonScope scope, Notifier notifier) {
+		if (notifier == null) {
+			return Collections.emptyList();
+		} else if (notifier instanceof ResourceSet) {
+			return Lists.<Resource> newArrayList(scope.getCoveredResources((ResourceSet)notifier));
+		} else if (notifier instanceof Resource) {
+			return Collections.singletonList((Resource)notifier);
+		}
+		return null;
+	}
+
+	/**
+	 * Computes the key of the comparison of the given resources. This serializes all of the resources, it
+	 * is not cached between calls since the resources may have changed.
+	 *
+	 * @param scope
+	 *            The scope.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 * @return The key, <code>null</code> if a resource cannot be serialized.
+	 */
+	private String computeKey(IComparisonScope scope, List<Resource> left, List<Resource> right,
+			List<Resource> origin) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+		update(digest, String.valueOf(FORMAT_VERSION));
+		update(digest, configurationKey);
+		update(digest, delegate.getClass().getName());
+		update(digest, scope.getClass().getName());
+		update(digest, String.valueOf(scope.getOrigin() != null));
+		final OutputStream digestStream = new DigestStream(digest);
+		for (List<Resource> side : Lists.newArrayList(left, right, origin)) {
+			update(digest, String.valueOf(side.size()));
+			for (Resource resource : side) {
+				if (!save(resource, digestStream)) {
+					return null;
+				}
+				// Separates the resources
+				update(digest, ""); //$NON-NLS-1$
+			}
+		}
+		final byte[] hash = digest.digest();
+		final char[] key = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			key[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+			key[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+		}
+		return new String(key);
+	}
+
+	/**
+	 * Serializes a resource to the given stream.
+	 *
+	 * @param resource
+	 *            The resource.
+	 * @param output
+	 *            The stream.
+	 * @return <code>false</code> if this resource cannot be serialized, in which case the comparison is not
+	 *         cached.
+	 */
+	private static boolean save(Resource resource, OutputStream output) {
+		try {
+			resource.save(output, null);
+			return true;
+		} catch (IOException e) {
+			LOGGER.debug("Cannot hash " + resource.getURI(), e); //$NON-NLS-1$
+		} catch (UnsupportedOperationException e) {
+			// Resources that do not implement serialization
+			LOGGER.debug("Cannot hash " + resource.getURI(), e); //$NON-NLS-1$
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a string, followed by a separator, to a digest.
+	 *
+	 * @param digest
+	 *            The digest.
+	 * @param value
+	 *            The string.
+	 */
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(UTF_8));
+		digest.update((byte)0);
+	}
+
+	/**
+	 * Rebuilds the comparison stored in the cache under the given key.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 * @return The comparison, <code>null</code> if there is no such entry or if it cannot be read.
+	 */
+	private Comparison readEntry(String key, List<Resource> left, List<Resource> right,
+			List<Resource> origin) {
+		try {
+			final byte[] content = store.read(key);
+			if (content == null) {
+				return null;
+			}
+			final DataInputStream input = new DataInputStream(
+					new GZIPInputStream(new ByteArrayInputStream(content)));
+			try {
+				final Comparison comparison = comparisonFactory.createComparison();
+				comparison.setThreeWay(input.readBoolean());
+				final int resourceMatchCount = input.readInt();
+				for (int i = 0; i < resourceMatchCount; i++) {
+					comparison.getMatchedResources().add(readResourceMatch(input, left, right, origin));
+				}
+				final int matchCount = input.readInt();
+				for (int i = 0; i < matchCount; i++) {
+					comparison.getMatches().add(readMatch(input, left, right, origin));
+				}
+				return comparison;
+			} finally {
+				input.close();
+			}
+		} catch (IOException e) {
+			LOGGER.debug("Ignoring the unreadable match cache entry " + key, e); //$NON-NLS-1$
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a resource match.
+	 *
+	 * @param input
+	 *            The content of the entry.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 * @return The resource match.
+	 * @throws IOException
+	 *             If the entry is invalid.
+	 */
+	private static MatchResource readResourceMatch(DataInputStream input, List<Resource> left,
+			List<Resource> right, List<Resource> origin) throws IOException {
+		final MatchResource match = CompareFactory.eINSTANCE.createMatchResource();
+		final Resource leftResource = readResource(input, left);
+		final Resource rightResource = readResource(input, right);
+		final Resource originResource = readResource(input, origin);
+		match.setLeft(leftResource);
+		match.setRight(rightResource);
+		match.setOrigin(originResource);
+		if (leftResource != null && leftResource.getURI() != null) {
+			match.setLeftURI(leftResource.getURI().toString());
+		}
+		if (rightResource != null && rightResource.getURI() != null) {
+			match.setRightURI(rightResource.getURI().toString());
+		}
+		if (originResource != null && originResource.getURI() != null) {
+			match.setOriginURI(originResource.getURI().toString());
+		}
+		return match;
+	}
+
+	/**
+	 * Reads a match and its sub-matches.
+	 *
+	 * @param input
+	 *            The content of the entry.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 * @return The match.
+	 * @throws IOException
+	 *             If the entry is invalid.
+	 */
+	private static Match readMatch(DataInputStream input, List<Resource> left, List<Resource> right,
+			List<Resource> origin) throws IOException {
+		final Match match = CompareFactory.eINSTANCE.createMatch();
+		match.setLeft(readEObject(input, left));
+		match.setRight(readEObject(input, right));
+		match.setOrigin(readEObject(input, origin));
+		final int submatchCount = input.readInt();
+		for (int i = 0; i < submatchCount; i++) {
+			match.getSubmatches().add(readMatch(input, left, right, origin));
+		}
+		return match;
+	}
+
+	/**
+	 * Reads a reference to a resource.
+	 *
+	 * @param input
+	 *            The content of the entry.
+	 * @param resources
+	 *            The resources of the side.
+	 * @return The resource, <code>null</code> if none was referenced.
+	 * @throws IOException
+	 *             If the entry is invalid.
+	 */
+	private static Resource readResource(DataInputStream input, List<Resource> resources)
+			throws IOException {
+		final int index = input.readInt();
+		if (index == -1) {
+			return null;
+		} else if (index < 0 || index >= resources.size()) {
+			throw new IOException("Invalid resource index " + index); //$NON-NLS-1$
+		}
+		return resources.get(index);
+	}
+
+	/**
+	 * Reads a reference to an object.
+	 *
+	 * @param input
+	 *            The content of the entry.
+	 * @param resources
+	 *            The resources of the side.
+	 * @return The object, <code>null</code> if none was referenced.
+	 * @throws IOException
+	 *             If the entry is invalid or the object cannot be found.
+	 */
+	private static EObject readEObject(DataInputStream input, List<Resource> resources) throws IOException {
+		final Resource resource = readResource(input, resources);
+		if (resource == null) {
+			return null;
+		}
+		final String fragment = input.readUTF();
+		final EObject eObject = resource.getEObject(fragment);
+		if (eObject == null) {
+			throw new IOException(
+					"Cannot resolve " + fragment + " in " + resource.getURI()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return eObject;
+	}
+
+	/**
+	 * Stores the matches of the given comparison in the cache under the given key, unless they reference
+	 * objects outside of the compared resources.
+	 *
+	 * @param key
+	 *            The key.
+	 * @param comparison
+	 *            The comparison.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 */
+	private void writeEntry(String key, Comparison comparison, List<Resource> left, List<Resource> right,
+			List<Resource> origin) {
+		try {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final DataOutputStream output = new DataOutputStream(new GZIPOutputStream(content));
+			try {
+				output.writeBoolean(comparison.isThreeWay());
+				output.writeInt(comparison.getMatchedResources().size());
+				for (MatchResource match : comparison.getMatchedResources()) {
+					writeResource(output, match.getLeft(), left);
+					writeResource(output, match.getRight(), right);
+					writeResource(output, match.getOrigin(), origin);
+				}
+				output.writeInt(comparison.getMatches().size());
+				for (Match match : comparison.getMatches()) {
+					writeMatch(output, match, left, right, origin);
+				}
+			} finally {
+				output.close();
+			}
+			store.write(key, content.toByteArray());
+		} catch (IOException e) {
+			LOGGER.debug("Cannot cache the matches under " + key, e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Writes a match and its sub-matches.
+	 *
+	 * @param output
+	 *            The content of the entry.
+	 * @param match
+	 *            The match.
+	 * @param left
+	 *            The left resources.
+	 * @param right
+	 *            The right resources.
+	 * @param origin
+	 *            The origin resources.
+	 * @throws IOException
+	 *             If the match cannot be stored.
+	 */
+	private static void writeMatch(DataOutputStream output, Match match, List<Resource> left,
+			List<Resource> right, List<Resource> origin) throws IOException {
+		if (match instanceof NotLoadedFragmentMatch) {
+			throw new IOException("Matches of fragments that are not loaded are not cached"); //$NON-NLS-1$
+		}
+		writeEObject(output, match.getLeft(), left);
+		writeEObject(output, match.getRight(), right);
+		writeEObject(output, match.getOrigin(), origin);
+		output.writeInt(match.getSubmatches().size());
+		for (Match submatch : match.getSubmatches()) {
+			writeMatch(output, submatch, left, right, origin);
+		}
+	}
+
+	/**
+	 * Writes a reference to a resource as its position among the resources of its side.
+	 *
+	 * @param output
+	 *            The content of the entry.
+	 * @param resource
+	 *            The resource, may be <code>null</code>.
+	 * @param resources
+	 *            The resources of the side.
+	 * @throws IOException
+	 *             If the resource is not one of the resources of the side.
+	 */
+	private static void writeResource(DataOutputStream output, Resource resource, List<Resource> resources)
+			throws IOException {
+		if (resource == null) {
+			output.writeInt(-1);
+			return;
+		}
+		for (int i = 0; i < resources.size(); i++) {
+			if (resources.get(i) == resource) {
+				output.writeInt(i);
+				return;
+			}
+		}
+		throw new IOException("Resource outside of the comparison " + resource.getURI()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Writes a reference to an object as the position of its resource and its URI fragment.
+	 *
+	 * @param output
+	 *            The content of the entry.
+	 * @param eObject
+	 *            The object, may be <code>null</code>.
+	 * @param resources
+	 *            The resources of the side.
+	 * @throws IOException
+	 *             If the object is not in one of the resources of the side.
+	 */
+	private static void writeEObject(DataOutputStream output, EObject eObject, List<Resource> resources)
+			throws IOException {
+		if (eObject == null) {
+			output.writeInt(-1);
+			return;
+		}
+		final Resource resource = eObject.eResource();
+		if (resource == null) {
+			throw new IOException("Object outside of any resource " + eObject); //$NON-NLS-1$
+		}
+		writeResource(output, resource, resources);
+		output.writeUTF(resource.getURIFragment(eObject));
+	}
+
+	/**
+	 * An output stream feeding a digest.
+	 */
+	private static final class DigestStream extends OutputStream {
+		/** The digest. */
+		private final MessageDigest digest;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param digest
+		 *            The digest.
+		 */
+		DigestStream(MessageDigest digest) {
+			this.digest = digest;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.io.OutputStream#write(int)
+		 */
+		@Override
+		public void write(int b) {
+			digest.update((byte)b);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.io.OutputStream#write(byte[], int, int)
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) {
+			digest.update(b, off, len);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>
+		 * The resources close the stream they are saved to, which must not end the digest.
+		 * </p>
+		 *
+		 * @see java.io.OutputStream#close()
+		 */
+		@Override
+		public void close() {
+			// Nothing to release
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,12 +14,15 @@ package org.eclipse.emf.compare.match;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.emptyIterator;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.notify.Notifier;
@@ -29,6 +32,7 @@ import org.eclipse.emf.compare.CompareFactory;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.ComparisonCanceledException;
 import org.eclipse.emf.compare.EMFCompareMessages;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.MatchResource;
 import org.eclipse.emf.compare.match.eobject.CachingDistance;
 import org.eclipse.emf.compare.match.eobject.EditionDistance;
@@ -36,7 +40,9 @@ import org.eclipse.emf.compare.match.eobject.EqualityHelperExtensionProvider;
 import org.eclipse.emf.compare.match.eobject.EqualityHelperExtensionProviderDescriptorRegistryImpl;
 import org.eclipse.emf.compare.match.eobject.IEObjectMatcher;
 import org.eclipse.emf.compare.match.eobject.IdentifierEObjectMatcher;
+import org.eclipse.emf.compare.match.eobject.ParallelProximityEObjectMatcher;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher;
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
 import org.eclipse.emf.compare.match.eobject.WeightProvider;
 import org.eclipse.emf.compare.match.eobject.WeightProviderDescriptorRegistryImpl;
 import org.eclipse.emf.compare.match.resource.IResourceMatcher;
@@ -56,7 +62,7 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
  * 
  * @author <a href="mailto:laurent.goubet@obeo.fr">Laurent Goubet</a>
  */
-public class DefaultMatchEngine implements IMatchEngine {
+public class DefaultMatchEngine implements IMatchEngine, CounterSource {
 
 	/**
 	 * Default max size of the EObject's URI loading cache.
@@ -390,6 +396,20 @@ public class DefaultMatchEngine implements IMatchEngine {
 		return eObjectMatcher;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the counters of the EObject matcher, if it has some.
+	 * </p>
+	 *
+	 * @since 3.5
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		if (eObjectMatcher instanceof CounterSource) {
+			((CounterSource)eObjectMatcher).collectCounters(counters);
+		}
+	}
+
 	/**
 	 * This will check that at least two of the three given booleans are <code>true</code>.
 	 * 
@@ -559,4 +579,51 @@ public class DefaultMatchEngine implements IMatchEngine {
 
 		return matcher;
 	}
+
+	/**
+	 * Creates and configures an {@link IEObjectMatcher} with the strategy given by {@code useIDs}. The
+	 * content matching, used for EObjects without identifiers, will be spread over the threads of the given
+	 * {@code executor}. See {@link ParallelProximityEObjectMatcher}.
+	 * 
+	 * @param useIDs
+	 *            which strategy the return IEObjectMatcher must follow.
+	 * @param weightProviderRegistry
+	 *            the match engine needs a WeightProvider in case of this match engine do not use identifiers.
+	 * @param equalityHelperExtensionProviderRegistry
+	 *            the match engine may need a Equality helper extension.
+	 * @param executor
+	 *            the executor on which the content matching will be run.
+	 * @return a new IEObjectMatcher.
+	 * @since 3.5
+	 */
+	public static IEObjectMatcher createParallelEObjectMatcher(UseIdentifiers useIDs,
+			final WeightProvider.Descriptor.Registry weightProviderRegistry,
+			final EqualityHelperExtensionProvider.Descriptor.Registry equalityHelperExtensionProviderRegistry,
+			ExecutorService executor) {
+		final Supplier<DistanceFunction> distances = new Supplier<DistanceFunction>() {
+			public DistanceFunction get() {
+				return new CachingDistance(
+						new EditionDistance(weightProviderRegistry, equalityHelperExtensionProviderRegistry));
+			}
+		};
+		final IEObjectMatcher matcher;
+		switch (useIDs) {
+			case NEVER:
+				matcher = new ParallelProximityEObjectMatcher(distances, executor);
+				break;
+			case ONLY:
+				matcher = new IdentifierEObjectMatcher();
+				break;
+			case WHEN_AVAILABLE:
+				// fall through to default
+			default:
+				// Use an ID matcher, delegating to proximity when no ID is available
+				final IEObjectMatcher contentMatcher = new ParallelProximityEObjectMatcher(distances,
+						executor);
+				matcher = new IdentifierEObjectMatcher(contentMatcher);
+				break;
+		}
+
+		return matcher;
+	}
 }
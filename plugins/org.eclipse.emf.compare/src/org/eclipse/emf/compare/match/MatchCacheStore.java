@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A directory of files, one per entry, whose total size is kept under a given bound by deleting the least
+ * recently used entries.
+ * <p>
+ * Entries are written to a temporary file first, then renamed, so that processes sharing the same directory
+ * never read a partially written entry. Reading an entry marks it as used by updating the last modification
+ * time of its file.
+ * </p>
+ */
+final class MatchCacheStore {
+	/** Size of the buffer used to read the entries. */
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Extension of the files of the entries. */
+	private static final String ENTRY_EXTENSION = ".match"; //$NON-NLS-1$
+
+	/** Accepts the files of the entries. */
+	private static final FileFilter ENTRY_FILTER = new FileFilter() {
+		public boolean accept(File file) {
+			return file.isFile() && file.getName().endsWith(ENTRY_EXTENSION);
+		}
+	};
+
+	/** Sorts files from the least recently used. */
+	private static final Comparator<File> LEAST_RECENTLY_USED = new Comparator<File>() {
+		public int compare(File file1, File file2) {
+			final long lastModified1 = file1.lastModified();
+			final long lastModified2 = file2.lastModified();
+			if (lastModified1 < lastModified2) {
+				return -1;
+			} else if (lastModified1 > lastModified2) {
+				return 1;
+			}
+			return 0;
+		}
+	};
+
+	/** The directory of the entries. */
+	private final File directory;
+
+	/** The maximum total size of the entries, in bytes. */
+	private final long maxSize;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory
+	 *            The directory of the entries, created if needed.
+	 * @param maxSize
+	 *            The maximum total size of the entries, in bytes.
+	 */
+	MatchCacheStore(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Reads an entry.
+	 *
+	 * @param key
+	 *            The key of the entry, usable as a file name.
+	 * @return The content of the entry, <code>null</code> if there is none.
+	 * @throws IOException
+	 *             If the entry exists but cannot be read.
+	 */
+	byte[] read(String key) throws IOException {
+		final File file = new File(directory, key + ENTRY_EXTENSION);
+		if (!file.isFile()) {
+			return null;
+		}
+		final InputStream input = new FileInputStream(file);
+		try {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream((int)file.length());
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int read = input.read(buffer);
+			while (read != -1) {
+				content.write(buffer, 0, read);
+				read = input.read(buffer);
+			}
+			file.setLastModified(System.currentTimeMillis());
+			return content.toByteArray();
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Writes an entry, replacing the existing one if any, then deletes the least recently used entries if
+	 * the store has grown over its maximum size.
+	 *
+	 * @param key
+	 *            The key of the entry, usable as a file name.
+	 * @param content
+	 *            The content of the entry.
+	 * @throws IOException
+	 *             If the entry cannot be written.
+	 */
+	void write(String key, byte[] content) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create the directory " + directory); //$NON-NLS-1$
+		}
+		final File file = new File(directory, key + ENTRY_EXTENSION);
+		final File temporary = File.createTempFile(key, ".tmp", directory); //$NON-NLS-1$
+		final OutputStream output = new FileOutputStream(temporary);
+		try {
+			output.write(content);
+		} finally {
+			output.close();
+		}
+		if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+			temporary.delete();
+			throw new IOException("Cannot write the entry " + file); //$NON-NLS-1$
+		}
+		evict();
+	}
+
+	/**
+	 * Deletes the least recently used entries until the total size of the store is under its maximum.
+	 */
+	private void evict() {
+		final File[] entries = directory.listFiles(ENTRY_FILTER);
+		if (entries == null) {
+			return;
+		}
+		long size = 0;
+		for (File entry : entries) {
+			size += entry.length();
+		}
+		if (size > maxSize) {
+			Arrays.sort(entries, LEAST_RECENTLY_USED);
+			for (int i = 0; i < entries.length && size > maxSize; i++) {
+				final long length = entries[i].length();
+				if (entries[i].delete()) {
+					size -= length;
+				}
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2014 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,18 +13,30 @@ package org.eclipse.emf.compare.match.eobject;
 import java.util.Map;
 
 import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
+import org.eclipse.emf.compare.internal.utils.MetricsUtil;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
-import org.eclipse.emf.compare.match.eobject.internal.AccessBasedLRUCache;
+import org.eclipse.emf.compare.match.eobject.internal.DistanceCache;
 import org.eclipse.emf.ecore.EObject;
 
 /**
  * This class wraps a DistanceFunction and cache its result. Any call to distance(a,b) will be cached and the
  * same value will be returned to distance(b,a).
+ * <p>
+ * The cache is bounded: once it is full, the least recently used distances get evicted. Looking up or
+ * storing a distance does not allocate any object.
+ * </p>
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  * @since 3.1
  */
-public class CachingDistance implements DistanceFunction {
+public class CachingDistance implements DistanceFunction, CounterSource {
+
+	/**
+	 * Default maximum number of distances kept in the cache.
+	 */
+	private static final int DEFAULT_MAX_SIZE = 10000;
 
 	/**
 	 * The wrapped function.
@@ -34,7 +46,7 @@ public class CachingDistance implements DistanceFunction {
 	/**
 	 * The cache keeping the previous results.
 	 */
-	private Map<Pair, Double> distanceCache;
+	private DistanceCache distanceCache;
 
 	/**
 	 * Create a new caching distance.
@@ -43,23 +55,34 @@ public class CachingDistance implements DistanceFunction {
 	 *            actual distance function to cache results from.
 	 */
 	public CachingDistance(DistanceFunction wrapped) {
+		this(wrapped, DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Create a new caching distance keeping at least <code>maxSize</code> distances.
+	 * 
+	 * @param wrapped
+	 *            actual distance function to cache results from.
+	 * @param maxSize
+	 *            the minimum number of distances the cache should be able to hold.
+	 * @since 3.5
+	 */
+	public CachingDistance(DistanceFunction wrapped, int maxSize) {
 		this.wrapped = wrapped;
-		distanceCache = new AccessBasedLRUCache<Pair, Double>(10000, 1000, .75F);
+		distanceCache = new DistanceCache(maxSize);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public double distance(Comparison inProgress, EObject a, EObject b) {
-		Pair key = new Pair(a, b);
-		Double previousResult = distanceCache.get(key);
-		if (previousResult == null) {
-			double dist = wrapped.distance(inProgress, a, b);
-			distanceCache.put(key, Double.valueOf(dist));
+		double dist = distanceCache.get(a, b);
+		if (Double.isNaN(dist)) {
+			dist = wrapped.distance(inProgress, a, b);
 			// cache it
-			return dist;
+			distanceCache.put(a, b, dist);
 		}
-		return previousResult.doubleValue();
+		return dist;
 	}
 
 	/**
@@ -70,65 +93,51 @@ public class CachingDistance implements DistanceFunction {
 	}
 
 	/**
-	 * A class used as a key for two EObjects. Pair(a,b) and Pair(b,a) should be equals and have the same
-	 * hashcodes
+	 * Returns the number of distances that were found in the cache.
+	 * 
+	 * @return the number of cache hits.
+	 * @since 3.5
 	 */
-	class Pair {
-		// CHECKSTYLE:OFF
-		EObject a;
-
-		EObject b;
-
-		public Pair(EObject a, EObject b) {
-			super();
-			this.a = a;
-			this.b = b;
-		}
-
-		@Override
-		public int hashCode() {
-			final int prime = 31;
-			int result = 1;
-			result = prime * result + getOuterType().hashCode();
-			int first = a.hashCode();
-			int second = b.hashCode();
-			if (first > second) {
-				int tmp = first;
-				first = second;
-				second = tmp;
-			}
-			result = prime * result + first;
-			result = prime * result + second;
-			return result;
-		}
+	public long getHitCount() {
+		return distanceCache.getHitCount();
+	}
 
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) {
-				return true;
-			}
-			if (obj == null) {
-				return false;
-			}
-			if (getClass() != obj.getClass()) {
-				return false;
-			}
-			Pair other = (Pair)obj;
-			if (!getOuterType().equals(other.getOuterType())) {
-				return false;
-			}
-			return (a == other.a && b == other.b) || (b == other.a && a == other.b);
+	/**
+	 * Returns the number of distances that had to be computed by the wrapped function.
+	 * 
+	 * @return the number of cache misses.
+	 * @since 3.5
+	 */
+	public long getMissCount() {
+		return distanceCache.getMissCount();
+	}
 
-		}
+	/**
+	 * Returns the number of distances that were evicted from the cache to make room for others.
+	 * 
+	 * @return the number of cache evictions.
+	 * @since 3.5
+	 */
+	public long getEvictionCount() {
+		return distanceCache.getEvictionCount();
+	}
 
-		private CachingDistance getOuterType() {
-			return CachingDistance.this;
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the cache hits, misses and evictions, along with the counters of the wrapped function if
+	 * it has some.
+	 * </p>
+	 * 
+	 * @since 3.5
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		MetricsUtil.addCounter(counters, ICompareMetrics.DISTANCE_CACHE_HITS, getHitCount());
+		MetricsUtil.addCounter(counters, ICompareMetrics.DISTANCE_CACHE_MISSES, getMissCount());
+		MetricsUtil.addCounter(counters, ICompareMetrics.DISTANCE_CACHE_EVICTIONS, getEvictionCount());
+		if (wrapped instanceof CounterSource) {
+			((CounterSource)wrapped).collectCounters(counters);
 		}
-
 	}
-	// CHECKSTYLE:ON
 
 }
@@ -47,7 +47,7 @@ public class DefaultWeightProvider extends AbstractWeightProvider {
 	 * Create the weight provider.
 	 */
 	public DefaultWeightProvider() {
-		weights = Maps.newHashMap();
+		weights = Maps.newConcurrentMap();
 	}
 
 	/**
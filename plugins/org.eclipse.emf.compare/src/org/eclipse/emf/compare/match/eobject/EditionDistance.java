@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,6 +16,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -27,6 +28,8 @@ import org.eclipse.emf.compare.CompareFactory;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.DifferenceKind;
 import org.eclipse.emf.compare.DifferenceSource;
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.MatchResource;
 import org.eclipse.emf.compare.diff.DefaultDiffEngine;
@@ -34,9 +37,11 @@ import org.eclipse.emf.compare.diff.FeatureFilter;
 import org.eclipse.emf.compare.diff.IDiffProcessor;
 import org.eclipse.emf.compare.internal.spec.ComparisonSpec;
 import org.eclipse.emf.compare.internal.utils.DiffUtil;
+import org.eclipse.emf.compare.internal.utils.MetricsUtil;
 import org.eclipse.emf.compare.match.DefaultEqualityHelperFactory;
 import org.eclipse.emf.compare.match.IEqualityHelperFactory;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
+import org.eclipse.emf.compare.match.eobject.internal.BigramProfileCache;
 import org.eclipse.emf.compare.match.eobject.internal.WeightProviderDescriptorImpl;
 import org.eclipse.emf.compare.utils.EqualityHelper;
 import org.eclipse.emf.compare.utils.IEqualityHelper;
@@ -54,7 +59,7 @@ import org.eclipse.emf.ecore.util.InternalEList;
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  */
-public class EditionDistance implements DistanceFunction {
+public class EditionDistance implements DistanceFunction, CounterSource {
 
 	/**
 	 * Weight coefficient of a change of location (uri).
@@ -90,6 +95,15 @@ public class EditionDistance implements DistanceFunction {
 	/** The registry of Weight Providers to use in this Edition Distance. */
 	private WeightProvider.Descriptor.Registry weightProviderRegistry;
 
+	/**
+	 * The profiles of the String values compared with each other. The same value of an object is compared
+	 * with those of many candidates, this avoids tokenizing it again for each of them.
+	 */
+	private final BigramProfileCache profileCache = new BigramProfileCache();
+
+	/** The comparison whose values are in the {@link #profileCache}. */
+	private Comparison profiledComparison;
+
 	/**
 	 * Instantiate a new Edition Distance that will use
 	 * {@link WeightProviderDescriptorRegistryImpl#createStandaloneInstance()}.
@@ -181,6 +195,7 @@ public class EditionDistance implements DistanceFunction {
 	 */
 	public double distance(Comparison inProgress, EObject a, EObject b) {
 		this.uriDistance.setComparison(inProgress);
+		setProfiledComparison(inProgress);
 		double maxDist = Math.max(getThresholdAmount(a), getThresholdAmount(b));
 		double measuredDist = new CountingDiffEngine(maxDist, this.fakeComparison)
 				.measureDifferences(inProgress, a, b);
@@ -194,9 +209,38 @@ public class EditionDistance implements DistanceFunction {
 	 * {@inheritDoc}
 	 */
 	public boolean areIdentic(Comparison inProgress, EObject a, EObject b) {
+		setProfiledComparison(inProgress);
 		return new CountingDiffEngine(0, this.fakeComparison).measureDifferences(inProgress, a, b) == 0;
 	}
 
+	/**
+	 * Drops the cached profiles of the String values when a new comparison is started, they would not be
+	 * looked up anymore.
+	 * 
+	 * @param inProgress
+	 *            the comparison which is currently being matched.
+	 */
+	private void setProfiledComparison(Comparison inProgress) {
+		if (inProgress != profiledComparison) {
+			profileCache.clear();
+			profiledComparison = inProgress;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the hits and misses of the cache of String profiles used to measure the similarity of
+	 * String values.
+	 * </p>
+	 * 
+	 * @since 3.5
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		MetricsUtil.addCounter(counters, ICompareMetrics.BIGRAM_PROFILE_HITS, profileCache.getHitCount());
+		MetricsUtil.addCounter(counters, ICompareMetrics.BIGRAM_PROFILE_MISSES, profileCache.getMissCount());
+	}
+
 	/**
 	 * Create a new builder to instantiate and configure an EditionDistance.
 	 * 
@@ -341,7 +385,9 @@ public class EditionDistance implements DistanceFunction {
 								distance += weightProviderRegistry
 										.getHighestRankingWeightProvider(eType.getEPackage())
 										.getWeight(attribute)
-										* (1 - DiffUtil.diceCoefficient((String)aValue, (String)bValue));
+										* (1 - DiffUtil.diceCoefficientOfProfiles(
+												profileCache.getProfile((String)aValue),
+												profileCache.getProfile((String)bValue)));
 							} else {
 								distance += weightProviderRegistry
 										.getHighestRankingWeightProvider(eType.getEPackage())
@@ -381,7 +427,9 @@ public class EditionDistance implements DistanceFunction {
 								distance += weightProviderRegistry
 										.getHighestRankingWeightProvider(eType.getEPackage())
 										.getWeight(attribute)
-										* (1 - DiffUtil.diceCoefficient((String)aValue, (String)bValue));
+										* (1 - DiffUtil.diceCoefficientOfProfiles(
+												profileCache.getProfile((String)aValue),
+												profileCache.getProfile((String)bValue)));
 							} else {
 								distance += weightProviderRegistry
 										.getHighestRankingWeightProvider(eType.getEPackage())
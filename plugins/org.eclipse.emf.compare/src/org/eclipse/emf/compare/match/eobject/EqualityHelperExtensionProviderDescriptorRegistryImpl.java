@@ -42,7 +42,7 @@ public class EqualityHelperExtensionProviderDescriptorRegistryImpl implements Eq
 	 */
 	public EqualityHelperExtensionProviderDescriptorRegistryImpl() {
 		equalityHelperExtensionProviderDescriptors = Maps.newHashMap();
-		cache = Maps.newHashMap();
+		cache = Maps.newConcurrentMap();
 	}
 
 	/**
@@ -99,7 +99,9 @@ public class EqualityHelperExtensionProviderDescriptorRegistryImpl implements Eq
 			if (highestRankingEqualityHelperExtensionProviderDescriptor != null) {
 				equalityHelperExtensionProvider = highestRankingEqualityHelperExtensionProviderDescriptor
 						.getEqualityHelperExtensionProvider();
-				cache.put(ePackage.getNsURI(), equalityHelperExtensionProvider);
+				if (equalityHelperExtensionProvider != null) {
+					cache.put(ePackage.getNsURI(), equalityHelperExtensionProvider);
+				}
 			}
 		}
 		return equalityHelperExtensionProvider;
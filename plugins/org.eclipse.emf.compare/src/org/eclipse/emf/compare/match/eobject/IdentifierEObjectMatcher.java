@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,7 @@ import org.eclipse.emf.compare.CompareFactory;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.ComparisonCanceledException;
 import org.eclipse.emf.compare.EMFCompareMessages;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.match.eobject.EObjectIndex.Side;
 import org.eclipse.emf.ecore.EObject;
@@ -51,7 +52,7 @@ import org.eclipse.emf.ecore.xmi.XMIResource;
  * 
  * @author <a href="mailto:laurent.goubet@obeo.fr">Laurent Goubet</a>
  */
-public class IdentifierEObjectMatcher implements IEObjectMatcher {
+public class IdentifierEObjectMatcher implements IEObjectMatcher, CounterSource {
 	/**
 	 * This instance might have a delegate matcher. The delegate matcher will be called when no ID is found
 	 * and its results are aggregated with the current matcher.
@@ -191,6 +192,20 @@ public class IdentifierEObjectMatcher implements IEObjectMatcher {
 				originEObjectsNoID.iterator(), monitor);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the counters of the delegate matcher, if any.
+	 * </p>
+	 * 
+	 * @since 3.5
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		if (delegate.isPresent() && delegate.get() instanceof CounterSource) {
+			((CounterSource)delegate.get()).collectCounters(counters);
+		}
+	}
+
 	/**
 	 * Matches the EObject per ID.
 	 * 
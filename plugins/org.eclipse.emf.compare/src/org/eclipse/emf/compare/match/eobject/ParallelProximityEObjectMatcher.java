@@ -0,0 +1,380 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match.eobject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ComparisonCanceledException;
+import org.eclipse.emf.compare.match.eobject.EObjectIndex.Side;
+import org.eclipse.emf.compare.match.eobject.internal.ByTypeIndex;
+import org.eclipse.emf.compare.match.eobject.internal.MatchAheadOfTime;
+import org.eclipse.emf.compare.match.eobject.internal.ThreadLocalDistance;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * A {@link ProximityEObjectMatcher} spreading the content matching over several threads.
+ * <p>
+ * The EObjects are indexed per EClass, and two EObjects of distinct EClasses can never match together. This
+ * matcher thus proceeds in rounds: during a round, every type specific index is handed to its own task which
+ * will look for the closest candidates of all the EObjects of that type which are ready to be matched (i.e.
+ * whose container has been matched in a previous round, or is out of the scope). Just like
+ * {@link ProximityEObjectMatcher} does, each task first tries to match the unmatched containers of these
+ * EObjects, then skips the EObjects which have been matched in the meantime. The comparison is only read
+ * during a round, all the matches found by the tasks are attached to it once every task is done, in the order
+ * of their EClass, then in the order in which each task found them. The result of a comparison does not
+ * depend on the number of threads used nor on the scheduling of the tasks.
+ * </p>
+ * <p>
+ * Distance functions are usually not thread safe, this matcher will thus ask the given supplier for a new
+ * distance function for each of the threads it runs on. The EObjects to match are expected to have their
+ * proxies resolved beforehand since resolution modifies the models.
+ * </p>
+ *
+ * @since 3.5
+ */
+public class ParallelProximityEObjectMatcher extends ProximityEObjectMatcher {
+	/** The executor on which the tasks of each round will be run. */
+	private final ExecutorService executor;
+
+	/**
+	 * Create the matcher using the given distance functions.
+	 *
+	 * @param meterSupplier
+	 *            Supplier of the functions used to measure the distance between two {@link EObject}s. This
+	 *            will be called once per thread and is expected to return a new instance each time.
+	 * @param executor
+	 *            The executor on which the matching tasks will be run. This matcher will not shut it down.
+	 */
+	public ParallelProximityEObjectMatcher(Supplier<? extends DistanceFunction> meterSupplier,
+			ExecutorService executor) {
+		this(meterSupplier, executor, false);
+	}
+
+	/**
+	 * Create the matcher using the given distance functions.
+	 *
+	 * @param meterSupplier
+	 *            Supplier of the functions used to measure the distance between two {@link EObject}s. This
+	 *            will be called once per thread and is expected to return a new instance each time.
+	 * @param executor
+	 *            The executor on which the matching tasks will be run. This matcher will not shut it down.
+	 * @param prefilterCandidates
+	 *            <code>true</code> if the candidates of an EObject should be narrowed down through signatures
+	 *            of their attributes before their distance is measured.
+	 */
+	public ParallelProximityEObjectMatcher(Supplier<? extends DistanceFunction> meterSupplier,
+			ExecutorService executor, boolean prefilterCandidates) {
+		super(new ThreadLocalDistance(meterSupplier), prefilterCandidates);
+		this.executor = checkNotNull(executor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void matchAheadOfTime(Comparison comparison, Monitor monitor) {
+		if (getIndex() instanceof ByTypeIndex && getIndex() instanceof MatchAheadOfTime) {
+			// A single pass of the sequential matcher matches the containers of other types first, which
+			// takes one round each here
+			while (matchRound(comparison, Side.LEFT, false, true, monitor)) {
+				checkCanceled(monitor);
+			}
+			while (matchRound(comparison, Side.RIGHT, false, true, monitor)) {
+				checkCanceled(monitor);
+			}
+		} else {
+			super.matchAheadOfTime(comparison, monitor);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void matchIndexedObjects(Comparison comparison, Monitor monitor) {
+		if (getIndex() instanceof ByTypeIndex) {
+			matchSide(comparison, Side.LEFT, monitor);
+			matchSide(comparison, Side.RIGHT, monitor);
+		} else {
+			super.matchIndexedObjects(comparison, monitor);
+		}
+	}
+
+	/**
+	 * Match all of the EObjects of the given side still in the index, round after round.
+	 *
+	 * @param comparison
+	 *            the current comparison.
+	 * @param side
+	 *            the side of which we need to match the EObjects.
+	 * @param monitor
+	 *            monitor to track progress.
+	 */
+	private void matchSide(Comparison comparison, Side side, Monitor monitor) {
+		boolean progress = true;
+		while (progress && getIndex().getValuesStillThere(side).iterator().hasNext()) {
+			checkCanceled(monitor);
+			progress = matchRound(comparison, side, true, false, monitor);
+		}
+	}
+
+	/**
+	 * Throws a {@link ComparisonCanceledException} if the given monitor has been canceled.
+	 *
+	 * @param monitor
+	 *            monitor to check for cancellation.
+	 */
+	private static void checkCanceled(Monitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new ComparisonCanceledException();
+		}
+	}
+
+	/**
+	 * Match, in parallel, all of the EObjects of the given side which can be matched with the current state
+	 * of the comparison.
+	 *
+	 * @param comparison
+	 *            the current comparison.
+	 * @param side
+	 *            the side of which we need to match the EObjects.
+	 * @param createUnmatches
+	 *            whether elements which have no match should trigger the creation of a Match object (meaning
+	 *            we won't try to match them afterwards) or not.
+	 * @param aheadOfTime
+	 *            whether we only want to match the values the index deems too numerous to be kept until the
+	 *            end of the indexing.
+	 * @param monitor
+	 *            monitor to track progress.
+	 * @return <code>true</code> if at least one Match has been created during this round.
+	 */
+	private boolean matchRound(Comparison comparison, Side side, boolean createUnmatches,
+			boolean aheadOfTime, Monitor monitor) {
+		// The match cross referencer is lazily installed on first access, make sure this happens on this
+		// thread before the comparison is shared with the tasks.
+		comparison.getMatch(comparison);
+
+		final ByTypeIndex byTypeIndex = (ByTypeIndex)getIndex();
+		final Map<EObjectIndex, Iterable<EObject>> todos = Maps.newLinkedHashMap();
+		for (EObjectIndex typeIndex : byTypeIndex.getTypeSpecificIndexes().values()) {
+			final Iterable<EObject> todo;
+			if (aheadOfTime && typeIndex instanceof MatchAheadOfTime) {
+				todo = ((MatchAheadOfTime)typeIndex).getValuesToMatchAhead(side);
+			} else if (!aheadOfTime) {
+				todo = typeIndex.getValuesStillThere(side);
+			} else {
+				continue;
+			}
+			if (todo.iterator().hasNext()) {
+				todos.put(typeIndex, todo);
+			}
+		}
+		if (todos.isEmpty()) {
+			return false;
+		}
+
+		// Every container which is in scope and not matched yet is matched first, by the task of its type
+		final Map<EObjectIndex, List<EObject>> requiredContainers = Maps.newHashMap();
+		for (Iterable<EObject> todo : todos.values()) {
+			for (EObject next : todo) {
+				EObject container = next.eContainer();
+				while (container != null && isInScope(container)) {
+					final EObjectIndex containerIndex = byTypeIndex.getTypeSpecificIndex(container);
+					if (containerIndex != null && comparison.getMatch(container) == null) {
+						List<EObject> containers = requiredContainers.get(containerIndex);
+						if (containers == null) {
+							containers = Lists.newArrayList();
+							requiredContainers.put(containerIndex, containers);
+						}
+						containers.add(0, container);
+					}
+					container = container.eContainer();
+				}
+			}
+		}
+
+		final List<Callable<List<EObject[]>>> tasks = Lists.newArrayList();
+		for (EObjectIndex typeIndex : byTypeIndex.getTypeSpecificIndexes().values()) {
+			final List<EObject> containers = requiredContainers.get(typeIndex);
+			Iterable<EObject> todo = todos.get(typeIndex);
+			if (containers != null && todo != null) {
+				todo = Iterables.concat(containers, todo);
+			} else if (containers != null) {
+				todo = containers;
+			}
+			if (todo != null) {
+				tasks.add(new TypeMatchingTask(comparison, typeIndex, todo, side, createUnmatches, monitor));
+			}
+		}
+
+		final List<Future<List<EObject[]>>> results;
+		try {
+			results = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		}
+
+		boolean progress = false;
+		for (Future<List<EObject[]>> result : results) {
+			for (EObject[] matched : getResult(result)) {
+				areMatching(comparison, matched[0], matched[1], matched[2]);
+				progress = true;
+			}
+		}
+		return progress;
+	}
+
+	/**
+	 * Retrieves the result of a completed task, rethrowing its failure if any.
+	 *
+	 * @param result
+	 *            the future of a completed task.
+	 * @return the result of the task.
+	 */
+	private List<EObject[]> getResult(Future<List<EObject[]>> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ComparisonCanceledException();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * This will look for the closest EObjects of all the given EObjects within a single type specific index.
+	 * The task does not modify the comparison, it only removes the EObjects it matched from its own index.
+	 */
+	private static class TypeMatchingTask implements Callable<List<EObject[]>> {
+		/** The comparison being built. It will only be queried by this task. */
+		private final Comparison comparison;
+
+		/** The index holding all of the EObjects of the type handled by this task. */
+		private final EObjectIndex typeIndex;
+
+		/** The EObjects we'll try to match. */
+		private final Iterable<EObject> todo;
+
+		/** Side of the EObjects we'll try to match. */
+		private final Side side;
+
+		/** Whether elements which have no match should be considered as unmatched. */
+		private final boolean createUnmatches;
+
+		/** Monitor to check for cancellation. */
+		private final Monitor monitor;
+
+		/**
+		 * Creates a task matching the given EObjects.
+		 *
+		 * @param comparison
+		 *            the comparison being built.
+		 * @param typeIndex
+		 *            the index holding all of the EObjects of the type handled by this task.
+		 * @param todo
+		 *            the EObjects we'll try to match.
+		 * @param side
+		 *            side of the EObjects we'll try to match.
+		 * @param createUnmatches
+		 *            whether elements which have no match should be considered as unmatched.
+		 * @param monitor
+		 *            monitor to check for cancellation.
+		 */
+		TypeMatchingTask(Comparison comparison, EObjectIndex typeIndex, Iterable<EObject> todo, Side side,
+				boolean createUnmatches, Monitor monitor) {
+			this.comparison = comparison;
+			this.typeIndex = typeIndex;
+			this.todo = todo;
+			this.side = side;
+			this.createUnmatches = createUnmatches;
+			this.monitor = monitor;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @return the list of [left, right, origin] triplets that have been matched by this task, in the
+		 *         order in which they were found.
+		 */
+		public List<EObject[]> call() {
+			final List<EObject[]> matched = Lists.newArrayList();
+			final Set<EObject> processed = Sets.newHashSet();
+			final Iterator<EObject> it = todo.iterator();
+			while (it.hasNext()) {
+				checkCanceled(monitor);
+				final EObject next = it.next();
+				// The element may have been matched already, either in a previous round or by this task
+				if (comparison.getMatch(next) != null || !processed.add(next)) {
+					continue;
+				}
+				final Map<Side, EObject> closests = typeIndex.findClosests(comparison, next, side);
+				if (closests != null && (createUnmatches || hasOtherSide(closests))) {
+					final EObject left = closests.get(Side.LEFT);
+					final EObject right = closests.get(Side.RIGHT);
+					final EObject origin = closests.get(Side.ORIGIN);
+					if (left != null) {
+						typeIndex.remove(left, Side.LEFT);
+					}
+					if (right != null) {
+						typeIndex.remove(right, Side.RIGHT);
+					}
+					if (origin != null) {
+						typeIndex.remove(origin, Side.ORIGIN);
+					}
+					matched.add(new EObject[] {left, right, origin, });
+				}
+			}
+			return matched;
+		}
+
+		/**
+		 * Checks whether an EObject of another side than the one we're matching has been found.
+		 *
+		 * @param closests
+		 *            the closest EObjects found by the index.
+		 * @return <code>true</code> if at least one EObject from another side has been found.
+		 */
+		private boolean hasOtherSide(Map<Side, EObject> closests) {
+			for (Side other : Side.values()) {
+				if (other != side && closests.get(other) != null) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+}
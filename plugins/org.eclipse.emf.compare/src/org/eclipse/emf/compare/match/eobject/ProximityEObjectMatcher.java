@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.emf.compare.CompareFactory;
 import org.eclipse.emf.compare.Comparison;
 import org.eclipse.emf.compare.ComparisonCanceledException;
 import org.eclipse.emf.compare.EMFCompareMessages;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.match.eobject.EObjectIndex.Side;
 import org.eclipse.emf.compare.match.eobject.internal.ByTypeIndex;
@@ -50,7 +51,7 @@ import org.eclipse.emf.ecore.EObject;
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  */
-public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
+public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery, CounterSource {
 	/**
 	 * Number of elements to index before a starting a match ahead step.
 	 */
@@ -73,7 +74,22 @@ public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
 	 *            a function to measure the distance between two {@link EObject}s.
 	 */
 	public ProximityEObjectMatcher(DistanceFunction meter) {
-		this.index = new ByTypeIndex(meter, this);
+		this(meter, false);
+	}
+
+	/**
+	 * Create the matcher using the given distance function.
+	 * 
+	 * @param meter
+	 *            a function to measure the distance between two {@link EObject}s.
+	 * @param prefilterCandidates
+	 *            <code>true</code> if the candidates of an EObject should be narrowed down through signatures
+	 *            of their attributes before their distance is measured, <code>false</code> to measure the
+	 *            distance to all the EObjects of the same type.
+	 * @since 3.5
+	 */
+	public ProximityEObjectMatcher(DistanceFunction meter, boolean prefilterCandidates) {
+		this.index = new ByTypeIndex(meter, this, prefilterCandidates);
 	}
 
 	/**
@@ -140,8 +156,9 @@ public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
 	 *            the current comoparison.
 	 * @param monitor
 	 *            monitor to track progress.
+	 * @since 3.5
 	 */
-	private void matchAheadOfTime(Comparison comparison, Monitor monitor) {
+	protected void matchAheadOfTime(Comparison comparison, Monitor monitor) {
 		if (index instanceof MatchAheadOfTime) {
 			matchList(comparison, ((MatchAheadOfTime)index).getValuesToMatchAhead(Side.LEFT), false, monitor);
 			matchList(comparison, ((MatchAheadOfTime)index).getValuesToMatchAhead(Side.RIGHT), false,
@@ -157,8 +174,9 @@ public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
 	 *            the current comparison.
 	 * @param monitor
 	 *            monitor to track progress.
+	 * @since 3.5
 	 */
-	private void matchIndexedObjects(Comparison comparison, Monitor monitor) {
+	protected void matchIndexedObjects(Comparison comparison, Monitor monitor) {
 		Iterable<EObject> todo = index.getValuesStillThere(Side.LEFT);
 		while (todo.iterator().hasNext()) {
 			if (monitor.isCanceled()) {
@@ -343,8 +361,9 @@ public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
 	 * @param origin
 	 *            origin element.
 	 * @return the created match.
+	 * @since 3.5
 	 */
-	private Match areMatching(Comparison comparison, EObject left, EObject right, EObject origin) {
+	protected Match areMatching(Comparison comparison, EObject left, EObject right, EObject origin) {
 		Match result = CompareFactory.eINSTANCE.createMatch();
 		result.setLeft(left);
 		result.setRight(right);
@@ -418,4 +437,28 @@ public class ProximityEObjectMatcher implements IEObjectMatcher, ScopeQuery {
 	public boolean isInScope(EObject eContainer) {
 		return eObjectsToSide.get(eContainer) != null;
 	}
+
+	/**
+	 * Returns the index in which this matcher keeps the EObjects which have not been matched yet.
+	 * 
+	 * @return the index used by this matcher.
+	 * @since 3.5
+	 */
+	protected EObjectIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the counters of the index, which include those of the distance function.
+	 * </p>
+	 * 
+	 * @since 3.5
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		if (index instanceof CounterSource) {
+			((CounterSource)index).collectCounters(counters);
+		}
+	}
 }
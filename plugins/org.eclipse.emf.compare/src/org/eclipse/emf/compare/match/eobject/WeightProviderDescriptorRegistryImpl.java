@@ -45,7 +45,7 @@ public class WeightProviderDescriptorRegistryImpl implements WeightProvider.Desc
 	 */
 	public WeightProviderDescriptorRegistryImpl() {
 		weightProviderDescriptors = Maps.newHashMap();
-		cache = Maps.newHashMap();
+		cache = Maps.newConcurrentMap();
 	}
 
 	/**
@@ -111,7 +111,9 @@ public class WeightProviderDescriptorRegistryImpl implements WeightProvider.Desc
 					ePackage.getNsURI());
 			if (highestRankingWeightProviderDescriptor != null) {
 				weightProvider = highestRankingWeightProviderDescriptor.getWeightProvider();
-				cache.put(ePackage.getNsURI(), weightProvider);
+				if (weightProvider != null) {
+					cache.put(ePackage.getNsURI(), weightProvider);
+				}
 			}
 		}
 		return weightProvider;
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match.eobject.internal;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.compare.internal.utils.BigramProfile;
+
+/**
+ * A bounded cache of the {@link BigramProfile}s of the String values of the compared objects.
+ * <p>
+ * While matching by similarity, the same attribute value of an object is compared with those of many
+ * candidates. This cache looks the profiles up by identity of the String they were computed from, which is
+ * the value held by the object as long as its attribute is not changed: a lookup costs a single hash and
+ * reference comparison, with no allocation. The profiles are kept in a fixed number of slots, a new profile
+ * replacing the one of its slot, so that the memory used is bounded whatever the size of the models. Strings
+ * longer than {@link #MAX_CACHED_LENGTH} are not cached.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class BigramProfileCache {
+	/** The default number of slots, must be a power of two. */
+	public static final int DEFAULT_SIZE = 4096;
+
+	/** Length of the longest Strings whose profile is cached. */
+	public static final int MAX_CACHED_LENGTH = 1024;
+
+	/** The cached profiles, by slot. */
+	private final BigramProfile[] profiles;
+
+	/** Mask giving the slot of a String from its identity hash code. */
+	private final int mask;
+
+	/** Number of profiles found in the cache. */
+	private long hitCount;
+
+	/** Number of profiles that had to be computed. */
+	private long missCount;
+
+	/**
+	 * Creates a cache with the {@link #DEFAULT_SIZE default} number of slots.
+	 */
+	public BigramProfileCache() {
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param size
+	 *            the number of slots of the cache, must be a positive power of two.
+	 */
+	public BigramProfileCache(int size) {
+		if (size <= 0 || Integer.bitCount(size) != 1) {
+			throw new IllegalArgumentException("The size must be a power of two: " + size); //$NON-NLS-1$
+		}
+		this.profiles = new BigramProfile[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Returns the profile of the given String, computing it if it is not cached.
+	 *
+	 * @param value
+	 *            the String.
+	 * @return its profile.
+	 */
+	public BigramProfile getProfile(String value) {
+		if (value.length() > MAX_CACHED_LENGTH) {
+			missCount++;
+			return new BigramProfile(value);
+		}
+		final int slot = System.identityHashCode(value) & mask;
+		BigramProfile profile = profiles[slot];
+		if (profile != null && profile.getValue() == value) {
+			hitCount++;
+		} else {
+			missCount++;
+			profile = new BigramProfile(value);
+			profiles[slot] = profile;
+		}
+		return profile;
+	}
+
+	/**
+	 * Removes all of the cached profiles, for example once the comparison of their objects is over.
+	 */
+	public void clear() {
+		Arrays.fill(profiles, null);
+	}
+
+	/**
+	 * Returns the number of profiles that were found in the cache.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of profiles that had to be computed.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,17 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.match.eobject.internal;
 
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 
 import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.match.eobject.EObjectIndex;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
@@ -31,7 +34,7 @@ import org.eclipse.emf.ecore.EObject;
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  */
-public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
+public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime, CounterSource {
 	/**
 	 * All the type specific indexes, created on demand.
 	 */
@@ -47,6 +50,11 @@ public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
 	 */
 	private ScopeQuery scope;
 
+	/**
+	 * Whether the delegate indexes should pre-filter the candidates using signatures.
+	 */
+	private boolean useSignatures;
+
 	/**
 	 * Create a new instance using the given {@link DistanceFunction} to instantiate delegate indexes on
 	 * demand.
@@ -57,8 +65,26 @@ public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
 	 *            an instance
 	 */
 	public ByTypeIndex(ProximityEObjectMatcher.DistanceFunction meter, final ScopeQuery scope) {
+		this(meter, scope, false);
+	}
+
+	/**
+	 * Create a new instance using the given {@link DistanceFunction} to instantiate delegate indexes on
+	 * demand.
+	 * 
+	 * @param meter
+	 *            the function passed when instantiating delegate indexes.
+	 * @param scope
+	 *            an instance
+	 * @param useSignatures
+	 *            <code>true</code> if the delegate indexes should be {@link SignatureProximityIndex}es,
+	 *            <code>false</code> for plain {@link ProximityIndex}es.
+	 */
+	public ByTypeIndex(ProximityEObjectMatcher.DistanceFunction meter, final ScopeQuery scope,
+			boolean useSignatures) {
 		this.meter = meter;
 		this.scope = scope;
+		this.useSignatures = useSignatures;
 		this.allIndexes = Maps.newHashMap();
 	}
 
@@ -86,6 +112,29 @@ public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
 		return typeSpecificIndex.findClosests(inProgress, obj, side);
 	}
 
+	/**
+	 * Returns the type specific indexes created so far, sorted by the key of the EClass they are holding
+	 * instances of. Each of these indexes only ever contains EObjects of a single EClass and can thus be
+	 * queried independently from the others.
+	 * 
+	 * @return the type specific indexes, iterating in a stable order.
+	 */
+	public SortedMap<String, EObjectIndex> getTypeSpecificIndexes() {
+		return ImmutableSortedMap.copyOf(allIndexes);
+	}
+
+	/**
+	 * Returns the type specific index which would hold the given EObject.
+	 * 
+	 * @param obj
+	 *            any EObject.
+	 * @return the index of the EClass of this EObject, <code>null</code> if no EObject of this EClass has
+	 *         been indexed.
+	 */
+	public EObjectIndex getTypeSpecificIndex(EObject obj) {
+		return allIndexes.get(eClassKey(obj));
+	}
+
 	/**
 	 * Get the index used to store this object, create a new one if needed.
 	 * 
@@ -97,7 +146,11 @@ public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
 		String key = eClassKey(obj);
 		EObjectIndex found = allIndexes.get(key);
 		if (found == null) {
-			found = new ProximityIndex(meter, scope);
+			if (useSignatures) {
+				found = new SignatureProximityIndex(meter, scope);
+			} else {
+				found = new ProximityIndex(meter, scope);
+			}
 			allIndexes.put(key, found);
 		}
 		return found;
@@ -152,4 +205,19 @@ public class ByTypeIndex implements EObjectIndex, MatchAheadOfTime {
 		return Iterables.concat(allLists);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the counters of the type specific indexes along with those of the distance function.
+	 * </p>
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		for (CounterSource typeSpecificIndex : Iterables.filter(allIndexes.values(), CounterSource.class)) {
+			typeSpecificIndex.collectCounters(counters);
+		}
+		if (meter instanceof CounterSource) {
+			((CounterSource)meter).collectCounters(counters);
+		}
+	}
+
 }
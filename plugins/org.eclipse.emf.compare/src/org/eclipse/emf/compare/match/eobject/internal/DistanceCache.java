@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match.eobject.internal;
+
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * A bounded cache of the distances between pairs of EObjects. The pairs are unordered: the value stored for
+ * (a, b) will be returned for (b, a).
+ * <p>
+ * This is an open addressing table over plain arrays: neither lookups nor insertions allocate, and the
+ * values are kept as primitive doubles. Keys are compared by identity. A pair can only be stored in one of
+ * the {@link #PROBES} slots following its hash, when all of them are used the least recently accessed one is
+ * evicted. The cache will thus never hold more than its capacity, which is the given maximum size rounded up
+ * to the next power of two.
+ * </p>
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class DistanceCache {
+	/** The value returned by {@link #get(EObject, EObject)} when a pair is not in the cache. */
+	public static final double MISSING = Double.NaN;
+
+	/** The number of slots that can hold a given pair. */
+	private static final int PROBES = 8;
+
+	/** Constant used to spread the hashes of the pairs over the table. */
+	private static final int SPREAD = 0x9E3779B9;
+
+	/** First EObject of the pair stored in each slot, <code>null</code> for free slots. */
+	private final EObject[] firsts;
+
+	/** Second EObject of the pair stored in each slot. */
+	private final EObject[] seconds;
+
+	/** The distance stored in each slot. */
+	private final double[] values;
+
+	/** Value of {@link #clock} when each slot was last accessed. */
+	private final int[] lastAccess;
+
+	/** Mask used to get a slot index from a hash. */
+	private final int mask;
+
+	/** Incremented on each access, used to find the least recently accessed slot. */
+	private int clock;
+
+	/** Number of lookups which found their pair. */
+	private long hits;
+
+	/** Number of lookups which did not find their pair. */
+	private long misses;
+
+	/** Number of pairs that have been evicted to make room for new ones. */
+	private long evictions;
+
+	/**
+	 * Creates a cache able to hold at least <code>maxSize</code> distances.
+	 *
+	 * @param maxSize
+	 *            the minimum number of distances this cache should be able to hold.
+	 */
+	public DistanceCache(int maxSize) {
+		int capacity = Integer.highestOneBit(Math.max(PROBES, maxSize - 1)) << 1;
+		this.firsts = new EObject[capacity];
+		this.seconds = new EObject[capacity];
+		this.values = new double[capacity];
+		this.lastAccess = new int[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the distance cached for the given pair.
+	 *
+	 * @param a
+	 *            first EObject of the pair.
+	 * @param b
+	 *            second EObject of the pair.
+	 * @return the cached distance, {@link #MISSING} if there is none.
+	 */
+	public double get(EObject a, EObject b) {
+		final int start = hash(a, b);
+		for (int i = 0; i < PROBES; i++) {
+			final int slot = (start + i) & mask;
+			final EObject first = firsts[slot];
+			if (first == null) {
+				break;
+			}
+			if (isPair(slot, first, a, b)) {
+				lastAccess[slot] = ++clock;
+				hits++;
+				return values[slot];
+			}
+		}
+		misses++;
+		return MISSING;
+	}
+
+	/**
+	 * Stores the distance between the two given EObjects, evicting another pair if needed.
+	 *
+	 * @param a
+	 *            first EObject of the pair.
+	 * @param b
+	 *            second EObject of the pair.
+	 * @param distance
+	 *            the distance between a and b.
+	 */
+	public void put(EObject a, EObject b, double distance) {
+		final int start = hash(a, b);
+		int target = -1;
+		for (int i = 0; i < PROBES && target == -1; i++) {
+			final int slot = (start + i) & mask;
+			final EObject first = firsts[slot];
+			if (first == null || isPair(slot, first, a, b)) {
+				target = slot;
+			}
+		}
+		if (target == -1) {
+			target = leastRecentlyAccessed(start);
+			evictions++;
+		}
+		firsts[target] = a;
+		seconds[target] = b;
+		values[target] = distance;
+		lastAccess[target] = ++clock;
+	}
+
+	/**
+	 * Empties this cache.
+	 */
+	public void clear() {
+		for (int i = 0; i < firsts.length; i++) {
+			firsts[i] = null;
+			seconds[i] = null;
+		}
+		clock = 0;
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+	}
+
+	/**
+	 * Returns the maximum number of distances this cache can hold.
+	 *
+	 * @return the capacity of this cache.
+	 */
+	public int capacity() {
+		return firsts.length;
+	}
+
+	/**
+	 * Returns the number of lookups which found their pair since this cache was created or cleared.
+	 *
+	 * @return the number of cache hits.
+	 */
+	public long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of lookups which did not find their pair since this cache was created or cleared.
+	 *
+	 * @return the number of cache misses.
+	 */
+	public long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Returns the number of pairs evicted since this cache was created or cleared.
+	 *
+	 * @return the number of evictions.
+	 */
+	public long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * Checks whether the given slot holds the pair (a, b) or (b, a).
+	 *
+	 * @param slot
+	 *            the slot to check.
+	 * @param first
+	 *            first EObject of the pair stored in this slot.
+	 * @param a
+	 *            first EObject of the pair we're looking for.
+	 * @param b
+	 *            second EObject of the pair we're looking for.
+	 * @return <code>true</code> if that slot holds the pair.
+	 */
+	private boolean isPair(int slot, EObject first, EObject a, EObject b) {
+		final EObject second = seconds[slot];
+		return (first == a && second == b) || (first == b && second == a);
+	}
+
+	/**
+	 * Finds the least recently accessed slot among those that can hold a pair of the given hash.
+	 *
+	 * @param start
+	 *            hash of the pair.
+	 * @return the least recently accessed slot.
+	 */
+	private int leastRecentlyAccessed(int start) {
+		int result = start & mask;
+		for (int i = 1; i < PROBES; i++) {
+			final int slot = (start + i) & mask;
+			// compare through a subtraction so that an overflow of the clock is harmless
+			if (lastAccess[slot] - lastAccess[result] < 0) {
+				result = slot;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes a hash of the given pair which does not depend on the order of its EObjects.
+	 *
+	 * @param a
+	 *            first EObject of the pair.
+	 * @param b
+	 *            second EObject of the pair.
+	 * @return the hash of the pair.
+	 */
+	private static int hash(EObject a, EObject b) {
+		final int hashA = System.identityHashCode(a);
+		final int hashB = System.identityHashCode(b);
+		final int h = (Math.min(hashA, hashB) * 31 + Math.max(hashA, hashB)) * SPREAD;
+		return h ^ (h >>> 16);
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import java.util.Set;
 import java.util.SortedMap;
 
 import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
 import org.eclipse.emf.compare.match.eobject.EObjectIndex;
 import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher;
 import org.eclipse.emf.compare.match.eobject.ScopeQuery;
@@ -42,7 +43,7 @@ import org.eclipse.emf.ecore.EObject;
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  */
-public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
+public class ProximityIndex implements EObjectIndex, MatchAheadOfTime, CounterSource {
 	/**
 	 * The number of elements until which the index will provide elements to match ahead of time. This is done
 	 * to avoid algorithm complexity explosion. This is clearly a tradeoff as matching ahead of time means
@@ -161,22 +162,23 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 			default:
 				break;
 		}
+		final Collection<EObject> candidates = getCandidates(eObj, sideToFind, storageToSearchFor);
 		/*
 		 * We are starting by looking for EObject having a distance of 0. It means we'll iterate two times in
 		 * the worst case but it is very likely that the EObject has another version with a distance of 0. It
 		 * is also based on the assumption that calling distance() with a 0 max distance triggers shortcuts
 		 * and is faster than calling the same distance() method with a max_distance > 0.
 		 */
-		Candidate best = findIdenticMatch(inProgress, eObj, storageToSearchFor);
+		Candidate best = findIdenticMatch(inProgress, eObj, candidates);
 		if (best.some()) {
 			return best.eObject;
 		}
 
-		SortedMap<Double, EObject> candidates = Maps.newTreeMap();
+		SortedMap<Double, EObject> closests = Maps.newTreeMap();
 		/*
 		 * We could not find an EObject which is identical, let's search again and find the closest EObject.
 		 */
-		Iterator<EObject> it = storageToSearchFor.iterator();
+		Iterator<EObject> it = candidates.iterator();
 		while (best.distance != 0 && it.hasNext()) {
 			EObject potentialClosest = it.next();
 			double dist = meter.distance(inProgress, eObj, potentialClosest);
@@ -184,7 +186,7 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 			if (dist < best.distance) {
 				if (shouldDoubleCheck) {
 					// We need to double check the currentlyDigging has the same object as the closest !
-					candidates.put(Double.valueOf(dist), potentialClosest);
+					closests.put(Double.valueOf(dist), potentialClosest);
 				} else {
 					best.distance = dist;
 					best.eObject = potentialClosest;
@@ -192,7 +194,7 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 			}
 		}
 		if (shouldDoubleCheck) {
-			for (Entry<Double, EObject> entry : candidates.entrySet()) {
+			for (Entry<Double, EObject> entry : closests.entrySet()) {
 				EObject doubleCheck = findTheClosest(inProgress, entry.getValue(), sideToFind, originalSide,
 						false);
 				stats.doubleCheck();
@@ -213,6 +215,22 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 		return best.eObject;
 	}
 
+	/**
+	 * Returns the EObjects of the searched side which are worth measuring the distance to the given one. This
+	 * implementation returns all the EObjects of that side still in the index.
+	 * 
+	 * @param eObj
+	 *            the base EObject.
+	 * @param sideToFind
+	 *            the side to search in.
+	 * @param storage
+	 *            the EObjects of that side still in the index.
+	 * @return the EObjects which should be compared to the base one, in the order they should be compared.
+	 */
+	protected Collection<EObject> getCandidates(EObject eObj, Side sideToFind, Set<EObject> storage) {
+		return storage;
+	}
+
 	/**
 	 * Look for a perfect match (identic content) in the given list of candidates.
 	 * 
@@ -224,7 +242,8 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 	 *            the list of possible matches.
 	 * @return a candidate instance wrapping the found match Object (if found)
 	 */
-	private Candidate findIdenticMatch(Comparison inProgress, final EObject eObj, Set<EObject> candidates) {
+	private Candidate findIdenticMatch(Comparison inProgress, final EObject eObj,
+			Collection<EObject> candidates) {
 		Iterator<EObject> it = candidates.iterator();
 		Candidate best = new Candidate();
 
@@ -361,4 +380,11 @@ public class ProximityIndex implements EObjectIndex, MatchAheadOfTime {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		stats.collectCounters(counters);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2014 Obeo.
+ * Copyright (c) 2013, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,39 @@
  *******************************************************************************/
 package org.eclipse.emf.compare.match.eobject.internal;
 
+import java.util.Map;
+
+import org.eclipse.emf.compare.ICompareMetrics;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
+import org.eclipse.emf.compare.internal.utils.MetricsUtil;
+
 /**
  * A class responsible for tracking statistics about a given comparison process.
  * 
  * @author <a href="mailto:cedric.brun@obeo.fr">Cedric Brun</a>
  */
-public class ProximityMatchStats {
+public class ProximityMatchStats implements CounterSource {
+	/** Name of the counter of the comparisons looking for identic objects. */
+	public static final String IDENTIC_COMPARISONS = "identicComparisons"; //$NON-NLS-1$
+
+	/** Name of the counter of the matches found through the identic comparisons. */
+	public static final String IDENTIC_MATCHES = "identicMatches"; //$NON-NLS-1$
+
+	/** Name of the counter of the matches found through the similarity of the objects. */
+	public static final String SIMILARITY_MATCHES = "similarityMatches"; //$NON-NLS-1$
+
+	/** Name of the counter of the objects for which no match has been found. */
+	public static final String NO_MATCHES = "noMatches"; //$NON-NLS-1$
+
+	/** Name of the counter of the backtracks. */
+	public static final String BACKTRACKS = "backtracks"; //$NON-NLS-1$
+
+	/** Name of the counter of the double checks. */
+	public static final String DOUBLE_CHECKS = "doubleChecks"; //$NON-NLS-1$
+
+	/** Name of the counter of the double checks which failed. */
+	public static final String FAILED_DOUBLE_CHECKS = "failedDoubleChecks"; //$NON-NLS-1$
+
 	/**
 	 * number of comparison dones looking for identic objects.
 	 */
@@ -114,6 +141,24 @@ public class ProximityMatchStats {
 		nbNoMatch++;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The similarity comparisons are the ones measuring a distance, they are reported as
+	 * {@link ICompareMetrics#DISTANCE_COMPUTATIONS}.
+	 * </p>
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		MetricsUtil.addCounter(counters, ICompareMetrics.DISTANCE_COMPUTATIONS, nbMaxDistComparison);
+		MetricsUtil.addCounter(counters, IDENTIC_COMPARISONS, nbIndenticComparison);
+		MetricsUtil.addCounter(counters, IDENTIC_MATCHES, nbSuccessIdenticComparison);
+		MetricsUtil.addCounter(counters, SIMILARITY_MATCHES, nbSuccessMaxComparison);
+		MetricsUtil.addCounter(counters, NO_MATCHES, nbNoMatch);
+		MetricsUtil.addCounter(counters, BACKTRACKS, nbBacktrack);
+		MetricsUtil.addCounter(counters, DOUBLE_CHECKS, nbDoubleCheck);
+		MetricsUtil.addCounter(counters, FAILED_DOUBLE_CHECKS, nbFailedDoubleCheck);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
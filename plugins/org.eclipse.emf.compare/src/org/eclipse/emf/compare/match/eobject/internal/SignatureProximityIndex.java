@@ -0,0 +1,337 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match.eobject.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher;
+import org.eclipse.emf.compare.match.eobject.ScopeQuery;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+/**
+ * A {@link ProximityIndex} which does not measure the distance of an EObject to every other EObject of the
+ * same type. A MinHash signature is computed for each indexed EObject out of the values of its attributes and
+ * of the segments of its URI fragment. These signatures are split into bands, EObjects sharing at least one
+ * band are likely to be similar: only the EObjects sharing the most bands with the one we're trying to match
+ * will go through the distance function.
+ * <p>
+ * When no EObject shares a band with the one we're trying to match, all the EObjects of the searched side
+ * are considered instead. The same goes for the EObjects which have no token at all (roots without any
+ * attribute value): their signatures would all be the same, they are never put in a band. Since the search
+ * does not grow with the number of EObjects of a given type, this index never asks to match EObjects ahead
+ * of time.
+ * </p>
+ */
+public class SignatureProximityIndex extends ProximityIndex {
+	/** The number of bands in a signature. */
+	private static final int BANDS = 32;
+
+	/** The number of MinHash values in each band. */
+	private static final int ROWS = 2;
+
+	/** The maximum number of candidates that will be compared with the distance function. */
+	private static final int MAX_CANDIDATES = 32;
+
+	/** The number of tokens standing for the location of an EObject in its container. */
+	private static final int LOCATION_WEIGHT = 4;
+
+	/** Constant used to derive the MinHash functions from one another. */
+	private static final int SEED = 0x9E3779B9;
+
+	/** The signature of the EObjects which have no token. */
+	private static final int[] NO_SIGNATURE = new int[0];
+
+	/** The signatures of the indexed EObjects. */
+	private final Map<EObject, int[]> signatures;
+
+	/** The EObjects of each side, by band key. */
+	private final Map<Side, Map<Long, Set<EObject>>> buckets;
+
+	/**
+	 * Create a new {@link SignatureProximityIndex} using the given distance function.
+	 *
+	 * @param meter
+	 *            the distance function to use to compare the EObjects.
+	 * @param matcher
+	 *            the object used to know if an instance is in the scope or not.
+	 */
+	public SignatureProximityIndex(ProximityEObjectMatcher.DistanceFunction meter, ScopeQuery matcher) {
+		super(meter, matcher);
+		this.signatures = Maps.newHashMap();
+		this.buckets = new EnumMap<Side, Map<Long, Set<EObject>>>(Side.class);
+		for (Side side : Side.values()) {
+			buckets.put(side, Maps.<Long, Set<EObject>> newHashMap());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void index(EObject eObject, Side side) {
+		super.index(eObject, side);
+		final int[] signature = getSignature(eObject);
+		if (signature == NO_SIGNATURE) {
+			return;
+		}
+		final Map<Long, Set<EObject>> sideBuckets = buckets.get(side);
+		for (int band = 0; band < BANDS; band++) {
+			final Long key = Long.valueOf(bandKey(signature, band));
+			Set<EObject> bucket = sideBuckets.get(key);
+			if (bucket == null) {
+				bucket = Sets.newLinkedHashSet();
+				sideBuckets.put(key, bucket);
+			}
+			bucket.add(eObject);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove(EObject obj, Side side) {
+		super.remove(obj, side);
+		final int[] signature = signatures.get(obj);
+		if (signature != null && signature != NO_SIGNATURE) {
+			final Map<Long, Set<EObject>> sideBuckets = buckets.get(side);
+			for (int band = 0; band < BANDS; band++) {
+				final Long key = Long.valueOf(bandKey(signature, band));
+				final Set<EObject> bucket = sideBuckets.get(key);
+				if (bucket != null) {
+					bucket.remove(obj);
+					if (bucket.isEmpty()) {
+						sideBuckets.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This returns the EObjects of the searched side sharing at least one band with the given EObject, the
+	 * ones sharing the most bands first.
+	 * </p>
+	 */
+	@Override
+	protected Collection<EObject> getCandidates(EObject eObj, Side sideToFind, Set<EObject> storage) {
+		final int[] signature = getSignature(eObj);
+		if (signature == NO_SIGNATURE) {
+			return storage;
+		}
+		final Map<Long, Set<EObject>> sideBuckets = buckets.get(sideToFind);
+		final Map<EObject, int[]> sharedBands = Maps.newLinkedHashMap();
+		for (int band = 0; band < BANDS; band++) {
+			final Set<EObject> bucket = sideBuckets.get(Long.valueOf(bandKey(signature, band)));
+			if (bucket != null) {
+				for (EObject candidate : bucket) {
+					int[] count = sharedBands.get(candidate);
+					if (count == null) {
+						count = new int[1];
+						sharedBands.put(candidate, count);
+					}
+					count[0]++;
+				}
+			}
+		}
+		if (sharedBands.isEmpty()) {
+			return storage;
+		}
+		final List<Map.Entry<EObject, int[]>> sorted = Lists.newArrayList(sharedBands.entrySet());
+		// This sort is stable, candidates sharing as many bands stay in the order they were indexed
+		Collections.sort(sorted, new Comparator<Map.Entry<EObject, int[]>>() {
+			public int compare(Map.Entry<EObject, int[]> o1, Map.Entry<EObject, int[]> o2) {
+				return o2.getValue()[0] - o1.getValue()[0];
+			}
+		});
+		final int size = Math.min(sorted.size(), MAX_CANDIDATES);
+		final List<EObject> candidates = Lists.newArrayListWithCapacity(size);
+		for (Map.Entry<EObject, int[]> entry : sorted.subList(0, size)) {
+			candidates.add(entry.getKey());
+		}
+		return candidates;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The candidates of an EObject being found in near constant time, this index never needs to match
+	 * EObjects ahead of time.
+	 * </p>
+	 */
+	@Override
+	public Iterable<EObject> getValuesToMatchAhead(Side left) {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Returns the signature of the given EObject, computing it if needed.
+	 *
+	 * @param eObject
+	 *            the EObject for which we need a signature.
+	 * @return the signature of this EObject.
+	 */
+	private int[] getSignature(EObject eObject) {
+		int[] signature = signatures.get(eObject);
+		if (signature == null) {
+			signature = computeSignature(eObject);
+			signatures.put(eObject, signature);
+		}
+		return signature;
+	}
+
+	/**
+	 * Computes the MinHash signature of the given EObject's tokens.
+	 *
+	 * @param eObject
+	 *            the EObject for which we need a signature.
+	 * @return the MinHash signature of this EObject, {@link #NO_SIGNATURE} if it has no token.
+	 */
+	private static int[] computeSignature(EObject eObject) {
+		final Set<String> tokens = getTokens(eObject);
+		if (tokens.isEmpty()) {
+			return NO_SIGNATURE;
+		}
+		final int[] signature = new int[BANDS * ROWS];
+		Arrays.fill(signature, Integer.MAX_VALUE);
+		for (String token : tokens) {
+			final int tokenHash = token.hashCode();
+			for (int i = 0; i < signature.length; i++) {
+				final int hash = mix(tokenHash ^ ((i + 1) * SEED));
+				if (hash < signature[i]) {
+					signature[i] = hash;
+				}
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * Collects the tokens describing the given EObject: the values of its attributes, prefixed by the name of
+	 * their attribute, the segments of its URI fragment and its location in its container.
+	 *
+	 * @param eObject
+	 *            the EObject to describe.
+	 * @return the tokens describing this EObject.
+	 */
+	private static Set<String> getTokens(EObject eObject) {
+		final Set<String> tokens = Sets.newHashSet();
+		for (EAttribute attribute : eObject.eClass().getEAllAttributes()) {
+			if (!attribute.isDerived() && !attribute.isTransient() && eObject.eIsSet(attribute)) {
+				final Object value = eObject.eGet(attribute);
+				if (value instanceof Collection<?>) {
+					for (Object element : (Collection<?>)value) {
+						addValueTokens(tokens, attribute.getName(), element);
+					}
+				} else {
+					addValueTokens(tokens, attribute.getName(), value);
+				}
+			}
+		}
+		EObject current = eObject;
+		InternalEObject container = (InternalEObject)current.eContainer();
+		while (container != null) {
+			final EStructuralFeature containingFeature = current.eContainingFeature();
+			tokens.add('/' + container.eURIFragmentSegment(containingFeature, current));
+			current = container;
+			container = (InternalEObject)current.eContainer();
+		}
+		final EObject parent = eObject.eContainer();
+		final EStructuralFeature feature = eObject.eContainingFeature();
+		if (parent != null && feature.isMany()) {
+			// The location of an EObject is part of its distance, give it more weight than a single token
+			final int position = ((List<?>)parent.eGet(feature, false)).indexOf(eObject);
+			final String location;
+			if (parent.eContainer() != null) {
+				location = ((InternalEObject)parent.eContainer()).eURIFragmentSegment(
+						parent.eContainingFeature(), parent) + '/' + feature.getName() + '.' + position;
+			} else {
+				location = feature.getName() + '.' + position;
+			}
+			for (int i = 0; i < LOCATION_WEIGHT; i++) {
+				tokens.add(location + '#' + i);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Adds the tokens of a single attribute value: the whole value and, for Strings, each of its bigrams so
+	 * that values with a high dice coefficient share most of their tokens.
+	 *
+	 * @param tokens
+	 *            the tokens collected so far.
+	 * @param attributeName
+	 *            name of the attribute holding that value.
+	 * @param value
+	 *            the value to tokenize.
+	 */
+	private static void addValueTokens(Set<String> tokens, String attributeName, Object value) {
+		final String prefix = attributeName + '=';
+		tokens.add(prefix + value);
+		if (value instanceof String) {
+			final String text = (String)value;
+			for (int i = 0; i < text.length() - 1; i++) {
+				tokens.add(prefix + text.substring(i, i + 2));
+			}
+		}
+	}
+
+	/**
+	 * Computes the key of a given band of a signature.
+	 *
+	 * @param signature
+	 *            the signature.
+	 * @param band
+	 *            index of the band.
+	 * @return the key of that band.
+	 */
+	private static long bandKey(int[] signature, int band) {
+		long key = band;
+		for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+			key = key * 31 + (signature[i] & 0xffffffffL);
+		}
+		return key;
+	}
+
+	/**
+	 * Spreads the bits of the given hash, this is the finalization step of MurmurHash3.
+	 *
+	 * @param hash
+	 *            the hash to mix.
+	 * @return the mixed hash.
+	 */
+	private static int mix(int hash) {
+		int h = hash;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.match.eobject.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.ICompareMetrics.CounterSource;
+import org.eclipse.emf.compare.match.eobject.ProximityEObjectMatcher.DistanceFunction;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * A distance function delegating to one distance instance per thread. Distance functions such as the
+ * {@link org.eclipse.emf.compare.match.eobject.EditionDistance} or the
+ * {@link org.eclipse.emf.compare.match.eobject.CachingDistance} keep mutable state between calls and cannot
+ * be shared by several threads, this will lazily create a new one for each thread calling it.
+ */
+public class ThreadLocalDistance implements DistanceFunction, CounterSource {
+	/** The distance instances, one per calling thread. */
+	private final ThreadLocal<DistanceFunction> delegates;
+
+	/** All of the distance instances created so far, guarded by itself. */
+	private final List<DistanceFunction> created = Lists.newArrayList();
+
+	/**
+	 * Creates a distance function delegating to instances created by the given supplier.
+	 *
+	 * @param distanceSupplier
+	 *            supplier that will be called once per thread to create the actual distance function. Each
+	 *            call is expected to return a new instance.
+	 */
+	public ThreadLocalDistance(final Supplier<? extends DistanceFunction> distanceSupplier) {
+		checkNotNull(distanceSupplier);
+		this.delegates = new ThreadLocal<DistanceFunction>() {
+			@Override
+			protected DistanceFunction initialValue() {
+				final DistanceFunction delegate = checkNotNull(distanceSupplier.get());
+				synchronized (created) {
+					created.add(delegate);
+				}
+				return delegate;
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public double distance(Comparison inProgress, EObject a, EObject b) {
+		return delegates.get().distance(inProgress, a, b);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean areIdentic(Comparison inProgress, EObject a, EObject b) {
+		return delegates.get().areIdentic(inProgress, a, b);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This reports the sum of the counters of the distance instances of all threads. It should only be called
+	 * when no other thread is using this distance function.
+	 * </p>
+	 */
+	public void collectCounters(Map<String, Long> counters) {
+		final List<DistanceFunction> allDelegates;
+		synchronized (created) {
+			allDelegates = ImmutableList.copyOf(created);
+		}
+		for (DistanceFunction delegate : allDelegates) {
+			if (delegate instanceof CounterSource) {
+				((CounterSource)delegate).collectCounters(counters);
+			}
+		}
+	}
+}
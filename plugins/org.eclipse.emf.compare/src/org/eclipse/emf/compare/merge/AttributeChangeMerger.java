@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -24,6 +24,7 @@ import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceSource;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.internal.ThreeWayTextDiff;
+import org.eclipse.emf.compare.internal.utils.BulkListUpdates;
 import org.eclipse.emf.compare.internal.utils.DiffUtil;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EEnum;
@@ -147,7 +148,8 @@ public class AttributeChangeMerger extends AbstractMerger {
 		if (attribute.isMany()) {
 			final int insertionIndex = findInsertionIndex(comparison, diff, rightToLeft);
 
-			final List<Object> targetList = (List<Object>)safeEGet(targetContainer, attribute);
+			final List<Object> targetList = (List<Object>)BulkListUpdates.getTargetValue(targetContainer,
+					attribute);
 			addAt(targetList, expectedValue, insertionIndex);
 		} else {
 			safeESet(targetContainer, attribute, expectedValue);
@@ -194,7 +196,8 @@ public class AttributeChangeMerger extends AbstractMerger {
 				 * TODO if the same value appears twice, should we try and find the one that has actually been
 				 * deleted? Will it happen that often? For now, remove the first occurence we find.
 				 */
-				final List<Object> targetList = (List<Object>)safeEGet(currentContainer, attribute);
+				final List<Object> targetList = (List<Object>)BulkListUpdates.getTargetValue(currentContainer,
+						attribute);
 				targetList.remove(expectedValue);
 			} else {
 				currentContainer.eUnset(attribute);
@@ -250,7 +253,8 @@ public class AttributeChangeMerger extends AbstractMerger {
 			 * However, it could still have been located "before" its new index, in which case we need to take
 			 * it into account.
 			 */
-			final List<Object> targetList = (List<Object>)safeEGet(expectedContainer, attribute);
+			final List<Object> targetList = (List<Object>)BulkListUpdates.getTargetValue(expectedContainer,
+					attribute);
 			final int currentIndex = targetList.indexOf(expectedValue);
 			if (insertionIndex > currentIndex) {
 				insertionIndex--;
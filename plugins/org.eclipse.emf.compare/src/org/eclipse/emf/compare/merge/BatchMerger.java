@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,8 @@ import com.google.common.collect.Iterables;
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.util.Monitor;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.internal.utils.BulkListUpdates;
+import org.eclipse.emf.compare.internal.utils.MergeAlignmentCache;
 
 /**
  * This implementation of an {@link IBatchMerger} leaves some choice to the client as to what should be
@@ -41,6 +43,9 @@ public class BatchMerger implements IBatchMerger {
 	/** The relationship computer used to calculate dependencies and requirements of diffs. */
 	private IDiffRelationshipComputer relationshipComputer;
 
+	/** Whether the changes to multi-valued features are applied once per list at the end of the batch. */
+	private final boolean bulkApply;
+
 	/**
 	 * Constructs our batch merger provided the registry from which to retrieve the delegate mergers. Using
 	 * such a merger will merge every differences passed to its "copy" methods : conflictual or not.
@@ -122,9 +127,38 @@ public class BatchMerger implements IBatchMerger {
 	 * @since 3.5
 	 */
 	public BatchMerger(IDiffRelationshipComputer relationshipComputer, Predicate<? super Diff> filter) {
+		this(relationshipComputer, filter, false);
+	}
+
+	/**
+	 * Constructs our batch merger provided the relationship computer from which to retrieve the delegate
+	 * mergers, a filter of the differences to merge, and whether to apply the changes in bulk.
+	 * <p>
+	 * In bulk mode, the changes made to the multi-valued attributes and non-containment references without
+	 * opposite of the target model are staged while merging, and each list that has changed is replaced once
+	 * at the end of the batch. The merged model is the same as without the bulk mode, but listeners of the
+	 * model receive a single <code>SET</code> notification per changed list instead of one per merged value,
+	 * and they are only notified of these changes once the batch is over. This notification is preceded by a
+	 * touch of the list, through which change recorders capture its former content. The changes made to
+	 * containment references and to references with an opposite are always applied as they are merged.
+	 * </p>
+	 * 
+	 * @param relationshipComputer
+	 *            The relationship computer used to calculate dependencies and requirements of diffs.
+	 * @param filter
+	 *            Additional filter for the differences. Note that the filter describes the differences that
+	 *            will be merged, not those that will be ignored.
+	 * @param bulkApply
+	 *            Whether the changes to multi-valued features are applied once per list at the end of the
+	 *            batch.
+	 * @since 3.5
+	 */
+	public BatchMerger(IDiffRelationshipComputer relationshipComputer, Predicate<? super Diff> filter,
+			boolean bulkApply) {
 		this.relationshipComputer = checkNotNull(relationshipComputer);
 		this.registry = (IMerger.Registry2)checkNotNull(relationshipComputer.getMergerRegistry());
 		this.filter = checkNotNull(filter);
+		this.bulkApply = bulkApply;
 	}
 
 	/**
@@ -140,14 +174,29 @@ public class BatchMerger implements IBatchMerger {
 			LOGGER.debug("copyAllLeftToRight(differences, monitor) - Start"); //$NON-NLS-1$
 		}
 		ComputeDiffsToMerge computer = new ComputeDiffsToMerge(false, relationshipComputer);
-		for (Diff toMerge : computer.getAllDiffsToMerge(Iterables.filter(differences, filter))) {
-			if (!AbstractMerger.isInTerminalState(toMerge)) {
-				final IMerger merger = registry.getHighestRankingMerger(toMerge);
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("copyAllLeftToRight - Selected merger: " //$NON-NLS-1$
-							+ merger.getClass().getSimpleName());
+		final BulkListUpdates bulkUpdates;
+		if (bulkApply) {
+			bulkUpdates = BulkListUpdates.open();
+		} else {
+			bulkUpdates = null;
+		}
+		// Diffs merged into the same list share the alignment of this list throughout the batch
+		final MergeAlignmentCache alignmentCache = MergeAlignmentCache.open();
+		try {
+			for (Diff toMerge : computer.getAllDiffsToMerge(Iterables.filter(differences, filter))) {
+				if (!AbstractMerger.isInTerminalState(toMerge)) {
+					final IMerger merger = registry.getHighestRankingMerger(toMerge);
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("copyAllLeftToRight - Selected merger: " //$NON-NLS-1$
+								+ merger.getClass().getSimpleName());
+					}
+					merger.copyLeftToRight(toMerge, monitor);
 				}
-				merger.copyLeftToRight(toMerge, monitor);
+			}
+		} finally {
+			alignmentCache.close();
+			if (bulkUpdates != null) {
+				bulkUpdates.close();
 			}
 		}
 		if (LOGGER.isDebugEnabled()) {
@@ -169,14 +218,29 @@ public class BatchMerger implements IBatchMerger {
 			LOGGER.debug("copyAllRightToLeft(differences, monitor) - Start"); //$NON-NLS-1$
 		}
 		ComputeDiffsToMerge computer = new ComputeDiffsToMerge(true, relationshipComputer);
-		for (Diff toMerge : computer.getAllDiffsToMerge(Iterables.filter(differences, filter))) {
-			if (!AbstractMerger.isInTerminalState(toMerge)) {
-				final IMerger merger = registry.getHighestRankingMerger(toMerge);
-				if (LOGGER.isDebugEnabled()) {
-					LOGGER.debug("copyAllLeftToRight - Selected merger: " //$NON-NLS-1$
-							+ merger.getClass().getSimpleName());
+		final BulkListUpdates bulkUpdates;
+		if (bulkApply) {
+			bulkUpdates = BulkListUpdates.open();
+		} else {
+			bulkUpdates = null;
+		}
+		// Diffs merged into the same list share the alignment of this list throughout the batch
+		final MergeAlignmentCache alignmentCache = MergeAlignmentCache.open();
+		try {
+			for (Diff toMerge : computer.getAllDiffsToMerge(Iterables.filter(differences, filter))) {
+				if (!AbstractMerger.isInTerminalState(toMerge)) {
+					final IMerger merger = registry.getHighestRankingMerger(toMerge);
+					if (LOGGER.isDebugEnabled()) {
+						LOGGER.debug("copyAllLeftToRight - Selected merger: " //$NON-NLS-1$
+								+ merger.getClass().getSimpleName());
+					}
+					merger.copyRightToLeft(toMerge, monitor);
 				}
-				merger.copyRightToLeft(toMerge, monitor);
+			}
+		} finally {
+			alignmentCache.close();
+			if (bulkUpdates != null) {
+				bulkUpdates.close();
 			}
 		}
 		if (LOGGER.isDebugEnabled()) {
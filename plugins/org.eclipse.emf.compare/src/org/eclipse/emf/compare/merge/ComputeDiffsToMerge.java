@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Obeo and others.
+ * Copyright (c) 2017, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,8 @@ import java.util.Set;
 
 import org.eclipse.emf.compare.Conflict;
 import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.compare.utils.DiffBitSet;
 
 /**
  * This class computes the diffs to merge for a given diff in the correct order, taking into account the
@@ -61,8 +63,11 @@ public class ComputeDiffsToMerge {
 	 */
 	private Set<Diff> globalResult;
 
-	/** The unordered set of all diffs used to avoid infinite loops. */
-	private Set<Diff> computing = new HashSet<Diff>();
+	/**
+	 * The unordered set of all diffs used to avoid infinite loops, created for the comparison of the first
+	 * diff to merge.
+	 */
+	private Set<Diff> computing;
 
 	/**
 	 * Whether the discovery of a (real) conflict in the differences needed must cause this to throw an
@@ -73,6 +78,12 @@ public class ComputeDiffsToMerge {
 	/** The relationship computer used to calculate dependencies and requirements of diffs. */
 	private IDiffRelationshipComputer relationshipComputer;
 
+	/**
+	 * The precomputed dependency graph of the diffs, used instead of the relationship computer if not
+	 * <code>null</code>.
+	 */
+	private final DiffDependencyGraph dependencyGraph;
+
 	/**
 	 * Constructor.
 	 * 
@@ -108,8 +119,35 @@ public class ComputeDiffsToMerge {
 	 *            The relationship computer used to calculate dependencies and requirements of diffs.
 	 */
 	public ComputeDiffsToMerge(boolean rightToLeft, IDiffRelationshipComputer relationshipComputer) {
+		this(rightToLeft, relationshipComputer, null);
+	}
+
+	/**
+	 * Constructor for a merge walking a precomputed dependency graph instead of asking the mergers for the
+	 * relationships of each diff. This is worth it when many merges are computed on the same comparison.
+	 * 
+	 * @param dependencyGraph
+	 *            The dependency graph of the diffs, which gives the direction of the merge.
+	 */
+	public ComputeDiffsToMerge(DiffDependencyGraph dependencyGraph) {
+		this(dependencyGraph.isRightToLeft(), dependencyGraph.getRelationshipComputer(), dependencyGraph);
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param rightToLeft
+	 *            The merge direction
+	 * @param relationshipComputer
+	 *            The relationship computer used to calculate dependencies and requirements of diffs.
+	 * @param dependencyGraph
+	 *            The dependency graph of the diffs, may be <code>null</code>.
+	 */
+	private ComputeDiffsToMerge(boolean rightToLeft, IDiffRelationshipComputer relationshipComputer,
+			DiffDependencyGraph dependencyGraph) {
 		this.rightToLeft = rightToLeft;
 		this.relationshipComputer = relationshipComputer;
+		this.dependencyGraph = dependencyGraph;
 	}
 
 	/**
@@ -137,13 +175,16 @@ public class ComputeDiffsToMerge {
 	public Set<Diff> getAllDiffsToMerge(Iterable<? extends Diff> diffs) {
 		try {
 			globalResult = Sets.newLinkedHashSet();
-			Set<Diff> globalIgnoredDiffs = Sets.newHashSet();
+			Set<Diff> globalIgnoredDiffs = null;
 			Set<Diff> diffPath = Sets.newLinkedHashSet();
 			for (Diff diff : diffs) {
+				if (globalIgnoredDiffs == null) {
+					globalIgnoredDiffs = newDiffSet(diff);
+				}
 				if (!globalIgnoredDiffs.contains(diff) && !globalResult.contains(diff)) {
 					try {
 						result.clear();
-						computing.clear();
+						clearComputing();
 						diffPath.clear();
 						addDiffs(Collections.singleton(diff), diffPath);
 						globalResult.addAll(result);
@@ -167,7 +208,7 @@ public class ComputeDiffsToMerge {
 	 */
 	public Set<Diff> getAllDiffsToMerge(Diff diff) {
 		result.clear();
-		computing.clear();
+		clearComputing();
 		addDiff(diff);
 		return result;
 	}
@@ -214,6 +255,9 @@ public class ComputeDiffsToMerge {
 	 *            The path that lead to the diff to add
 	 */
 	protected void addDiff(Diff diff, Set<Diff> consequences, Set<Diff> diffPath) {
+		if (computing == null) {
+			computing = newDiffSet(diff);
+		}
 		if (!result.contains(diff) && (globalResult == null || !globalResult.contains(diff))
 				&& computing.add(diff)) {
 			boolean addedToPath = diffPath.add(diff);
@@ -224,7 +268,12 @@ public class ComputeDiffsToMerge {
 				}
 			}
 
-			Set<Diff> dependencies = relationshipComputer.getDirectMergeDependencies(diff, rightToLeft);
+			final Collection<Diff> dependencies;
+			if (dependencyGraph != null) {
+				dependencies = dependencyGraph.getDirectMergeDependencies(diff);
+			} else {
+				dependencies = relationshipComputer.getDirectMergeDependencies(diff, rightToLeft);
+			}
 			for (Diff required : dependencies) {
 				addDiff(required, consequences, diffPath);
 			}
@@ -232,13 +281,40 @@ public class ComputeDiffsToMerge {
 			result.add(diff);
 			computing.remove(diff);
 
-			final Set<Diff> directResultingMerges = relationshipComputer.getDirectResultingMerges(diff,
-					rightToLeft);
-			consequences.addAll(directResultingMerges);
+			if (dependencyGraph != null) {
+				consequences.addAll(dependencyGraph.getDirectResultingMerges(diff));
+			} else {
+				consequences.addAll(relationshipComputer.getDirectResultingMerges(diff, rightToLeft));
+			}
 
 			if (addedToPath) {
 				diffPath.remove(diff);
 			}
 		}
 	}
+
+	/**
+	 * Empties the set of the diffs being computed.
+	 */
+	private void clearComputing() {
+		if (computing != null) {
+			computing.clear();
+		}
+	}
+
+	/**
+	 * Creates an empty set for the diffs of the comparison of the given diff, backed by the ordinals of the
+	 * diffs of this comparison if there is one.
+	 * 
+	 * @param diff
+	 *            A diff to merge.
+	 * @return An empty set of diffs.
+	 */
+	private static Set<Diff> newDiffSet(Diff diff) {
+		final Match match = diff.getMatch();
+		if (match != null && match.getComparison() != null) {
+			return new DiffBitSet(match.getComparison());
+		}
+		return new HashSet<Diff>();
+	}
 }
@@ -0,0 +1,528 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.merge;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.utils.ComparisonOrdinals;
+import org.eclipse.emf.compare.utils.DiffBitSet;
+
+/**
+ * The merge dependencies of all the diffs of a comparison, computed once for a given merge direction.
+ * <p>
+ * The direct merge dependencies and the direct resulting merges (implications, equivalences, refinements...)
+ * of every diff are asked once to a {@link IDiffRelationshipComputer} and stored as compressed adjacency
+ * arrays over the {@link ComparisonOrdinals ordinals} of the diffs. {@link ComputeDiffsToMerge} can then walk
+ * this graph instead of asking the mergers again for each merge, and the set of all diffs merged along with
+ * some diffs is answered by a breadth-first search over bit sets. The strongly connected components of the
+ * graph are computed on the first such query and kept for the following ones, so that a cycle of diffs is
+ * only walked once per query whatever its length.
+ * </p>
+ * <p>
+ * This graph is a snapshot: diffs added to the comparison after it has been built are not part of it and
+ * their relationships are asked to the relationship computer each time they are needed. It must be built
+ * again if the relationships of the diffs of the comparison change.
+ * </p>
+ *
+ * @since 3.5
+ */
+public final class DiffDependencyGraph {
+	/** The ordinals of the diffs. */
+	private final ComparisonOrdinals ordinals;
+
+	/** The direction of the merge, <code>true</code> for right to left. */
+	private final boolean rightToLeft;
+
+	/** The relationship computer this graph has been built from. */
+	private final IDiffRelationshipComputer relationshipComputer;
+
+	/** The number of diffs of this graph, diffs with a higher ordinal are unknown to it. */
+	private final int diffCount;
+
+	/**
+	 * The index in {@link #requiredTargets} of the first direct merge dependency of each diff. The
+	 * dependencies of the diff of ordinal <code>i</code> span from <code>requiredOffsets[i]</code> to
+	 * <code>requiredOffsets[i + 1]</code>.
+	 */
+	private final int[] requiredOffsets;
+
+	/** The ordinals of the direct merge dependencies of all diffs, in the order of the computer. */
+	private final int[] requiredTargets;
+
+	/** The index in {@link #consequenceTargets} of the first direct resulting merge of each diff. */
+	private final int[] consequenceOffsets;
+
+	/** The ordinals of the direct resulting merges of all diffs, in the order of the computer. */
+	private final int[] consequenceTargets;
+
+	/** The strongly connected components of this graph, lazily computed. */
+	private Components components;
+
+	/**
+	 * Builds the graph of the diffs of the given comparison.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 * @param rightToLeft
+	 *            The direction of the merge, <code>true</code> for right to left.
+	 * @param relationshipComputer
+	 *            The relationship computer providing the direct relationships of each diff.
+	 */
+	public DiffDependencyGraph(Comparison comparison, boolean rightToLeft,
+			IDiffRelationshipComputer relationshipComputer) {
+		this.ordinals = ComparisonOrdinals.of(comparison);
+		this.rightToLeft = rightToLeft;
+		this.relationshipComputer = relationshipComputer;
+
+		final IntArrayBuilder required = new IntArrayBuilder();
+		final IntArrayBuilder consequences = new IntArrayBuilder();
+		final IntArrayBuilder requiredStarts = new IntArrayBuilder();
+		final IntArrayBuilder consequenceStarts = new IntArrayBuilder();
+		// Diffs referenced by a relationship but not contained by the comparison are given an ordinal on the
+		// fly, so the count is read again at each iteration for them to be part of the graph too.
+		int ordinal = 0;
+		while (ordinal < ordinals.getDiffCount()) {
+			final Diff diff = ordinals.getDiff(ordinal);
+			requiredStarts.add(required.size());
+			consequenceStarts.add(consequences.size());
+			// Diffs removed from the comparison have lost their ordinal and have no relationship here
+			if (diff != null) {
+				for (Diff dependency : relationshipComputer.getDirectMergeDependencies(diff, rightToLeft)) {
+					required.add(ordinals.ordinal(dependency));
+				}
+				for (Diff consequence : relationshipComputer.getDirectResultingMerges(diff,
+						rightToLeft)) {
+					consequences.add(ordinals.ordinal(consequence));
+				}
+			}
+			ordinal++;
+		}
+		this.diffCount = ordinal;
+		requiredStarts.add(required.size());
+		consequenceStarts.add(consequences.size());
+		this.requiredOffsets = requiredStarts.toArray();
+		this.requiredTargets = required.toArray();
+		this.consequenceOffsets = consequenceStarts.toArray();
+		this.consequenceTargets = consequences.toArray();
+	}
+
+	/**
+	 * Returns the direction of the merge this graph has been built for.
+	 *
+	 * @return <code>true</code> for right to left.
+	 */
+	public boolean isRightToLeft() {
+		return rightToLeft;
+	}
+
+	/**
+	 * Returns the relationship computer this graph has been built from.
+	 *
+	 * @return The relationship computer.
+	 */
+	public IDiffRelationshipComputer getRelationshipComputer() {
+		return relationshipComputer;
+	}
+
+	/**
+	 * Returns the diffs that need to be merged before the given one.
+	 *
+	 * @param diff
+	 *            The diff.
+	 * @return Its direct merge dependencies, in the order given by the relationship computer.
+	 * @see IDiffRelationshipComputer#getDirectMergeDependencies(Diff, boolean)
+	 */
+	public Collection<Diff> getDirectMergeDependencies(Diff diff) {
+		final int ordinal = ordinals.ordinal(diff);
+		if (ordinal >= diffCount) {
+			return relationshipComputer.getDirectMergeDependencies(diff, rightToLeft);
+		}
+		return new OrdinalList(requiredTargets, requiredOffsets[ordinal], requiredOffsets[ordinal + 1]);
+	}
+
+	/**
+	 * Returns the diffs that need to be merged along with the given one.
+	 *
+	 * @param diff
+	 *            The diff.
+	 * @return Its direct resulting merges, in the order given by the relationship computer.
+	 * @see IDiffRelationshipComputer#getDirectResultingMerges(Diff, boolean)
+	 */
+	public Collection<Diff> getDirectResultingMerges(Diff diff) {
+		final int ordinal = ordinals.ordinal(diff);
+		if (ordinal >= diffCount) {
+			return relationshipComputer.getDirectResultingMerges(diff, rightToLeft);
+		}
+		return new OrdinalList(consequenceTargets, consequenceOffsets[ordinal],
+				consequenceOffsets[ordinal + 1]);
+	}
+
+	/**
+	 * Returns all the diffs that are merged along with the given one: the diff itself, its merge
+	 * dependencies and its resulting merges, transitively.
+	 *
+	 * @param diff
+	 *            The diff.
+	 * @return The set of all the diffs merged along with it, which contains the diff itself.
+	 */
+	public Set<Diff> getAllMergedDiffs(Diff diff) {
+		return getAllMergedDiffs(Collections.singleton(diff));
+	}
+
+	/**
+	 * Returns all the diffs that are merged along with the given ones: the diffs themselves, their merge
+	 * dependencies and their resulting merges, transitively. The graph is walked once for all of the given
+	 * diffs, which makes it much cheaper than the union of the diffs merged along with each of them.
+	 *
+	 * @param diffs
+	 *            The diffs.
+	 * @return The set of all the diffs merged along with them, which contains the diffs themselves.
+	 */
+	public Set<Diff> getAllMergedDiffs(Iterable<? extends Diff> diffs) {
+		final Components scc = getComponents();
+		final BitSet reachedComponents = new BitSet(scc.count);
+		final int[] queue = new int[scc.count];
+		int tail = 0;
+		final DiffBitSet result = new DiffBitSet(ordinals);
+		// Diffs unknown to the graph are walked through the relationship computer
+		final Deque<Diff> unknown = new ArrayDeque<Diff>();
+		for (Diff diff : diffs) {
+			tail = enqueue(diff, scc, reachedComponents, queue, tail, unknown);
+		}
+		while (!unknown.isEmpty()) {
+			final Diff diff = unknown.pop();
+			if (result.add(diff)) {
+				for (Diff related : relationshipComputer.getDirectMergeDependencies(diff, rightToLeft)) {
+					tail = enqueue(related, scc, reachedComponents, queue, tail, unknown);
+				}
+				for (Diff related : relationshipComputer.getDirectResultingMerges(diff, rightToLeft)) {
+					tail = enqueue(related, scc, reachedComponents, queue, tail, unknown);
+				}
+			}
+		}
+
+		int head = 0;
+		while (head < tail) {
+			final int component = queue[head++];
+			for (int i = scc.edgeOffsets[component]; i < scc.edgeOffsets[component + 1]; i++) {
+				final int successor = scc.edgeTargets[i];
+				if (!reachedComponents.get(successor)) {
+					reachedComponents.set(successor);
+					queue[tail++] = successor;
+				}
+			}
+		}
+
+		final BitSet reachedDiffs = new BitSet(diffCount);
+		for (int component = reachedComponents.nextSetBit(0); component >= 0; component = reachedComponents
+				.nextSetBit(component + 1)) {
+			for (int i = scc.memberOffsets[component]; i < scc.memberOffsets[component + 1]; i++) {
+				reachedDiffs.set(scc.members[i]);
+			}
+		}
+		result.addOrdinals(reachedDiffs);
+		return result;
+	}
+
+	/**
+	 * Marks the component of the given diff as reached if it was not, or records the diff as unknown if it
+	 * is not part of this graph.
+	 *
+	 * @param diff
+	 *            The diff.
+	 * @param scc
+	 *            The components of this graph.
+	 * @param reachedComponents
+	 *            The components reached so far.
+	 * @param queue
+	 *            The components to walk.
+	 * @param tail
+	 *            The index of the first free slot of the queue.
+	 * @param unknown
+	 *            The diffs unknown to the graph which are still to walk.
+	 * @return The new index of the first free slot of the queue.
+	 */
+	private int enqueue(Diff diff, Components scc, BitSet reachedComponents, int[] queue, int tail,
+			Deque<Diff> unknown) {
+		final int ordinal = ordinals.ordinal(diff);
+		if (ordinal >= diffCount) {
+			unknown.push(diff);
+			return tail;
+		}
+		final int component = scc.componentOf[ordinal];
+		if (!reachedComponents.get(component)) {
+			reachedComponents.set(component);
+			queue[tail] = component;
+			return tail + 1;
+		}
+		return tail;
+	}
+
+	/**
+	 * Returns the strongly connected components of this graph, computing them on the first call.
+	 *
+	 * @return The strongly connected components of this graph.
+	 */
+	private synchronized Components getComponents() {
+		if (components == null) {
+			components = new Components();
+		}
+		return components;
+	}
+
+	/**
+	 * Returns the number of successors of the given diff in the graph, dependencies and resulting merges.
+	 *
+	 * @param ordinal
+	 *            Ordinal of the diff.
+	 * @return Number of successors of the diff.
+	 */
+	private int successorCount(int ordinal) {
+		return requiredOffsets[ordinal + 1] - requiredOffsets[ordinal] + consequenceOffsets[ordinal + 1]
+				- consequenceOffsets[ordinal];
+	}
+
+	/**
+	 * Returns the successor at the given position of the given diff in the graph, dependencies first then
+	 * resulting merges.
+	 *
+	 * @param ordinal
+	 *            Ordinal of the diff.
+	 * @param position
+	 *            Position of the successor, lower than {@link #successorCount(int)}.
+	 * @return Ordinal of the successor.
+	 */
+	private int successor(int ordinal, int position) {
+		final int requiredCount = requiredOffsets[ordinal + 1] - requiredOffsets[ordinal];
+		if (position < requiredCount) {
+			return requiredTargets[requiredOffsets[ordinal] + position];
+		}
+		return consequenceTargets[consequenceOffsets[ordinal] + position - requiredCount];
+	}
+
+	/**
+	 * The strongly connected components of the graph and the acyclic graph between them, computed with an
+	 * iterative version of Tarjan's algorithm.
+	 */
+	private final class Components {
+		/** The number of components. */
+		private int count;
+
+		/** The component of each diff. */
+		private final int[] componentOf;
+
+		/** The index in {@link #members} of the first diff of each component. */
+		private final int[] memberOffsets;
+
+		/** The ordinals of the diffs of all components. */
+		private final int[] members;
+
+		/** The index in {@link #edgeTargets} of the first successor of each component. */
+		private final int[] edgeOffsets;
+
+		/** The successors of all components, without duplicates. */
+		private final int[] edgeTargets;
+
+		/** Computes the components of the graph. */
+		Components() {
+			componentOf = new int[diffCount];
+			Arrays.fill(componentOf, -1);
+			final int[] index = new int[diffCount];
+			Arrays.fill(index, -1);
+			final int[] lowLink = new int[diffCount];
+			final int[] stack = new int[diffCount];
+			final BitSet onStack = new BitSet(diffCount);
+			final int[] callStack = new int[diffCount];
+			final int[] callPosition = new int[diffCount];
+			members = new int[diffCount];
+			final IntArrayBuilder memberStarts = new IntArrayBuilder();
+			int nextIndex = 0;
+			int stackSize = 0;
+			int memberCount = 0;
+
+			for (int root = 0; root < diffCount; root++) {
+				if (index[root] != -1) {
+					continue;
+				}
+				int depth = 0;
+				callStack[0] = root;
+				callPosition[0] = 0;
+				index[root] = nextIndex;
+				lowLink[root] = nextIndex;
+				nextIndex++;
+				stack[stackSize++] = root;
+				onStack.set(root);
+				while (depth >= 0) {
+					final int node = callStack[depth];
+					if (callPosition[depth] < successorCount(node)) {
+						final int next = successor(node, callPosition[depth]++);
+						if (index[next] == -1) {
+							index[next] = nextIndex;
+							lowLink[next] = nextIndex;
+							nextIndex++;
+							stack[stackSize++] = next;
+							onStack.set(next);
+							depth++;
+							callStack[depth] = next;
+							callPosition[depth] = 0;
+						} else if (onStack.get(next)) {
+							lowLink[node] = Math.min(lowLink[node], index[next]);
+						}
+					} else {
+						if (lowLink[node] == index[node]) {
+							memberStarts.add(memberCount);
+							int member;
+							do {
+								member = stack[--stackSize];
+								onStack.clear(member);
+								componentOf[member] = count;
+								members[memberCount++] = member;
+							} while (member != node);
+							count++;
+						}
+						depth--;
+						if (depth >= 0) {
+							final int parent = callStack[depth];
+							lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+						}
+					}
+				}
+			}
+			memberStarts.add(memberCount);
+			memberOffsets = memberStarts.toArray();
+
+			final IntArrayBuilder edges = new IntArrayBuilder();
+			final IntArrayBuilder edgeStarts = new IntArrayBuilder();
+			final int[] lastSource = new int[count];
+			Arrays.fill(lastSource, -1);
+			for (int component = 0; component < count; component++) {
+				edgeStarts.add(edges.size());
+				for (int i = memberOffsets[component]; i < memberOffsets[component + 1]; i++) {
+					final int member = members[i];
+					for (int position = 0; position < successorCount(member); position++) {
+						final int target = componentOf[successor(member, position)];
+						if (target != component && lastSource[target] != component) {
+							lastSource[target] = component;
+							edges.add(target);
+						}
+					}
+				}
+			}
+			edgeStarts.add(edges.size());
+			edgeOffsets = edgeStarts.toArray();
+			edgeTargets = edges.toArray();
+		}
+	}
+
+	/**
+	 * A read-only view of a range of an array of ordinals as a list of diffs.
+	 */
+	private final class OrdinalList extends AbstractList<Diff> {
+		/** The array of ordinals. */
+		private final int[] targets;
+
+		/** Index of the first ordinal of the range. */
+		private final int from;
+
+		/** Index following the last ordinal of the range. */
+		private final int to;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param targets
+		 *            The array of ordinals.
+		 * @param from
+		 *            Index of the first ordinal of the range.
+		 * @param to
+		 *            Index following the last ordinal of the range.
+		 */
+		OrdinalList(int[] targets, int from, int to) {
+			this.targets = targets;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public Diff get(int position) {
+			if (position < 0 || position >= to - from) {
+				throw new IndexOutOfBoundsException(String.valueOf(position));
+			}
+			return ordinals.getDiff(targets[from + position]);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+	/**
+	 * A growable array of primitive integers.
+	 */
+	private static final class IntArrayBuilder {
+		/** The values. */
+		private int[] values = new int[16];
+
+		/** The number of values. */
+		private int size;
+
+		/**
+		 * Appends a value.
+		 *
+		 * @param value
+		 *            The value.
+		 */
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		/**
+		 * Returns the number of values.
+		 *
+		 * @return The number of values.
+		 */
+		int size() {
+			return size;
+		}
+
+		/**
+		 * Returns a copy of the values.
+		 *
+		 * @return An array of exactly {@link #size()} values.
+		 */
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -28,6 +28,7 @@ import org.eclipse.emf.compare.Diff;
 import org.eclipse.emf.compare.DifferenceSource;
 import org.eclipse.emf.compare.Match;
 import org.eclipse.emf.compare.ReferenceChange;
+import org.eclipse.emf.compare.internal.utils.BulkListUpdates;
 import org.eclipse.emf.compare.internal.utils.DiffUtil;
 import org.eclipse.emf.compare.utils.IEqualityHelper;
 import org.eclipse.emf.compare.utils.ReferenceUtil;
@@ -216,7 +217,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 			// We need to look it up
 			if (reference.isMany()) {
 				@SuppressWarnings("unchecked")
-				final List<EObject> targetList = (List<EObject>)safeEGet(expectedContainer, reference);
+				final List<EObject> targetList = (List<EObject>)BulkListUpdates
+						.getTargetValue(expectedContainer, reference);
 				expectedValue = findMatchIn(comparison, targetList, diff.getValue());
 			} else {
 				expectedValue = (EObject)safeEGet(expectedContainer, reference);
@@ -267,7 +269,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 			 * However, it could still have been located "before" its new index, in which case we need to take
 			 * it into account.
 			 */
-			final List<EObject> targetList = (List<EObject>)safeEGet(expectedContainer, reference);
+			final List<EObject> targetList = (List<EObject>)BulkListUpdates.getTargetValue(expectedContainer,
+					reference);
 			final int currentIndex = targetList.indexOf(expectedValue);
 			if (insertionIndex > currentIndex && currentIndex >= 0) {
 				insertionIndex--;
@@ -432,7 +435,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 		if (reference.isMany()) {
 			final int insertionIndex = findInsertionIndex(comparison, diff, rightToLeft);
 
-			final List<EObject> targetList = (List<EObject>)safeEGet(expectedContainer, reference);
+			final List<EObject> targetList = (List<EObject>)BulkListUpdates.getTargetValue(expectedContainer,
+					reference);
 			addAt(targetList, expectedValue, insertionIndex);
 		} else {
 			safeESet(expectedContainer, reference, expectedValue);
@@ -500,7 +504,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 		if (valueMatch == null) {
 			// value is out of the scope... we need to look it up
 			if (reference.isMany()) {
-				final List<EObject> targetList = (List<EObject>)safeEGet(currentContainer, reference);
+				final List<EObject> targetList = (List<EObject>)BulkListUpdates
+						.getTargetValue(currentContainer, reference);
 				expectedValue = findMatchIn(comparison, targetList, diff.getValue());
 			} else {
 				// the value will not be needed anyway
@@ -527,7 +532,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 			 * TODO if the same value appears twice, should we try and find the one that has actually been
 			 * deleted? Can it happen? For now, remove the first occurence we find.
 			 */
-			final List<EObject> targetList = (List<EObject>)safeEGet(currentContainer, reference);
+			final List<EObject> targetList = (List<EObject>)BulkListUpdates.getTargetValue(currentContainer,
+					reference);
 			targetList.remove(expectedValue);
 		} else {
 			currentContainer.eUnset(reference);
@@ -657,7 +663,7 @@ public class ReferenceChangeMerger extends AbstractMerger {
 		}
 
 		final List<Object> sourceList = ReferenceUtil.getAsList(sourceContainer, feature);
-		final List<Object> targetList = ReferenceUtil.getAsList(targetContainer, feature);
+		final List<Object> targetList = BulkListUpdates.getTargetList(targetContainer, feature);
 
 		final List<Object> lcs = DiffUtil.longestCommonSubsequence(comparison, sourceList, targetList);
 		if (lcs.contains(valueMatch.getLeft()) || lcs.contains(valueMatch.getRight())) {
@@ -672,7 +678,8 @@ public class ReferenceChangeMerger extends AbstractMerger {
 			 * actually any work to do. Use the real list now.
 			 */
 			@SuppressWarnings("unchecked")
-			final List<EObject> changedList = (List<EObject>)safeEGet(targetContainer, feature);
+			final List<EObject> changedList = (List<EObject>)BulkListUpdates.getTargetValue(targetContainer,
+					feature);
 			if (changedList.size() > 1) {
 				if (changedList instanceof EList<?>) {
 					if (insertionIndex > changedList.size()) {
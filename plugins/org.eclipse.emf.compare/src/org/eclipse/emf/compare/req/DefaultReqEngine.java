@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2016 Obeo.
+ * Copyright (c) 2012, 2019 Obeo.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -67,7 +67,7 @@ import org.eclipse.emf.ecore.util.FeatureMap;
  * 
  * @author <a href="mailto:cedric.notot@obeo.fr">Cedric Notot</a>
  */
-public class DefaultReqEngine implements IReqEngine {
+public class DefaultReqEngine implements IReqEngine2 {
 
 	/** The logger. */
 	private static final Logger LOGGER = Logger.getLogger(DefaultReqEngine.class);
@@ -104,6 +104,24 @@ public class DefaultReqEngine implements IReqEngine {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @see org.eclipse.emf.compare.req.IReqEngine2#computeRequirements(Comparison, Iterable, Monitor)
+	 * @since 3.5
+	 */
+	public void computeRequirements(Comparison comparison, Iterable<? extends Diff> differences,
+			Monitor monitor) {
+		// The differences of the comparison have changed since the cached ones were computed
+		cachedDifferences.invalidateAll();
+		for (Diff difference : differences) {
+			if (monitor.isCanceled()) {
+				throw new ComparisonCanceledException();
+			}
+			checkForRequiredDifferences(comparison, difference);
+		}
+	}
+
 	/**
 	 * Checks the potential required differences from the given <code>difference</code>.
 	 * 
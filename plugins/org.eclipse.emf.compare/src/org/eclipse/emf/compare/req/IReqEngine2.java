@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.req;
+
+import org.eclipse.emf.common.util.Monitor;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+
+/**
+ * This adds the ability for {@link IReqEngine requirement engines} to compute the requirements of a subset
+ * of the differences of a comparison only. This is used to update a comparison after a few of the compared
+ * objects have changed.
+ * 
+ * @since 3.5
+ * @see DefaultReqEngine
+ */
+public interface IReqEngine2 extends IReqEngine {
+	/**
+	 * Completes the given differences with all the required differences that can be detected for them.
+	 * 
+	 * @param comparison
+	 *            The comparison this engine is expected to complete.
+	 * @param differences
+	 *            The differences which requirements are to be computed.
+	 * @param monitor
+	 *            The monitor to report progress or to check for cancellation
+	 */
+	void computeRequirements(Comparison comparison, Iterable<? extends Diff> differences, Monitor monitor);
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.scope;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * The scope of a model comparison too large to be held in memory all at once. Such a scope is split into
+ * partitions, each of them covering a group of resources that can be compared independently from the
+ * others, that are loaded, compared and then released one after the other by
+ * {@link org.eclipse.emf.compare.EMFCompare#comparePartitions}.
+ * <p>
+ * The references from the objects of a partition to objects of another partition are expected to be left
+ * as proxies: they are then compared through their URIs. The matches, differences, equivalences and
+ * conflicts are only computed within each partition, the partitions should thus group the resources that
+ * are tightly linked together.
+ * </p>
+ *
+ * @since 3.5
+ * @see IComparisonScope2
+ */
+public interface IPartitionedComparisonScope {
+
+	/**
+	 * Returns the URIs of all the files involved in this scope, across all of its partitions.
+	 *
+	 * @return The file URIs.
+	 * @see IComparisonScope2#getAllInvolvedResourceURIs()
+	 */
+	Set<URI> getAllInvolvedResourceURIs();
+
+	/**
+	 * Returns an iterator over the partitions of this scope. The resources of a partition are expected to be
+	 * loaded by the call to {@link Iterator#next()} returning it, so that only the partitions which have not
+	 * been {@link #release(IComparisonScope2) released} yet are held in memory.
+	 *
+	 * @return An iterator over the partitions of this scope.
+	 */
+	Iterator<? extends IComparisonScope2> partitions();
+
+	/**
+	 * Releases the resources of a partition once it has been compared. Nothing of the partition will be
+	 * accessed after this call.
+	 *
+	 * @param partition
+	 *            A partition returned by the iterator of {@link #partitions()}.
+	 */
+	void release(IComparisonScope2 partition);
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+import org.eclipse.emf.compare.Match;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Assigns a dense ordinal to each {@link Match} and each {@link Diff} of a comparison, so that algorithms
+ * can store data about them in arrays or bit sets rather than in hash maps keyed on the EObjects themselves.
+ * See {@link DiffBitSet}, other side tables being plain arrays indexed by these ordinals.
+ * <p>
+ * Matches and diffs are numbered separately, starting at 0. The matches and diffs of the comparison are
+ * numbered at once, the first time the ordinals of a comparison are {@link #of(Comparison) requested},
+ * according to a depth-first traversal of its matches. Matches and diffs created later on are given the
+ * next free ordinal the first time they are queried. An ordinal never changes once assigned.
+ * </p>
+ * <p>
+ * The ordinal of each element is stored in an adapter of the element itself, so that looking it up does not
+ * involve any hashing. The adapter of a match also watches its differences: a diff removed from its match
+ * loses its ordinal, which is not assigned again, and is no longer referenced by these ordinals.
+ * {@link #getDiff(int)} then returns <code>null</code> for this ordinal, and the diff is given a new ordinal
+ * if it is queried again. Matches keep their ordinal, and stay referenced, as long as the comparison is.
+ * </p>
+ * <p>
+ * {@link #of(Comparison)} can be called from any thread, but the ordinals themselves are not thread safe:
+ * {@link #ordinal(Match)} and {@link #ordinal(Diff)} may assign a new ordinal and grow the tables, clients
+ * that query ordinals from several threads at once must synchronize on this object.
+ * </p>
+ *
+ * @since 3.5
+ */
+public final class ComparisonOrdinals extends AdapterImpl {
+	/** The matches, by ordinal. */
+	private Match[] matches;
+
+	/** The number of matches which have been assigned an ordinal. */
+	private int matchCount;
+
+	/** The diffs, by ordinal, <code>null</code> for the diffs which have lost their ordinal since. */
+	private Diff[] diffs;
+
+	/** The number of diffs which have been assigned an ordinal. */
+	private int diffCount;
+
+	/**
+	 * Creates the ordinals of the given comparison.
+	 *
+	 * @param comparison
+	 *            The comparison which matches and diffs are to be numbered.
+	 */
+	private ComparisonOrdinals(Comparison comparison) {
+		this.matches = new Match[16];
+		this.diffs = new Diff[16];
+		final Deque<Match> stack = new ArrayDeque<Match>();
+		for (int i = comparison.getMatches().size() - 1; i >= 0; i--) {
+			stack.push(comparison.getMatches().get(i));
+		}
+		while (!stack.isEmpty()) {
+			final Match match = stack.pop();
+			ordinal(match);
+			for (Diff diff : match.getDifferences()) {
+				ordinal(diff);
+			}
+			for (int i = match.getSubmatches().size() - 1; i >= 0; i--) {
+				stack.push(match.getSubmatches().get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the ordinals of the given comparison, numbering its matches and diffs if this has not been
+	 * done yet.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 * @return The ordinals of its matches and diffs.
+	 */
+	public static ComparisonOrdinals of(Comparison comparison) {
+		synchronized (comparison) {
+			ComparisonOrdinals existing = (ComparisonOrdinals)EcoreUtil.getExistingAdapter(comparison,
+					ComparisonOrdinals.class);
+			if (existing == null) {
+				existing = new ComparisonOrdinals(comparison);
+				comparison.eAdapters().add(existing);
+			}
+			return existing;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+	 */
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ComparisonOrdinals.class;
+	}
+
+	/**
+	 * Returns the ordinal of the given match, assigning it the next free ordinal if it has none yet.
+	 *
+	 * @param match
+	 *            The match.
+	 * @return Its ordinal.
+	 */
+	public int ordinal(Match match) {
+		int ordinal = find(match);
+		if (ordinal == -1) {
+			if (matchCount == matches.length) {
+				matches = Arrays.copyOf(matches, matchCount * 2);
+			}
+			ordinal = matchCount++;
+			matches[ordinal] = match;
+			match.eAdapters().add(new Ordinal(ordinal));
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Returns the ordinal of the given diff, assigning it the next free ordinal if it has none yet.
+	 *
+	 * @param diff
+	 *            The diff.
+	 * @return Its ordinal.
+	 */
+	public int ordinal(Diff diff) {
+		int ordinal = find(diff);
+		if (ordinal == -1) {
+			if (diffCount == diffs.length) {
+				diffs = Arrays.copyOf(diffs, diffCount * 2);
+			}
+			ordinal = diffCount++;
+			diffs[ordinal] = diff;
+			diff.eAdapters().add(new Ordinal(ordinal));
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Returns the match with the given ordinal.
+	 *
+	 * @param ordinal
+	 *            The ordinal, lower than {@link #getMatchCount()}.
+	 * @return The match with this ordinal.
+	 */
+	public Match getMatch(int ordinal) {
+		if (ordinal < 0 || ordinal >= matchCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(ordinal));
+		}
+		return matches[ordinal];
+	}
+
+	/**
+	 * Returns the diff with the given ordinal.
+	 *
+	 * @param ordinal
+	 *            The ordinal, lower than {@link #getDiffCount()}.
+	 * @return The diff with this ordinal, <code>null</code> if it has been removed from its match since.
+	 */
+	public Diff getDiff(int ordinal) {
+		if (ordinal < 0 || ordinal >= diffCount) {
+			throw new IndexOutOfBoundsException(String.valueOf(ordinal));
+		}
+		return diffs[ordinal];
+	}
+
+	/**
+	 * Returns the number of matches which have been assigned an ordinal.
+	 *
+	 * @return The number of matches with an ordinal, which is the next ordinal that will be assigned.
+	 */
+	public int getMatchCount() {
+		return matchCount;
+	}
+
+	/**
+	 * Returns the number of diffs which have been assigned an ordinal.
+	 *
+	 * @return The number of diffs with an ordinal, including those which have lost it since. This is the
+	 *         next ordinal that will be assigned.
+	 */
+	public int getDiffCount() {
+		return diffCount;
+	}
+
+	/**
+	 * Returns the ordinal of the given element without assigning it one.
+	 *
+	 * @param element
+	 *            A match or a diff.
+	 * @return Its ordinal, <code>-1</code> if it has none.
+	 */
+	int find(Object element) {
+		if (element instanceof Notifier) {
+			final Ordinal ordinal = (Ordinal)EcoreUtil.getExistingAdapter((Notifier)element, this);
+			if (ordinal != null) {
+				return ordinal.value;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Takes the ordinal of the given diffs, which have been removed from their match, back.
+	 *
+	 * @param removed
+	 *            The removed diffs.
+	 */
+	private void release(Collection<?> removed) {
+		for (Object element : removed) {
+			if (element instanceof Diff && ((Diff)element).eContainer() == null) {
+				final Diff diff = (Diff)element;
+				final Ordinal ordinal = (Ordinal)EcoreUtil.getExistingAdapter(diff, this);
+				if (ordinal != null) {
+					diff.eAdapters().remove(ordinal);
+					diffs[ordinal.value] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The ordinal of a match or a diff, attached to it. The ordinal of a match also takes back the ordinal of
+	 * the diffs removed from it.
+	 */
+	private final class Ordinal extends AdapterImpl {
+		/** The ordinal. */
+		final int value;
+
+		/**
+		 * Creates the given ordinal.
+		 *
+		 * @param value
+		 *            The ordinal.
+		 */
+		Ordinal(int value) {
+			this.value = value;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#isAdapterForType(java.lang.Object)
+		 */
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ComparisonOrdinals.this;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.common.notify.impl.AdapterImpl#notifyChanged(org.eclipse.emf.common.notify.Notification)
+		 */
+		@Override
+		public void notifyChanged(Notification msg) {
+			if (msg.getFeature() != ComparePackage.Literals.MATCH__DIFFERENCES) {
+				return;
+			}
+			switch (msg.getEventType()) {
+				case Notification.REMOVE:
+				case Notification.SET:
+					release(Arrays.asList(msg.getOldValue()));
+					break;
+				case Notification.REMOVE_MANY:
+					release((Collection<?>)msg.getOldValue());
+					break;
+				default:
+					break;
+			}
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+/**
+ * Saves a {@link Comparison} to, and loads it from, a compact binary snapshot.
+ * <p>
+ * A snapshot holds the whole comparison model: matches, differences of any kind (those of the extensions
+ * included), requirements, implications, refinements, equivalences and conflicts. The compared model
+ * objects are not part of it, they are referenced by the position of their resource in a table of the
+ * resource URIs of each side, and by their URI fragment in this resource. Strings, resources and classes are
+ * only written once and then referenced by their position, so that a snapshot is usually much smaller than
+ * the XMI serialization of the same comparison.
+ * </p>
+ * <p>
+ * Loading a snapshot does not load the compared models. The model objects are loaded as proxies which are
+ * resolved on access, each against the resource set of its own side: the left, right and origin models can
+ * thus share the same URIs, as they do when comparing versions of the same file. The resources of a side are
+ * only loaded in its resource set when one of their objects is accessed for the first time. This allows to
+ * compute a comparison once and to hand it to many clients, or to review it later, at a low cost.
+ * </p>
+ * <p>
+ * The transient {@link Comparison#getDiagnostic() diagnostic} of the comparison is not saved. The values of
+ * the attribute changes are saved through the {@link org.eclipse.emf.ecore.EFactory#convertToString
+ * conversion} of their data types, which requires the changed attributes to be resolved when the snapshot is
+ * loaded; these attributes usually belong to registered packages.
+ * </p>
+ *
+ * @since 3.5
+ */
+public final class ComparisonSnapshot {
+	/** Identifies the snapshots, written in their first bytes. */
+	static final int MAGIC = 0x454D4353;
+
+	/** The version of the format of the snapshots. */
+	static final int FORMAT_VERSION = 1;
+
+	/** Side of the resources that do not belong to a compared side, such as the metamodels. */
+	static final int NO_SIDE = 0;
+
+	/** Side of the left resources. */
+	static final int LEFT_SIDE = 1;
+
+	/** Side of the right resources. */
+	static final int RIGHT_SIDE = 2;
+
+	/** Side of the origin resources. */
+	static final int ORIGIN_SIDE = 3;
+
+	/** Tag of a <code>null</code> reference. */
+	static final int NULL_REFERENCE = 0;
+
+	/** Tag of a reference to an object of the comparison, followed by its position in the snapshot. */
+	static final int INTERNAL_REFERENCE = 1;
+
+	/** Tag of a reference to an object of a resource, followed by the resource and the URI fragment. */
+	static final int RESOURCE_REFERENCE = 2;
+
+	/** Tag of a reference to an unresolved proxy, followed by its URI. */
+	static final int URI_REFERENCE = 3;
+
+	/**
+	 * Utility classes don't need a default constructor.
+	 */
+	private ComparisonSnapshot() {
+		// Hides default constructor
+	}
+
+	/**
+	 * Writes a snapshot of the given comparison. All of the model objects it references must belong to a
+	 * resource.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 * @param output
+	 *            The stream to write the snapshot to. It is not closed by this method.
+	 * @throws IOException
+	 *             If the snapshot cannot be written, or if the comparison references objects that are not in
+	 *             a resource.
+	 */
+	public static void write(Comparison comparison, OutputStream output) throws IOException {
+		new SnapshotWriter(checkNotNull(comparison), checkNotNull(output)).write();
+	}
+
+	/**
+	 * Reads a snapshot. The returned comparison is contained in a resource of a private resource set, which
+	 * resolves the references to the compared model objects against the given resource sets. These resource
+	 * sets do not need to contain the compared resources: they are loaded on demand.
+	 *
+	 * @param input
+	 *            The stream to read the snapshot from. It is not closed by this method.
+	 * @param left
+	 *            The resource set in which to find or load the left resources.
+	 * @param right
+	 *            The resource set in which to find or load the right resources.
+	 * @param origin
+	 *            The resource set in which to find or load the origin resources, may be <code>null</code> for
+	 *            two-way comparisons.
+	 * @return The comparison.
+	 * @throws IOException
+	 *             If the snapshot cannot be read or is invalid.
+	 */
+	public static Comparison read(InputStream input, ResourceSet left, ResourceSet right, ResourceSet origin)
+			throws IOException {
+		final SnapshotResourceSet resourceSet = new SnapshotResourceSet(checkNotNull(left),
+				checkNotNull(right), origin);
+		final Comparison comparison = new SnapshotReader(checkNotNull(input), resourceSet).read();
+		resourceSet.attach(comparison);
+		return comparison;
+	}
+
+	/**
+	 * Checks whether the values of the given feature are part of the snapshots. The derived and container
+	 * features, which are computed from the others, are not. Of two opposite references, the single-valued
+	 * one is not saved when the other is many-valued, both are otherwise.
+	 *
+	 * @param feature
+	 *            The feature of an object of the comparison.
+	 * @return <code>true</code> if the values of this feature are saved.
+	 */
+	static boolean isStored(EStructuralFeature feature) {
+		if (feature.isDerived() || feature.isVolatile()) {
+			return false;
+		}
+		if (feature instanceof EReference) {
+			final EReference reference = (EReference)feature;
+			final EReference opposite = reference.getEOpposite();
+			if (reference.isTransient() || reference.isContainer()) {
+				return false;
+			}
+			return reference.isMany() || reference.isContainment() || opposite == null || !opposite.isMany();
+		}
+		if (isResource((EAttribute)feature) || !feature.isTransient()) {
+			return true;
+		}
+		return feature == ComparePackage.Literals.ATTRIBUTE_CHANGE__VALUE
+				|| feature == ComparePackage.Literals.FEATURE_MAP_CHANGE__VALUE;
+	}
+
+	/**
+	 * Checks whether the given attribute holds resources, such as the sides of the resource matches.
+	 *
+	 * @param attribute
+	 *            The attribute.
+	 * @return <code>true</code> if it holds resources, which are saved by reference.
+	 */
+	static boolean isResource(EAttribute attribute) {
+		return attribute.getEAttributeType().getInstanceClass() == Resource.class;
+	}
+}
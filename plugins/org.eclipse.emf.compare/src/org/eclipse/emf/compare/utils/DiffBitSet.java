@@ -0,0 +1,279 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.Diff;
+
+/**
+ * A set of diffs backed by a bit set indexed by the {@link ComparisonOrdinals ordinals} of the diffs. It
+ * costs one bit per diff of the comparison, whatever its size, and allocates no entry per diff.
+ * <p>
+ * Iteration follows the order of the ordinals, not the order of insertion. Diffs that do not belong to the
+ * comparison can be added, they are given an ordinal the first time they are. A diff removed from its match
+ * loses its ordinal, and with it its place in this set. Like the ordinals it relies on, this set is not
+ * thread safe.
+ * </p>
+ *
+ * @since 3.5
+ */
+public final class DiffBitSet extends AbstractSet<Diff> {
+	/** The ordinals of the diffs. */
+	private final ComparisonOrdinals ordinals;
+
+	/** The ordinals of the diffs of this set. */
+	private final BitSet bits;
+
+	/** Incremented each time this set is modified, to detect concurrent modifications while iterating. */
+	private int modCount;
+
+	/**
+	 * Creates an empty set for the diffs of the given comparison.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 */
+	public DiffBitSet(Comparison comparison) {
+		this(ComparisonOrdinals.of(comparison));
+	}
+
+	/**
+	 * Creates an empty set for the diffs numbered by the given ordinals.
+	 *
+	 * @param ordinals
+	 *            The ordinals of the diffs.
+	 */
+	public DiffBitSet(ComparisonOrdinals ordinals) {
+		this.ordinals = ordinals;
+		this.bits = new BitSet(ordinals.getDiffCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(Diff diff) {
+		final int ordinal = ordinals.ordinal(diff);
+		if (bits.get(ordinal)) {
+			return false;
+		}
+		bits.set(ordinal);
+		modCount++;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#contains(java.lang.Object)
+	 */
+	@Override
+	public boolean contains(Object object) {
+		if (object instanceof Diff) {
+			final int ordinal = ordinals.find(object);
+			return ordinal != -1 && bits.get(ordinal);
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#remove(java.lang.Object)
+	 */
+	@Override
+	public boolean remove(Object object) {
+		if (object instanceof Diff) {
+			final int ordinal = ordinals.find(object);
+			if (ordinal != -1 && bits.get(ordinal)) {
+				bits.clear(ordinal);
+				modCount++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This is a plain union of the bit sets when {@code diffs} is a {@link DiffBitSet} of the same ordinals.
+	 * </p>
+	 *
+	 * @see java.util.AbstractCollection#addAll(java.util.Collection)
+	 */
+	@Override
+	public boolean addAll(Collection<? extends Diff> diffs) {
+		if (diffs instanceof DiffBitSet && ((DiffBitSet)diffs).ordinals == ordinals) {
+			return addOrdinals(((DiffBitSet)diffs).bits);
+		}
+		return super.addAll(diffs);
+	}
+
+	/**
+	 * Adds the diffs of the given ordinals to this set.
+	 *
+	 * @param diffOrdinals
+	 *            The {@link ComparisonOrdinals ordinals} of the diffs to add.
+	 * @return <code>true</code> if this set changed as a result.
+	 */
+	public boolean addOrdinals(BitSet diffOrdinals) {
+		final int oldCardinality = bits.cardinality();
+		bits.or(diffOrdinals);
+		final boolean changed = bits.cardinality() != oldCardinality;
+		if (changed) {
+			modCount++;
+		}
+		return changed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#clear()
+	 */
+	@Override
+	public void clear() {
+		if (!bits.isEmpty()) {
+			bits.clear();
+			modCount++;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This counts the diffs of this set which have not lost their ordinal.
+	 * </p>
+	 *
+	 * @see java.util.AbstractCollection#size()
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (int i = bits.nextSetBit(0); i != -1; i = bits.nextSetBit(i + 1)) {
+			if (ordinals.getDiff(i) != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#isEmpty()
+	 */
+	@Override
+	public boolean isEmpty() {
+		return !iterator().hasNext();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see java.util.AbstractCollection#iterator()
+	 */
+	@Override
+	public Iterator<Diff> iterator() {
+		return new DiffIterator();
+	}
+
+	/**
+	 * Iterates over the diffs of this set, by increasing ordinal.
+	 */
+	private final class DiffIterator implements Iterator<Diff> {
+		/** The ordinal of the next diff, <code>-1</code> if there is none. */
+		private int next;
+
+		/** The ordinal of the last diff returned, <code>-1</code> if it has been removed. */
+		private int last;
+
+		/** The expected modification count of the set. */
+		private int expectedModCount;
+
+		/** Starts iterating from the first diff. */
+		DiffIterator() {
+			this.next = nextDiff(0);
+			this.last = -1;
+			this.expectedModCount = modCount;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.util.Iterator#hasNext()
+		 */
+		public boolean hasNext() {
+			return next != -1;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.util.Iterator#next()
+		 */
+		public Diff next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next == -1) {
+				throw new NoSuchElementException();
+			}
+			last = next;
+			next = nextDiff(next + 1);
+			return ordinals.getDiff(last);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see java.util.Iterator#remove()
+		 */
+		public void remove() {
+			if (last == -1) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			bits.clear(last);
+			last = -1;
+			modCount++;
+			expectedModCount = modCount;
+		}
+
+		/**
+		 * Returns the ordinal of the first diff of this set from the given ordinal, skipping the diffs which
+		 * have lost their ordinal.
+		 *
+		 * @param from
+		 *            The ordinal to start from.
+		 * @return The ordinal of the next diff, <code>-1</code> if there is none.
+		 */
+		private int nextDiff(int from) {
+			int ordinal = bits.nextSetBit(from);
+			while (ordinal != -1 && ordinals.getDiff(ordinal) == null) {
+				ordinal = bits.nextSetBit(ordinal + 1);
+			}
+			return ordinal;
+		}
+	}
+}
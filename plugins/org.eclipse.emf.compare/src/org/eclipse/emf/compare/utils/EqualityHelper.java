@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2017 Obeo and others.
+ * Copyright (c) 2012, 2019 Obeo and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -387,6 +387,16 @@ public class EqualityHelper extends AdapterImpl implements IEqualityHelper {
 		return uriCache;
 	}
 
+	/**
+	 * Forgets all of the URIs cached by this helper, which must be done once the compared objects have been
+	 * modified in a way that may change their URIs.
+	 * 
+	 * @since 3.5
+	 */
+	public void invalidateCache() {
+		uriCache.invalidateAll();
+	}
+
 	/**
 	 * Create a cache as required by EqualityHelper.
 	 * 
@@ -0,0 +1,690 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.INTERNAL_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.NULL_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.ORIGIN_SIDE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.RESOURCE_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.URI_REFERENCE;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.impl.MatchResourceImpl;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Reads the snapshot of a comparison written by a {@link SnapshotWriter}.
+ * <p>
+ * The objects of the comparison are created as they are read. The references between them are set once all
+ * of them have been created, as they may point forward. The references to the compared model objects are set
+ * to proxies which the {@link SnapshotResourceSet} resolves on access.
+ * </p>
+ */
+final class SnapshotReader {
+	/** The stream to read from. */
+	private final DataInputStream input;
+
+	/** The resource set resolving the proxies. */
+	private final SnapshotResourceSet resourceSet;
+
+	/** The objects of the comparison, in the order they were read. */
+	private final List<EObject> objects;
+
+	/** The strings read so far, the first one standing for <code>null</code>. */
+	private final List<String> strings;
+
+	/** The classes read so far. */
+	private final List<ClassInfo> classes;
+
+	/** The URI of the proxies of the objects of each resource read so far, by index in the table. */
+	private final List<URI> proxyURIs;
+
+	/** The proxies created so far, by URI. */
+	private final Map<URI, EObject> proxies;
+
+	/** The classes of the abstract-typed proxies, by URI. */
+	private final Map<String, EClass> proxyClasses;
+
+	/** The references between the objects of the comparison, to be set once all of them have been read. */
+	private final List<PendingReference> pendingReferences;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param input
+	 *            The stream to read from.
+	 * @param resourceSet
+	 *            The resource set resolving the proxies.
+	 */
+	SnapshotReader(InputStream input, SnapshotResourceSet resourceSet) {
+		this.input = new DataInputStream(new BufferedInputStream(input));
+		this.resourceSet = resourceSet;
+		this.objects = Lists.newArrayList();
+		this.strings = Lists.newArrayList((String)null);
+		this.classes = Lists.newArrayList();
+		this.proxyURIs = Lists.newArrayList();
+		this.proxies = Maps.newHashMap();
+		this.proxyClasses = Maps.newHashMap();
+		this.pendingReferences = Lists.newArrayList();
+	}
+
+	/**
+	 * Reads the snapshot.
+	 *
+	 * @return The comparison.
+	 * @throws IOException
+	 *             If it cannot be read or is invalid.
+	 */
+	Comparison read() throws IOException {
+		if (input.readInt() != ComparisonSnapshot.MAGIC) {
+			throw new IOException("Not a comparison snapshot"); //$NON-NLS-1$
+		}
+		final int version = input.readInt();
+		if (version != ComparisonSnapshot.FORMAT_VERSION) {
+			throw new IOException("Unsupported comparison snapshot version " + version); //$NON-NLS-1$
+		}
+		final int objectCount = readVarInt();
+		final EObject root = readObject();
+		if (!(root instanceof Comparison) || objects.size() != objectCount) {
+			throw new IOException("Invalid comparison snapshot"); //$NON-NLS-1$
+		}
+		for (PendingReference reference : pendingReferences) {
+			reference.apply();
+		}
+		return (Comparison)root;
+	}
+
+	/**
+	 * Reads an object and its contents.
+	 *
+	 * @return The object.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private EObject readObject() throws IOException {
+		final ClassInfo classInfo = readClass();
+		final EObject eObject;
+		if (classInfo.eClass == ComparePackage.Literals.MATCH_RESOURCE) {
+			eObject = new SnapshotMatchResource(resourceSet);
+		} else {
+			eObject = EcoreUtil.create(classInfo.eClass);
+		}
+		objects.add(eObject);
+		for (EStructuralFeature feature : classInfo.features) {
+			if (feature instanceof EReference) {
+				readReferenceValues(eObject, (EReference)feature);
+			} else {
+				readAttributeValues(eObject, (EAttribute)feature);
+			}
+		}
+		return eObject;
+	}
+
+	/**
+	 * Reads the values of a reference.
+	 *
+	 * @param eObject
+	 *            The object holding the reference.
+	 * @param reference
+	 *            The reference.
+	 * @throws IOException
+	 *             If they cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readReferenceValues(EObject eObject, EReference reference) throws IOException {
+		final int count;
+		if (reference.isMany()) {
+			count = readVarInt();
+		} else if (reference.isContainment()) {
+			count = input.readBoolean() ? 1 : 0;
+		} else {
+			count = 1;
+		}
+		if (reference.isContainment()) {
+			for (int i = 0; i < count; i++) {
+				final EObject child = readObject();
+				if (reference.isMany()) {
+					((InternalEList<EObject>)eObject.eGet(reference)).addUnique(child);
+				} else {
+					eObject.eSet(reference, child);
+				}
+			}
+		} else {
+			final Object[] values = new Object[count];
+			boolean internal = false;
+			for (int i = 0; i < count; i++) {
+				values[i] = readReference(reference.getEReferenceType());
+				internal |= values[i] instanceof Integer;
+			}
+			if (count > 0 && (reference.isMany() || values[0] != null)) {
+				final PendingReference pending = new PendingReference(eObject, reference, values);
+				if (internal) {
+					pendingReferences.add(pending);
+				} else {
+					// Only proxies, which the values of the next features may need
+					pending.apply();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the values of an attribute.
+	 *
+	 * @param eObject
+	 *            The object holding the attribute.
+	 * @param attribute
+	 *            The attribute.
+	 * @throws IOException
+	 *             If they cannot be read.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readAttributeValues(EObject eObject, EAttribute attribute) throws IOException {
+		if (attribute == ComparePackage.Literals.ATTRIBUTE_CHANGE__VALUE) {
+			final EAttribute changed = (EAttribute)resolve(eObject,
+					ComparePackage.Literals.ATTRIBUTE_CHANGE__ATTRIBUTE);
+			eObject.eSet(attribute, readDataValue(changed.getEAttributeType()));
+		} else if (attribute == ComparePackage.Literals.FEATURE_MAP_CHANGE__VALUE) {
+			eObject.eSet(attribute, readFeatureMapEntry());
+		} else if (ComparisonSnapshot.isResource(attribute)) {
+			final int index = readResourceIndex();
+			if (eObject instanceof SnapshotMatchResource) {
+				((SnapshotMatchResource)eObject).setResourceIndex(attribute, index);
+			} else if (index >= 0) {
+				eObject.eSet(attribute, resourceSet.getSnapshotResource(index, true));
+			}
+		} else if (attribute.isMany()) {
+			final int count = readVarInt();
+			final List<Object> values = Lists.newArrayListWithCapacity(count);
+			for (int i = 0; i < count; i++) {
+				values.add(readDataValue(attribute.getEAttributeType()));
+			}
+			((InternalEList<Object>)eObject.eGet(attribute)).addAllUnique(values);
+		} else {
+			final Object value = readDataValue(attribute.getEAttributeType());
+			if (value != null) {
+				eObject.eSet(attribute, value);
+			}
+		}
+	}
+
+	/**
+	 * Reads the value of a feature map change.
+	 *
+	 * @return The value, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private Object readFeatureMapEntry() throws IOException {
+		final Object feature = readReference(EcorePackage.Literals.ESTRUCTURAL_FEATURE);
+		if (feature == null) {
+			return null;
+		} else if (!(feature instanceof EStructuralFeature)) {
+			throw new IOException("Invalid feature map entry"); //$NON-NLS-1$
+		}
+		final EStructuralFeature resolved = (EStructuralFeature)EcoreUtil.resolve((EObject)feature,
+				resourceSet);
+		final Object value;
+		if (resolved instanceof EReference) {
+			value = readReference(((EReference)resolved).getEReferenceType());
+		} else if (resolved instanceof EAttribute) {
+			value = readDataValue(((EAttribute)resolved).getEAttributeType());
+		} else {
+			throw new IOException(
+					"Cannot resolve the feature " + EcoreUtil.getURI((EObject)feature)); //$NON-NLS-1$
+		}
+		return FeatureMapUtil.createEntry(resolved, value);
+	}
+
+	/**
+	 * Resolves the target of a single-valued reference of a model object. The target is a proxy until the
+	 * comparison is attached to its resource set, it is thus resolved explicitly.
+	 *
+	 * @param eObject
+	 *            The object holding the reference.
+	 * @param reference
+	 *            The reference.
+	 * @return The resolved target.
+	 * @throws IOException
+	 *             If there is no target or it cannot be resolved.
+	 */
+	private EObject resolve(EObject eObject, EReference reference) throws IOException {
+		final EObject target = (EObject)eObject.eGet(reference, false);
+		if (target == null) {
+			throw new IOException("Missing " + reference.getName() + " value"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final EObject resolved = EcoreUtil.resolve(target, resourceSet);
+		if (resolved.eIsProxy()) {
+			throw new IOException("Cannot resolve " + EcoreUtil.getURI(target)); //$NON-NLS-1$
+		}
+		eObject.eSet(reference, resolved);
+		return resolved;
+	}
+
+	/**
+	 * Reads a reference to an object.
+	 *
+	 * @param type
+	 *            The type of the reference.
+	 * @return <code>null</code>, the {@link Integer} position of an object of the comparison, or a proxy.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private Object readReference(EClass type) throws IOException {
+		final int tag = input.readByte();
+		final URI uri;
+		switch (tag) {
+			case NULL_REFERENCE:
+				return null;
+			case INTERNAL_REFERENCE:
+				return Integer.valueOf(readVarInt());
+			case RESOURCE_REFERENCE:
+				final int index = readResourceIndex();
+				if (index < 0) {
+					throw new IOException("Invalid reference"); //$NON-NLS-1$
+				}
+				uri = proxyURIs.get(index).appendFragment(readString());
+				break;
+			case URI_REFERENCE:
+				uri = URI.createURI(readString());
+				break;
+			default:
+				throw new IOException("Invalid reference tag " + tag); //$NON-NLS-1$
+		}
+		EClass proxyClass = type;
+		if (type.isAbstract() || type.isInterface()) {
+			proxyClass = getProxyClass(readString());
+		}
+		EObject proxy = proxies.get(uri);
+		if (proxy == null || !proxyClass.isInstance(proxy)) {
+			proxy = EcoreUtil.create(proxyClass);
+			((InternalEObject)proxy).eSetProxyURI(uri);
+			proxies.put(uri, proxy);
+		}
+		return proxy;
+	}
+
+	/**
+	 * Returns the class of an abstract-typed proxy.
+	 *
+	 * @param uri
+	 *            The URI of the class.
+	 * @return The class.
+	 * @throws IOException
+	 *             If it cannot be found.
+	 */
+	private EClass getProxyClass(String uri) throws IOException {
+		EClass eClass = proxyClasses.get(uri);
+		if (eClass == null) {
+			final EObject found = resourceSet.getEObject(URI.createURI(uri), true);
+			if (!(found instanceof EClass)) {
+				throw new IOException("Cannot find the class " + uri); //$NON-NLS-1$
+			}
+			eClass = (EClass)found;
+			proxyClasses.put(uri, eClass);
+		}
+		return eClass;
+	}
+
+	/**
+	 * Reads a reference to a resource of the table, preceded by its side and URI the first time.
+	 *
+	 * @return The index of the resource in the table, -1 for <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private int readResourceIndex() throws IOException {
+		final int index = readVarInt() - 1;
+		if (index == proxyURIs.size()) {
+			final int side = input.readByte();
+			if (side < 0 || side > ORIGIN_SIDE) {
+				throw new IOException("Invalid side " + side); //$NON-NLS-1$
+			}
+			final String uri = readString();
+			URI resourceURI = null;
+			if (uri != null) {
+				resourceURI = URI.createURI(uri);
+			}
+			proxyURIs.add(resourceSet.addResource(side, resourceURI));
+		} else if (index > proxyURIs.size()) {
+			throw new IOException("Invalid resource index " + index); //$NON-NLS-1$
+		}
+		return index;
+	}
+
+	/**
+	 * Reads a class, preceded by its URI and the names of its stored features the first time.
+	 *
+	 * @return The class and the features whose values follow.
+	 * @throws IOException
+	 *             If it cannot be read or the class is unknown.
+	 */
+	private ClassInfo readClass() throws IOException {
+		final int index = readVarInt();
+		if (index < classes.size()) {
+			return classes.get(index);
+		} else if (index > classes.size()) {
+			throw new IOException("Invalid class index " + index); //$NON-NLS-1$
+		}
+		final String uri = readString();
+		final EObject found = resourceSet.getEObject(URI.createURI(uri), true);
+		if (!(found instanceof EClass)) {
+			throw new IOException("Cannot find the class " + uri); //$NON-NLS-1$
+		}
+		final EClass eClass = (EClass)found;
+		final EStructuralFeature[] features = new EStructuralFeature[readVarInt()];
+		for (int i = 0; i < features.length; i++) {
+			final String name = readString();
+			features[i] = eClass.getEStructuralFeature(name);
+			if (features[i] == null || !ComparisonSnapshot.isStored(features[i])) {
+				throw new IOException("Unknown feature " + name + " of " + uri); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		final ClassInfo classInfo = new ClassInfo(eClass, features);
+		classes.add(classInfo);
+		return classInfo;
+	}
+
+	/**
+	 * Reads a value of a data type through its string conversion.
+	 *
+	 * @param type
+	 *            The data type.
+	 * @return The value, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private Object readDataValue(EDataType type) throws IOException {
+		final String value = readString();
+		if (value == null) {
+			return null;
+		}
+		return EcoreUtil.createFromString(type, value);
+	}
+
+	/**
+	 * Reads a string, preceded by its content the first time.
+	 *
+	 * @return The string, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private String readString() throws IOException {
+		final int index = readVarInt();
+		if (index < strings.size()) {
+			return strings.get(index);
+		} else if (index > strings.size()) {
+			throw new IOException("Invalid string index " + index); //$NON-NLS-1$
+		}
+		final String value = input.readUTF();
+		strings.add(value);
+		return value;
+	}
+
+	/**
+	 * Reads a positive integer written seven bits per byte.
+	 *
+	 * @return The integer.
+	 * @throws IOException
+	 *             If it cannot be read.
+	 */
+	private int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+			final int b = input.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Invalid integer"); //$NON-NLS-1$
+	}
+
+	/**
+	 * A class along with the features whose values are saved, in the order they are.
+	 */
+	private static final class ClassInfo {
+		/** The class. */
+		private final EClass eClass;
+
+		/** The stored features. */
+		private final EStructuralFeature[] features;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param eClass
+		 *            The class.
+		 * @param features
+		 *            The stored features.
+		 */
+		ClassInfo(EClass eClass, EStructuralFeature[] features) {
+			this.eClass = eClass;
+			this.features = features;
+		}
+	}
+
+	/**
+	 * The values of a non-containment reference, which may point to objects of the comparison that have not
+	 * been read yet.
+	 */
+	private final class PendingReference {
+		/** The object holding the reference. */
+		private final EObject eObject;
+
+		/** The reference. */
+		private final EReference reference;
+
+		/** The values, the objects of the comparison being given by their {@link Integer} position. */
+		private final Object[] values;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param eObject
+		 *            The object holding the reference.
+		 * @param reference
+		 *            The reference.
+		 * @param values
+		 *            The values.
+		 */
+		PendingReference(EObject eObject, EReference reference, Object[] values) {
+			this.eObject = eObject;
+			this.reference = reference;
+			this.values = values;
+		}
+
+		/**
+		 * Sets the values of the reference. When both a reference and its opposite are stored, the opposite
+		 * lists are filled without their inverse so as to keep the order of both. The proxies are recorded to
+		 * be resolved along with their resource.
+		 *
+		 * @throws IOException
+		 *             If a value is not a valid object position.
+		 */
+		@SuppressWarnings("unchecked")
+		void apply() throws IOException {
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] instanceof Integer) {
+					final int id = ((Integer)values[i]).intValue();
+					if (id < 0 || id >= objects.size()) {
+						throw new IOException("Invalid object reference " + id); //$NON-NLS-1$
+					}
+					values[i] = objects.get(id);
+				}
+			}
+			if (!reference.isMany()) {
+				eObject.eSet(reference, values[0]);
+			} else {
+				final InternalEList<Object> list = (InternalEList<Object>)eObject.eGet(reference, false);
+				final EReference opposite = reference.getEOpposite();
+				if (opposite != null && opposite.isMany()) {
+					for (Object value : values) {
+						list.basicAdd(value, null);
+					}
+				} else {
+					list.addAllUnique(Arrays.asList(values));
+				}
+			}
+			for (Object value : values) {
+				if (value instanceof EObject && ((EObject)value).eIsProxy()) {
+					final EObject proxy = (EObject)value;
+					resourceSet.addProxySetting(proxy, ((InternalEObject)eObject).eSetting(reference));
+				}
+			}
+		}
+	}
+
+	/**
+	 * A resource match whose resources are found, or loaded, in the resource set of their side on first
+	 * access.
+	 */
+	private static final class SnapshotMatchResource extends MatchResourceImpl {
+		/** The resource set of the snapshot. */
+		private final SnapshotResourceSet resourceSet;
+
+		/** The index in the snapshot of the left resource, -1 if it is set or unknown. */
+		private int leftIndex = -1;
+
+		/** The index in the snapshot of the right resource, -1 if it is set or unknown. */
+		private int rightIndex = -1;
+
+		/** The index in the snapshot of the origin resource, -1 if it is set or unknown. */
+		private int originIndex = -1;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param resourceSet
+		 *            The resource set of the snapshot.
+		 */
+		SnapshotMatchResource(SnapshotResourceSet resourceSet) {
+			this.resourceSet = resourceSet;
+		}
+
+		/**
+		 * Records the index in the snapshot of one of the resources.
+		 *
+		 * @param attribute
+		 *            The attribute of the side of the resource.
+		 * @param index
+		 *            The index of the resource.
+		 */
+		void setResourceIndex(EAttribute attribute, int index) {
+			if (attribute == ComparePackage.Literals.MATCH_RESOURCE__LEFT) {
+				leftIndex = index;
+			} else if (attribute == ComparePackage.Literals.MATCH_RESOURCE__RIGHT) {
+				rightIndex = index;
+			} else if (attribute == ComparePackage.Literals.MATCH_RESOURCE__ORIGIN) {
+				originIndex = index;
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#getLeft()
+		 */
+		@Override
+		public Resource getLeft() {
+			if (left == null && leftIndex >= 0) {
+				left = resourceSet.getSnapshotResource(leftIndex, true);
+				leftIndex = -1;
+			}
+			return left;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#setLeft(Resource)
+		 */
+		@Override
+		public void setLeft(Resource newLeft) {
+			leftIndex = -1;
+			super.setLeft(newLeft);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#getRight()
+		 */
+		@Override
+		public Resource getRight() {
+			if (right == null && rightIndex >= 0) {
+				right = resourceSet.getSnapshotResource(rightIndex, true);
+				rightIndex = -1;
+			}
+			return right;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#setRight(Resource)
+		 */
+		@Override
+		public void setRight(Resource newRight) {
+			rightIndex = -1;
+			super.setRight(newRight);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#getOrigin()
+		 */
+		@Override
+		public Resource getOrigin() {
+			if (origin == null && originIndex >= 0) {
+				origin = resourceSet.getSnapshotResource(originIndex, true);
+				originIndex = -1;
+			}
+			return origin;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * @see org.eclipse.emf.compare.impl.MatchResourceImpl#setOrigin(Resource)
+		 */
+		@Override
+		public void setOrigin(Resource newOrigin) {
+			originIndex = -1;
+			super.setOrigin(newOrigin);
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.WrappedException;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+
+/**
+ * The resource set of a comparison loaded from a {@link ComparisonSnapshot snapshot}.
+ * <p>
+ * The proxies of the compared model objects have URIs of the form
+ * <code>emfcompare-snapshot:/&lt;index&gt;#&lt;fragment&gt;</code>, where the index is the position of
+ * their resource in the table of the snapshot. This resource set resolves them by finding, or loading, the
+ * resource at this index in the resource set of its side. The resources of no particular side, such as the
+ * metamodels, are resolved by this resource set itself.
+ * </p>
+ * <p>
+ * The proxies of a resource are all resolved as soon as this resource is loaded, so that the
+ * {@link Comparison#getMatch(EObject) matches} and {@link Comparison#getDifferences(EObject) differences} of
+ * its objects can be found from them, as they are indexed by value.
+ * </p>
+ */
+final class SnapshotResourceSet extends ResourceSetImpl {
+	/** The scheme of the URIs of the proxies. */
+	private static final String SCHEME = "emfcompare-snapshot"; //$NON-NLS-1$
+
+	/** The resource sets of each side, by side. */
+	private final ResourceSet[] sideResourceSets;
+
+	/** The side of the resources of the snapshot, by index. */
+	private final List<Integer> resourceSides;
+
+	/** The URI of the resources of the snapshot, by index. */
+	private final List<URI> resourceURIs;
+
+	/** The index of the resources of the snapshot, by URI of their proxies. */
+	private final Map<URI, Integer> proxyIndices;
+
+	/** The settings holding unresolved proxies, by index of the resource of these proxies. */
+	private final Map<Integer, List<Setting>> proxySettings;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param left
+	 *            The resource set of the left resources.
+	 * @param right
+	 *            The resource set of the right resources.
+	 * @param origin
+	 *            The resource set of the origin resources, may be <code>null</code>.
+	 */
+	SnapshotResourceSet(ResourceSet left, ResourceSet right, ResourceSet origin) {
+		this.sideResourceSets = new ResourceSet[] {this, left, right, origin };
+		this.resourceSides = Lists.newArrayList();
+		this.resourceURIs = Lists.newArrayList();
+		this.proxyIndices = Maps.newHashMap();
+		this.proxySettings = Maps.newHashMap();
+	}
+
+	/**
+	 * Adds a resource to the table of the snapshot.
+	 *
+	 * @param side
+	 *            The side of the resource.
+	 * @param uri
+	 *            The URI of the resource, may be <code>null</code>.
+	 * @return The URI, without fragment, of the proxies of its objects.
+	 */
+	URI addResource(int side, URI uri) {
+		final Integer index = Integer.valueOf(resourceURIs.size());
+		resourceSides.add(Integer.valueOf(side));
+		resourceURIs.add(uri);
+		final URI proxyURI = URI.createURI(SCHEME + ":/" + index); //$NON-NLS-1$
+		proxyIndices.put(proxyURI, index);
+		return proxyURI;
+	}
+
+	/**
+	 * Records that a setting of an object of the comparison holds a proxy, to be resolved along with the
+	 * other proxies of its resource.
+	 *
+	 * @param proxy
+	 *            The proxy.
+	 * @param setting
+	 *            The setting holding it.
+	 */
+	void addProxySetting(EObject proxy, Setting setting) {
+		final Integer index = proxyIndices.get(((InternalEObject)proxy).eProxyURI().trimFragment());
+		if (index != null) {
+			List<Setting> settings = proxySettings.get(index);
+			if (settings == null) {
+				settings = Lists.newArrayList();
+				proxySettings.put(index, settings);
+			}
+			settings.add(setting);
+		}
+	}
+
+	/**
+	 * Returns the number of resources of the table of the snapshot.
+	 *
+	 * @return The number of resources.
+	 */
+	int getResourceCount() {
+		return resourceURIs.size();
+	}
+
+	/**
+	 * Finds, or loads, a resource of the table of the snapshot in the resource set of its side.
+	 *
+	 * @param index
+	 *            The index of the resource in the table.
+	 * @param loadOnDemand
+	 *            Whether to load the resource if it is not already loaded.
+	 * @return The resource, <code>null</code> if it is not loaded and should not or cannot be.
+	 */
+	Resource getSnapshotResource(int index, boolean loadOnDemand) {
+		final ResourceSet resourceSet = sideResourceSets[resourceSides.get(index).intValue()];
+		final URI uri = resourceURIs.get(index);
+		if (resourceSet == null || uri == null) {
+			return null;
+		}
+		try {
+			return resourceSet.getResource(uri, loadOnDemand);
+		} catch (WrappedException e) {
+			// The resource does not exist or cannot be loaded, its objects remain proxies
+			return null;
+		}
+	}
+
+	/**
+	 * Puts the loaded comparison in a resource of this resource set, so that the proxies it references are
+	 * resolved by it.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 */
+	void attach(Comparison comparison) {
+		final Resource resource = new ResourceImpl(URI.createURI(SCHEME + ":comparison")); //$NON-NLS-1$
+		getResources().add(resource);
+		resource.getContents().add(comparison);
+		for (int i = 0; i < resourceURIs.size(); i++) {
+			final Resource sideResource = getSnapshotResource(i, false);
+			if (sideResource != null && sideResource.isLoaded()) {
+				resolveProxies(i);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the proxies of a resource of the table held by the objects of the comparison.
+	 *
+	 * @param index
+	 *            The index of the resource in the table, which must be loaded.
+	 */
+	private void resolveProxies(int index) {
+		// Removed first, as resolving a proxy may lead back here
+		final List<Setting> settings = proxySettings.remove(Integer.valueOf(index));
+		if (settings != null) {
+			for (Setting setting : settings) {
+				final Object value = setting.get(true);
+				if (value instanceof List<?>) {
+					final List<?> values = (List<?>)value;
+					for (int i = 0; i < values.size(); i++) {
+						// The resolving lists resolve their values on access
+						values.get(i);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * This resolves the proxies of the compared model objects in the resource set of their side.
+	 * </p>
+	 *
+	 * @see org.eclipse.emf.ecore.resource.impl.ResourceSetImpl#getEObject(org.eclipse.emf.common.util.URI,
+	 *      boolean)
+	 */
+	@Override
+	public EObject getEObject(URI uri, boolean loadOnDemand) {
+		final Integer index = proxyIndices.get(uri.trimFragment());
+		if (index == null) {
+			return super.getEObject(uri, loadOnDemand);
+		}
+		final Resource resource = getSnapshotResource(index.intValue(), loadOnDemand);
+		if (resource == null) {
+			return null;
+		}
+		resolveProxies(index.intValue());
+		return resource.getEObject(uri.fragment());
+	}
+}
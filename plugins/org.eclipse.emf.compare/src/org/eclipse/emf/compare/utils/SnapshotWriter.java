@@ -0,0 +1,467 @@
+/*******************************************************************************
+ * Copyright (c) 2019 Obeo.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Obeo - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.emf.compare.utils;
+
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.INTERNAL_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.LEFT_SIDE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.NO_SIDE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.NULL_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.ORIGIN_SIDE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.RESOURCE_REFERENCE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.RIGHT_SIDE;
+import static org.eclipse.emf.compare.utils.ComparisonSnapshot.URI_REFERENCE;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.compare.AttributeChange;
+import org.eclipse.emf.compare.ComparePackage;
+import org.eclipse.emf.compare.Comparison;
+import org.eclipse.emf.compare.MatchResource;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+
+/**
+ * Writes the snapshot of a comparison, as described in {@link ComparisonSnapshot}.
+ * <p>
+ * The objects of the comparison are written depth-first, each one as its class followed by the values of
+ * its {@link ComparisonSnapshot#isStored(EStructuralFeature) stored} features, the contained objects being
+ * written in place. Strings, resources and classes are written in full the first time they are met, as the
+ * next entry of their table, and by their position in this table afterwards. Classes are written along with
+ * the names of their stored features, so that the reader does not depend on their order.
+ * </p>
+ */
+final class SnapshotWriter {
+	/** The comparison. */
+	private final Comparison comparison;
+
+	/** The stream to write to. */
+	private final DataOutputStream output;
+
+	/** The position of the objects of the comparison, in the order they are written. */
+	private final Map<EObject, Integer> objectIds;
+
+	/** The position of the strings which have already been written, shifted by one as 0 is for null. */
+	private final Map<String, Integer> strings;
+
+	/** The position of the classes which have already been written. */
+	private final Map<EClass, Integer> classes;
+
+	/** The position of the resources which have already been written. */
+	private final Map<Resource, Integer> resources;
+
+	/** The side of the compared resources. */
+	private final Map<Resource, Integer> resourceSides;
+
+	/** The side of the resource sets of the compared resources. */
+	private final Map<ResourceSet, Integer> resourceSetSides;
+
+	/** The stored features of each class. */
+	private final Map<EClass, List<EStructuralFeature>> storedFeatures;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param comparison
+	 *            The comparison.
+	 * @param output
+	 *            The stream to write to.
+	 */
+	SnapshotWriter(Comparison comparison, OutputStream output) {
+		this.comparison = comparison;
+		this.output = new DataOutputStream(new BufferedOutputStream(output));
+		this.objectIds = Maps.newHashMap();
+		this.strings = Maps.newHashMap();
+		this.classes = Maps.newHashMap();
+		this.resources = Maps.newHashMap();
+		this.resourceSides = Maps.newHashMap();
+		this.resourceSetSides = Maps.newHashMap();
+		this.storedFeatures = Maps.newHashMap();
+	}
+
+	/**
+	 * Writes the snapshot.
+	 *
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	void write() throws IOException {
+		for (MatchResource matchResource : comparison.getMatchedResources()) {
+			registerSide(matchResource.getLeft(), LEFT_SIDE);
+			registerSide(matchResource.getRight(), RIGHT_SIDE);
+			registerSide(matchResource.getOrigin(), ORIGIN_SIDE);
+		}
+		assignIds(comparison);
+
+		output.writeInt(ComparisonSnapshot.MAGIC);
+		output.writeInt(ComparisonSnapshot.FORMAT_VERSION);
+		writeVarInt(objectIds.size());
+		writeObject(comparison);
+		output.flush();
+	}
+
+	/**
+	 * Records the side of a compared resource and of its resource set, unless another side already has them.
+	 *
+	 * @param resource
+	 *            The resource, may be <code>null</code>.
+	 * @param side
+	 *            The side.
+	 */
+	private void registerSide(Resource resource, int side) {
+		if (resource != null) {
+			if (!resourceSides.containsKey(resource)) {
+				resourceSides.put(resource, Integer.valueOf(side));
+			}
+			final ResourceSet resourceSet = resource.getResourceSet();
+			if (resourceSet != null && !resourceSetSides.containsKey(resourceSet)) {
+				resourceSetSides.put(resourceSet, Integer.valueOf(side));
+			}
+		}
+	}
+
+	/**
+	 * Numbers the given object and its stored contents in the order they will be written.
+	 *
+	 * @param eObject
+	 *            The object.
+	 */
+	private void assignIds(EObject eObject) {
+		objectIds.put(eObject, Integer.valueOf(objectIds.size()));
+		for (EStructuralFeature feature : getStoredFeatures(eObject.eClass())) {
+			if (feature instanceof EReference && ((EReference)feature).isContainment()) {
+				for (EObject child : getReferencedObjects(eObject, (EReference)feature)) {
+					assignIds(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes an object and its contents.
+	 *
+	 * @param eObject
+	 *            The object.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeObject(EObject eObject) throws IOException {
+		final EClass eClass = eObject.eClass();
+		writeClass(eClass);
+		for (EStructuralFeature feature : getStoredFeatures(eClass)) {
+			if (feature instanceof EReference) {
+				writeReferenceValues(eObject, (EReference)feature);
+			} else {
+				writeAttributeValues(eObject, (EAttribute)feature);
+			}
+		}
+	}
+
+	/**
+	 * Writes the values of a reference.
+	 *
+	 * @param eObject
+	 *            The object holding the reference.
+	 * @param reference
+	 *            The reference.
+	 * @throws IOException
+	 *             If they cannot be written.
+	 */
+	private void writeReferenceValues(EObject eObject, EReference reference) throws IOException {
+		final List<EObject> values = getReferencedObjects(eObject, reference);
+		if (reference.isMany()) {
+			writeVarInt(values.size());
+		}
+		if (reference.isContainment()) {
+			if (!reference.isMany()) {
+				output.writeBoolean(!values.isEmpty());
+			}
+			for (EObject child : values) {
+				writeObject(child);
+			}
+		} else if (values.isEmpty()) {
+			if (!reference.isMany()) {
+				output.writeByte(NULL_REFERENCE);
+			}
+		} else {
+			for (EObject value : values) {
+				writeReference(value, reference.getEReferenceType());
+			}
+		}
+	}
+
+	/**
+	 * Writes the values of an attribute.
+	 *
+	 * @param eObject
+	 *            The object holding the attribute.
+	 * @param attribute
+	 *            The attribute.
+	 * @throws IOException
+	 *             If they cannot be written.
+	 */
+	private void writeAttributeValues(EObject eObject, EAttribute attribute) throws IOException {
+		final Object value = eObject.eGet(attribute);
+		if (attribute == ComparePackage.Literals.ATTRIBUTE_CHANGE__VALUE) {
+			writeDataValue(((AttributeChange)eObject).getAttribute().getEAttributeType(), value);
+		} else if (attribute == ComparePackage.Literals.FEATURE_MAP_CHANGE__VALUE) {
+			writeFeatureMapEntry((FeatureMap.Entry)value);
+		} else if (ComparisonSnapshot.isResource(attribute)) {
+			writeResource((Resource)value);
+		} else if (attribute.isMany()) {
+			final List<?> values = (List<?>)value;
+			writeVarInt(values.size());
+			for (Object element : values) {
+				writeDataValue(attribute.getEAttributeType(), element);
+			}
+		} else {
+			writeDataValue(attribute.getEAttributeType(), value);
+		}
+	}
+
+	/**
+	 * Writes the value of a feature map change.
+	 *
+	 * @param entry
+	 *            The value, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeFeatureMapEntry(FeatureMap.Entry entry) throws IOException {
+		if (entry == null) {
+			output.writeByte(NULL_REFERENCE);
+			return;
+		}
+		final EStructuralFeature feature = entry.getEStructuralFeature();
+		writeReference(feature, feature.eClass());
+		if (feature instanceof EReference) {
+			writeReference((EObject)entry.getValue(), ((EReference)feature).getEReferenceType());
+		} else {
+			writeDataValue(((EAttribute)feature).getEAttributeType(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Writes a reference to an object.
+	 *
+	 * @param target
+	 *            The referenced object, may be <code>null</code>.
+	 * @param type
+	 *            The type of the reference. If it cannot be instantiated, the class of the object is written
+	 *            as well so that its proxy can be created.
+	 * @throws IOException
+	 *             If the reference cannot be written.
+	 */
+	private void writeReference(EObject target, EClass type) throws IOException {
+		if (target == null) {
+			output.writeByte(NULL_REFERENCE);
+			return;
+		}
+		final Integer id = objectIds.get(target);
+		if (id != null) {
+			output.writeByte(INTERNAL_REFERENCE);
+			writeVarInt(id.intValue());
+			return;
+		}
+		final Resource resource = target.eResource();
+		if (target.eIsProxy()) {
+			output.writeByte(URI_REFERENCE);
+			writeString(((InternalEObject)target).eProxyURI().toString());
+		} else if (resource != null) {
+			output.writeByte(RESOURCE_REFERENCE);
+			writeResource(resource);
+			writeString(resource.getURIFragment(target));
+		} else {
+			throw new IOException("Object outside of any resource " + target); //$NON-NLS-1$
+		}
+		if (type.isAbstract() || type.isInterface()) {
+			writeString(EcoreUtil.getURI(target.eClass()).toString());
+		}
+	}
+
+	/**
+	 * Writes a reference to a resource, preceded by its side and URI the first time.
+	 *
+	 * @param resource
+	 *            The resource, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeResource(Resource resource) throws IOException {
+		if (resource == null) {
+			writeVarInt(0);
+			return;
+		}
+		final Integer index = resources.get(resource);
+		if (index != null) {
+			writeVarInt(index.intValue());
+			return;
+		}
+		final int newIndex = resources.size() + 1;
+		resources.put(resource, Integer.valueOf(newIndex));
+		writeVarInt(newIndex);
+		Integer side = resourceSides.get(resource);
+		if (side == null) {
+			side = resourceSetSides.get(resource.getResourceSet());
+		}
+		if (side == null) {
+			output.writeByte(NO_SIDE);
+		} else {
+			output.writeByte(side.intValue());
+		}
+		if (resource.getURI() == null) {
+			writeString(null);
+		} else {
+			writeString(resource.getURI().toString());
+		}
+	}
+
+	/**
+	 * Writes a class, followed by its URI and the names of its stored features the first time.
+	 *
+	 * @param eClass
+	 *            The class.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeClass(EClass eClass) throws IOException {
+		final Integer index = classes.get(eClass);
+		if (index != null) {
+			writeVarInt(index.intValue());
+			return;
+		}
+		final int newIndex = classes.size();
+		classes.put(eClass, Integer.valueOf(newIndex));
+		writeVarInt(newIndex);
+		writeString(EcoreUtil.getURI(eClass).toString());
+		final List<EStructuralFeature> features = getStoredFeatures(eClass);
+		writeVarInt(features.size());
+		for (EStructuralFeature feature : features) {
+			writeString(feature.getName());
+		}
+	}
+
+	/**
+	 * Writes a value of a data type through its string conversion.
+	 *
+	 * @param type
+	 *            The data type.
+	 * @param value
+	 *            The value, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeDataValue(EDataType type, Object value) throws IOException {
+		if (value == null) {
+			writeString(null);
+		} else {
+			writeString(EcoreUtil.convertToString(type, value));
+		}
+	}
+
+	/**
+	 * Writes a string, preceded by its content the first time.
+	 *
+	 * @param value
+	 *            The string, may be <code>null</code>.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeString(String value) throws IOException {
+		if (value == null) {
+			writeVarInt(0);
+			return;
+		}
+		final Integer index = strings.get(value);
+		if (index != null) {
+			writeVarInt(index.intValue());
+			return;
+		}
+		final int newIndex = strings.size() + 1;
+		strings.put(value, Integer.valueOf(newIndex));
+		writeVarInt(newIndex);
+		output.writeUTF(value);
+	}
+
+	/**
+	 * Writes a positive integer on as few bytes as needed, seven bits per byte.
+	 *
+	 * @param value
+	 *            The integer.
+	 * @throws IOException
+	 *             If it cannot be written.
+	 */
+	private void writeVarInt(int value) throws IOException {
+		int remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			output.writeByte((remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		output.writeByte(remaining);
+	}
+
+	/**
+	 * Returns the features of the given class whose values are written.
+	 *
+	 * @param eClass
+	 *            The class.
+	 * @return Its stored features, in the order of {@link EClass#getEAllStructuralFeatures()}.
+	 */
+	private List<EStructuralFeature> getStoredFeatures(EClass eClass) {
+		List<EStructuralFeature> features = storedFeatures.get(eClass);
+		if (features == null) {
+			features = Lists.newArrayList();
+			for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+				if (ComparisonSnapshot.isStored(feature)) {
+					features.add(feature);
+				}
+			}
+			storedFeatures.put(eClass, features);
+		}
+		return features;
+	}
+
+	/**
+	 * Returns the values of a reference as a list.
+	 *
+	 * @param eObject
+	 *            The object holding the reference.
+	 * @param reference
+	 *            The reference.
+	 * @return Its values.
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<EObject> getReferencedObjects(EObject eObject, EReference reference) {
+		final Object value = eObject.eGet(reference);
+		if (reference.isMany()) {
+			return (List<EObject>)value;
+		} else if (value == null) {
+			return Lists.newArrayList();
+		}
+		return Lists.newArrayList((EObject)value);
+	}
+}